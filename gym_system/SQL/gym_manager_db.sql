@@ -9,6 +9,8 @@ USE gym_manager;
 CREATE USER IF NOT EXISTS 'gm_app'@'localhost' IDENTIFIED BY '12345';
 GRANT SELECT, INSERT, UPDATE, DELETE ON gym_manager.* TO 'gm_app'@'localhost';
 
+-- Bancos criados por uma versão anterior deste script: aplicar também SQL/migracoes/, em ordem.
+
 -- ----------------------
 -- Tabelas
 -- ----------------------
@@ -81,17 +83,56 @@ CREATE TABLE IF NOT EXISTS Frequencia (
   idFrequencia INT UNSIGNED NOT NULL AUTO_INCREMENT,
   Aluno_idAluno INT UNSIGNED NOT NULL,
   data_checkin DATE NOT NULL,
+  entrada DATETIME NULL,  -- passada na catraca; NULL em lançamentos sem horário
+  saida DATETIME NULL,
   PRIMARY KEY (idFrequencia),
   CONSTRAINT fk_freq_aluno FOREIGN KEY (Aluno_idAluno)
+    REFERENCES Aluno (idAluno)
+    ON DELETE CASCADE,
+  CONSTRAINT chk_freq_entrada_dia CHECK (entrada IS NULL OR DATE(entrada) = data_checkin),
+  CONSTRAINT chk_freq_saida CHECK (saida IS NULL OR (entrada IS NOT NULL AND saida >= entrada))
+) ENGINE=InnoDB;
+
+-- Resumos de frequência (atualizados na mesma transação de cada check-in; a aplicação
+-- pode reconstruí-los a partir de Frequencia)
+CREATE TABLE IF NOT EXISTS FrequenciaMensalAluno (
+  Aluno_idAluno INT UNSIGNED NOT NULL,
+  mes DATE NOT NULL,  -- primeiro dia do mês
+  total INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (Aluno_idAluno, mes),
+  CONSTRAINT fk_fma_aluno FOREIGN KEY (Aluno_idAluno)
     REFERENCES Aluno (idAluno)
     ON DELETE CASCADE
 ) ENGINE=InnoDB;
 
+CREATE TABLE IF NOT EXISTS FrequenciaDiaria (
+  dia DATE NOT NULL,
+  total INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (dia)
+) ENGINE=InnoDB;
+
+-- Risco de evasão (recalculado pelo job noturno; uma linha por aluno com acesso liberado)
+CREATE TABLE IF NOT EXISTS RiscoEvasao (
+  Aluno_idAluno INT UNSIGNED NOT NULL,
+  pontuacao TINYINT UNSIGNED NOT NULL,  -- 0 (sem risco) a 100
+  dias_sem_checkin INT NULL,            -- NULL: nunca fez check-in
+  visitas_recentes INT NOT NULL,        -- últimos 30 dias
+  visitas_anteriores INT NOT NULL,      -- os 30 dias antes desses
+  pagamentos_atrasados INT NOT NULL,
+  dias_para_fim INT NULL,               -- até o fim da assinatura ATIVA mais longa
+  calculado_em DATETIME NOT NULL,
+  PRIMARY KEY (Aluno_idAluno),
+  CONSTRAINT fk_risco_aluno FOREIGN KEY (Aluno_idAluno)
+    REFERENCES Aluno (idAluno)
+    ON DELETE CASCADE,
+  CONSTRAINT chk_risco_pontuacao CHECK (pontuacao <= 100)
+) ENGINE=InnoDB;
+
 -- Treino
 CREATE TABLE IF NOT EXISTS Treino (
   idTreino INT UNSIGNED NOT NULL AUTO_INCREMENT,
   titulo VARCHAR(30) NOT NULL,
-  data_criacao DATE,
+  data_criacao DATE NOT NULL DEFAULT (CURRENT_DATE),
   ativo TINYINT(1) NOT NULL DEFAULT 1,
   Instrutor_idInstrutor INT UNSIGNED NOT NULL,
   Aluno_idAluno INT UNSIGNED NOT NULL,
@@ -129,6 +170,14 @@ CREATE TABLE IF NOT EXISTS TreinoExercicio (
   CHECK (descanso_seg BETWEEN 0 AND 300)
 ) ENGINE=InnoDB;
 
+-- VersaoCache (uma linha por tabela cacheada; cada escrita incrementa a versão e as
+-- outras instâncias da aplicação invalidam o cache dessa tabela)
+CREATE TABLE IF NOT EXISTS VersaoCache (
+  tabela VARCHAR(40) NOT NULL,
+  versao BIGINT UNSIGNED NOT NULL DEFAULT 0,
+  PRIMARY KEY (tabela)
+) ENGINE=InnoDB;
+
 -- ----------------------
 -- Restrições e Índices
 -- ----------------------
@@ -162,11 +211,18 @@ CREATE INDEX idx_pag_comp    ON Pagamento (competencia);
 CREATE INDEX idx_freq_aluno  ON Frequencia (Aluno_idAluno);
 CREATE INDEX idx_freq_data   ON Frequencia (data_checkin);
 
+-- FrequenciaMensalAluno (reconstrução por mês apaga/trava só as linhas do mês)
+CREATE INDEX idx_fma_mes     ON FrequenciaMensalAluno (mes, Aluno_idAluno);
+
+-- RiscoEvasao
+CREATE INDEX idx_risco_pontuacao ON RiscoEvasao (pontuacao);
+CREATE INDEX idx_risco_calculo   ON RiscoEvasao (calculado_em);
+
 -- Treino
 CREATE INDEX idx_treino_ativo     ON Treino (ativo);
-CREATE INDEX idx_treino_instrutor ON Treino (Instrutor_idInstrutor);
-CREATE INDEX idx_treino_aluno     ON Treino (Aluno_idAluno);
-CREATE INDEX idx_treino_data      ON Treino (data_criacao);
+CREATE INDEX idx_treino_instrutor_data ON Treino (Instrutor_idInstrutor, data_criacao);
+CREATE INDEX idx_treino_aluno_data     ON Treino (Aluno_idAluno, data_criacao);
+CREATE INDEX idx_treino_data           ON Treino (data_criacao);
 
 -- Buscas por nome
 CREATE INDEX idx_exercicio_nome   ON Exercicio (nome);
@@ -245,6 +301,17 @@ INSERT INTO Frequencia (Aluno_idAluno, data_checkin) VALUES
   (@idAluno_Maria, '2025-10-14'),
   (@idAluno_Pedro, '2025-06-05');  -- histórico
 
+-- Resumos dos check-ins acima (daqui em diante a aplicação mantém)
+INSERT INTO FrequenciaMensalAluno (Aluno_idAluno, mes, total)
+SELECT Aluno_idAluno, DATE_FORMAT(data_checkin, '%Y-%m-01'), COUNT(*)
+FROM Frequencia
+GROUP BY Aluno_idAluno, DATE_FORMAT(data_checkin, '%Y-%m-01');
+
+INSERT INTO FrequenciaDiaria (dia, total)
+SELECT data_checkin, COUNT(*)
+FROM Frequencia
+GROUP BY data_checkin;
+
 -- Exercícios
 INSERT INTO Exercicio (nome, grupo_muscular) VALUES
   ('Supino Reto',        'Peito'),
@@ -0,0 +1,18 @@
+-- ======================================================================
+-- Treino.data_criacao obrigatória
+-- A paginação de treinos ordena por (data_criacao, idTreino); sem NULLs o
+-- ORDER BY e o cursor usam a coluna direto e os índices abaixo atendem cada página.
+-- ======================================================================
+USE gym_manager;
+
+-- Treinos sem data ficavam no fim da listagem: recebem a data mais antiga existente
+SET @mais_antiga = (SELECT COALESCE(MIN(data_criacao), CURRENT_DATE) FROM Treino);
+UPDATE Treino SET data_criacao = @mais_antiga WHERE data_criacao IS NULL;
+
+ALTER TABLE Treino MODIFY data_criacao DATE NOT NULL DEFAULT (CURRENT_DATE);
+
+-- Listagens por aluno/instrutor já saem na ordem do índice (os novos também atendem as FKs)
+CREATE INDEX idx_treino_instrutor_data ON Treino (Instrutor_idInstrutor, data_criacao);
+CREATE INDEX idx_treino_aluno_data     ON Treino (Aluno_idAluno, data_criacao);
+DROP INDEX idx_treino_instrutor ON Treino;
+DROP INDEX idx_treino_aluno     ON Treino;
@@ -0,0 +1,40 @@
+-- ======================================================================
+-- Resumos de frequência: FrequenciaMensalAluno e FrequenciaDiaria
+-- A versão que mantém os resumos grava neles na mesma transação de cada
+-- check-in; sem as tabelas, todo check-in falha. Rodar com a aplicação
+-- parada, antes de subir essa versão: a carga abaixo parte dos check-ins
+-- existentes. Se algum check-in entrar entre a carga e a subida, refazer
+-- pelo menu Frequências > "Reconstruir resumos de frequência".
+-- A carga pode ser repetida: recalcula os totais em vez de somar.
+-- ======================================================================
+USE gym_manager;
+
+CREATE TABLE IF NOT EXISTS FrequenciaMensalAluno (
+  Aluno_idAluno INT UNSIGNED NOT NULL,
+  mes DATE NOT NULL,  -- primeiro dia do mês
+  total INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (Aluno_idAluno, mes),
+  CONSTRAINT fk_fma_aluno FOREIGN KEY (Aluno_idAluno)
+    REFERENCES Aluno (idAluno)
+    ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS FrequenciaDiaria (
+  dia DATE NOT NULL,
+  total INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (dia)
+) ENGINE=InnoDB;
+
+INSERT INTO FrequenciaMensalAluno (Aluno_idAluno, mes, total)
+SELECT c.Aluno_idAluno, c.mes, c.total
+  FROM (SELECT Aluno_idAluno, DATE_FORMAT(data_checkin, '%Y-%m-01') AS mes, COUNT(*) AS total
+          FROM Frequencia
+         GROUP BY Aluno_idAluno, DATE_FORMAT(data_checkin, '%Y-%m-01')) c
+ON DUPLICATE KEY UPDATE total = c.total;
+
+INSERT INTO FrequenciaDiaria (dia, total)
+SELECT c.dia, c.total
+  FROM (SELECT data_checkin AS dia, COUNT(*) AS total
+          FROM Frequencia
+         GROUP BY data_checkin) c
+ON DUPLICATE KEY UPDATE total = c.total;
@@ -0,0 +1,10 @@
+-- ======================================================================
+-- Índice por mês em FrequenciaMensalAluno
+-- A reconstrução dos resumos apaga e regrava um mês por transação
+-- (DELETE ... WHERE mes = ?). Sem índice começando por mes, o DELETE varre
+-- e trava a tabela inteira, e os meses reconstruídos em paralelo e os
+-- check-ins concorrentes esperam uns pelos outros.
+-- ======================================================================
+USE gym_manager;
+
+CREATE INDEX idx_fma_mes ON FrequenciaMensalAluno (mes, Aluno_idAluno);
@@ -0,0 +1,13 @@
+-- ======================================================================
+-- Horários de entrada e saída em Frequencia
+-- Todas as consultas e gravações de check-in do FrequenciaDao usam as duas
+-- colunas: rodar antes de subir a versão que registra a saída e a ocupação.
+-- Check-ins existentes ficam sem horário (NULL), como lançamentos manuais.
+-- ======================================================================
+USE gym_manager;
+
+ALTER TABLE Frequencia
+  ADD COLUMN entrada DATETIME NULL AFTER data_checkin,  -- passada na catraca; NULL em lançamentos sem horário
+  ADD COLUMN saida DATETIME NULL AFTER entrada,
+  ADD CONSTRAINT chk_freq_entrada_dia CHECK (entrada IS NULL OR DATE(entrada) = data_checkin),
+  ADD CONSTRAINT chk_freq_saida CHECK (saida IS NULL OR (entrada IS NOT NULL AND saida >= entrada));
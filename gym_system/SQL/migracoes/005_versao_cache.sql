@@ -0,0 +1,13 @@
+-- ======================================================================
+-- VersaoCache: coerência dos caches entre instâncias
+-- Cada escrita confirmada incrementa a versão da tabela alterada; as outras
+-- instâncias leem as versões periodicamente e invalidam só os caches dessa
+-- tabela. As linhas são criadas pela própria aplicação na primeira escrita.
+-- ======================================================================
+USE gym_manager;
+
+CREATE TABLE IF NOT EXISTS VersaoCache (
+  tabela VARCHAR(40) NOT NULL,
+  versao BIGINT UNSIGNED NOT NULL DEFAULT 0,
+  PRIMARY KEY (tabela)
+) ENGINE=InnoDB;
@@ -0,0 +1,25 @@
+-- ======================================================================
+-- RiscoEvasao: pontuação de risco de evasão por aluno
+-- Preenchida pelo job noturno (ou pelo menu Risco de evasão > Calcular agora);
+-- até o primeiro cálculo as consultas simplesmente não encontram linhas.
+-- ======================================================================
+USE gym_manager;
+
+CREATE TABLE IF NOT EXISTS RiscoEvasao (
+  Aluno_idAluno INT UNSIGNED NOT NULL,
+  pontuacao TINYINT UNSIGNED NOT NULL,  -- 0 (sem risco) a 100
+  dias_sem_checkin INT NULL,            -- NULL: nunca fez check-in
+  visitas_recentes INT NOT NULL,        -- últimos 30 dias
+  visitas_anteriores INT NOT NULL,      -- os 30 dias antes desses
+  pagamentos_atrasados INT NOT NULL,
+  dias_para_fim INT NULL,               -- até o fim da assinatura ATIVA mais longa
+  calculado_em DATETIME NOT NULL,
+  PRIMARY KEY (Aluno_idAluno),
+  CONSTRAINT fk_risco_aluno FOREIGN KEY (Aluno_idAluno)
+    REFERENCES Aluno (idAluno)
+    ON DELETE CASCADE,
+  CONSTRAINT chk_risco_pontuacao CHECK (pontuacao <= 100)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_risco_pontuacao ON RiscoEvasao (pontuacao);
+CREATE INDEX idx_risco_calculo   ON RiscoEvasao (calculado_em);
@@ -1,44 +1,134 @@
 package com.br.inatel;
 
+import com.br.inatel.busca.BuscaAlunos;
+import com.br.inatel.busca.BuscaExercicios;
+import com.br.inatel.analise.AnaliseFrequencia;
+import com.br.inatel.cache.Aquecimento;
+import com.br.inatel.cache.CatalogoPlanos;
+import com.br.inatel.cache.CacheEntidades;
+import com.br.inatel.cache.CheckinsDoDia;
+import com.br.inatel.cache.CoerenciaCaches;
+import com.br.inatel.cache.LeituraCacheada;
+import com.br.inatel.cache.MembrosAtivos;
+import com.br.inatel.cache.OcupacaoAcademia;
 import com.br.inatel.config.ConexaoBD;
+import com.br.inatel.config.GerenciadorTransacao;
 import com.br.inatel.controller.*;
 import com.br.inatel.dao.*;
+import com.br.inatel.model.*;
 import com.br.inatel.service.*;
 import com.br.inatel.service.impl.*;
 
-import java.sql.Connection;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
 
 public class Main {
 
     public static void main(String[] args) {
         Scanner sc = new Scanner(System.in);
-        Connection conn = null;
+        Aquecimento aquecimento = new Aquecimento();
+        IngestaoCheckins ingestao = null;
 
         try {
-            conn = ConexaoBD.obterConexao();
+            DataSource ds = ConexaoBD.obterDataSource();
+            ds.getConnection().close();
+            System.out.println("✅ Conexão com o banco estabelecida com sucesso!");
+
+            // Os DAOs usam o DataSource do gerenciador: dentro de uma transação aberta pelo service
+            // eles compartilham a conexão dela; fora, pegam uma conexão do pool por operação.
+            GerenciadorTransacao tx = new GerenciadorTransacao(ds);
+            DataSource daoDs = tx.getDataSource();
+
+            // ===== CACHES DE LEITURA POR ID (gym.cache.<entidade>.ativo/maximo/ttlSeg) =====
+            LeituraCacheada<Aluno> cacheAluno = LeituraCacheada.configurada("aluno", AlunoDao::copiar, tx);
+            LeituraCacheada<Instrutor> cacheInstrutor = LeituraCacheada.configurada("instrutor", InstrutorDao::copiar, tx);
+            LeituraCacheada<Assinatura> cacheAssinatura = LeituraCacheada.configurada("assinatura", AssinaturaDao::copiar, tx);
+            LeituraCacheada<Exercicio> cacheExercicio = LeituraCacheada.configurada("exercicio", ExercicioDao::copiar, tx);
+            LeituraCacheada<Treino> cacheTreino = LeituraCacheada.configurada("treino", TreinoDao::copiar, tx);
+            // A ficha é imutável: o cache entrega a mesma instância, sem cópia
+            LeituraCacheada<FichaTreino> cacheFicha = LeituraCacheada.configurada("ficha", UnaryOperator.identity(), tx);
+            List<LeituraCacheada<?>> caches = List.of(cacheAluno, cacheInstrutor, cacheAssinatura, cacheExercicio, cacheTreino, cacheFicha);
 
             // ===== INSTANCIA DAOs =====
-            AlunoDao alunoDao = new AlunoDao(conn);
-            InstrutorDao instrutorDao = new InstrutorDao(conn);
-            PlanoDao planoDao = new PlanoDao(conn);
-            AssinaturaDao assinaturaDao = new AssinaturaDao(conn);
-            PagamentoDao pagamentoDao = new PagamentoDao(conn);
-            ExercicioDao exercicioDao = new ExercicioDao(conn);
-            TreinoDao treinoDao = new TreinoDao(conn);
-            TreinoExercicioDao treinoExercicioDao = new TreinoExercicioDao(conn);
-            FrequenciaDao frequenciaDao = new FrequenciaDao(conn);
+            AlunoDao alunoDao = new AlunoDao(daoDs, cacheAluno);
+            InstrutorDao instrutorDao = new InstrutorDao(daoDs, cacheInstrutor);
+            PlanoDao planoDao = new PlanoDao(daoDs);
+            AssinaturaDao assinaturaDao = new AssinaturaDao(daoDs, cacheAssinatura);
+            PagamentoDao pagamentoDao = new PagamentoDao(daoDs);
+            ExercicioDao exercicioDao = new ExercicioDao(daoDs, cacheExercicio);
+            TreinoDao treinoDao = new TreinoDao(daoDs, cacheTreino);
+            TreinoExercicioDao treinoExercicioDao = new TreinoExercicioDao(daoDs);
+            FrequenciaDao frequenciaDao = new FrequenciaDao(daoDs);
+            ResumoFrequenciaDao resumoFrequenciaDao = new ResumoFrequenciaDao(daoDs);
+            VersaoCacheDao versaoCacheDao = new VersaoCacheDao(daoDs);
+            RiscoEvasaoDao riscoEvasaoDao = new RiscoEvasaoDao(daoDs);
 
             // ===== INSTANCIA Services =====
-            AlunoService alunoService = new AlunoServiceImpl(alunoDao);
-            InstrutorService instrutorService = new InstrutorServiceImpl(instrutorDao);
-            PlanoService planoService = new PlanoServiceImpl(planoDao);
-            AssinaturaService assinaturaService = new AssinaturaServiceImpl(assinaturaDao, alunoDao, planoDao);
-            PagamentoService pagamentoService = new PagamentoServiceImpl(pagamentoDao, assinaturaDao);
-            ExercicioService exercicioService = new ExercicioServiceImpl(exercicioDao);
-            TreinoService treinoService = new TreinoServiceImpl(treinoDao, instrutorDao, alunoDao);
-            TreinoExercicioService treinoExercicioService = new TreinoExercicioServiceImpl(treinoExercicioDao, treinoDao, exercicioDao);
-            FrequenciaService frequenciaService = new FrequenciaServiceImpl(frequenciaDao, alunoDao);
+            CatalogoPlanos catalogoPlanos = new CatalogoPlanos(planoDao);
+            MembrosAtivos membrosAtivos = new MembrosAtivos(assinaturaDao);
+            membrosAtivos.iniciarReconciliacaoPeriodica();
+            CheckinsDoDia checkinsDoDia = new CheckinsDoDia(frequenciaDao);
+            OcupacaoAcademia ocupacao = new OcupacaoAcademia(frequenciaDao);
+            BuscaAlunos buscaAlunos = new BuscaAlunos(alunoDao);
+            buscaAlunos.reconstruirEmSegundoPlano();
+            BuscaExercicios buscaExercicios = new BuscaExercicios(exercicioDao);
+            AnaliseFrequencia analiseFrequencia = new AnaliseFrequencia(frequenciaDao, assinaturaDao);
+            analiseFrequencia.iniciarRecargaPeriodica();
+            // Escritas feitas por outras instâncias invalidam só os caches da tabela alterada
+            CoerenciaCaches coerencia = new CoerenciaCaches(versaoCacheDao);
+            coerencia.registrar(CoerenciaCaches.ALUNO, cacheAluno::invalidarTudo);
+            coerencia.registrar(CoerenciaCaches.ALUNO, buscaAlunos::reconstruirEmSegundoPlano);
+            coerencia.registrar(CoerenciaCaches.ALUNO, () -> reconciliarMembros(membrosAtivos));
+            coerencia.registrar(CoerenciaCaches.INSTRUTOR, cacheInstrutor::invalidarTudo);
+            coerencia.registrar(CoerenciaCaches.PLANO, catalogoPlanos::invalidar);
+            coerencia.registrar(CoerenciaCaches.ASSINATURA, cacheAssinatura::invalidarTudo);
+            coerencia.registrar(CoerenciaCaches.ASSINATURA, () -> reconciliarMembros(membrosAtivos));
+            coerencia.registrar(CoerenciaCaches.EXERCICIO, cacheExercicio::invalidarTudo);
+            coerencia.registrar(CoerenciaCaches.EXERCICIO, buscaExercicios::invalidar);
+            coerencia.registrar(CoerenciaCaches.TREINO, cacheTreino::invalidarTudo);
+            coerencia.registrar(CoerenciaCaches.TREINO, cacheFicha::invalidarTudo);
+            coerencia.registrar(CoerenciaCaches.TREINO_EXERCICIO, cacheFicha::invalidarTudo);
+            coerencia.iniciar();
+
+            // ===== AQUECIMENTO (antes de aceitar operações) =====
+            CompletableFuture<Void> ocupacaoSemeada = new CompletableFuture<>();
+            aquecimento
+                    .etapa("catálogo de planos", catalogoPlanos::recarregar)
+                    .etapa("catálogo de exercícios", buscaExercicios::carregar)
+                    .etapa("membros ativos", membrosAtivos::reconciliar)
+                    .etapa("check-ins de hoje", checkinsDoDia::semear)
+                    .etapa("ocupação de hoje", () -> {
+                        try {
+                            ocupacao.semear();
+                        } finally {
+                            ocupacaoSemeada.complete(null);
+                        }
+                    })
+                    .etapa("análise de frequência", analiseFrequencia::recarregar);
+            if (!aquecimento.executar() && !aquecimento.pronta()) {
+                System.err.println("⚠️ Instância fora de rotação até o aquecimento completar sem falhas.");
+            }
+
+            // Passadas gravadas antes de a semeadura ler o banco seriam contadas duas vezes na ocupação
+            ocupacaoSemeada.join();
+            ingestao = new IngestaoCheckins(frequenciaDao, resumoFrequenciaDao, alunoDao, checkinsDoDia, analiseFrequencia, ocupacao, tx);
+            ingestao.iniciar();
+            HidratadorEntidades hidratador = new HidratadorEntidades(alunoDao, instrutorDao, assinaturaDao);
+            AlunoService alunoService = new AlunoServiceImpl(alunoDao, buscaAlunos, membrosAtivos, coerencia, tx);
+            InstrutorService instrutorService = new InstrutorServiceImpl(instrutorDao, coerencia, tx);
+            PlanoService planoService = new PlanoServiceImpl(planoDao, catalogoPlanos, coerencia, tx);
+            AssinaturaService assinaturaService = new AssinaturaServiceImpl(assinaturaDao, alunoDao, planoDao, catalogoPlanos, membrosAtivos, coerencia, tx);
+            PagamentoService pagamentoService = new PagamentoServiceImpl(pagamentoDao, assinaturaDao, hidratador, tx);
+            ExercicioService exercicioService = new ExercicioServiceImpl(exercicioDao, buscaExercicios, coerencia, tx);
+            TreinoService treinoService = new TreinoServiceImpl(treinoDao, instrutorDao, alunoDao, hidratador, cacheFicha, coerencia, tx);
+            TreinoExercicioService treinoExercicioService = new TreinoExercicioServiceImpl(treinoExercicioDao, treinoDao, exercicioDao, hidratador, cacheFicha, coerencia, tx);
+            FrequenciaService frequenciaService = new FrequenciaServiceImpl(frequenciaDao, resumoFrequenciaDao, alunoDao, membrosAtivos, checkinsDoDia, ingestao, analiseFrequencia, ocupacao, tx);
+            RiscoEvasaoServiceImpl riscoEvasaoService = new RiscoEvasaoServiceImpl(riscoEvasaoDao, assinaturaDao, frequenciaDao, pagamentoDao, tx);
+            riscoEvasaoService.agendarExecucaoNoturna();
 
             // ===== INSTANCIA Controllers =====
             AlunoController alunoController = new AlunoController(alunoService, sc);
@@ -50,6 +140,7 @@ public class Main {
             TreinoController treinoController = new TreinoController(treinoService, sc);
             TreinoExercicioController treinoExercicioController = new TreinoExercicioController(treinoExercicioService, sc);
             FrequenciaController frequenciaController = new FrequenciaController(frequenciaService, sc);
+            RiscoEvasaoController riscoEvasaoController = new RiscoEvasaoController(riscoEvasaoService, sc);
 
             // =====  MENU PRINCIPAL =====
             int opcao = -1;
@@ -64,6 +155,8 @@ public class Main {
                 System.out.println("7. Treinos");
                 System.out.println("8. Treino x Exercício");
                 System.out.println("9. Frequências");
+                System.out.println("10. Estatísticas de cache");
+                System.out.println("11. Risco de evasão");
                 System.out.println("0. Sair");
                 System.out.print("Escolha uma opção: ");
 
@@ -80,6 +173,8 @@ public class Main {
                         case 7 -> treinoController.exibirMenu();
                         case 8 -> treinoExercicioController.exibirMenu();
                         case 9 -> frequenciaController.exibirMenu();
+                        case 10 -> exibirEstatisticasCache(caches);
+                        case 11 -> riscoEvasaoController.exibirMenu();
                         case 0 -> System.out.println("Encerrando o sistema... 👋");
                         default -> System.out.println("Opção inválida. Tente novamente.");
                     }
@@ -92,9 +187,35 @@ public class Main {
             System.err.println("❌ Erro fatal: " + e.getMessage());
             e.printStackTrace();
         } finally {
-            // ===== 6. FECHA CONEXÃO =====
-            ConexaoBD.fecharConexao();
+            aquecimento.encerrar();
+            if (ingestao != null) ingestao.encerrar(); // grava o que estiver na fila antes de fechar o pool
+            // ===== 6. FECHA POOL DE CONEXÕES =====
+            ConexaoBD.fecharPool();
             sc.close();
         }
     }
+
+    // A releitura mantém o bitmap atual em uso até terminar
+    private static void reconciliarMembros(MembrosAtivos membrosAtivos) {
+        try {
+            membrosAtivos.reconciliar();
+        } catch (SQLException e) {
+            System.err.println("Falha ao recarregar membros ativos: " + e.getMessage());
+        }
+    }
+
+    private static void exibirEstatisticasCache(List<LeituraCacheada<?>> caches) {
+        System.out.println("\n--- Cache de leitura por id ---");
+        for (LeituraCacheada<?> c : caches) {
+            CacheEntidades.Estatisticas e = c.estatisticas();
+            if (e == null) continue;
+            System.out.printf("%-11s %6d itens | acertos %d, faltas %d (%.1f%%) | despejos %d, expirados %d%n",
+                    e.nome(), e.tamanho(), e.acertos(), e.faltas(), e.taxaAcerto() * 100, e.despejos(), e.expiracoes());
+            CacheEntidades.Estatisticas ausentes = c.estatisticasAusentes();
+            if (ausentes != null) {
+                System.out.printf("%-11s %6d ids inexistentes | consultas evitadas %d%n",
+                        "", ausentes.tamanho(), ausentes.acertos());
+            }
+        }
+    }
 }
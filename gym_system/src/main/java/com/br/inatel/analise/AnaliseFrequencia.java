@@ -0,0 +1,396 @@
+package com.br.inatel.analise;
+
+import com.br.inatel.config.Configuracao;
+import com.br.inatel.dao.AssinaturaDao;
+import com.br.inatel.dao.FrequenciaDao;
+import com.br.inatel.model.CurvaRetencao;
+import com.br.inatel.model.IndicadoresAluno;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Indicadores de frequência por aluno (sequência atual e maior sequência de dias seguidos, visitas nos
+ * últimos 7/30/90 dias) e curvas de retenção por coorte de adesão, calculados em memória.
+ *
+ * <ul>
+ *     <li>{@link #recarregar} monta o estado numa única passada por Frequencia em ordem de (aluno, dia);
+ *     cada aluno ocupa um {@link Estado} de tamanho fixo, qualquer que seja o histórico.</li>
+ *     <li>Os services chamam {@link #registrar} depois do commit de cada check-in, que atualiza o estado do
+ *     aluno sem ir ao banco. Um check-in anterior ao último conhecido do aluno (lançamento retroativo,
+ *     correção) relê só o histórico dele ({@link #recalcular}).</li>
+ *     <li>Aluno não guarda data de cadastro: a coorte é o mês da primeira assinatura e, sem assinatura, o
+ *     mês do primeiro check-in. Alunos com assinatura e sem check-in entram na coorte com retenção zero.</li>
+ *     <li>Check-ins de outras instâncias e assinaturas novas entram na recarga periódica
+ *     ({@code gym.analise.recargaMin}, padrão 60).</li>
+ * </ul>
+ */
+public class AnaliseFrequencia {
+
+    /** Meses depois da adesão acompanhados por aluno (limite das curvas de retenção). */
+    public static final int MESES_RASTREADOS = Long.SIZE;
+
+    private static final int JANELA_DIAS = 2 * Long.SIZE; // visitas recentes guardadas (cobre os 90 dias)
+    private static final int NENHUM = Integer.MIN_VALUE;
+
+    /**
+     * Estado de um aluno. Dias em epochDay, meses em ano * 12 + mês. Os check-ins chegam em ordem de dia;
+     * {@link #registrar} devolve false quando recebe um dia anterior ao último que ainda não conhece.
+     */
+    static final class Estado {
+        final int mesCadastro;          // mês da primeira assinatura, ou NENHUM
+        int mesCoorte;
+        int primeiroDia = NENHUM;
+        int ultimoDia = NENHUM;
+        int sequencia;
+        int maiorSequencia;
+        long recentes0, recentes1;      // bit i: check-in em ultimoDia - i (i < JANELA_DIAS)
+        long mesesAtivos;               // bit k: check-in no mês mesCoorte + k
+
+        Estado(int mesCadastro) {
+            this.mesCadastro = mesCadastro;
+            this.mesCoorte = mesCadastro;
+        }
+
+        boolean registrar(LocalDate data) {
+            int dia = (int) data.toEpochDay();
+            if (ultimoDia == NENHUM) {
+                primeiroDia = ultimoDia = dia;
+                sequencia = maiorSequencia = 1;
+                recentes0 = 1;
+                if (mesCoorte == NENHUM) mesCoorte = mes(data);
+                marcarMes(data);
+                return true;
+            }
+            int avanco = dia - ultimoDia;
+            if (avanco <= 0) return -avanco < JANELA_DIAS && visitou(-avanco); // repetido ou fora de ordem
+
+            sequencia = avanco == 1 ? sequencia + 1 : 1;
+            maiorSequencia = Math.max(maiorSequencia, sequencia);
+            deslocar(avanco);
+            recentes0 |= 1;
+            ultimoDia = dia;
+            marcarMes(data);
+            return true;
+        }
+
+        int sequenciaAtual(int hoje) {
+            return ultimoDia != NENHUM && hoje - ultimoDia <= 1 ? sequencia : 0;
+        }
+
+        /** Check-ins nos {@code janela} dias terminados em {@code hoje}. */
+        int visitas(int janela, int hoje) {
+            if (ultimoDia == NENHUM) return 0;
+            int bits = Math.min(janela - Math.max(0, hoje - ultimoDia), JANELA_DIAS);
+            if (bits <= 0) return 0;
+            if (bits <= Long.SIZE) return Long.bitCount(recentes0 & mascara(bits));
+            return Long.bitCount(recentes0) + Long.bitCount(recentes1 & mascara(bits - Long.SIZE));
+        }
+
+        private boolean visitou(int diasAtras) {
+            long bits = diasAtras < Long.SIZE ? recentes0 : recentes1;
+            return (bits >>> (diasAtras % Long.SIZE) & 1) != 0;
+        }
+
+        private void deslocar(int dias) {
+            if (dias >= JANELA_DIAS) {
+                recentes0 = recentes1 = 0;
+            } else if (dias >= Long.SIZE) {
+                recentes1 = recentes0 << (dias - Long.SIZE);
+                recentes0 = 0;
+            } else {
+                recentes1 = recentes1 << dias | recentes0 >>> (Long.SIZE - dias);
+                recentes0 <<= dias;
+            }
+        }
+
+        private void marcarMes(LocalDate data) {
+            int k = mes(data) - mesCoorte;
+            if (k >= 0 && k < MESES_RASTREADOS) mesesAtivos |= 1L << k;
+        }
+
+        private static long mascara(int bits) {
+            return bits == Long.SIZE ? -1L : (1L << bits) - 1;
+        }
+    }
+
+    /** Check-ins registrados enquanto {@link #recalcular} relê o histórico de um aluno. */
+    private static final class Releitura {
+        int abertas;
+        final List<LocalDate> registrados = new ArrayList<>();
+    }
+
+    private final FrequenciaDao frequenciaDao;
+    private final AssinaturaDao assinaturaDao;
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    private Map<Long, Estado> estados;                          // null até a primeira carga
+    private List<Consumer<Map<Long, Estado>>> pendentes;        // != null enquanto uma recarga lê o banco
+    private final Map<Long, Releitura> relendo = new HashMap<>(); // por aluno, enquanto recalcular lê o banco
+
+    public AnaliseFrequencia(FrequenciaDao frequenciaDao, AssinaturaDao assinaturaDao) {
+        this.frequenciaDao = Objects.requireNonNull(frequenciaDao, "frequenciaDao não pode ser null");
+        this.assinaturaDao = Objects.requireNonNull(assinaturaDao, "assinaturaDao não pode ser null");
+    }
+
+    // ===== CONSULTAS =====
+    public IndicadoresAluno indicadores(long idAluno, LocalDate hoje) throws SQLException {
+        garantirCarregado();
+        trava.readLock().lock();
+        try {
+            if (estados != null) return indicadores(idAluno, estados.get(idAluno), hoje);
+        } finally {
+            trava.readLock().unlock();
+        }
+        // Descartado no meio da carga: calcula só este aluno
+        Estado e = new Estado(NENHUM);
+        for (LocalDate dia : frequenciaDao.diasDoAluno(idAluno)) e.registrar(dia);
+        return indicadores(idAluno, e, hoje);
+    }
+
+    /**
+     * Uma curva por mês de adesão, da coorte mais antiga à mais recente, com até {@code meses} pontos
+     * (no máximo {@link #MESES_RASTREADOS}).
+     */
+    public List<CurvaRetencao> retencaoPorCoorte(int meses, YearMonth atual) throws SQLException {
+        int limite = Math.min(Math.max(1, meses), MESES_RASTREADOS);
+        garantirCarregado();
+        trava.readLock().lock();
+        try {
+            if (estados != null) return curvas(estados, limite, atual);
+        } finally {
+            trava.readLock().unlock();
+        }
+        return curvas(ler(), limite, atual);
+    }
+
+    // ===== SINCRONIZAÇÃO COM AS ESCRITAS =====
+    /** Incorpora um check-in gravado (depois do commit). */
+    public void registrar(long idAluno, LocalDate dia) {
+        boolean emOrdem;
+        trava.writeLock().lock();
+        try {
+            if (pendentes != null) pendentes.add(m -> aplicar(m, idAluno, dia));
+            Releitura r = relendo.get(idAluno);
+            if (r != null) r.registrados.add(dia);
+            emOrdem = estados == null || aplicar(estados, idAluno, dia);
+        } finally {
+            trava.writeLock().unlock();
+        }
+        if (!emOrdem) recalcular(idAluno);
+    }
+
+    /**
+     * Refaz o estado do aluno a partir do histórico dele (check-in retroativo, check-in movido de data ou de
+     * aluno). Check-ins registrados durante a leitura são reaplicados sobre o histórico lido; se algum deles
+     * não couber em ordem (a leitura não o viu, mas viu um posterior), o aluno é relido de novo. Se a
+     * consulta falhar, o estado inteiro é descartado e recarregado no próximo uso.
+     */
+    public void recalcular(long idAluno) {
+        Releitura releitura;
+        trava.writeLock().lock();
+        try {
+            releitura = relendo.computeIfAbsent(idAluno, k -> new Releitura());
+            releitura.abertas++;
+        } finally {
+            trava.writeLock().unlock();
+        }
+
+        List<LocalDate> dias;
+        try {
+            dias = frequenciaDao.diasDoAluno(idAluno);
+        } catch (SQLException e) {
+            System.err.println("Falha ao recalcular frequência do aluno " + idAluno + " (" + e.getMessage() + "); a análise será recarregada.");
+            trava.writeLock().lock();
+            try {
+                fecharReleitura(idAluno, releitura);
+            } finally {
+                trava.writeLock().unlock();
+            }
+            descartar();
+            return;
+        }
+
+        boolean emOrdem = true;
+        trava.writeLock().lock();
+        try {
+            List<LocalDate> registrados = fecharReleitura(idAluno, releitura);
+            Consumer<Map<Long, Estado>> refazer = m -> {
+                substituir(m, idAluno, dias);
+                for (LocalDate dia : registrados) aplicar(m, idAluno, dia);
+            };
+            if (estados != null) {
+                substituir(estados, idAluno, dias);
+                for (LocalDate dia : registrados) emOrdem &= aplicar(estados, idAluno, dia);
+            }
+            if (pendentes != null) pendentes.add(refazer);
+        } finally {
+            trava.writeLock().unlock();
+        }
+        if (!emOrdem) recalcular(idAluno);
+    }
+
+    /** Encerra uma leitura de {@link #recalcular} (com a trava de escrita) e devolve o que foi registrado nela. */
+    private List<LocalDate> fecharReleitura(long idAluno, Releitura releitura) {
+        List<LocalDate> registrados = List.copyOf(releitura.registrados);
+        if (--releitura.abertas == 0) relendo.remove(idAluno);
+        return registrados;
+    }
+
+    // ===== CARGA =====
+    /** Relê adesões e check-ins e troca o estado; devolve quantos alunos foram carregados. */
+    public synchronized int recarregar() throws SQLException {
+        trava.writeLock().lock();
+        try {
+            pendentes = new ArrayList<>();
+        } finally {
+            trava.writeLock().unlock();
+        }
+
+        Map<Long, Estado> novo;
+        try {
+            novo = ler();
+        } catch (SQLException | RuntimeException e) {
+            trava.writeLock().lock();
+            try {
+                pendentes = null;
+            } finally {
+                trava.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        trava.writeLock().lock();
+        try {
+            if (pendentes == null) return 0; // descartado durante a leitura: o que foi lido pode estar velho
+            for (Consumer<Map<Long, Estado>> p : pendentes) p.accept(novo);
+            pendentes = null;
+            estados = novo;
+            return novo.size();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /** Recarrega a cada {@code gym.analise.recargaMin} minutos (padrão 60) numa thread daemon. */
+    public void iniciarRecargaPeriodica() {
+        long intervalo = Math.max(1, Configuracao.longo("gym.analise.recargaMin", 60));
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "recarga-analise-frequencia");
+            t.setDaemon(true);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                recarregar();
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Falha na recarga da análise de frequência: " + e.getMessage());
+            }
+        }, intervalo, intervalo, TimeUnit.MINUTES);
+    }
+
+    /** A passada única: adesões primeiro, depois os check-ins em ordem de (aluno, dia). */
+    private Map<Long, Estado> ler() throws SQLException {
+        Map<Long, Estado> novo = new HashMap<>();
+        for (Map.Entry<Long, LocalDate> a : assinaturaDao.inicioPorAluno().entrySet()) {
+            novo.put(a.getKey(), new Estado(mes(a.getValue())));
+        }
+
+        long[] idAtual = {-1};
+        Estado[] atual = {null};
+        frequenciaDao.percorrerDiasPorAluno((idAluno, dia) -> {
+            if (idAluno != idAtual[0]) {
+                idAtual[0] = idAluno;
+                atual[0] = novo.computeIfAbsent(idAluno, k -> new Estado(NENHUM));
+            }
+            atual[0].registrar(dia);
+        });
+        return novo;
+    }
+
+    private void garantirCarregado() throws SQLException {
+        if (carregado()) return;
+        synchronized (this) {
+            if (!carregado()) recarregar();
+        }
+    }
+
+    private boolean carregado() {
+        trava.readLock().lock();
+        try {
+            return estados != null;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    private void descartar() {
+        trava.writeLock().lock();
+        try {
+            estados = null;
+            pendentes = null;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private static boolean aplicar(Map<Long, Estado> m, long idAluno, LocalDate dia) {
+        return m.computeIfAbsent(idAluno, k -> new Estado(NENHUM)).registrar(dia);
+    }
+
+    private static void substituir(Map<Long, Estado> m, long idAluno, List<LocalDate> dias) {
+        Estado anterior = m.get(idAluno);
+        Estado e = new Estado(anterior != null ? anterior.mesCadastro : NENHUM);
+        for (LocalDate dia : dias) e.registrar(dia);
+        if (e.ultimoDia == NENHUM && e.mesCadastro == NENHUM) m.remove(idAluno);
+        else m.put(idAluno, e);
+    }
+
+    private static IndicadoresAluno indicadores(long idAluno, Estado e, LocalDate hoje) {
+        if (e == null || e.ultimoDia == NENHUM) return new IndicadoresAluno(idAluno, 0, 0, 0, 0, 0, null, null);
+        int h = (int) hoje.toEpochDay();
+        return new IndicadoresAluno(idAluno, e.sequenciaAtual(h), e.maiorSequencia,
+                e.visitas(7, h), e.visitas(30, h), e.visitas(90, h),
+                LocalDate.ofEpochDay(e.primeiroDia), LocalDate.ofEpochDay(e.ultimoDia));
+    }
+
+    private static List<CurvaRetencao> curvas(Map<Long, Estado> estados, int meses, YearMonth atual) {
+        int mesAtual = atual.getYear() * 12 + atual.getMonthValue() - 1;
+        Map<Integer, int[]> porCoorte = new TreeMap<>(); // [0] = alunos, [1 + k] = ativos no mês k
+        for (Estado e : estados.values()) {
+            if (e.mesCoorte == NENHUM || e.mesCoorte > mesAtual) continue;
+            int[] c = porCoorte.computeIfAbsent(e.mesCoorte, k -> new int[meses + 1]);
+            c[0]++;
+            for (long bits = e.mesesAtivos; bits != 0; bits &= bits - 1) {
+                int k = Long.numberOfTrailingZeros(bits);
+                if (k < meses) c[1 + k]++;
+            }
+        }
+
+        List<CurvaRetencao> curvas = new ArrayList<>(porCoorte.size());
+        for (Map.Entry<Integer, int[]> c : porCoorte.entrySet()) {
+            int[] totais = c.getValue();
+            int pontos = Math.min(meses, mesAtual - c.getKey() + 1);
+            List<Double> retencao = new ArrayList<>(pontos);
+            for (int k = 0; k < pontos; k++) retencao.add((double) totais[1 + k] / totais[0]);
+            curvas.add(new CurvaRetencao(YearMonth.of(c.getKey() / 12, c.getKey() % 12 + 1), totais[0], retencao));
+        }
+        return curvas;
+    }
+
+    private static int mes(LocalDate data) {
+        return data.getYear() * 12 + data.getMonthValue() - 1;
+    }
+}
@@ -0,0 +1,142 @@
+package com.br.inatel.busca;
+
+import com.br.inatel.config.Configuracao;
+import com.br.inatel.dao.AlunoDao;
+import com.br.inatel.model.Aluno;
+import com.br.inatel.model.Pagina;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Busca de alunos da recepção: nome (palavras, prefixos e trigramas, sem acento) e telefone (só dígitos).
+ * O índice guarda apenas id, nome e telefone; o service busca os dados atuais dos ids encontrados.
+ *
+ * <p>O índice é montado em segundo plano, lendo a tabela por páginas; enquanto não fica pronto, o service
+ * usa a consulta no banco. Escritas que acontecem durante uma reconstrução são reaplicadas no índice novo
+ * antes da troca, então nada se perde.</p>
+ */
+public class BuscaAlunos {
+
+    private static final int LIMITE_RESULTADOS = Math.max(1, Configuracao.inteiro("gym.busca.limite", 50));
+    private static final int TAMANHO_PAGINA_CARGA = 1_000;
+    private static final int MINIMO_DIGITOS_TELEFONE = 3;
+
+    private final AlunoDao dao;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "busca-alunos");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile Indices atual;
+    private Map<Long, Aluno> pendentes; // != null enquanto uma reconstrução está em andamento
+
+    public BuscaAlunos(AlunoDao dao) {
+        this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+    }
+
+    public boolean pronto() {
+        return atual != null;
+    }
+
+    /**
+     * Ids dos alunos mais relevantes para {@code termo}, em ordem. Termo só com dígitos (e separadores
+     * de telefone) procura no telefone; qualquer outro procura no nome.
+     */
+    public List<Long> buscarIds(String termo) {
+        Indices i = atual;
+        if (i == null) throw new IllegalStateException("Índice de alunos ainda não carregado.");
+
+        String digitos = somenteDigitos(termo);
+        boolean porTelefone = digitos.length() >= MINIMO_DIGITOS_TELEFONE
+                && NormalizadorTexto.normalizar(termo).replace(" ", "").equals(digitos);
+        List<Aluno> encontrados = porTelefone
+                ? i.porTelefone.buscar(digitos, LIMITE_RESULTADOS)
+                : i.porNome.buscar(termo, LIMITE_RESULTADOS);
+
+        List<Long> ids = new ArrayList<>(encontrados.size());
+        for (Aluno a : encontrados) ids.add(a.getId());
+        return ids;
+    }
+
+    // ===== SINCRONIZAÇÃO COM AS ESCRITAS =====
+    /** Inclui ou atualiza o aluno no índice (depois do commit). */
+    public synchronized void registrar(Aluno aluno) {
+        Aluno resumo = resumir(aluno);
+        if (atual != null) atual.indexar(resumo);
+        if (pendentes != null) pendentes.put(resumo.getId(), resumo);
+    }
+
+    // ===== RECONSTRUÇÃO =====
+    /** Agenda a releitura completa da tabela; false se já houver uma em andamento. */
+    public synchronized boolean reconstruirEmSegundoPlano() {
+        if (pendentes != null) return false;
+        pendentes = new HashMap<>();
+        executor.execute(() -> {
+            try {
+                int total = reconstruir();
+                System.out.println("🔎 Índice de busca de alunos pronto (" + total + " alunos).");
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Falha ao montar índice de busca de alunos: " + e.getMessage());
+                synchronized (this) {
+                    pendentes = null;
+                }
+            }
+        });
+        return true;
+    }
+
+    private int reconstruir() throws SQLException {
+        Indices novo = new Indices();
+        String cursor = null;
+        do {
+            Pagina<Aluno> pagina = dao.listarTodos(TAMANHO_PAGINA_CARGA, cursor);
+            for (Aluno a : pagina.itens()) novo.indexar(resumir(a));
+            cursor = pagina.proximoCursor();
+        } while (cursor != null);
+
+        synchronized (this) {
+            for (Aluno a : pendentes.values()) novo.indexar(a);
+            pendentes = null;
+            atual = novo;
+        }
+        return novo.porNome.tamanho();
+    }
+
+    private static Aluno resumir(Aluno a) {
+        Aluno r = new Aluno();
+        r.setId(a.getId());
+        r.setNome(a.getNome());
+        r.setTelefone(a.getTelefone());
+        return r;
+    }
+
+    private static String somenteDigitos(String texto) {
+        if (texto == null) return "";
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= '0' && c <= '9') sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static final class Indices {
+        final IndiceTrigramas<Aluno> porNome = new IndiceTrigramas<>(Aluno::getId, Aluno::getNome);
+        // telefone não tolera erro: um dígito trocado é outra pessoa
+        final IndiceTrigramas<Aluno> porTelefone =
+                new IndiceTrigramas<>(Aluno::getId, a -> somenteDigitos(a.getTelefone()), 1.0);
+
+        void indexar(Aluno a) {
+            porNome.indexar(a);
+            porTelefone.indexar(a);
+        }
+    }
+}
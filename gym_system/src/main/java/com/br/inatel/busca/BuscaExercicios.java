@@ -0,0 +1,92 @@
+package com.br.inatel.busca;
+
+import com.br.inatel.config.Configuracao;
+import com.br.inatel.dao.ExercicioDao;
+import com.br.inatel.model.Exercicio;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Busca de exercícios por nome e por grupo muscular em memória, no lugar do
+ * {@code LIKE '%termo%'} que não usa idx_exercicio_nome/idx_exercicio_grupo.
+ * O catálogo é carregado na primeira busca; depois disso o service mantém os índices
+ * com {@link #registrar} e {@link #remover} a cada escrita.
+ */
+public class BuscaExercicios {
+
+    private static final int LIMITE_RESULTADOS = Math.max(1, Configuracao.inteiro("gym.busca.limite", 50));
+
+    private final ExercicioDao dao;
+    private final IndiceTrigramas<Exercicio> porNome = new IndiceTrigramas<>(Exercicio::getId, Exercicio::getNome);
+    private final IndiceTrigramas<Exercicio> porGrupo = new IndiceTrigramas<>(Exercicio::getId, Exercicio::getGrupoMuscular);
+    private volatile boolean carregado;
+
+    public BuscaExercicios(ExercicioDao dao) {
+        this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+    }
+
+    public List<Exercicio> buscarPorNome(String termo) throws SQLException {
+        garantirCarregado();
+        return copias(porNome.buscar(termo, LIMITE_RESULTADOS));
+    }
+
+    public List<Exercicio> buscarPorGrupoMuscular(String termo) throws SQLException {
+        garantirCarregado();
+        return copias(porGrupo.buscar(termo, LIMITE_RESULTADOS));
+    }
+
+    /** Monta os índices agora, em vez de na primeira busca (aquecimento). */
+    public void carregar() throws SQLException {
+        garantirCarregado();
+    }
+
+    /** Inclui ou atualiza o exercício nos índices (depois do commit da escrita). */
+    public synchronized void registrar(Exercicio e) {
+        if (!carregado) return; // a carga inicial já vai trazer a versão do banco
+        Exercicio copia = copiar(e);
+        porNome.indexar(copia);
+        porGrupo.indexar(copia);
+    }
+
+    public synchronized void remover(long id) {
+        if (!carregado) return;
+        porNome.remover(id);
+        porGrupo.remover(id);
+    }
+
+    /** Descarta os índices; a próxima busca recarrega do banco. */
+    public synchronized void invalidar() {
+        carregado = false;
+        porNome.limpar();
+        porGrupo.limpar();
+    }
+
+    private void garantirCarregado() throws SQLException {
+        if (carregado) return;
+        synchronized (this) {
+            if (carregado) return;
+            for (Exercicio e : dao.listarTodos()) {
+                porNome.indexar(e);
+                porGrupo.indexar(e);
+            }
+            carregado = true;
+        }
+    }
+
+    private static List<Exercicio> copias(List<Exercicio> encontrados) {
+        List<Exercicio> lista = new ArrayList<>(encontrados.size());
+        for (Exercicio e : encontrados) lista.add(copiar(e));
+        return lista;
+    }
+
+    private static Exercicio copiar(Exercicio e) {
+        Exercicio c = new Exercicio();
+        c.setId(e.getId());
+        c.setNome(e.getNome());
+        c.setGrupoMuscular(e.getGrupoMuscular());
+        return c;
+    }
+}
@@ -0,0 +1,210 @@
+package com.br.inatel.busca;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Índice invertido sobre um campo de texto normalizado, com duas estruturas:
+ * <ul>
+ *     <li>palavras ordenadas (TreeMap), para achar por prefixo de palavra ("mar sil" → "Maria da Silva");</li>
+ *     <li>trigramas de cada palavra, com duas posições de borda à esquerda e uma à direita
+ *     ("  a", " ag", "aga", ..., "to "), como no pg_trgm, para substring e erros de digitação.</li>
+ * </ul>
+ *
+ * <p>Um documento entra no resultado se cada palavra do termo é prefixo de alguma palavra dele, se
+ * contém o termo (a semântica do {@code LIKE '%termo%'}, já sem acento/caixa) ou se a fração de
+ * trigramas do termo presentes nele chega ao limiar de similaridade. Ordem: igual ao termo, prefixos,
+ * contém, só similar; depois similaridade e texto. Só os {@code limite} melhores são ordenados.</p>
+ */
+public class IndiceTrigramas<T> {
+
+    static final double LIMIAR_PADRAO = 0.5;
+
+    private final Function<T, Long> id;
+    private final Function<T, String> texto;
+    private final double limiar;
+
+    private final Map<Long, Documento<T>> documentos = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final NavigableMap<String, Set<Long>> palavras = new TreeMap<>();
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    public IndiceTrigramas(Function<T, Long> id, Function<T, String> texto) {
+        this(id, texto, LIMIAR_PADRAO);
+    }
+
+    /** @param limiar fração mínima de trigramas em comum; 1.0 praticamente desliga a tolerância a erros */
+    public IndiceTrigramas(Function<T, Long> id, Function<T, String> texto, double limiar) {
+        this.id = id;
+        this.texto = texto;
+        this.limiar = limiar;
+    }
+
+    // ===== ESCRITA =====
+    /** Inclui o documento ou substitui a versão indexada com o mesmo id. */
+    public void indexar(T doc) {
+        Long chave = id.apply(doc);
+        String normalizado = NormalizadorTexto.normalizar(texto.apply(doc));
+        Set<String> trigramas = trigramas(normalizado);
+        Set<String> palavrasDoc = palavras(normalizado);
+
+        trava.writeLock().lock();
+        try {
+            removerSemTrava(chave);
+            documentos.put(chave, new Documento<>(doc, normalizado, trigramas, palavrasDoc));
+            for (String t : trigramas) postings.computeIfAbsent(t, k -> new HashSet<>()).add(chave);
+            for (String p : palavrasDoc) palavras.computeIfAbsent(p, k -> new HashSet<>()).add(chave);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    public void remover(long chave) {
+        trava.writeLock().lock();
+        try {
+            removerSemTrava(chave);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    public void limpar() {
+        trava.writeLock().lock();
+        try {
+            documentos.clear();
+            postings.clear();
+            palavras.clear();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void removerSemTrava(long chave) {
+        Documento<T> antigo = documentos.remove(chave);
+        if (antigo == null) return;
+        desindexar(postings, antigo.trigramas(), chave);
+        desindexar(palavras, antigo.palavras(), chave);
+    }
+
+    private static void desindexar(Map<String, Set<Long>> indice, Set<String> termos, long chave) {
+        for (String t : termos) {
+            Set<Long> ids = indice.get(t);
+            if (ids != null && ids.remove(chave) && ids.isEmpty()) indice.remove(t);
+        }
+    }
+
+    // ===== BUSCA =====
+    public List<T> buscar(String termo, int limite) {
+        String consulta = NormalizadorTexto.normalizar(termo);
+        if (consulta.isEmpty() || limite <= 0) return List.of();
+        Set<String> doTermo = trigramas(consulta);
+        Set<String> palavrasTermo = palavras(consulta);
+
+        trava.readLock().lock();
+        try {
+            Map<Long, Integer> comuns = new HashMap<>();
+            for (String t : doTermo) {
+                Set<Long> ids = postings.get(t);
+                if (ids != null) for (Long chave : ids) comuns.merge(chave, 1, Integer::sum);
+            }
+
+            Set<Long> porPrefixo = comPrefixoEmTodas(palavrasTermo);
+            Set<Long> candidatos = new HashSet<>(comuns.keySet());
+            candidatos.addAll(porPrefixo);
+            // Sem palavra de 3+ letras o termo não tem trigrama interno e um "contém" pode não
+            // compartilhar nenhum trigrama com ele: nesse caso compara com todos
+            if (!temTrigramaInterno(palavrasTermo)) candidatos.addAll(documentos.keySet());
+
+            Comparator<Resultado<T>> ordem = Comparator.<Resultado<T>>comparingInt(Resultado::nivel)
+                    .thenComparing(Resultado::similaridade, Comparator.reverseOrder())
+                    .thenComparing(r -> r.documento().normalizado());
+            PriorityQueue<Resultado<T>> melhores = new PriorityQueue<>(ordem.reversed());
+
+            for (Long chave : candidatos) {
+                Documento<T> d = documentos.get(chave);
+                double similaridade = (double) comuns.getOrDefault(chave, 0) / doTermo.size();
+                int nivel;
+                if (d.normalizado().equals(consulta)) nivel = 0;
+                else if (porPrefixo.contains(chave)) nivel = 1;
+                else if (d.normalizado().contains(consulta)) nivel = 2;
+                else if (similaridade >= limiar) nivel = 3;
+                else continue;
+
+                melhores.add(new Resultado<>(d, nivel, similaridade));
+                if (melhores.size() > limite) melhores.poll();
+            }
+
+            List<Resultado<T>> ordenados = new ArrayList<>(melhores);
+            ordenados.sort(ordem);
+            List<T> encontrados = new ArrayList<>(ordenados.size());
+            for (Resultado<T> r : ordenados) encontrados.add(r.documento().doc());
+            return encontrados;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        trava.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    // Documentos em que cada palavra do termo é prefixo de alguma palavra do documento
+    private Set<Long> comPrefixoEmTodas(Set<String> palavrasTermo) {
+        Set<Long> resultado = null;
+        for (String p : palavrasTermo) {
+            Set<Long> comPrefixo = new HashSet<>();
+            for (Set<Long> ids : palavras.subMap(p, true, p + Character.MAX_VALUE, false).values()) {
+                comPrefixo.addAll(ids);
+            }
+            if (resultado == null) resultado = comPrefixo;
+            else resultado.retainAll(comPrefixo);
+            if (resultado.isEmpty()) break;
+        }
+        return resultado != null ? resultado : Collections.emptySet();
+    }
+
+    private static boolean temTrigramaInterno(Set<String> palavrasTermo) {
+        for (String palavra : palavrasTermo) {
+            if (palavra.length() >= 3) return true;
+        }
+        return false;
+    }
+
+    private static Set<String> palavras(String normalizado) {
+        Set<String> palavras = new LinkedHashSet<>();
+        if (!normalizado.isEmpty()) Collections.addAll(palavras, normalizado.split(" "));
+        return palavras;
+    }
+
+    static Set<String> trigramas(String normalizado) {
+        Set<String> trigramas = new LinkedHashSet<>();
+        for (String palavra : palavras(normalizado)) {
+            String comBorda = "  " + palavra + " ";
+            for (int i = 0; i + 3 <= comBorda.length(); i++) trigramas.add(comBorda.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+
+    private record Documento<T>(T doc, String normalizado, Set<String> trigramas, Set<String> palavras) {
+    }
+
+    private record Resultado<T>(Documento<T> documento, int nivel, double similaridade) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.br.inatel.cache;
+
+import com.br.inatel.config.Configuracao;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Carrega os caches antes de a aplicação começar a atender, para que as primeiras operações depois
+ * de um deploy não paguem a carga.
+ *
+ * <ul>
+ *     <li>Cada etapa roda numa virtual thread e pega conexões do pool como qualquer DAO; o pool limita
+ *     quantas consultas vão ao banco ao mesmo tempo.</li>
+ *     <li>{@link #executar} espera no máximo {@code gym.aquecimento.orcamentoMs} (padrão 30000). O que não
+ *     terminar continua em segundo plano; o cache correspondente também carrega sozinho no primeiro uso.</li>
+ *     <li>A instância só fica pronta quando todas as etapas terminam sem erro: {@link #pronta()} passa a
+ *     true e, se {@code gym.aquecimento.arquivoPronto} estiver configurado, o arquivo é criado para a
+ *     verificação de prontidão do balanceador. Se o orçamento estourar, isso acontece quando a última etapa
+ *     pendente terminar; com {@code gym.aquecimento.prontaAposOrcamento=true} (padrão false), já no fim do
+ *     orçamento. Com alguma etapa com falha (banco fora, por exemplo) a instância não entra em rotação.</li>
+ * </ul>
+ */
+public class Aquecimento {
+
+    @FunctionalInterface
+    public interface Etapa {
+        void executar() throws SQLException;
+    }
+
+    private final long orcamentoMs;
+    private final Path arquivoPronto;
+    private final boolean prontaAposOrcamento;
+    private final Map<String, Etapa> etapas = new LinkedHashMap<>();
+    private volatile boolean pronta;
+    private boolean encerrada;
+
+    public Aquecimento() {
+        this.orcamentoMs = Math.max(0, Configuracao.longo("gym.aquecimento.orcamentoMs", 30_000));
+        String arquivo = Configuracao.texto("gym.aquecimento.arquivoPronto", null);
+        this.arquivoPronto = arquivo != null && !arquivo.isBlank() ? Path.of(arquivo) : null;
+        this.prontaAposOrcamento = Configuracao.booleano("gym.aquecimento.prontaAposOrcamento", false);
+    }
+
+    public Aquecimento etapa(String nome, Etapa etapa) {
+        etapas.put(nome, etapa);
+        return this;
+    }
+
+    /** Roda as etapas em paralelo; true se todas terminaram sem erro no prazo (e a instância está pronta). */
+    public boolean executar() {
+        long inicio = System.nanoTime();
+        System.out.println("🔥 Aquecendo caches (" + etapas.size() + " etapas, orçamento " + orcamentoMs + " ms)...");
+
+        CountDownLatch restantes = new CountDownLatch(etapas.size());
+        AtomicInteger concluidas = new AtomicInteger();
+        AtomicInteger falhas = new AtomicInteger();
+        Map<String, Boolean> terminadas = new ConcurrentHashMap<>();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (Map.Entry<String, Etapa> e : etapas.entrySet()) {
+            String nome = e.getKey();
+            executor.execute(() -> {
+                long t0 = System.nanoTime();
+                try {
+                    e.getValue().executar();
+                    System.out.printf("   ✔ %s (%d ms) [%d/%d]%n", nome, ms(t0),
+                            concluidas.incrementAndGet(), etapas.size());
+                } catch (SQLException | RuntimeException ex) {
+                    falhas.incrementAndGet();
+                    System.err.printf("   ✘ %s falhou em %d ms: %s [%d/%d]%n", nome, ms(t0), ex.getMessage(),
+                            concluidas.incrementAndGet(), etapas.size());
+                } finally {
+                    terminadas.put(nome, Boolean.TRUE);
+                    restantes.countDown();
+                    // etapas que passaram do orçamento: a última a terminar libera a instância
+                    if (restantes.getCount() == 0 && falhas.get() == 0) marcarPronta();
+                }
+            });
+        }
+        executor.shutdown(); // as threads que passarem do orçamento terminam sozinhas
+
+        boolean noPrazo;
+        try {
+            noPrazo = restantes.await(orcamentoMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            noPrazo = false;
+        }
+
+        if (!noPrazo) {
+            List<String> pendentes = new ArrayList<>();
+            for (String nome : etapas.keySet()) if (!terminadas.containsKey(nome)) pendentes.add(nome);
+            System.err.println("⚠️ Orçamento de aquecimento esgotado; seguem em segundo plano: " + pendentes);
+        }
+        if (falhas.get() == 0 && (noPrazo || prontaAposOrcamento)) marcarPronta();
+        System.out.println("✅ Aquecimento concluído em " + ms(inicio) + " ms"
+                + (falhas.get() > 0 ? " (" + falhas.get() + " etapa(s) com falha)" : "") + ".");
+        return noPrazo && falhas.get() == 0;
+    }
+
+    public boolean pronta() {
+        return pronta;
+    }
+
+    /** Remove o arquivo de prontidão (no encerramento), para o balanceador tirar a instância de rotação. */
+    public synchronized void encerrar() {
+        encerrada = true;
+        pronta = false;
+        if (arquivoPronto == null) return;
+        try {
+            Files.deleteIfExists(arquivoPronto);
+        } catch (IOException e) {
+            System.err.println("Falha ao remover " + arquivoPronto + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void marcarPronta() {
+        if (pronta || encerrada) return;
+        pronta = true;
+        if (arquivoPronto == null) return;
+        try {
+            Files.writeString(arquivoPronto, String.valueOf(ProcessHandle.current().pid()));
+        } catch (IOException e) {
+            System.err.println("Falha ao criar " + arquivoPronto + ": " + e.getMessage());
+        }
+    }
+
+    private static long ms(long inicioNanos) {
+        return (System.nanoTime() - inicioNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,236 @@
+package com.br.inatel.cache;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Conjunto de ids não negativos de até 32 bits no formato do Roaring Bitmap: os 16 bits altos escolhem
+ * um contêiner e os 16 baixos ficam dentro dele. Um contêiner com até {@value #LIMITE_ARRAY} valores é um
+ * array ordenado de {@code char}; acima disso vira um mapa de 65.536 bits (8 KB). Ids de autoincremento
+ * caem quase todos no mesmo contêiner, então a consulta é uma busca binária curta ou um acesso a bit.
+ *
+ * <p>Não é thread-safe: quem compartilha a instância sincroniza por fora.</p>
+ */
+public class BitmapCompacto {
+
+    static final int LIMITE_ARRAY = 4096;
+    private static final long MAIOR_ID = 0xFFFF_FFFFL;
+
+    private char[] chaves = new char[0];
+    private Conteiner[] conteineres = new Conteiner[0];
+    private long cardinalidade;
+
+    public boolean contem(long id) {
+        if (id < 0 || id > MAIOR_ID) return false;
+        int i = Arrays.binarySearch(chaves, alta(id));
+        return i >= 0 && conteineres[i].contem(baixa(id));
+    }
+
+    /** @return true se o id não estava no conjunto */
+    public boolean adicionar(long id) {
+        validar(id);
+        char chave = alta(id);
+        int i = Arrays.binarySearch(chaves, chave);
+        if (i < 0) {
+            i = -i - 1;
+            inserirConteiner(i, chave, new ConteinerArray());
+        }
+        Conteiner c = conteineres[i];
+        int antes = c.cardinalidade();
+        conteineres[i] = c.adicionar(baixa(id));
+        boolean mudou = conteineres[i].cardinalidade() != antes;
+        if (mudou) cardinalidade++;
+        return mudou;
+    }
+
+    /** @return true se o id estava no conjunto */
+    public boolean remover(long id) {
+        if (id < 0 || id > MAIOR_ID) return false;
+        int i = Arrays.binarySearch(chaves, alta(id));
+        if (i < 0) return false;
+        Conteiner c = conteineres[i];
+        int antes = c.cardinalidade();
+        Conteiner depois = c.remover(baixa(id));
+        if (depois.cardinalidade() == antes) return false;
+        cardinalidade--;
+        if (depois.cardinalidade() == 0) removerConteiner(i);
+        else conteineres[i] = depois;
+        return true;
+    }
+
+    public long cardinalidade() {
+        return cardinalidade;
+    }
+
+    /** Percorre os ids em ordem crescente. */
+    public void paraCada(LongConsumer acao) {
+        for (int i = 0; i < chaves.length; i++) {
+            long base = (long) chaves[i] << 16;
+            conteineres[i].paraCada(baixa -> acao.accept(base | baixa));
+        }
+    }
+
+    /** Memória aproximada dos contêineres, para as estatísticas. */
+    public long bytesUsados() {
+        long total = chaves.length * 2L;
+        for (Conteiner c : conteineres) total += c.bytesUsados();
+        return total;
+    }
+
+    private void inserirConteiner(int i, char chave, Conteiner c) {
+        int n = chaves.length;
+        chaves = Arrays.copyOf(chaves, n + 1);
+        conteineres = Arrays.copyOf(conteineres, n + 1);
+        System.arraycopy(chaves, i, chaves, i + 1, n - i);
+        System.arraycopy(conteineres, i, conteineres, i + 1, n - i);
+        chaves[i] = chave;
+        conteineres[i] = c;
+    }
+
+    private void removerConteiner(int i) {
+        int n = chaves.length;
+        System.arraycopy(chaves, i + 1, chaves, i, n - i - 1);
+        System.arraycopy(conteineres, i + 1, conteineres, i, n - i - 1);
+        chaves = Arrays.copyOf(chaves, n - 1);
+        conteineres = Arrays.copyOf(conteineres, n - 1);
+    }
+
+    private static void validar(long id) {
+        if (id < 0 || id > MAIOR_ID) throw new IllegalArgumentException("Id fora da faixa do bitmap: " + id);
+    }
+
+    private static char alta(long id) {
+        return (char) (id >>> 16);
+    }
+
+    private static char baixa(long id) {
+        return (char) id;
+    }
+
+    // ===== CONTÊINERES =====
+    // adicionar/remover devolvem o contêiner que passa a ocupar a posição (o mesmo ou o convertido)
+    private interface Conteiner {
+        boolean contem(char valor);
+
+        Conteiner adicionar(char valor);
+
+        Conteiner remover(char valor);
+
+        int cardinalidade();
+
+        void paraCada(LongConsumer acao);
+
+        long bytesUsados();
+    }
+
+    private static final class ConteinerArray implements Conteiner {
+        private char[] valores = new char[4];
+        private int tamanho;
+
+        @Override
+        public boolean contem(char valor) {
+            return Arrays.binarySearch(valores, 0, tamanho, valor) >= 0;
+        }
+
+        @Override
+        public Conteiner adicionar(char valor) {
+            int i = Arrays.binarySearch(valores, 0, tamanho, valor);
+            if (i >= 0) return this;
+            if (tamanho == LIMITE_ARRAY) return paraBits().adicionar(valor);
+            i = -i - 1;
+            if (tamanho == valores.length) valores = Arrays.copyOf(valores, Math.min(LIMITE_ARRAY, tamanho * 2));
+            System.arraycopy(valores, i, valores, i + 1, tamanho - i);
+            valores[i] = valor;
+            tamanho++;
+            return this;
+        }
+
+        @Override
+        public Conteiner remover(char valor) {
+            int i = Arrays.binarySearch(valores, 0, tamanho, valor);
+            if (i < 0) return this;
+            System.arraycopy(valores, i + 1, valores, i, tamanho - i - 1);
+            tamanho--;
+            return this;
+        }
+
+        @Override
+        public int cardinalidade() {
+            return tamanho;
+        }
+
+        @Override
+        public void paraCada(LongConsumer acao) {
+            for (int i = 0; i < tamanho; i++) acao.accept(valores[i]);
+        }
+
+        @Override
+        public long bytesUsados() {
+            return valores.length * 2L;
+        }
+
+        private ConteinerBits paraBits() {
+            ConteinerBits bits = new ConteinerBits();
+            for (int i = 0; i < tamanho; i++) bits.adicionar(valores[i]);
+            return bits;
+        }
+    }
+
+    private static final class ConteinerBits implements Conteiner {
+        private final long[] palavras = new long[1024];
+        private int cardinalidade;
+
+        @Override
+        public boolean contem(char valor) {
+            return (palavras[valor >>> 6] & (1L << valor)) != 0;
+        }
+
+        @Override
+        public Conteiner adicionar(char valor) {
+            long antes = palavras[valor >>> 6];
+            long depois = antes | (1L << valor);
+            if (depois != antes) {
+                palavras[valor >>> 6] = depois;
+                cardinalidade++;
+            }
+            return this;
+        }
+
+        @Override
+        public Conteiner remover(char valor) {
+            long antes = palavras[valor >>> 6];
+            long depois = antes & ~(1L << valor);
+            if (depois == antes) return this;
+            palavras[valor >>> 6] = depois;
+            cardinalidade--;
+            return cardinalidade <= LIMITE_ARRAY ? paraArray() : this;
+        }
+
+        @Override
+        public int cardinalidade() {
+            return cardinalidade;
+        }
+
+        @Override
+        public void paraCada(LongConsumer acao) {
+            for (int i = 0; i < palavras.length; i++) {
+                long p = palavras[i];
+                while (p != 0) {
+                    acao.accept(((long) i << 6) | Long.numberOfTrailingZeros(p));
+                    p &= p - 1;
+                }
+            }
+        }
+
+        @Override
+        public long bytesUsados() {
+            return palavras.length * 8L;
+        }
+
+        private ConteinerArray paraArray() {
+            ConteinerArray array = new ConteinerArray();
+            paraCada(v -> array.adicionar((char) v));
+            return array;
+        }
+    }
+}
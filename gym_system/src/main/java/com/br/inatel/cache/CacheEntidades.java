@@ -0,0 +1,196 @@
+package com.br.inatel.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache limitado por tamanho e por tempo, com a política W-TinyLFU (a do Caffeine):
+ * <ul>
+ *     <li>uma janela LRU pequena (1% da capacidade) recebe toda entrada nova;</li>
+ *     <li>quem sai da janela só entra na área principal se o {@link SketchFrequencia} disser que ela é
+ *     pedida com mais frequência que a próxima vítima da área principal. Uma varredura de ids pedidos
+ *     uma única vez não expulsa as entidades quentes;</li>
+ *     <li>a área principal é uma SLRU: a entrada vai para a parte "em teste" e sobe para a "protegida"
+ *     (80%) no segundo acesso.</li>
+ * </ul>
+ * Entradas mais velhas que o TTL contam como falta. Todos os métodos são sincronizados: as operações
+ * são O(1) e o custo do cache fica muito abaixo de uma ida ao banco.
+ */
+public class CacheEntidades<K, V> {
+
+    public record Estatisticas(String nome, long acertos, long faltas, long despejos, long expiracoes, int tamanho) {
+        public double taxaAcerto() {
+            long total = acertos + faltas;
+            return total == 0 ? 0 : (double) acertos / total;
+        }
+    }
+
+    private final String nome;
+    private final int capacidadeJanela;
+    private final int capacidadeProtegida;
+    private final int capacidadePrincipal;
+    private final long ttlNanos;
+
+    private final Map<K, No<K, V>> mapa = new HashMap<>();
+    private final SketchFrequencia sketch;
+    private final Fila<K, V> janela = new Fila<>();
+    private final Fila<K, V> emTeste = new Fila<>();
+    private final Fila<K, V> protegida = new Fila<>();
+
+    private long acertos;
+    private long faltas;
+    private long despejos;
+    private long expiracoes;
+
+    public CacheEntidades(String nome, int capacidade, long ttlSegundos) {
+        if (capacidade < 2) throw new IllegalArgumentException("capacidade deve ser ao menos 2: " + capacidade);
+        this.nome = nome;
+        this.capacidadeJanela = Math.max(1, capacidade / 100);
+        this.capacidadePrincipal = capacidade - capacidadeJanela;
+        this.capacidadeProtegida = (int) (capacidadePrincipal * 0.8);
+        this.ttlNanos = ttlSegundos > 0 ? ttlSegundos * 1_000_000_000L : Long.MAX_VALUE;
+        this.sketch = new SketchFrequencia(capacidade);
+    }
+
+    // ===== LEITURA =====
+    /** Valor em cache ou null; conta acerto/falta. */
+    public synchronized V obter(K chave) {
+        sketch.incrementar(chave);
+        No<K, V> no = mapa.get(chave);
+        if (no == null) {
+            faltas++;
+            return null;
+        }
+        if (System.nanoTime() - no.gravadoEm > ttlNanos) {
+            descartar(no);
+            expiracoes++;
+            faltas++;
+            return null;
+        }
+        acertos++;
+        tocar(no);
+        return no.valor;
+    }
+
+    // ===== ESCRITA =====
+    public synchronized void gravar(K chave, V valor) {
+        No<K, V> no = mapa.get(chave);
+        if (no != null) {
+            no.valor = valor;
+            no.gravadoEm = System.nanoTime();
+            tocar(no);
+            return;
+        }
+        no = new No<>(chave, valor, System.nanoTime());
+        mapa.put(chave, no);
+        no.regiao = janela;
+        janela.adicionarNoFim(no);
+        if (janela.tamanho > capacidadeJanela) admitirDaJanela();
+    }
+
+    public synchronized void invalidar(K chave) {
+        No<K, V> no = mapa.get(chave);
+        if (no != null) descartar(no);
+    }
+
+    public synchronized void invalidarTudo() {
+        mapa.clear();
+        janela.limpar();
+        emTeste.limpar();
+        protegida.limpar();
+    }
+
+    public synchronized Estatisticas estatisticas() {
+        return new Estatisticas(nome, acertos, faltas, despejos, expiracoes, mapa.size());
+    }
+
+    // ===== POLÍTICA =====
+    private void tocar(No<K, V> no) {
+        if (no.regiao == emTeste) {
+            emTeste.remover(no);
+            no.regiao = protegida;
+            protegida.adicionarNoFim(no);
+            if (protegida.tamanho > capacidadeProtegida) {
+                No<K, V> rebaixado = protegida.primeiro();
+                protegida.remover(rebaixado);
+                rebaixado.regiao = emTeste;
+                emTeste.adicionarNoFim(rebaixado);
+            }
+        } else {
+            no.regiao.remover(no);
+            no.regiao.adicionarNoFim(no);
+        }
+    }
+
+    // O mais antigo da janela disputa a vaga com o mais antigo da área em teste
+    private void admitirDaJanela() {
+        No<K, V> candidato = janela.primeiro();
+        janela.remover(candidato);
+        candidato.regiao = emTeste;
+        emTeste.adicionarNoFim(candidato);
+        if (emTeste.tamanho + protegida.tamanho <= capacidadePrincipal) return;
+
+        No<K, V> vitima = emTeste.primeiro();
+        if (vitima == candidato) vitima = protegida.primeiro();
+        No<K, V> perdedor = sketch.frequencia(candidato.chave) > sketch.frequencia(vitima.chave) ? vitima : candidato;
+        descartar(perdedor);
+        despejos++;
+    }
+
+    private void descartar(No<K, V> no) {
+        no.regiao.remover(no);
+        mapa.remove(no.chave);
+    }
+
+    private static final class No<K, V> {
+        final K chave;
+        V valor;
+        long gravadoEm;
+        Fila<K, V> regiao;
+        No<K, V> anterior;
+        No<K, V> proximo;
+
+        No(K chave, V valor, long gravadoEm) {
+            this.chave = chave;
+            this.valor = valor;
+            this.gravadoEm = gravadoEm;
+        }
+    }
+
+    // Lista duplamente ligada com sentinela: início = menos recente
+    private static final class Fila<K, V> {
+        private final No<K, V> sentinela = new No<>(null, null, 0);
+        int tamanho;
+
+        Fila() {
+            sentinela.anterior = sentinela;
+            sentinela.proximo = sentinela;
+        }
+
+        No<K, V> primeiro() {
+            return sentinela.proximo == sentinela ? null : sentinela.proximo;
+        }
+
+        void adicionarNoFim(No<K, V> no) {
+            no.anterior = sentinela.anterior;
+            no.proximo = sentinela;
+            sentinela.anterior.proximo = no;
+            sentinela.anterior = no;
+            tamanho++;
+        }
+
+        void remover(No<K, V> no) {
+            no.anterior.proximo = no.proximo;
+            no.proximo.anterior = no.anterior;
+            no.anterior = null;
+            no.proximo = null;
+            tamanho--;
+        }
+
+        void limpar() {
+            sentinela.anterior = sentinela;
+            sentinela.proximo = sentinela;
+            tamanho = 0;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.br.inatel.cache;
+
+import com.br.inatel.dao.PlanoDao;
+import com.br.inatel.model.Plano;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catálogo de planos em memória. A tabela Plano é pequena e muda pouco, então é carregada inteira
+ * na primeira consulta e indexada por id, por nome (sem diferenciar maiúsculas) e por preço.
+ *
+ * <p>Toda escrita em Plano deve chamar {@link #invalidar()} depois do commit; a próxima consulta
+ * recarrega. Quem lê recebe cópias, então alterar um Plano devolvido não afeta o catálogo.</p>
+ */
+public class CatalogoPlanos {
+
+    private static final Comparator<Plano> POR_NOME =
+            Comparator.comparing(Plano::getNome, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(Plano::getId);
+
+    private final PlanoDao dao;
+    // Incrementada a cada invalidação; uma carga iniciada antes dela é descartada
+    private final AtomicLong geracao = new AtomicLong();
+    private volatile Instantaneo atual;
+
+    public CatalogoPlanos(PlanoDao dao) {
+        this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+    }
+
+    // ===== CONSULTAS =====
+    public Plano buscarPorId(long id) throws SQLException {
+        return copiar(obter().porId.get(id));
+    }
+
+    public boolean contem(long id) throws SQLException {
+        return obter().porId.containsKey(id);
+    }
+
+    /** Plano com exatamente esse nome, ignorando maiúsculas/minúsculas e espaços nas pontas. */
+    public Plano buscarPorNomeExato(String nome) throws SQLException {
+        if (nome == null) return null;
+        return copiar(obter().porNome.get(chaveNome(nome)));
+    }
+
+    /** Planos cujo nome contém {@code termo}, ordenados por nome (mesmo critério do LIKE '%termo%'). */
+    public List<Plano> buscarPorNome(String termo) throws SQLException {
+        String alvo = chaveNome(termo);
+        List<Plano> encontrados = new ArrayList<>();
+        for (Plano p : obter().ordenadosPorNome) {
+            if (chaveNome(p.getNome()).contains(alvo)) encontrados.add(copiar(p));
+        }
+        return encontrados;
+    }
+
+    /** Planos com preço em [minimo, maximo], ordenados por preço e nome. */
+    public List<Plano> buscarPorFaixaPreco(BigDecimal minimo, BigDecimal maximo) throws SQLException {
+        List<Plano> encontrados = new ArrayList<>();
+        for (List<Plano> mesmoPreco : obter().porPreco.subMap(minimo, true, maximo, true).values()) {
+            for (Plano p : mesmoPreco) encontrados.add(copiar(p));
+        }
+        return encontrados;
+    }
+
+    public List<Plano> listarTodos() throws SQLException {
+        List<Plano> todos = new ArrayList<>();
+        for (Plano p : obter().ordenadosPorNome) todos.add(copiar(p));
+        return todos;
+    }
+
+    // ===== CICLO DE VIDA =====
+    public void invalidar() {
+        geracao.incrementAndGet();
+        atual = null;
+    }
+
+    /** Descarta o conteúdo e carrega de novo agora. */
+    public void recarregar() throws SQLException {
+        invalidar();
+        obter();
+    }
+
+    private Instantaneo obter() throws SQLException {
+        Instantaneo i = atual;
+        if (i != null) return i;
+
+        synchronized (this) {
+            i = atual;
+            if (i != null) return i;
+
+            long geracaoInicial = geracao.get();
+            i = new Instantaneo(dao.listarTodos());
+            if (geracao.get() == geracaoInicial) atual = i;
+            return i;
+        }
+    }
+
+    private static String chaveNome(String nome) {
+        return nome == null ? "" : nome.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Plano copiar(Plano p) {
+        if (p == null) return null;
+        Plano c = new Plano();
+        c.setId(p.getId());
+        c.setNome(p.getNome());
+        c.setPreco(p.getPreco());
+        c.setDuracaoMeses(p.getDuracaoMeses());
+        return c;
+    }
+
+    private static final class Instantaneo {
+        final Map<Long, Plano> porId = new HashMap<>();
+        final Map<String, Plano> porNome = new HashMap<>();
+        final NavigableMap<BigDecimal, List<Plano>> porPreco = new TreeMap<>();
+        final List<Plano> ordenadosPorNome;
+
+        Instantaneo(List<Plano> planos) {
+            for (Plano p : planos) {
+                porId.put(p.getId(), p);
+                porNome.putIfAbsent(chaveNome(p.getNome()), p);
+                if (p.getPreco() != null) porPreco.computeIfAbsent(p.getPreco(), k -> new ArrayList<>()).add(p);
+            }
+            for (List<Plano> mesmoPreco : porPreco.values()) mesmoPreco.sort(POR_NOME);
+
+            List<Plano> ordenados = new ArrayList<>(planos);
+            ordenados.sort(POR_NOME);
+            this.ordenadosPorNome = List.copyOf(ordenados);
+        }
+    }
+}
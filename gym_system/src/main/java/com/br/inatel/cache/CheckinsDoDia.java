@@ -0,0 +1,73 @@
+package com.br.inatel.cache;
+
+import com.br.inatel.dao.FrequenciaDao;
+import com.br.inatel.model.Frequencia;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Alunos que já fizeram check-in hoje, num {@link BitmapCompacto} de ids. Passadas repetidas do
+ * cartão na catraca são recusadas sem ir ao MySQL; na virada do dia o conjunto recomeça vazio.
+ *
+ * <p>Só a presença é confiável: outra instância da aplicação pode ter registrado um check-in que
+ * este conjunto não viu. Nesse caso o INSERT esbarra em uk_freq_aluno_dia e o service chama
+ * {@link #marcar} do mesmo jeito.</p>
+ */
+public class CheckinsDoDia {
+
+    private final FrequenciaDao dao;
+    private final Clock relogio;
+
+    private LocalDate dia;
+    private BitmapCompacto alunos = new BitmapCompacto();
+
+    public CheckinsDoDia(FrequenciaDao dao) {
+        this(dao, Clock.systemDefaultZone());
+    }
+
+    public CheckinsDoDia(FrequenciaDao dao, Clock relogio) {
+        this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+        this.relogio = Objects.requireNonNull(relogio, "relogio não pode ser null");
+        this.dia = LocalDate.now(relogio);
+    }
+
+    /** Carrega os check-ins de hoje já gravados (na inicialização). */
+    public void semear() throws SQLException {
+        LocalDate hoje = LocalDate.now(relogio);
+        BitmapCompacto lidos = new BitmapCompacto();
+        for (Frequencia f : dao.listarPorPeriodo(hoje, hoje)) {
+            if (f.getAluno() != null) lidos.adicionar(f.getAluno().getId());
+        }
+        synchronized (this) {
+            if (!hoje.equals(hoje())) return; // virou o dia durante a carga
+            lidos.paraCada(alunos::adicionar);
+        }
+    }
+
+    /** true se o aluno comprovadamente já tem check-in em {@code data}; false quer dizer "não sei". */
+    public synchronized boolean jaRegistrado(long idAluno, LocalDate data) {
+        return data.equals(hoje()) && alunos.contem(idAluno);
+    }
+
+    public synchronized void marcar(long idAluno, LocalDate data) {
+        if (data.equals(hoje())) alunos.adicionar(idAluno);
+    }
+
+    /** Para quando um check-in de hoje é movido para outro aluno ou outro dia. */
+    public synchronized void desmarcar(long idAluno, LocalDate data) {
+        if (data.equals(hoje())) alunos.remover(idAluno);
+    }
+
+    // Gira o conjunto na primeira chamada depois da meia-noite
+    private LocalDate hoje() {
+        LocalDate agora = LocalDate.now(relogio);
+        if (!agora.equals(dia)) {
+            dia = agora;
+            alunos = new BitmapCompacto();
+        }
+        return dia;
+    }
+}
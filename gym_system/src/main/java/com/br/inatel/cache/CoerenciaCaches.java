@@ -0,0 +1,132 @@
+package com.br.inatel.cache;
+
+import com.br.inatel.config.Configuracao;
+import com.br.inatel.dao.VersaoCacheDao;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantém os caches em memória coerentes entre várias instâncias da aplicação usando só o banco,
+ * pela tabela VersaoCache (uma versão por tabela).
+ *
+ * <ul>
+ *     <li>Os services chamam {@link #publicar} só depois do commit de uma escrita que alterou linhas; falhas,
+ *     validações e NotFound ficam só com a invalidação local, sem fazer as outras instâncias recarregarem.</li>
+ *     <li>Cada instância lê as versões a cada {@code gym.coerencia.intervaloMs} (padrão 2000) e, para
+ *     cada tabela que mudou, roda só as invalidações registradas para ela em {@link #registrar}.</li>
+ *     <li>Uma escrita da própria instância não invalida de novo quando a versão dela é a seguinte
+ *     à última conhecida.</li>
+ *     <li>{@code gym.coerencia.ativo=false} desliga publicação e leitura (instância única).</li>
+ * </ul>
+ * Uma escrita feita em outra instância aparece aqui em até um intervalo; se o banco falhar, os caches
+ * continuam limitados pelo TTL de cada um.
+ */
+public class CoerenciaCaches {
+
+    public static final String ALUNO = "Aluno";
+    public static final String INSTRUTOR = "Instrutor";
+    public static final String PLANO = "Plano";
+    public static final String ASSINATURA = "Assinatura";
+    public static final String EXERCICIO = "Exercicio";
+    public static final String TREINO = "Treino";
+    public static final String TREINO_EXERCICIO = "TreinoExercicio";
+
+    private final VersaoCacheDao dao;
+    private final boolean ativa;
+    private final Map<String, List<Runnable>> invalidacoes = new ConcurrentHashMap<>();
+    private final Map<String, Long> conhecidas = new ConcurrentHashMap<>();
+    private volatile boolean sincronizada;     // false até a primeira leitura das versões
+
+    public CoerenciaCaches(VersaoCacheDao dao) {
+        this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+        this.ativa = Configuracao.booleano("gym.coerencia.ativo", true);
+    }
+
+    /** Invalidação a rodar quando outra instância alterar {@code tabela}. */
+    public void registrar(String tabela, Runnable invalidacao) {
+        Objects.requireNonNull(invalidacao, "invalidacao não pode ser null");
+        invalidacoes.computeIfAbsent(tabela, t -> new CopyOnWriteArrayList<>()).add(invalidacao);
+    }
+
+    // ===== PUBLICAÇÃO =====
+    /**
+     * Incrementa a versão de {@code tabela}. A escrita já foi feita; se o incremento falhar, as outras
+     * instâncias só veem a mudança quando o TTL dos caches vencer, então a falha é apenas registrada.
+     */
+    public void publicar(String tabela) {
+        if (!ativa) return;
+        long nova;
+        try {
+            nova = dao.incrementar(tabela);
+        } catch (SQLException e) {
+            System.err.println("Falha ao publicar alteração em " + tabela + " (" + e.getMessage() + ").");
+            return;
+        }
+        if (nova == 1 && sincronizada) conhecidas.putIfAbsent(tabela, nova); // a linha foi criada agora
+        else conhecidas.replace(tabela, nova - 1, nova);
+    }
+
+    // ===== VERIFICAÇÃO =====
+    /**
+     * Lê as versões e invalida os caches das tabelas alteradas por outra instância; devolve quantas
+     * tabelas mudaram. A primeira leitura só guarda as versões.
+     */
+    public int verificar() throws SQLException {
+        Map<String, Long> atuais = dao.listar();
+        boolean primeira = !sincronizada;
+        int alteradas = 0;
+        for (Map.Entry<String, Long> v : atuais.entrySet()) {
+            String tabela = v.getKey();
+            long versao = v.getValue();
+            Long anterior = conhecidas.get(tabela);
+            if (anterior != null && anterior >= versao) continue;
+            conhecidas.merge(tabela, versao, Math::max);
+            if (primeira) continue;
+            alteradas++;
+            invalidar(tabela);
+        }
+        sincronizada = true;
+        return alteradas;
+    }
+
+    /** Faz a primeira leitura e passa a verificar numa thread daemon. */
+    public void iniciar() {
+        if (!ativa) return;
+        try {
+            verificar();
+        } catch (SQLException e) {
+            System.err.println("Falha ao ler versões dos caches: " + e.getMessage());
+        }
+        long intervalo = Math.max(100, Configuracao.longo("gym.coerencia.intervaloMs", 2000));
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "coerencia-caches");
+            t.setDaemon(true);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                verificar();
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Falha ao verificar versões dos caches: " + e.getMessage());
+            }
+        }, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    private void invalidar(String tabela) {
+        for (Runnable r : invalidacoes.getOrDefault(tabela, List.of())) {
+            try {
+                r.run();
+            } catch (RuntimeException e) {
+                System.err.println("Falha ao invalidar cache de " + tabela + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.br.inatel.cache;
+
+import com.br.inatel.config.Configuracao;
+import com.br.inatel.config.GerenciadorTransacao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Leitura por id com cache na frente, usada pelos DAOs em {@code buscarPorId}/{@code buscarPorIds}.
+ *
+ * <ul>
+ *     <li>Configuração por entidade: {@code gym.cache.<entidade>.ativo} (padrão true),
+ *     {@code .maximo} (padrão 10000 entradas) e {@code .ttlSeg} (padrão 300).</li>
+ *     <li>Ids que não existem também ficam guardados, num cache separado e de vida curta
+ *     ({@code .ausentesMaximo}, padrão 10000; {@code .ausentesTtlSeg}, padrão 30; 0 desliga): ids
+ *     inexistentes pedidos de novo não vão ao banco. Quem cria a entidade chama {@link #invalidar}
+ *     com o id novo.</li>
+ *     <li>Dentro de uma transação o cache é ignorado: o service que vai alterar a linha lê a versão do banco.</li>
+ *     <li>Faltas são carregadas sempre do primário, mesmo dentro de {@code executarLeitura}: o cache é
+ *     compartilhado entre threads e uma réplica atrasada o encheria com a versão anterior a uma escrita.</li>
+ *     <li>Quem chama recebe cópias; o service pode alterar o objeto sem sujar o cache.</li>
+ *     <li>Os services chamam {@link #invalidar} depois de cada escrita. Uma carga que começou antes de
+ *     uma invalidação não grava o que leu, para não trazer de volta a versão antiga; a conferência e a
+ *     gravação rodam sob o monitor do cache, o mesmo que a invalidação usa.</li>
+ * </ul>
+ */
+public class LeituraCacheada<T> {
+
+    @FunctionalInterface
+    public interface Carregador<T> {
+        T carregar() throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface CarregadorLote<T> {
+        Map<Long, T> carregar(Collection<Long> ids) throws SQLException;
+    }
+
+    private final CacheEntidades<Long, T> cache;            // null = desligado
+    private final CacheEntidades<Long, Boolean> ausentes;   // null = sem cache negativo
+    private final UnaryOperator<T> copiar;
+    private final GerenciadorTransacao tx;              // null = carrega direto, sem cache
+    private final AtomicLong geracao = new AtomicLong();
+
+    public LeituraCacheada(CacheEntidades<Long, T> cache, CacheEntidades<Long, Boolean> ausentes,
+                           UnaryOperator<T> copiar, GerenciadorTransacao tx) {
+        this.cache = tx != null ? cache : null;
+        this.ausentes = this.cache != null ? ausentes : null;
+        this.copiar = copiar;
+        this.tx = tx;
+    }
+
+    /** Cache montado a partir das propriedades {@code gym.cache.<entidade>.*}. */
+    public static <T> LeituraCacheada<T> configurada(String entidade, UnaryOperator<T> copiar, GerenciadorTransacao tx) {
+        String prefixo = "gym.cache." + entidade;
+        if (!Configuracao.booleano(prefixo + ".ativo", true)) return desligada();
+        int maximo = Math.max(2, Configuracao.inteiro(prefixo + ".maximo", 10_000));
+        long ttl = Configuracao.longo(prefixo + ".ttlSeg", 300);
+        long ttlAusentes = Configuracao.longo(prefixo + ".ausentesTtlSeg", 30);
+        int maximoAusentes = Math.max(2, Configuracao.inteiro(prefixo + ".ausentesMaximo", 10_000));
+        CacheEntidades<Long, Boolean> ausentes = ttlAusentes > 0
+                ? new CacheEntidades<>(entidade + " (ausentes)", maximoAusentes, ttlAusentes)
+                : null;
+        return new LeituraCacheada<>(new CacheEntidades<>(entidade, maximo, ttl), ausentes, copiar, tx);
+    }
+
+    public static <T> LeituraCacheada<T> desligada() {
+        return new LeituraCacheada<>(null, null, UnaryOperator.identity(), null);
+    }
+
+    public boolean ligada() {
+        return cache != null;
+    }
+
+    // ===== LEITURA =====
+    public T obter(long id, Carregador<T> carregador) throws SQLException {
+        if (!usarCache()) return carregador.carregar();
+
+        T emCache = cache.obter(id);
+        if (emCache != null) return copiar.apply(emCache);
+        if (sabidamenteAusente(id)) return null;
+
+        long geracaoInicial = geracao.get();
+        T lido = tx.executarNoPrimario(carregador::carregar);
+        T copia = lido != null ? copiar.apply(lido) : null;
+        synchronized (cache) {
+            if (geracao.get() == geracaoInicial) {
+                if (copia != null) cache.gravar(id, copia);
+                else marcarAusente(id);
+            }
+        }
+        return lido;
+    }
+
+    /** Para {@code existePorId}: responde pelo cache quando a entidade ou a ausência dela já é conhecida. */
+    public boolean existe(long id, Carregador<Boolean> carregador) throws SQLException {
+        if (!usarCache()) return carregador.carregar();
+        if (cache.obter(id) != null) return true;
+        if (sabidamenteAusente(id)) return false;
+
+        long geracaoInicial = geracao.get();
+        boolean existe = tx.executarNoPrimario(carregador::carregar);
+        if (!existe) {
+            synchronized (cache) {
+                if (geracao.get() == geracaoInicial) marcarAusente(id);
+            }
+        }
+        return existe;
+    }
+
+    /** Serve o que estiver em cache e carrega só os ids que faltam, numa chamada. */
+    public Map<Long, T> obterVarios(Collection<Long> ids, CarregadorLote<T> carregador) throws SQLException {
+        if (!usarCache()) return carregador.carregar(ids);
+
+        Map<Long, T> encontrados = new HashMap<>();
+        List<Long> faltando = new ArrayList<>();
+        for (Long id : ids) {
+            if (id == null || encontrados.containsKey(id)) continue;
+            T emCache = cache.obter(id);
+            if (emCache != null) encontrados.put(id, copiar.apply(emCache));
+            else if (!sabidamenteAusente(id)) faltando.add(id);
+        }
+        if (faltando.isEmpty()) return encontrados;
+
+        long geracaoInicial = geracao.get();
+        Map<Long, T> lidos = tx.executarNoPrimario(() -> carregador.carregar(faltando));
+        Map<Long, T> copias = new HashMap<>();
+        for (Map.Entry<Long, T> e : lidos.entrySet()) {
+            if (e.getValue() != null) copias.put(e.getKey(), copiar.apply(e.getValue()));
+        }
+        synchronized (cache) {
+            boolean gravar = geracao.get() == geracaoInicial;
+            for (Long id : faltando) {
+                T lido = lidos.get(id);
+                if (lido != null) encontrados.put(id, lido);
+                if (!gravar) continue;
+                if (lido != null) cache.gravar(id, copias.get(id));
+                else marcarAusente(id);
+            }
+        }
+        return encontrados;
+    }
+
+    // ===== INVALIDAÇÃO =====
+    public void invalidar(long id) {
+        if (cache == null) return;
+        synchronized (cache) {
+            geracao.incrementAndGet();
+            cache.invalidar(id);
+            if (ausentes != null) ausentes.invalidar(id);
+        }
+    }
+
+    public void invalidarTudo() {
+        if (cache == null) return;
+        synchronized (cache) {
+            geracao.incrementAndGet();
+            cache.invalidarTudo();
+            if (ausentes != null) ausentes.invalidarTudo();
+        }
+    }
+
+    /** Estatísticas do cache, ou null se estiver desligado. */
+    public CacheEntidades.Estatisticas estatisticas() {
+        return cache != null ? cache.estatisticas() : null;
+    }
+
+    /** Estatísticas do cache de ids inexistentes (acertos = consultas evitadas), ou null se desligado. */
+    public CacheEntidades.Estatisticas estatisticasAusentes() {
+        return ausentes != null ? ausentes.estatisticas() : null;
+    }
+
+    private boolean sabidamenteAusente(long id) {
+        return ausentes != null && ausentes.obter(id) != null;
+    }
+
+    private void marcarAusente(long id) {
+        if (ausentes != null) ausentes.gravar(id, Boolean.TRUE);
+    }
+
+    private boolean usarCache() {
+        return cache != null && !tx.emTransacao();
+    }
+}
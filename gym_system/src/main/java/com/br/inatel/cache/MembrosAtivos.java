@@ -0,0 +1,177 @@
+package com.br.inatel.cache;
+
+import com.br.inatel.config.Configuracao;
+import com.br.inatel.dao.AssinaturaDao;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Alunos com acesso liberado na catraca (aluno ativo e com assinatura ATIVA), guardados num
+ * {@link BitmapCompacto}. A verificação de acesso e a contagem de membros ativos não vão ao banco.
+ *
+ * <ul>
+ *     <li>Os services chamam {@link #atualizarAluno} depois do commit de qualquer escrita que mude o
+ *     status do aluno ou de uma assinatura dele; o estado do aluno é relido do primário.</li>
+ *     <li>{@link #reconciliar} relê o conjunto inteiro e corrige o que tiver escapado (escritas feitas por
+ *     outra instância ou direto no banco). Alunos atualizados durante a releitura mantêm o estado novo.</li>
+ * </ul>
+ */
+public class MembrosAtivos {
+
+    private final AssinaturaDao dao;
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    private BitmapCompacto liberados;           // null até a primeira carga
+    private Map<Long, Boolean> tocados;         // != null enquanto uma reconciliação lê o banco
+
+    public MembrosAtivos(AssinaturaDao dao) {
+        this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+    }
+
+    // ===== CONSULTAS =====
+    public boolean liberado(long idAluno) throws SQLException {
+        garantirCarregado();
+        trava.readLock().lock();
+        try {
+            if (liberados != null) return liberados.contem(idAluno);
+        } finally {
+            trava.readLock().unlock();
+        }
+        return dao.alunoComAcessoLiberado(idAluno); // descartado no meio da carga
+    }
+
+    public long contar() throws SQLException {
+        garantirCarregado();
+        trava.readLock().lock();
+        try {
+            if (liberados != null) return liberados.cardinalidade();
+        } finally {
+            trava.readLock().unlock();
+        }
+        return dao.percorrerAlunosComAcessoLiberado(id -> { });
+    }
+
+    // ===== SINCRONIZAÇÃO COM AS ESCRITAS =====
+    /**
+     * Relê o acesso de um aluno (depois do commit). Se a consulta falhar, o bitmap é descartado (e uma
+     * releitura em andamento também) e a próxima verificação recarrega tudo, em vez de liberar ou barrar
+     * com um estado velho.
+     */
+    public void atualizarAluno(long idAluno) {
+        boolean liberado;
+        try {
+            liberado = dao.alunoComAcessoLiberado(idAluno);
+        } catch (SQLException e) {
+            System.err.println("Falha ao atualizar acesso do aluno " + idAluno + " (" + e.getMessage() + "); o cache será recarregado.");
+            descartar();
+            return;
+        }
+
+        trava.writeLock().lock();
+        try {
+            if (liberados != null) aplicar(liberados, idAluno, liberado);
+            if (tocados != null) tocados.put(idAluno, liberado);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // ===== RECONCILIAÇÃO =====
+    /** Relê do banco e troca o bitmap; devolve quantos alunos estavam divergentes. */
+    public synchronized long reconciliar() throws SQLException {
+        trava.writeLock().lock();
+        try {
+            tocados = new HashMap<>();
+        } finally {
+            trava.writeLock().unlock();
+        }
+
+        BitmapCompacto novo = new BitmapCompacto();
+        try {
+            dao.percorrerAlunosComAcessoLiberado(novo::adicionar);
+        } catch (SQLException | RuntimeException e) {
+            trava.writeLock().lock();
+            try {
+                tocados = null;
+            } finally {
+                trava.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        trava.writeLock().lock();
+        try {
+            if (tocados == null) return 0; // descartado durante a leitura: o que foi lido pode estar velho
+            for (Map.Entry<Long, Boolean> t : tocados.entrySet()) aplicar(novo, t.getKey(), t.getValue());
+            tocados = null;
+            long divergentes = liberados != null ? divergencias(liberados, novo) : 0;
+            liberados = novo;
+            return divergentes;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /** Reconcilia a cada {@code gym.membros.reconciliacaoMin} minutos (padrão 10) numa thread daemon. */
+    public void iniciarReconciliacaoPeriodica() {
+        long intervalo = Math.max(1, Configuracao.longo("gym.membros.reconciliacaoMin", 10));
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reconciliacao-membros");
+            t.setDaemon(true);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                long divergentes = reconciliar();
+                if (divergentes > 0) System.out.println("🔁 Membros ativos: " + divergentes + " aluno(s) corrigido(s) na reconciliação.");
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Falha na reconciliação de membros ativos: " + e.getMessage());
+            }
+        }, intervalo, intervalo, TimeUnit.MINUTES);
+    }
+
+    private void garantirCarregado() throws SQLException {
+        if (carregado()) return;
+        synchronized (this) {
+            if (!carregado()) reconciliar();
+        }
+    }
+
+    private boolean carregado() {
+        trava.readLock().lock();
+        try {
+            return liberados != null;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    private void descartar() {
+        trava.writeLock().lock();
+        try {
+            liberados = null;
+            tocados = null;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private static void aplicar(BitmapCompacto bitmap, long idAluno, boolean liberado) {
+        if (liberado) bitmap.adicionar(idAluno);
+        else bitmap.remover(idAluno);
+    }
+
+    private static long divergencias(BitmapCompacto antigo, BitmapCompacto novo) {
+        long[] total = {0};
+        antigo.paraCada(id -> { if (!novo.contem(id)) total[0]++; });
+        novo.paraCada(id -> { if (!antigo.contem(id)) total[0]++; });
+        return total[0];
+    }
+}
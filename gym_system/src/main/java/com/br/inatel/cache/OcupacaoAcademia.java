@@ -0,0 +1,151 @@
+package com.br.inatel.cache;
+
+import com.br.inatel.dao.FrequenciaDao;
+import com.br.inatel.model.OcupacaoDoDia;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ocupação da academia em tempo real: alunos dentro agora e entradas/saídas do dia por faixa de
+ * {@value #MINUTOS_POR_FAIXA} minutos, em contadores atômicos. Um painel pode consultar {@link #presentes}
+ * e {@link #doDia} a qualquer frequência sem travas e sem ir ao MySQL.
+ *
+ * <ul>
+ *     <li>Os services chamam {@link #entrada} e {@link #saida} depois do commit de cada passada com horário,
+ *     e {@link #cancelarEntrada} quando uma atualização apaga os horários de uma passada.</li>
+ *     <li>Na virada do dia os contadores recomeçam zerados; passadas de um dia já encerrado são ignoradas.</li>
+ *     <li>{@link #semear} conta os horários de hoje já gravados num dia novo e o troca inteiro pelo atual. Deve
+ *     terminar antes de a catraca começar a gravar: uma passada contada ao vivo e também lida pela
+ *     semeadura apareceria duas vezes.</li>
+ * </ul>
+ * Cada instância conta as passadas que ela grava; as gravadas por outra instância só aparecem depois de
+ * um {@link #semear} numa nova inicialização.
+ */
+public class OcupacaoAcademia {
+
+    public static final int MINUTOS_POR_FAIXA = 15;
+    public static final int FAIXAS = 24 * 60 / MINUTOS_POR_FAIXA;
+
+    /** Contadores de um dia; trocados inteiros na virada. */
+    private static final class Dia {
+        final LocalDate data;
+        final AtomicInteger presentes = new AtomicInteger();
+        final AtomicIntegerArray entradas = new AtomicIntegerArray(FAIXAS);
+        final AtomicIntegerArray saidas = new AtomicIntegerArray(FAIXAS);
+
+        Dia(LocalDate data) {
+            this.data = data;
+        }
+    }
+
+    private final FrequenciaDao dao;
+    private final Clock relogio;
+    private final AtomicReference<Dia> atual;
+
+    public OcupacaoAcademia(FrequenciaDao dao) {
+        this(dao, Clock.systemDefaultZone());
+    }
+
+    public OcupacaoAcademia(FrequenciaDao dao, Clock relogio) {
+        this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+        this.relogio = Objects.requireNonNull(relogio, "relogio não pode ser null");
+        this.atual = new AtomicReference<>(new Dia(LocalDate.now(relogio)));
+    }
+
+    // ===== EVENTOS =====
+    public void entrada(LocalDateTime hora) {
+        Dia d = dia(hora.toLocalDate());
+        if (d == null) return;
+        contarEntrada(d, hora);
+    }
+
+    /** Saída de quem entrou em {@code entrada}; a saída depois da meia-noite conta na última faixa do dia. */
+    public void saida(LocalDateTime entrada, LocalDateTime saida) {
+        Dia d = dia(entrada.toLocalDate());
+        if (d == null) return;
+        contarSaida(d, entrada, saida);
+    }
+
+    /** Desfaz uma passada já contada ({@code saida} null se ainda não tinha saído). */
+    public void cancelarEntrada(LocalDateTime entrada, LocalDateTime saida) {
+        Dia d = dia(entrada.toLocalDate());
+        if (d == null) return;
+        d.entradas.decrementAndGet(faixa(entrada.toLocalTime()));
+        if (saida != null) d.saidas.decrementAndGet(faixaSaida(entrada, saida));
+        else d.presentes.decrementAndGet();
+    }
+
+    /** Recria os contadores de hoje a partir dos horários gravados; devolve quantos check-ins foram lidos. */
+    public long semear() throws SQLException {
+        LocalDate hoje = LocalDate.now(relogio);
+        Dia novo = new Dia(hoje);
+        long lidos = dao.percorrerHorariosDoDia(hoje, (entrada, saida) -> {
+            contarEntrada(novo, entrada);
+            if (saida != null) contarSaida(novo, entrada, saida);
+        });
+        // Se o dia virou durante a leitura, os contadores do dia novo ficam
+        atual.updateAndGet(d -> d.data.isAfter(hoje) ? d : novo);
+        return lidos;
+    }
+
+    // ===== CONSULTAS =====
+    /** Alunos dentro da academia agora (entradas de hoje menos saídas). */
+    public int presentes() {
+        return Math.max(0, dia(LocalDate.now(relogio)).presentes.get());
+    }
+
+    /** Retrato do dia: a leitura não é atômica entre faixas, mas cada contador é consistente. */
+    public OcupacaoDoDia doDia() {
+        Dia d = dia(LocalDate.now(relogio));
+        List<OcupacaoDoDia.Faixa> faixas = new ArrayList<>(FAIXAS);
+        int entradas = 0, saidas = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            int e = d.entradas.get(i);
+            int s = d.saidas.get(i);
+            entradas += e;
+            saidas += s;
+            faixas.add(new OcupacaoDoDia.Faixa(LocalTime.MIN.plusMinutes((long) i * MINUTOS_POR_FAIXA), e, s,
+                    Math.max(0, entradas - saidas)));
+        }
+        return new OcupacaoDoDia(d.data, Math.max(0, d.presentes.get()), entradas, saidas, faixas);
+    }
+
+    // Dia corrente, girando na primeira chamada depois da meia-noite; null para um dia que já passou
+    private Dia dia(LocalDate data) {
+        while (true) {
+            Dia d = atual.get();
+            if (d.data.equals(data)) return d;
+            if (data.isBefore(d.data)) return null;
+            Dia novo = new Dia(data);
+            if (atual.compareAndSet(d, novo)) return novo;
+        }
+    }
+
+    private static void contarEntrada(Dia d, LocalDateTime hora) {
+        d.entradas.incrementAndGet(faixa(hora.toLocalTime()));
+        d.presentes.incrementAndGet();
+    }
+
+    private static void contarSaida(Dia d, LocalDateTime entrada, LocalDateTime saida) {
+        d.saidas.incrementAndGet(faixaSaida(entrada, saida));
+        d.presentes.decrementAndGet();
+    }
+
+    private static int faixaSaida(LocalDateTime entrada, LocalDateTime saida) {
+        return saida.toLocalDate().isAfter(entrada.toLocalDate()) ? FAIXAS - 1 : faixa(saida.toLocalTime());
+    }
+
+    private static int faixa(LocalTime hora) {
+        return (hora.getHour() * 60 + hora.getMinute()) / MINUTOS_POR_FAIXA;
+    }
+}
@@ -0,0 +1,81 @@
+package com.br.inatel.cache;
+
+/**
+ * Count-Min Sketch com contadores de 4 bits (16 por {@code long}), usado pela admissão do
+ * {@link CacheEntidades} para estimar quantas vezes uma chave foi pedida recentemente.
+ * Depois de {@code 10 × capacidade} incrementos todos os contadores caem pela metade, então
+ * chaves que foram populares e esfriaram perdem peso.
+ */
+final class SketchFrequencia {
+
+    private static final long[] SEMENTES = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long METADE = 0x7777_7777_7777_7777L;
+
+    private final long[] tabela;
+    private final int mascara;
+    private final int amostra;
+    private int incrementos;
+
+    SketchFrequencia(int capacidade) {
+        int linhas = Integer.highestOneBit(Math.max(16, capacidade - 1) << 1);
+        this.tabela = new long[linhas];
+        this.mascara = linhas - 1;
+        this.amostra = Math.max(10, 10 * capacidade);
+    }
+
+    /** Estimativa (0..15): o menor dos quatro contadores da chave. */
+    int frequencia(Object chave) {
+        int h = espalhar(chave.hashCode());
+        int minimo = 15;
+        for (int i = 0; i < 4; i++) {
+            minimo = Math.min(minimo, contador(h, i));
+        }
+        return minimo;
+    }
+
+    void incrementar(Object chave) {
+        int h = espalhar(chave.hashCode());
+        boolean mudou = false;
+        for (int i = 0; i < 4; i++) {
+            int indice = indice(h, i);
+            int deslocamento = deslocamento(h, i);
+            if (((tabela[indice] >>> deslocamento) & 0xF) != 0xF) {
+                tabela[indice] += 1L << deslocamento;
+                mudou = true;
+            }
+        }
+        if (mudou && ++incrementos >= amostra) envelhecer();
+    }
+
+    private void envelhecer() {
+        for (int i = 0; i < tabela.length; i++) {
+            tabela[i] = (tabela[i] >>> 1) & METADE;
+        }
+        incrementos /= 2;
+    }
+
+    private int contador(int h, int i) {
+        return (int) ((tabela[indice(h, i)] >>> deslocamento(h, i)) & 0xF);
+    }
+
+    private int indice(int h, int i) {
+        long x = (h + SEMENTES[i]) * SEMENTES[i];
+        return (int) (x ^ (x >>> 32)) & mascara;
+    }
+
+    // Cada uma das 4 funções usa um grupo diferente de 4 contadores dentro do long
+    private static int deslocamento(int h, int i) {
+        return (((h >>> (i << 3)) & 3) + (i << 2)) << 2;
+    }
+
+    private static int espalhar(int h) {
+        h ^= h >>> 17;
+        h *= 0xed5ad4bb;
+        h ^= h >>> 11;
+        h *= 0xac4c1b51;
+        h ^= h >>> 15;
+        return h;
+    }
+}
@@ -0,0 +1,123 @@
+package com.br.inatel.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU de PreparedStatements de uma conexão física. Com {@code useServerPrepStmts=true}
+ * cada SQL dos DAOs é preparado no servidor uma única vez por conexão do pool; nas próximas
+ * chamadas o mesmo statement é reaproveitado e o {@code close()} do DAO só o devolve ao cache.
+ */
+class CacheStatements {
+
+    private final Connection real;
+    private final int capacidade;
+    private final AtomicLong acertos;
+    private final AtomicLong falhas;
+    private final Map<String, Entrada> entradas;
+
+    CacheStatements(Connection real, int capacidade, AtomicLong acertos, AtomicLong falhas) {
+        this.real = real;
+        this.capacidade = capacidade;
+        this.acertos = acertos;
+        this.falhas = falhas;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    PreparedStatement preparar(String sql, int chavesGeradas) throws SQLException {
+        if (capacidade <= 0) return real.prepareStatement(sql, chavesGeradas);
+
+        String chave = chavesGeradas + "#" + sql;
+        Entrada e = entradas.get(chave);
+        if (e != null && !e.emUso) {
+            acertos.incrementAndGet();
+        } else {
+            falhas.incrementAndGet();
+            PreparedStatement ps = real.prepareStatement(sql, chavesGeradas);
+            if (e != null) {
+                // mesmo SQL aberto duas vezes ao mesmo tempo: o segundo não entra no cache
+                return ps;
+            }
+            e = new Entrada(ps);
+            entradas.put(chave, e);
+            despejarExcesso();
+        }
+        e.emUso = true;
+        return e.proxy();
+    }
+
+    private void despejarExcesso() {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (entradas.size() > capacidade && it.hasNext()) {
+            Entrada antiga = it.next();
+            if (antiga.emUso) continue;
+            it.remove();
+            fecharSilencioso(antiga.ps);
+        }
+    }
+
+    void fecharTodos() {
+        for (Entrada e : entradas.values()) fecharSilencioso(e.ps);
+        entradas.clear();
+    }
+
+    private static void fecharSilencioso(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException ignorada) {
+            // o statement pertence a uma conexão que pode já ter caído
+        }
+    }
+
+    private static final class Entrada {
+        final PreparedStatement ps;
+        boolean emUso;
+
+        Entrada(PreparedStatement ps) {
+            this.ps = ps;
+        }
+
+        PreparedStatement proxy() {
+            boolean[] devolvido = {false};
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, metodo, args) -> {
+                        switch (metodo.getName()) {
+                            case "close" -> {
+                                if (!devolvido[0]) {
+                                    devolvido[0] = true;
+                                    ps.clearParameters();
+                                    ps.clearBatch();
+                                    ps.clearWarnings();
+                                    emUso = false;
+                                }
+                                return null;
+                            }
+                            case "isClosed" -> {
+                                return devolvido[0] || ps.isClosed();
+                            }
+                            case "equals" -> {
+                                return proxy == args[0];
+                            }
+                            case "hashCode" -> {
+                                return System.identityHashCode(proxy);
+                            }
+                            default -> {
+                                if (devolvido[0]) throw new SQLException("Statement já fechado.");
+                                try {
+                                    return metodo.invoke(ps, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                            }
+                        }
+                    });
+        }
+    }
+}
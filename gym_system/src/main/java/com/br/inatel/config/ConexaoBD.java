@@ -1,33 +1,49 @@
 package com.br.inatel.config;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
+import javax.sql.DataSource;
 
 public class ConexaoBD {
 
-    private static final String URL = "jdbc:mysql://localhost:3306/gym_manager?useSSL=false&allowPublicKeyRetrieval=true&characterEncoding=UTF-8&serverTimezone=UTC";
-    private static final String USUARIO = "gm_app";
-    private static final String SENHA = "12345";
+    private static final String URL = Configuracao.texto("gym.db.url",
+            "jdbc:mysql://localhost:3306/gym_manager?useSSL=false&allowPublicKeyRetrieval=true&characterEncoding=UTF-8&serverTimezone=UTC"
+                    + "&useLocalSessionState=true&useServerPrepStmts=true&rewriteBatchedStatements=true");
+    private static final String USUARIO = Configuracao.texto("gym.db.usuario", "gm_app");
+    private static final String SENHA = Configuracao.texto("gym.db.senha", "12345");
 
-    private static Connection conexao = null;
+    // Réplica de leitura opcional; sem URL, tudo vai para o primário
+    private static final String URL_REPLICA = Configuracao.texto("gym.db.replica.url", null);
+    private static final String USUARIO_REPLICA = Configuracao.texto("gym.db.replica.usuario", USUARIO);
+    private static final String SENHA_REPLICA = Configuracao.texto("gym.db.replica.senha", SENHA);
 
-    public static Connection obterConexao() throws SQLException {
-        if (conexao == null || conexao.isClosed()){
-            conexao = DriverManager.getConnection(URL, USUARIO, SENHA);
-            System.out.println("✅ Conexão com o banco estabelecida com sucesso!");
+    private static PoolConexoes pool = null;
+    private static DataSourceRoteado roteado = null;
+
+    public static synchronized DataSource obterDataSource() {
+        if (pool == null) {
+            pool = new PoolConexoes("primario", URL, USUARIO, SENHA);
+            System.out.println("✅ Pool de conexões com o banco criado!");
+            if (URL_REPLICA != null) {
+                roteado = new DataSourceRoteado(pool, new PoolConexoes("replica", URL_REPLICA, USUARIO_REPLICA, SENHA_REPLICA));
+                System.out.println("✅ Leituras roteadas para a réplica: " + URL_REPLICA);
+            }
         }
-        return conexao;
+        return roteado != null ? roteado : pool;
     }
 
-    public static void fecharConexao() {
-        try {
-            if (conexao != null && !conexao.isClosed()) {
-                conexao.close();
-                System.out.println("Conexão com o banco encerrada.");
+    public static synchronized void fecharPool() {
+        if (pool != null) {
+            System.out.println("Statements reaproveitados: " + pool.getAcertosStatements()
+                    + " | preparados: " + pool.getFalhasStatements());
+            if (roteado != null) {
+                System.out.println("Leituras na réplica: " + roteado.getLeiturasReplica()
+                        + " | no primário: " + roteado.getLeiturasPrimario());
+                roteado.close();
+                roteado = null;
+            } else {
+                pool.close();
             }
-        } catch (SQLException e) {
-            System.err.println("Erro ao fechar a conexão: " + e.getMessage());
+            pool = null;
+            System.out.println("Pool de conexões com o banco encerrado.");
         }
     }
 }
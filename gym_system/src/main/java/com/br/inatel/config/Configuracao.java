@@ -0,0 +1,46 @@
+package com.br.inatel.config;
+
+/**
+ * Lê parâmetros da aplicação: primeiro a system property (-Dgym.pool.maximo=20),
+ * depois a variável de ambiente equivalente (GYM_POOL_MAXIMO) e, por fim, o padrão.
+ */
+public final class Configuracao {
+
+    private Configuracao() {
+    }
+
+    public static String texto(String chave, String padrao) {
+        String valor = System.getProperty(chave);
+        if (valor == null || valor.isBlank()) {
+            valor = System.getenv(chave.toUpperCase().replace('.', '_'));
+        }
+        return (valor == null || valor.isBlank()) ? padrao : valor.trim();
+    }
+
+    public static int inteiro(String chave, int padrao) {
+        String valor = texto(chave, null);
+        if (valor == null) return padrao;
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            System.err.println("Configuração inválida para " + chave + ": '" + valor + "'. Usando " + padrao + ".");
+            return padrao;
+        }
+    }
+
+    public static long longo(String chave, long padrao) {
+        String valor = texto(chave, null);
+        if (valor == null) return padrao;
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            System.err.println("Configuração inválida para " + chave + ": '" + valor + "'. Usando " + padrao + ".");
+            return padrao;
+        }
+    }
+
+    public static boolean booleano(String chave, boolean padrao) {
+        String valor = texto(chave, null);
+        return valor == null ? padrao : Boolean.parseBoolean(valor);
+    }
+}
@@ -0,0 +1,163 @@
+package com.br.inatel.config;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Encaminha conexões entre o primário e uma réplica de leitura.
+ *
+ * <ul>
+ *     <li>Por padrão tudo vai para o primário; só o que roda dentro de {@link #lendo} pode ir para a réplica.</li>
+ *     <li>Leitura-após-escrita: a thread (sessão do console) que confirmou uma transação
+ *     ({@link #marcarEscrita}) continua lendo do primário por {@code janelaMs}, tempo para a réplica aplicar
+ *     o que ela acabou de gravar. Leituras avulsas no primário não abrem a janela.</li>
+ *     <li>Dentro de {@link #noPrimario} as leituras vão ao primário, mesmo aninhadas em {@link #lendo}
+ *     (carga de caches compartilhados, que não podem guardar o atraso da réplica).</li>
+ *     <li>Se a réplica não entregar conexão, a leitura cai no primário em vez de falhar.</li>
+ * </ul>
+ */
+public class DataSourceRoteado implements DataSource, AutoCloseable {
+
+    private final PoolConexoes primario;
+    private final PoolConexoes replica;
+    private final long janelaMs;
+
+    private final ThreadLocal<Boolean> emLeitura = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private final ThreadLocal<Boolean> fixoNoPrimario = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private final ThreadLocal<Long> ultimaEscrita = ThreadLocal.withInitial(() -> 0L);
+
+    private final AtomicLong leiturasReplica = new AtomicLong();
+    private final AtomicLong leiturasPrimario = new AtomicLong();
+
+    public DataSourceRoteado(PoolConexoes primario, PoolConexoes replica) {
+        this(primario, replica, Configuracao.longo("gym.replica.janelaLeituraMs", 5_000));
+    }
+
+    public DataSourceRoteado(PoolConexoes primario, PoolConexoes replica, long janelaMs) {
+        this.primario = primario;
+        this.replica = replica;
+        this.janelaMs = Math.max(0, janelaMs);
+    }
+
+    /** Executa {@code trabalho} permitindo que as conexões pedidas nele venham da réplica. */
+    public <T> T lendo(GerenciadorTransacao.UnidadeDeTrabalho<T> trabalho) throws SQLException {
+        if (emLeitura.get()) return trabalho.executar();
+        emLeitura.set(Boolean.TRUE);
+        try {
+            return trabalho.executar();
+        } finally {
+            emLeitura.remove();
+        }
+    }
+
+    /** Executa {@code trabalho} lendo do primário, sem abrir a janela de leitura-após-escrita. */
+    public <T> T noPrimario(GerenciadorTransacao.UnidadeDeTrabalho<T> trabalho) throws SQLException {
+        if (fixoNoPrimario.get()) return trabalho.executar();
+        fixoNoPrimario.set(Boolean.TRUE);
+        try {
+            return trabalho.executar();
+        } finally {
+            fixoNoPrimario.remove();
+        }
+    }
+
+    /** Conexão do primário, mesmo dentro de {@link #lendo}; usada para abrir transações. */
+    public Connection getConnectionEscrita() throws SQLException {
+        return primario.getConnection();
+    }
+
+    /** Abre a janela de leitura-após-escrita da thread; chamado depois do commit de uma transação. */
+    public void marcarEscrita() {
+        ultimaEscrita.set(System.currentTimeMillis());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!emLeitura.get() && !fixoNoPrimario.get()) return getConnectionEscrita();
+        if (fixoNoPrimario.get() || System.currentTimeMillis() - ultimaEscrita.get() < janelaMs) {
+            leiturasPrimario.incrementAndGet();
+            return primario.getConnection();
+        }
+        try {
+            Connection c = replica.getConnection();
+            leiturasReplica.incrementAndGet();
+            return c;
+        } catch (SQLException e) {
+            System.err.println("Réplica indisponível (" + e.getMessage() + "); lendo do primário.");
+            leiturasPrimario.incrementAndGet();
+            return primario.getConnection();
+        }
+    }
+
+    // ===== ESTATÍSTICAS =====
+    public long getLeiturasReplica() {
+        return leiturasReplica.get();
+    }
+
+    /** Leituras que foram para o primário pela janela de leitura-após-escrita, por {@link #noPrimario} ou por falha da réplica. */
+    public long getLeiturasPrimario() {
+        return leiturasPrimario.get();
+    }
+
+    public PoolConexoes getPrimario() {
+        return primario;
+    }
+
+    public PoolConexoes getReplica() {
+        return replica;
+    }
+
+    // ===== ENCERRAMENTO =====
+    @Override
+    public void close() {
+        replica.close();
+        primario.close();
+    }
+
+    // ===== DataSource =====
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("O roteador usa as credenciais configuradas em ConexaoBD.");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return primario.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        primario.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        primario.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return primario.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        throw new SQLException("DataSourceRoteado não implementa " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
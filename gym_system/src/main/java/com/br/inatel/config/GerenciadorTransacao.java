@@ -0,0 +1,196 @@
+package com.br.inatel.config;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * Unidade de trabalho: um método de service abre uma transação com {@link #executar} e todos os
+ * DAOs chamados dentro dela usam a mesma conexão (via {@link #getDataSource()}), com um único commit.
+ * Chamadas aninhadas entram na transação que já está aberta na thread.
+ * Métodos só de consulta usam {@link #executarLeitura}, que pode mandá-los para a réplica
+ * quando o pool é um {@link DataSourceRoteado}.
+ */
+public class GerenciadorTransacao {
+
+    @FunctionalInterface
+    public interface UnidadeDeTrabalho<T> {
+        T executar() throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface Acao {
+        void executar() throws SQLException;
+    }
+
+    private final DataSource pool;
+    private final DataSourceRoteado roteado;
+    private final int isolamentoPadrao;
+    private final ThreadLocal<Connection> conexaoDaThread = new ThreadLocal<>();
+    private final DataSource dataSource = new DataSourceTransacional();
+
+    public GerenciadorTransacao(DataSource pool) {
+        this(pool, Configuracao.inteiro("gym.tx.isolamento", Connection.TRANSACTION_READ_COMMITTED));
+    }
+
+    public GerenciadorTransacao(DataSource pool, int isolamentoPadrao) {
+        this.pool = pool;
+        this.roteado = pool instanceof DataSourceRoteado r ? r : null;
+        this.isolamentoPadrao = isolamentoPadrao;
+    }
+
+    /** DataSource que os DAOs devem usar: devolve a conexão da transação corrente, se houver. */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean emTransacao() {
+        return conexaoDaThread.get() != null;
+    }
+
+    // ===== EXECUÇÃO =====
+    public <T> T executar(UnidadeDeTrabalho<T> trabalho) throws SQLException {
+        return executar(isolamentoPadrao, trabalho);
+    }
+
+    public <T> T executar(int isolamento, UnidadeDeTrabalho<T> trabalho) throws SQLException {
+        if (emTransacao()) {
+            return trabalho.executar();
+        }
+
+        try (Connection conn = roteado != null ? roteado.getConnectionEscrita() : pool.getConnection()) {
+            if (conn.getTransactionIsolation() != isolamento) {
+                conn.setTransactionIsolation(isolamento);
+            }
+            conn.setAutoCommit(false);
+            conexaoDaThread.set(conn);
+            try {
+                T resultado = trabalho.executar();
+                conn.commit();
+                if (roteado != null) roteado.marcarEscrita();
+                return resultado;
+            } catch (SQLException | RuntimeException | Error e) {
+                desfazer(conn, e);
+                throw e;
+            } finally {
+                conexaoDaThread.remove();
+            }
+        }
+    }
+
+    public void executarSemRetorno(Acao acao) throws SQLException {
+        executarSemRetorno(isolamentoPadrao, acao);
+    }
+
+    public void executarSemRetorno(int isolamento, Acao acao) throws SQLException {
+        executar(isolamento, () -> {
+            acao.executar();
+            return null;
+        });
+    }
+
+    /**
+     * Consulta sem transação. Fora de uma transação as conexões podem vir da réplica; dentro de uma,
+     * continua na conexão dela (primário).
+     */
+    public <T> T executarLeitura(UnidadeDeTrabalho<T> trabalho) throws SQLException {
+        if (emTransacao() || roteado == null) return trabalho.executar();
+        return roteado.lendo(trabalho);
+    }
+
+    /**
+     * Consulta que precisa ver o último commit: fora de uma transação vai ao primário mesmo dentro de
+     * {@link #executarLeitura}. Usada na carga de caches compartilhados entre threads.
+     */
+    public <T> T executarNoPrimario(UnidadeDeTrabalho<T> trabalho) throws SQLException {
+        if (emTransacao() || roteado == null) return trabalho.executar();
+        return roteado.noPrimario(trabalho);
+    }
+
+    private static void desfazer(Connection conn, Throwable causa) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            causa.addSuppressed(e);
+        }
+    }
+
+    // ===== DataSource exposto aos DAOs =====
+    private final class DataSourceTransacional implements DataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection atual = conexaoDaThread.get();
+            if (atual == null) return pool.getConnection();
+
+            // O DAO fecha a conexão no try-with-resources; dentro da transação isso não pode devolvê-la ao pool.
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, metodo, args) -> {
+                        switch (metodo.getName()) {
+                            case "close" -> {
+                                return null;
+                            }
+                            case "equals" -> {
+                                return proxy == args[0];
+                            }
+                            case "hashCode" -> {
+                                return System.identityHashCode(proxy);
+                            }
+                            default -> {
+                                try {
+                                    return metodo.invoke(atual, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                            }
+                        }
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return pool.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            pool.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            pool.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return pool.getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return pool.getParentLogger();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) return iface.cast(this);
+            return pool.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(this) || pool.isWrapperFor(iface);
+        }
+    }
+}
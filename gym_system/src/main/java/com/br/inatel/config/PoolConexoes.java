@@ -0,0 +1,396 @@
+package com.br.inatel.config;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Pool de conexões limitado. Cada operação de DAO pede uma conexão com {@link #getConnection()}
+ * e a devolve no {@code close()}; a conexão física continua aberta e volta para a fila de ociosas.
+ *
+ * <ul>
+ *     <li>validação no empréstimo ({@code isValid}) para conexões paradas há mais de meio segundo;</li>
+ *     <li>remoção de ociosas antigas, mantendo {@code minimoOcioso} abertas;</li>
+ *     <li>vida máxima: conexões mais velhas que {@code vidaMaximaMs} são recicladas;</li>
+ *     <li>detecção de vazamento: avisa (com a pilha de quem pegou) quando uma conexão fica emprestada mais que
+ *     {@code limiteVazamentoMs} (desligada por padrão: guardar a pilha custa em todo empréstimo);</li>
+ *     <li>cache de PreparedStatements por conexão física ({@link CacheStatements}).</li>
+ * </ul>
+ */
+public class PoolConexoes implements DataSource, AutoCloseable {
+
+    // Conexões devolvidas há menos que isso não precisam de round trip de validação
+    private static final long VALIDACAO_DISPENSADA_MS = 500;
+
+    private final String nome;
+    private final String url;
+    private final String usuario;
+    private final String senha;
+
+    private final int maximo;
+    private final int minimoOcioso;
+    private final long timeoutEmprestimoMs;
+    private final long tempoMaxOciosoMs;
+    private final long vidaMaximaMs;
+    private final long limiteVazamentoMs;
+    private final int timeoutValidacaoSeg;
+    private final int statementsPorConexao;
+
+    private final Semaphore vagas;
+    private final Deque<ConexaoFisica> ociosas = new ConcurrentLinkedDeque<>();
+    private final Set<Emprestimo> emprestadas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger abertas = new AtomicInteger();
+    private final AtomicLong acertosStatements = new AtomicLong();
+    private final AtomicLong falhasStatements = new AtomicLong();
+    private final ScheduledExecutorService manutencao;
+
+    private volatile boolean fechado;
+
+    public PoolConexoes(String nome, String url, String usuario, String senha) {
+        this.nome = nome;
+        this.url = url;
+        this.usuario = usuario;
+        this.senha = senha;
+
+        this.maximo = Math.max(1, Configuracao.inteiro("gym.pool.maximo", 10));
+        this.minimoOcioso = Math.min(maximo, Math.max(0, Configuracao.inteiro("gym.pool.minimoOcioso", 2)));
+        this.timeoutEmprestimoMs = Configuracao.longo("gym.pool.timeoutEmprestimoMs", 5_000);
+        this.tempoMaxOciosoMs = Configuracao.longo("gym.pool.tempoMaxOciosoMs", 300_000);
+        this.vidaMaximaMs = Configuracao.longo("gym.pool.vidaMaximaMs", 1_800_000);
+        this.limiteVazamentoMs = Configuracao.longo("gym.pool.limiteVazamentoMs", 0);
+        this.timeoutValidacaoSeg = Configuracao.inteiro("gym.pool.timeoutValidacaoSeg", 2);
+        this.statementsPorConexao = Configuracao.inteiro("gym.pool.statementsPorConexao", 128);
+
+        this.vagas = new Semaphore(maximo, true);
+        this.manutencao = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-" + nome + "-manutencao");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalo = Math.max(1_000, Math.min(30_000, tempoMaxOciosoMs / 2));
+        manutencao.scheduleWithFixedDelay(this::manter, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    // ===== EMPRÉSTIMO =====
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (fechado) throw new SQLException("Pool de conexões '" + nome + "' encerrado.");
+        try {
+            if (!vagas.tryAcquire(timeoutEmprestimoMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Tempo esgotado aguardando conexão do pool '" + nome
+                        + "' (" + maximo + " em uso).");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão do pool '" + nome + "'.", e);
+        }
+
+        try {
+            return emprestar(obterFisica());
+        } catch (SQLException | RuntimeException e) {
+            vagas.release();
+            throw e;
+        }
+    }
+
+    private ConexaoFisica obterFisica() throws SQLException {
+        ConexaoFisica f;
+        while ((f = ociosas.pollFirst()) != null) {
+            long agora = System.currentTimeMillis();
+            if (agora - f.criadaEm >= vidaMaximaMs) {
+                descartar(f);
+                continue;
+            }
+            if (agora - f.devolvidaEm > VALIDACAO_DISPENSADA_MS && !valida(f)) {
+                descartar(f);
+                continue;
+            }
+            return f;
+        }
+        return abrir();
+    }
+
+    private Connection emprestar(ConexaoFisica fisica) {
+        Emprestimo e = new Emprestimo(fisica);
+        emprestadas.add(e);
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, e);
+    }
+
+    // ===== DEVOLUÇÃO =====
+    private void devolver(Emprestimo e) {
+        emprestadas.remove(e);
+        ConexaoFisica f = e.fisica;
+        try {
+            boolean reaproveitar = !fechado && !f.quebrada
+                    && System.currentTimeMillis() - f.criadaEm < vidaMaximaMs
+                    && restaurarEstado(f);
+            if (reaproveitar) {
+                f.devolvidaEm = System.currentTimeMillis();
+                ociosas.addFirst(f);
+            } else {
+                descartar(f);
+            }
+        } finally {
+            vagas.release();
+        }
+    }
+
+    // Quem pegou a conexão pode ter aberto transação ou mudado o modo; o próximo não deve herdar isso.
+    private boolean restaurarEstado(ConexaoFisica f) {
+        try {
+            Connection c = f.real;
+            if (!c.getAutoCommit()) {
+                c.rollback();
+                c.setAutoCommit(true);
+            }
+            if (c.isReadOnly()) c.setReadOnly(false);
+            if (c.getTransactionIsolation() != f.isolamentoPadrao) {
+                c.setTransactionIsolation(f.isolamentoPadrao);
+            }
+            c.clearWarnings();
+            return true;
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    // ===== MANUTENÇÃO =====
+    private void manter() {
+        try {
+            long agora = System.currentTimeMillis();
+
+            for (ConexaoFisica f : ociosas) {
+                boolean velha = agora - f.criadaEm >= vidaMaximaMs;
+                boolean ociosaDemais = agora - f.devolvidaEm >= tempoMaxOciosoMs && ociosas.size() > minimoOcioso;
+                if ((velha || ociosaDemais) && ociosas.remove(f)) {
+                    descartar(f);
+                }
+            }
+
+            if (limiteVazamentoMs > 0) {
+                for (Emprestimo e : emprestadas) {
+                    if (!e.vazamentoReportado && agora - e.emprestadaEm > limiteVazamentoMs) {
+                        e.vazamentoReportado = true;
+                        System.err.println("⚠️ Possível vazamento de conexão no pool '" + nome + "': emprestada há "
+                                + (agora - e.emprestadaEm) + " ms em " + e.thread + ".");
+                        if (e.origem != null) e.origem.printStackTrace();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Erro na manutenção do pool '" + nome + "': " + e.getMessage());
+        }
+    }
+
+    // ===== Conexão física =====
+    private ConexaoFisica abrir() throws SQLException {
+        Connection real = DriverManager.getConnection(url, usuario, senha);
+        abertas.incrementAndGet();
+        return new ConexaoFisica(real,
+                new CacheStatements(real, statementsPorConexao, acertosStatements, falhasStatements));
+    }
+
+    private boolean valida(ConexaoFisica f) {
+        try {
+            return f.real.isValid(timeoutValidacaoSeg);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void descartar(ConexaoFisica f) {
+        try {
+            f.statements.fecharTodos();
+            f.real.close();
+        } catch (SQLException ignorada) {
+            // a conexão já estava morta; nada a fazer
+        } finally {
+            abertas.decrementAndGet();
+        }
+    }
+
+    // ===== ESTATÍSTICAS =====
+    public int getEmUso() {
+        return emprestadas.size();
+    }
+
+    public int getOciosas() {
+        return ociosas.size();
+    }
+
+    public int getAbertas() {
+        return abertas.get();
+    }
+
+    /** PreparedStatements reaproveitados do cache (sem novo parse/prepare no servidor). */
+    public long getAcertosStatements() {
+        return acertosStatements.get();
+    }
+
+    /** PreparedStatements que precisaram ser preparados de novo. */
+    public long getFalhasStatements() {
+        return falhasStatements.get();
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    // ===== ENCERRAMENTO =====
+    @Override
+    public void close() {
+        if (fechado) return;
+        fechado = true;
+        manutencao.shutdownNow();
+        ConexaoFisica f;
+        while ((f = ociosas.pollFirst()) != null) {
+            descartar(f);
+        }
+        if (!emprestadas.isEmpty()) {
+            System.err.println("Pool '" + nome + "' encerrado com " + emprestadas.size()
+                    + " conexão(ões) ainda emprestada(s); serão fechadas na devolução.");
+        }
+    }
+
+    // ===== DataSource =====
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("O pool usa as credenciais configuradas em ConexaoBD.");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        throw new SQLException("PoolConexoes não implementa " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    // ===== Tipos internos =====
+    private static final class ConexaoFisica {
+        final Connection real;
+        final CacheStatements statements;
+        final long criadaEm = System.currentTimeMillis();
+        final int isolamentoPadrao;
+        volatile long devolvidaEm = criadaEm;
+        volatile boolean quebrada;
+
+        ConexaoFisica(Connection real, CacheStatements statements) throws SQLException {
+            this.real = real;
+            this.statements = statements;
+            this.isolamentoPadrao = real.getTransactionIsolation();
+        }
+    }
+
+    /** Estado de um empréstimo; é o handler do proxy entregue ao DAO. */
+    private final class Emprestimo implements InvocationHandler {
+        final ConexaoFisica fisica;
+        final long emprestadaEm = System.currentTimeMillis();
+        final String thread = Thread.currentThread().getName();
+        final Throwable origem = limiteVazamentoMs > 0 ? new Throwable("Conexão emprestada aqui") : null;
+        volatile boolean vazamentoReportado;
+        private boolean devolvida;
+
+        Emprestimo(ConexaoFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close" -> {
+                    synchronized (this) {
+                        if (devolvida) return null;
+                        devolvida = true;
+                    }
+                    devolver(this);
+                    return null;
+                }
+                case "isClosed" -> {
+                    if (devolvida) return true;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Conexão do pool '" + nome + "' (" + fisica.real + ")";
+                }
+                default -> {
+                }
+            }
+            if (devolvida) throw new SQLException("Conexão já devolvida ao pool '" + nome + "'.");
+            if (metodo.getName().equals("prepareStatement") && metodo.getReturnType() == PreparedStatement.class) {
+                // só as formas (sql) e (sql, chavesGeradas) passam pelo cache; as demais mudam o tipo do ResultSet
+                Class<?>[] tipos = metodo.getParameterTypes();
+                if (tipos.length == 1) {
+                    return fisica.statements.preparar((String) args[0], java.sql.Statement.NO_GENERATED_KEYS);
+                }
+                if (tipos.length == 2 && tipos[1] == int.class) {
+                    return fisica.statements.preparar((String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return metodo.invoke(fisica.real, args);
+            } catch (InvocationTargetException e) {
+                Throwable causa = e.getCause();
+                // SQLState 08xxx = falha de conexão: não devolve essa conexão para a fila
+                if (causa instanceof SQLException sql && sql.getSQLState() != null
+                        && sql.getSQLState().startsWith("08")) {
+                    fisica.quebrada = true;
+                }
+                throw causa;
+            }
+        }
+    }
+}
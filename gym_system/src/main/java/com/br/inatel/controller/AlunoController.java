@@ -32,6 +32,7 @@ public class AlunoController {
             System.out.println("5. Buscar por nome");
             System.out.println("6. Ativar aluno");
             System.out.println("7. Desativar aluno ");
+            System.out.println("8. Reconstruir índice de busca");
             System.out.println("0. Voltar");
             System.out.print("Escolha uma opção: ");
 
@@ -46,6 +47,7 @@ public class AlunoController {
                     case 5 -> buscarPorNome();
                     case 6 -> alterarAtivo(true);
                     case 7 -> alterarAtivo(false);
+                    case 8 -> reconstruirIndiceBusca();
                     case 0 -> System.out.println("Voltando ao menu principal...");
                     default -> System.out.println("Opção inválida!");
                 }
@@ -88,19 +90,16 @@ public class AlunoController {
     }
 
     private void listarTodos() {
-        List<Aluno> alunos = alunoService.listarTodos();
         System.out.println("\n--- Lista de Alunos ---");
-        if (alunos.isEmpty()) {
+        int total = Paginador.exibir(sc, alunoService::listarTodos, a ->
+                System.out.printf("[%d] %s | %s | %s | %s%n",
+                        a.getId(),
+                        a.getNome(),
+                        a.getDataNascimento() != null ? a.getDataNascimento().format(fmt) : "N/A",
+                        a.getTelefone() != null ? a.getTelefone() : "Sem telefone",
+                        a.isAtivo() ? "Ativo" : "Inativo"));
+        if (total == 0) {
             System.out.println("Nenhum aluno cadastrado.");
-            return;
-        }
-        for (Aluno a : alunos) {
-            System.out.printf("[%d] %s | %s | %s | %s%n",
-                    a.getId(),
-                    a.getNome(),
-                    a.getDataNascimento() != null ? a.getDataNascimento().format(fmt) : "N/A",
-                    a.getTelefone() != null ? a.getTelefone() : "Sem telefone",
-                    a.isAtivo() ? "Ativo" : "Inativo");
         }
     }
 
@@ -112,7 +111,7 @@ public class AlunoController {
     }
 
     private void buscarPorNome() {
-        System.out.print("Digite parte do nome: ");
+        System.out.print("Digite parte do nome ou do telefone: ");
         String termo = sc.nextLine();
         List<Aluno> lista = alunoService.buscarPorNome(termo);
         if (lista.isEmpty()) {
@@ -130,4 +129,12 @@ public class AlunoController {
         System.out.println(ativar ? "✅ Aluno ativado." : "🚫 Aluno desativado.");
     }
 
+    private void reconstruirIndiceBusca() {
+        if (alunoService.reconstruirIndiceBusca()) {
+            System.out.println("🔄 Reconstrução iniciada; a busca usa o banco até terminar.");
+        } else {
+            System.out.println("Já existe uma reconstrução em andamento.");
+        }
+    }
+
 }
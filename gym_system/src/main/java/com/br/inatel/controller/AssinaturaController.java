@@ -8,7 +8,6 @@ import com.br.inatel.service.exception.NotFoundException;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Scanner;
 
 public class AssinaturaController {
@@ -100,19 +99,16 @@ public class AssinaturaController {
 
     private void listarTodas() {
         System.out.println("\n--- Lista de Assinaturas ---");
-        List<Assinatura> lista = assinaturaService.listarTodas();
-        if (lista.isEmpty()) {
+        int total = Paginador.exibir(sc, assinaturaService::listarTodas, a ->
+                System.out.printf("[%d] Aluno: %s | Plano: %s | Início: %s | Fim: %s | Status: %s%n",
+                        a.getId(),
+                        a.getAluno() != null ? a.getAluno().getNome() : "N/A",
+                        a.getPlano() != null ? a.getPlano().getNome() : "N/A",
+                        a.getDataInicio() != null ? a.getDataInicio().format(fmt) : "-",
+                        a.getDataFim() != null ? a.getDataFim().format(fmt) : "-",
+                        a.getStatus()));
+        if (total == 0) {
             System.out.println("Nenhuma assinatura cadastrada.");
-            return;
-        }
-        for (Assinatura a : lista) {
-            System.out.printf("[%d] Aluno: %s | Plano: %s | Início: %s | Fim: %s | Status: %s%n",
-                    a.getId(),
-                    a.getAluno() != null ? a.getAluno().getNome() : "N/A",
-                    a.getPlano() != null ? a.getPlano().getNome() : "N/A",
-                    a.getDataInicio() != null ? a.getDataInicio().format(fmt) : "-",
-                    a.getDataFim() != null ? a.getDataFim().format(fmt) : "-",
-                    a.getStatus());
         }
     }
 
@@ -120,30 +116,28 @@ public class AssinaturaController {
     private void buscarPorAluno() {
         System.out.print("Digite o ID do aluno: ");
         long idAluno = Long.parseLong(sc.nextLine());
-        List<Assinatura> lista = assinaturaService.listarPorAluno(idAluno);
-        if (lista.isEmpty()) {
+        System.out.println("\n--- Assinaturas do Aluno ---");
+        int total = Paginador.exibir(sc, (tamanho, cursor) -> assinaturaService.listarPorAluno(idAluno, tamanho, cursor),
+                a -> System.out.printf("[%d] Plano: %s | Status: %s%n",
+                        a.getId(),
+                        a.getPlano() != null ? a.getPlano().getNome() : "N/A",
+                        a.getStatus()));
+        if (total == 0) {
             System.out.println("Nenhuma assinatura encontrada para esse aluno.");
-        } else {
-            System.out.println("\n--- Assinaturas do Aluno ---");
-            lista.forEach(a -> System.out.printf("[%d] Plano: %s | Status: %s%n",
-                    a.getId(),
-                    a.getPlano() != null ? a.getPlano().getNome() : "N/A",
-                    a.getStatus()));
         }
     }
 
     private void buscarPorPlano() {
         System.out.print("Digite o ID do plano: ");
         long idPlano = Long.parseLong(sc.nextLine());
-        List<Assinatura> lista = assinaturaService.listarPorPlano(idPlano);
-        if (lista.isEmpty()) {
+        System.out.println("\n--- Assinaturas do Plano ---");
+        int total = Paginador.exibir(sc, (tamanho, cursor) -> assinaturaService.listarPorPlano(idPlano, tamanho, cursor),
+                a -> System.out.printf("[%d] Aluno: %s | Status: %s%n",
+                        a.getId(),
+                        a.getAluno() != null ? a.getAluno().getNome() : "N/A",
+                        a.getStatus()));
+        if (total == 0) {
             System.out.println("Nenhuma assinatura encontrada para esse plano.");
-        } else {
-            System.out.println("\n--- Assinaturas do Plano ---");
-            lista.forEach(a -> System.out.printf("[%d] Aluno: %s | Status: %s%n",
-                    a.getId(),
-                    a.getAluno() != null ? a.getAluno().getNome() : "N/A",
-                    a.getStatus()));
         }
     }
 
@@ -1,20 +1,30 @@
 package com.br.inatel.controller;
 
+import com.br.inatel.model.CurvaRetencao;
 import com.br.inatel.model.Frequencia;
+import com.br.inatel.model.IndicadoresAluno;
+import com.br.inatel.model.OcupacaoDoDia;
 import com.br.inatel.service.FrequenciaService;
 import com.br.inatel.service.exception.BusinessException;
 import com.br.inatel.service.exception.NotFoundException;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FrequenciaController {
 
     private final FrequenciaService frequenciaService;
     private final Scanner sc;
     private final DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private final DateTimeFormatter fmtHora = DateTimeFormatter.ofPattern("HH:mm");
 
     public FrequenciaController(FrequenciaService frequenciaService, Scanner sc) {
         this.frequenciaService = frequenciaService;
@@ -31,6 +41,16 @@ public class FrequenciaController {
             System.out.println("4. Listar por aluno");
             System.out.println("5. Listar por período");
             System.out.println("6. Último check-in por aluno");
+            System.out.println("7. Verificar acesso (catraca)");
+            System.out.println("8. Membros ativos");
+            System.out.println("9. Simular rajada da catraca (medição)");
+            System.out.println("10. Frequência mensal do aluno");
+            System.out.println("11. Movimento diário da academia");
+            System.out.println("12. Reconstruir resumos de frequência");
+            System.out.println("13. Indicadores do aluno (sequência e visitas)");
+            System.out.println("14. Retenção por coorte de adesão");
+            System.out.println("15. Registrar saída (catraca)");
+            System.out.println("16. Ocupação agora");
             System.out.println("0. Voltar");
             System.out.print("Escolha uma opção: ");
 
@@ -44,6 +64,16 @@ public class FrequenciaController {
                     case 4 -> listarPorAluno();
                     case 5 -> listarPorPeriodo();
                     case 6 -> ultimoCheckinPorAluno();
+                    case 7 -> verificarAcesso();
+                    case 8 -> System.out.println("Membros com acesso liberado: " + frequenciaService.contarMembrosAtivos());
+                    case 9 -> simularRajada();
+                    case 10 -> frequenciaMensal();
+                    case 11 -> movimentoDiario();
+                    case 12 -> reconstruirResumos();
+                    case 13 -> indicadoresDoAluno();
+                    case 14 -> retencaoPorCoorte();
+                    case 15 -> registrarSaida();
+                    case 16 -> ocupacaoAgora();
                     case 0 -> System.out.println("Voltando ao menu principal...");
                     default -> System.out.println("Opção inválida!");
                 }
@@ -84,19 +114,17 @@ public class FrequenciaController {
 
     private void listarTodas() {
         System.out.println("\n--- Lista de Frequências ---");
-        List<Frequencia> lista = frequenciaService.listarTodas();
-        if (lista.isEmpty()) {
-            System.out.println("Nenhum check-in registrado.");
-            return;
-        }
         System.out.println("ID   | Aluno        | Data");
         System.out.println("---------------------------");
-        for (Frequencia f : lista) {
+        int total = Paginador.exibir(sc, frequenciaService::listarTodas, f -> {
             String nome = (f.getAluno() != null && f.getAluno().getNome() != null)
                     ? f.getAluno().getNome()
                     : ("Aluno #" + (f.getAluno() != null ? f.getAluno().getId() : "-"));
             String data = f.getDataCheckin() != null ? f.getDataCheckin().format(fmt) : "-";
             System.out.printf("%-4d | %-12s | %s%n", f.getId(), nome, data);
+        });
+        if (total == 0) {
+            System.out.println("Nenhum check-in registrado.");
         }
     }
 
@@ -104,18 +132,16 @@ public class FrequenciaController {
     private void listarPorAluno() {
         System.out.print("ID do aluno: ");
         long idAluno = Long.parseLong(sc.nextLine());
-        List<Frequencia> lista = frequenciaService.listarPorAluno(idAluno);
-        if (lista.isEmpty()) {
-            System.out.println("Nenhum check-in encontrado para esse aluno.");
-            return;
-        }
         System.out.println("\n--- Check-ins do Aluno ---");
-        for (Frequencia f : lista) {
+        int total = Paginador.exibir(sc, (tamanho, cursor) -> frequenciaService.listarPorAluno(idAluno, tamanho, cursor), f -> {
             String nome = (f.getAluno() != null && f.getAluno().getNome() != null)
                     ? f.getAluno().getNome()
                     : ("Aluno #" + idAluno);
             String data = f.getDataCheckin() != null ? f.getDataCheckin().format(fmt) : "-";
-            System.out.printf("[%d] %s | %s%n", f.getId(), nome, data);
+            System.out.printf("[%d] %s | %s%s%n", f.getId(), nome, data, horario(f));
+        });
+        if (total == 0) {
+            System.out.println("Nenhum check-in encontrado para esse aluno.");
         }
     }
 
@@ -126,18 +152,16 @@ public class FrequenciaController {
         System.out.print("Data final (dd/MM/yyyy): ");
         LocalDate fim = LocalDate.parse(sc.nextLine(), fmt);
 
-        List<Frequencia> lista = frequenciaService.listarPorPeriodo(inicio, fim);
-        if (lista.isEmpty()) {
-            System.out.println("Nenhum check-in no período informado.");
-            return;
-        }
         System.out.println("\n--- Check-ins no Período ---");
-        for (Frequencia f : lista) {
+        int total = Paginador.exibir(sc, (tamanho, cursor) -> frequenciaService.listarPorPeriodo(inicio, fim, tamanho, cursor), f -> {
             String nome = (f.getAluno() != null && f.getAluno().getNome() != null)
                     ? f.getAluno().getNome()
                     : ("Aluno #" + (f.getAluno() != null ? f.getAluno().getId() : "-"));
             String data = f.getDataCheckin() != null ? f.getDataCheckin().format(fmt) : "-";
-            System.out.printf("%s | %s%n", nome, data);
+            System.out.printf("%s | %s%s%n", nome, data, horario(f));
+        });
+        if (total == 0) {
+            System.out.println("Nenhum check-in no período informado.");
         }
     }
 
@@ -154,8 +178,192 @@ public class FrequenciaController {
                 ? f.getAluno().getNome()
                 : ("Aluno #" + idAluno);
         String data = f.getDataCheckin() != null ? f.getDataCheckin().format(fmt) : "-";
-        System.out.printf("Último check-in de %s: %s (Frequência ID=%d)%n", nome, data, f.getId());
+        System.out.printf("Último check-in de %s: %s%s (Frequência ID=%d)%n", nome, data, horario(f), f.getId());
+    }
+
+    private void registrarSaida() {
+        System.out.print("ID do aluno: ");
+        long idAluno = Long.parseLong(sc.nextLine());
+        frequenciaService.registrarSaida(idAluno);
+        System.out.println("✅ Saída registrada.");
+    }
+
+    private void ocupacaoAgora() {
+        OcupacaoDoDia o = frequenciaService.ocupacaoDoDia();
+        System.out.println("\n--- Ocupação em " + o.dia().format(fmt) + " ---");
+        System.out.println("Na academia agora: " + o.presentes() + " | Entradas: " + o.entradas() + " | Saídas: " + o.saidas());
+        if (o.entradas() == 0) return;
+        OcupacaoDoDia.Faixa pico = o.pico();
+        System.out.println("Pico: " + pico.ocupacao() + " aluno(s) às " + pico.inicio().format(fmtHora));
+
+        int maior = pico.ocupacao();
+        for (OcupacaoDoDia.Faixa f : o.faixas()) {
+            if (f.entradas() == 0 && f.saidas() == 0 && f.ocupacao() == 0) continue;
+            int barra = (int) Math.ceil(40.0 * f.ocupacao() / maior);
+            System.out.printf("%s | +%-3d -%-3d | %4d %s%n", f.inicio().format(fmtHora), f.entradas(), f.saidas(),
+                    f.ocupacao(), "#".repeat(barra));
+        }
+    }
+
+    // " 07:30-08:45", " 07:30-" (sem saída) ou vazio para lançamentos sem horário
+    private String horario(Frequencia f) {
+        if (f.getEntrada() == null) return "";
+        return " " + f.getEntrada().format(fmtHora) + "-" + (f.getSaida() != null ? f.getSaida().format(fmtHora) : "");
+    }
+
+    private void verificarAcesso() {
+        System.out.print("ID do aluno: ");
+        long idAluno = Long.parseLong(sc.nextLine());
+        System.out.println(frequenciaService.acessoLiberado(idAluno)
+                ? "✅ Acesso liberado."
+                : "🚫 Acesso negado: aluno inativo ou sem assinatura ativa.");
+    }
+
+    private void frequenciaMensal() {
+        DateTimeFormatter fmtMes = DateTimeFormatter.ofPattern("MM/yyyy");
+        System.out.print("ID do aluno: ");
+        long idAluno = Long.parseLong(sc.nextLine());
+        System.out.print("Mês inicial (MM/yyyy): ");
+        YearMonth inicio = YearMonth.parse(sc.nextLine(), fmtMes);
+        System.out.print("Mês final (MM/yyyy): ");
+        YearMonth fim = YearMonth.parse(sc.nextLine(), fmtMes);
+
+        Map<YearMonth, Integer> totais = frequenciaService.frequenciaMensal(idAluno, inicio, fim);
+        System.out.println("\n--- Check-ins por mês ---");
+        if (totais.isEmpty()) {
+            System.out.println("Nenhum check-in no período informado.");
+            return;
+        }
+        int soma = 0;
+        for (Map.Entry<YearMonth, Integer> e : totais.entrySet()) {
+            System.out.printf("%s | %3d%n", e.getKey().format(fmtMes), e.getValue());
+            soma += e.getValue();
+        }
+        System.out.println("Total: " + soma);
+    }
+
+    private void movimentoDiario() {
+        System.out.print("Data inicial (dd/MM/yyyy): ");
+        LocalDate inicio = LocalDate.parse(sc.nextLine(), fmt);
+        System.out.print("Data final (dd/MM/yyyy): ");
+        LocalDate fim = LocalDate.parse(sc.nextLine(), fmt);
+
+        Map<LocalDate, Integer> totais = frequenciaService.movimentoDiario(inicio, fim);
+        System.out.println("\n--- Check-ins por dia ---");
+        if (totais.isEmpty()) {
+            System.out.println("Nenhum check-in no período informado.");
+            return;
+        }
+        for (Map.Entry<LocalDate, Integer> e : totais.entrySet()) {
+            System.out.printf("%s | %4d%n", e.getKey().format(fmt), e.getValue());
+        }
+    }
+
+    private void reconstruirResumos() {
+        long inicio = System.nanoTime();
+        int meses = frequenciaService.reconstruirResumos();
+        System.out.printf("✅ Resumos reconstruídos: %d mês(es) em %d ms.%n", meses, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private void indicadoresDoAluno() {
+        System.out.print("ID do aluno: ");
+        long idAluno = Long.parseLong(sc.nextLine());
+
+        IndicadoresAluno i = frequenciaService.indicadoresDoAluno(idAluno);
+        System.out.println("\n--- Indicadores de frequência ---");
+        if (i.ultimoCheckin() == null) {
+            System.out.println("Nenhum check-in registrado para o aluno.");
+            return;
+        }
+        System.out.println("Sequência atual: " + i.sequenciaAtual() + " dia(s) | Maior sequência: " + i.maiorSequencia() + " dia(s)");
+        System.out.printf("Visitas: %d (7 dias) | %d (30 dias) | %d (90 dias)%n", i.visitas7(), i.visitas30(), i.visitas90());
+        System.out.println("Primeiro check-in: " + i.primeiroCheckin().format(fmt) + " | Último: " + i.ultimoCheckin().format(fmt));
+    }
+
+    private void retencaoPorCoorte() {
+        System.out.print("Meses por curva (1-64): ");
+        int meses = Integer.parseInt(sc.nextLine());
+
+        List<CurvaRetencao> curvas = frequenciaService.retencaoPorCoorte(meses);
+        System.out.println("\n--- Retenção por coorte (% com check-in no mês k após a adesão) ---");
+        if (curvas.isEmpty()) {
+            System.out.println("Nenhuma adesão registrada.");
+            return;
+        }
+        DateTimeFormatter fmtMes = DateTimeFormatter.ofPattern("MM/yyyy");
+        for (CurvaRetencao c : curvas) {
+            StringBuilder linha = new StringBuilder(String.format("%s | %4d aluno(s) |", c.coorte().format(fmtMes), c.alunos()));
+            for (double r : c.retencao()) linha.append(String.format(" %3.0f%%", r * 100));
+            System.out.println(linha);
+        }
+    }
+
+    // Metade da faixa grava direto e a outra metade pela fila em grupo, com uma virtual thread por passada.
+    // As metades não se sobrepõem, então nenhum modo mede recusas causadas pelo outro.
+    private void simularRajada() {
+        System.out.println("\n--- Simular rajada da catraca ---");
+        System.out.println("Atenção: grava check-ins reais na data escolhida.");
+        System.out.print("ID inicial de aluno: ");
+        long primeiro = Long.parseLong(sc.nextLine());
+        System.out.print("ID final de aluno: ");
+        long ultimo = Long.parseLong(sc.nextLine());
+        System.out.print("Data (dd/MM/yyyy, vazio = hoje): ");
+        String texto = sc.nextLine().trim();
+        LocalDate data = texto.isEmpty() ? LocalDate.now() : LocalDate.parse(texto, fmt);
+
+        long quantidade = ultimo - primeiro + 1;
+        if (primeiro <= 0 || quantidade < 2 || quantidade > 100_000) {
+            System.out.println("Faixa inválida (de 2 a 100000 alunos).");
+            return;
+        }
+        int metade = (int) (quantidade / 2);
+        medirRajada(false, primeiro, metade, data);
+        medirRajada(true, primeiro + metade, (int) quantidade - metade, data);
     }
 
+    private void medirRajada(boolean emGrupo, long primeiro, int total, LocalDate data) {
+        long[] aceitas = new long[total];
+        long[] recusadas = new long[total];
+        AtomicInteger gravados = new AtomicInteger();
+        AtomicInteger recusados = new AtomicInteger();
 
+        long inicio = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < total; i++) {
+                long idAluno = primeiro + i;
+                executor.execute(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        if (emGrupo) frequenciaService.registrarCheckinAssincrono(idAluno, data).join();
+                        else frequenciaService.registrarCheckin(idAluno, data);
+                        aceitas[gravados.getAndIncrement()] = System.nanoTime() - t0;
+                    } catch (RuntimeException e) {
+                        recusadas[recusados.getAndIncrement()] = System.nanoTime() - t0;
+                    }
+                });
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        System.out.printf("%s (alunos %d a %d): %d passadas em %.2f s (%.0f/s)%n",
+                emGrupo ? "Em grupo" : "Direto", primeiro, primeiro + total - 1, total, segundos, total / segundos);
+        imprimirLatencias("gravados", aceitas, gravados.get());
+        imprimirLatencias("recusados", recusadas, recusados.get());
+    }
+
+    private static void imprimirLatencias(String rotulo, long[] latencias, int quantidade) {
+        if (quantidade == 0) {
+            System.out.println("  " + rotulo + ": 0");
+            return;
+        }
+        long[] ordenadas = Arrays.copyOf(latencias, quantidade);
+        Arrays.sort(ordenadas);
+        System.out.printf("  %s: %d | p50 %.1f ms | p99 %.1f ms | máx %.1f ms%n", rotulo, quantidade,
+                percentil(ordenadas, 0.50), percentil(ordenadas, 0.99), ordenadas[quantidade - 1] / 1e6);
+    }
+
+    private static double percentil(long[] ordenados, double p) {
+        int i = (int) Math.ceil(p * ordenados.length) - 1;
+        return ordenados[Math.max(0, i)] / 1e6;
+    }
 }
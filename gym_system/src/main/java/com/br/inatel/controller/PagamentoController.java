@@ -1,5 +1,6 @@
 package com.br.inatel.controller;
 
+import com.br.inatel.model.Assinatura;
 import com.br.inatel.model.Pagamento;
 import com.br.inatel.model.enums.PagamentoStatus;
 import com.br.inatel.service.PagamentoService;
@@ -11,7 +12,6 @@ import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Scanner;
 
 public class PagamentoController {
@@ -119,43 +119,38 @@ public class PagamentoController {
 
     private void listarTodos() {
         System.out.println("\n--- Lista de Pagamentos ---");
-        List<Pagamento> lista = pagamentoService.listarTodos();
-        if (lista.isEmpty()) {
+        int total = Paginador.exibir(sc, pagamentoService::listarTodos, this::imprimirPagamentoLinha);
+        if (total == 0) {
             System.out.println("Nenhum pagamento cadastrado.");
-            return;
         }
-        lista.forEach(this::imprimirPagamentoLinha);
     }
 
     private void listarPorAssinatura() {
         System.out.print("ID da assinatura: ");
         long idAssinatura = Long.parseLong(sc.nextLine());
-        List<Pagamento> lista = pagamentoService.listarPorAssinatura(idAssinatura);
-        if (lista.isEmpty()) {
+        int total = Paginador.exibir(sc,
+                (tamanho, cursor) -> pagamentoService.listarPorAssinatura(idAssinatura, tamanho, cursor),
+                this::imprimirPagamentoLinha);
+        if (total == 0) {
             System.out.println("Nenhum pagamento encontrado para essa assinatura.");
-            return;
         }
-        lista.forEach(this::imprimirPagamentoLinha);
     }
 
     private void listarPorStatus() {
         PagamentoStatus status = lerStatus("Status para filtrar");
-        List<Pagamento> lista = pagamentoService.listarPorStatus(status);
-        if (lista.isEmpty()) {
+        int total = Paginador.exibir(sc, (tamanho, cursor) -> pagamentoService.listarPorStatus(status, tamanho, cursor),
+                this::imprimirPagamentoLinha);
+        if (total == 0) {
             System.out.println("Nenhum pagamento encontrado com status " + status + ".");
-            return;
         }
-        lista.forEach(this::imprimirPagamentoLinha);
     }
 
     private void listarVencidos() {
         System.out.println("\n--- Pagamentos Vencidos ---");
-        List<Pagamento> lista = pagamentoService.listarVencidos();
-        if (lista.isEmpty()) {
+        int total = Paginador.exibir(sc, pagamentoService::listarVencidos, this::imprimirPagamentoLinha);
+        if (total == 0) {
             System.out.println("Nenhum pagamento vencido no momento.");
-            return;
         }
-        lista.forEach(this::imprimirPagamentoLinha);
     }
 
     private void alterarStatus() {
@@ -197,9 +192,9 @@ public class PagamentoController {
     }
 
     private void imprimirPagamentoLinha(Pagamento p) {
-        System.out.printf("[%d] Assinatura #%d | Comp.: %s | Valor: %s | Venc.: %s | Status: %s%n",
+        System.out.printf("[%d] Assinatura %s | Comp.: %s | Valor: %s | Venc.: %s | Status: %s%n",
                 p.getId(),
-                p.getAssinatura() != null ? p.getAssinatura().getId() : -1,
+                descreverAssinatura(p.getAssinatura()),
                 p.getCompetencia() != null ? fmtCompetencia.format(YearMonth.from(p.getCompetencia())) : "-",
                 p.getValor() != null ? p.getValor().toPlainString() : "-",
                 p.getDataVencimento() != null ? p.getDataVencimento().format(fmtData) : "-",
@@ -209,11 +204,19 @@ public class PagamentoController {
     private void imprimirPagamentoDetalhado(Pagamento p) {
         System.out.println("\n--- Pagamento ---");
         System.out.println("ID: " + p.getId());
-        System.out.println("Assinatura: " + (p.getAssinatura() != null ? p.getAssinatura().getId() : "-"));
+        System.out.println("Assinatura: " + descreverAssinatura(p.getAssinatura()));
         System.out.println("Competência: " + (p.getCompetencia() != null ? fmtCompetencia.format(YearMonth.from(p.getCompetencia())) : "-"));
         System.out.println("Valor: " + (p.getValor() != null ? p.getValor().toPlainString() : "-"));
         System.out.println("Vencimento: " + (p.getDataVencimento() != null ? p.getDataVencimento().format(fmtData) : "-"));
         System.out.println("Status: " + p.getStatus());
         System.out.println("Data pagamento: " + (p.getDataPagamento() != null ? p.getDataPagamento().format(fmtData) : "-"));
     }
+
+    private String descreverAssinatura(Assinatura a) {
+        if (a == null) return "-";
+        StringBuilder sb = new StringBuilder("#").append(a.getId());
+        if (a.getAluno() != null && a.getAluno().getNome() != null) sb.append(" - ").append(a.getAluno().getNome());
+        if (a.getPlano() != null && a.getPlano().getNome() != null) sb.append(" (").append(a.getPlano().getNome()).append(")");
+        return sb.toString();
+    }
 }
@@ -0,0 +1,36 @@
+package com.br.inatel.controller;
+
+import com.br.inatel.model.Pagina;
+
+import java.util.Scanner;
+import java.util.function.Consumer;
+
+/** Exibe uma listagem paginada no console, pedindo confirmação antes de cada nova página. */
+final class Paginador {
+
+    static final int TAMANHO_PAGINA = 20;
+
+    @FunctionalInterface
+    interface BuscaPagina<T> {
+        Pagina<T> buscar(int tamanho, String cursor);
+    }
+
+    private Paginador() {
+    }
+
+    /** @return quantos itens foram exibidos */
+    static <T> int exibir(Scanner sc, BuscaPagina<T> busca, Consumer<T> imprimir) {
+        String cursor = null;
+        int total = 0;
+        while (true) {
+            Pagina<T> pagina = busca.buscar(TAMANHO_PAGINA, cursor);
+            pagina.itens().forEach(imprimir);
+            total += pagina.itens().size();
+
+            if (!pagina.temProxima()) return total;
+            System.out.print("-- Enter para a próxima página, 's' para parar: ");
+            if (sc.nextLine().trim().equalsIgnoreCase("s")) return total;
+            cursor = pagina.proximoCursor();
+        }
+    }
+}
@@ -31,6 +31,7 @@ public class PlanoController {
             System.out.println("4. Buscar por nome");
             System.out.println("5. Buscar por faixa de preço");
             System.out.println("6. Excluir plano");
+            System.out.println("7. Recarregar catálogo de planos");
             System.out.println("0. Voltar");
             System.out.print("Escolha uma opção: ");
 
@@ -44,6 +45,10 @@ public class PlanoController {
                     case 4 -> buscarPorNome();
                     case 5 -> buscarPorFaixaPreco();
                     case 6 -> excluir();
+                    case 7 -> {
+                        planoService.recarregarCatalogo();
+                        System.out.println("✅ Catálogo de planos recarregado.");
+                    }
                     case 0 -> System.out.println("Voltando ao menu principal...");
                     default -> System.out.println("Opção inválida!");
                 }
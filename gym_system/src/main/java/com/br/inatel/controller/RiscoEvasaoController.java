@@ -0,0 +1,96 @@
+package com.br.inatel.controller;
+
+import com.br.inatel.model.ExecucaoRiscoEvasao;
+import com.br.inatel.model.RiscoEvasao;
+import com.br.inatel.service.RiscoEvasaoService;
+import com.br.inatel.service.exception.BusinessException;
+import com.br.inatel.service.exception.NotFoundException;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Scanner;
+
+public class RiscoEvasaoController {
+
+    private final RiscoEvasaoService riscoEvasaoService;
+    private final Scanner sc;
+
+    private final DateTimeFormatter fmtDataHora = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    public RiscoEvasaoController(RiscoEvasaoService riscoEvasaoService, Scanner sc) {
+        this.riscoEvasaoService = riscoEvasaoService;
+        this.sc = sc;
+    }
+
+    public void exibirMenu() {
+        int opcao;
+        do {
+            System.out.println("\n===== MENU RISCO DE EVASÃO =====");
+            System.out.println("1. Calcular agora");
+            System.out.println("2. Maiores riscos");
+            System.out.println("3. Risco de um aluno");
+            System.out.println("0. Voltar");
+            System.out.print("Escolha uma opção: ");
+
+            opcao = Integer.parseInt(sc.nextLine());
+
+            try {
+                switch (opcao) {
+                    case 1 -> calcular();
+                    case 2 -> maioresRiscos();
+                    case 3 -> buscarPorAluno();
+                    case 0 -> System.out.println("Voltando ao menu principal...");
+                    default -> System.out.println("Opção inválida!");
+                }
+            } catch (BusinessException | NotFoundException e) {
+                System.err.println("❌ Erro: " + e.getMessage());
+            } catch (Exception e) {
+                System.err.println("⚠️ Erro inesperado: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } while (opcao != 0);
+    }
+
+    // ===== AÇÕES =====
+
+    private void calcular() {
+        System.out.println("\n--- Calcular Risco de Evasão ---");
+        ExecucaoRiscoEvasao r = riscoEvasaoService.calcular();
+        System.out.println("✅ " + r.alunos() + " aluno(s) pontuados, " + r.removidos() + " registro(s) antigos removidos.");
+        System.out.printf("Tempo: %d ms (carga %d, cálculo %d, gravação %d) com %d thread(s) — meta %d ms %s%n",
+                r.totalMs(), r.cargaMs(), r.calculoMs(), r.gravacaoMs(), r.paralelismo(), r.metaMs(),
+                r.dentroDaMeta() ? "✔" : "✘");
+    }
+
+    private void maioresRiscos() {
+        System.out.println("\n--- Maiores Riscos ---");
+        System.out.print("Quantidade (1-100): ");
+        int limite = Integer.parseInt(sc.nextLine());
+
+        List<RiscoEvasao> riscos = riscoEvasaoService.maioresRiscos(limite);
+        if (riscos.isEmpty()) {
+            System.out.println("Nenhum risco calculado.");
+            return;
+        }
+        riscos.forEach(this::imprimir);
+    }
+
+    private void buscarPorAluno() {
+        System.out.println("\n--- Risco de um Aluno ---");
+        System.out.print("ID do aluno: ");
+        long idAluno = Long.parseLong(sc.nextLine());
+
+        imprimir(riscoEvasaoService.buscarPorAluno(idAluno));
+    }
+
+    // ===== AUXILIARES =====
+
+    private void imprimir(RiscoEvasao r) {
+        System.out.printf("%d - %s | risco %d | sem check-in: %s | visitas 30d: %d (antes: %d) | atrasados: %d | fim em: %s | calculado em %s%n",
+                r.idAluno(), r.aluno(), r.pontuacao(),
+                r.diasSemCheckin() != null ? r.diasSemCheckin() + " dia(s)" : "nunca veio",
+                r.visitasRecentes(), r.visitasAnteriores(), r.pagamentosAtrasados(),
+                r.diasParaFim() != null ? r.diasParaFim() + " dia(s)" : "-",
+                r.calculadoEm().format(fmtDataHora));
+    }
+}
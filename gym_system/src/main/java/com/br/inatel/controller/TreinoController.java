@@ -1,5 +1,7 @@
 package com.br.inatel.controller;
 
+import com.br.inatel.model.Aluno;
+import com.br.inatel.model.Instrutor;
 import com.br.inatel.model.Treino;
 import com.br.inatel.service.TreinoService;
 import com.br.inatel.service.exception.BusinessException;
@@ -7,7 +9,6 @@ import com.br.inatel.service.exception.NotFoundException;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Scanner;
 
 public class TreinoController {
@@ -109,34 +110,30 @@ public class TreinoController {
 
     private void listarTodos() {
         System.out.println("\n--- Lista de Treinos ---");
-        List<Treino> lista = treinoService.listarTodos();
-        if (lista.isEmpty()) {
+        int total = Paginador.exibir(sc, treinoService::listarTodos, this::imprimirLinha);
+        if (total == 0) {
             System.out.println("Nenhum treino cadastrado.");
-            return;
         }
-        lista.forEach(this::imprimirLinha);
     }
 
     private void listarPorAluno() {
         System.out.print("ID do aluno: ");
         long idAluno = Long.parseLong(sc.nextLine());
-        List<Treino> lista = treinoService.listarPorAluno(idAluno);
-        if (lista.isEmpty()) {
+        int total = Paginador.exibir(sc, (tamanho, cursor) -> treinoService.listarPorAluno(idAluno, tamanho, cursor),
+                this::imprimirLinha);
+        if (total == 0) {
             System.out.println("Nenhum treino encontrado para esse aluno.");
-            return;
         }
-        lista.forEach(this::imprimirLinha);
     }
 
     private void listarPorInstrutor() {
         System.out.print("ID do instrutor: ");
         long idInstrutor = Long.parseLong(sc.nextLine());
-        List<Treino> lista = treinoService.listarPorInstrutor(idInstrutor);
-        if (lista.isEmpty()) {
+        int total = Paginador.exibir(sc, (tamanho, cursor) -> treinoService.listarPorInstrutor(idInstrutor, tamanho, cursor),
+                this::imprimirLinha);
+        if (total == 0) {
             System.out.println("Nenhum treino encontrado para esse instrutor.");
-            return;
         }
-        lista.forEach(this::imprimirLinha);
     }
 
     private void alterarAtivo() {
@@ -166,13 +163,13 @@ public class TreinoController {
     // ===== Helpers =====
 
     private void imprimirLinha(Treino t) {
-        System.out.printf("[%d] %s | Criado: %s | %s | Instrutor#%s | Aluno#%s%n",
+        System.out.printf("[%d] %s | Criado: %s | %s | Instrutor: %s | Aluno: %s%n",
                 t.getId(),
                 t.getTitulo(),
                 t.getCreatedAt() != null ? t.getCreatedAt().format(fmt) : "-",
                 t.isAtivo() ? "Ativo" : "Inativo",
-                t.getInstrutor() != null ? t.getInstrutor().getId() : "-",
-                t.getAluno() != null ? t.getAluno().getId() : "-");
+                descreverInstrutor(t.getInstrutor()),
+                descreverAluno(t.getAluno()));
     }
 
     private void imprimirDetalhe(Treino t) {
@@ -181,7 +178,17 @@ public class TreinoController {
         System.out.println("Título: " + t.getTitulo());
         System.out.println("Criado em: " + (t.getCreatedAt() != null ? t.getCreatedAt().format(fmt) : "-"));
         System.out.println("Status: " + (t.isAtivo() ? "Ativo" : "Inativo"));
-        System.out.println("Instrutor: " + (t.getInstrutor() != null ? t.getInstrutor().getId() : "-"));
-        System.out.println("Aluno: " + (t.getAluno() != null ? t.getAluno().getId() : "-"));
+        System.out.println("Instrutor: " + descreverInstrutor(t.getInstrutor()));
+        System.out.println("Aluno: " + descreverAluno(t.getAluno()));
+    }
+
+    private String descreverInstrutor(Instrutor i) {
+        if (i == null) return "-";
+        return i.getNome() != null ? i.getNome() + " (#" + i.getId() + ")" : "#" + i.getId();
+    }
+
+    private String descreverAluno(Aluno a) {
+        if (a == null) return "-";
+        return a.getNome() != null ? a.getNome() + " (#" + a.getId() + ")" : "#" + a.getId();
     }
 }
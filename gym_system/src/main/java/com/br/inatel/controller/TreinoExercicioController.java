@@ -1,5 +1,6 @@
 package com.br.inatel.controller;
 
+import com.br.inatel.model.FichaTreino;
 import com.br.inatel.model.TreinoExercicio;
 import com.br.inatel.service.TreinoExercicioService;
 import com.br.inatel.service.exception.BusinessException;
@@ -30,6 +31,7 @@ public class TreinoExercicioController {
             System.out.println("6. Buscar exercício por ordem");
             System.out.println("7. Remover exercício do treino ");
             System.out.println("8. Remover todos os exercícios do treino");
+            System.out.println("9. Ver ficha do treino");
             System.out.println("0. Voltar");
             System.out.print("Escolha uma opção: ");
 
@@ -45,6 +47,7 @@ public class TreinoExercicioController {
                     case 6 -> buscarPorChave();
                     case 7 -> removerPorChave();
                     case 8 -> removerTodosDoTreino();
+                    case 9 -> verFicha();
                     case 0 -> System.out.println("Voltando ao menu principal...");
                     default -> System.out.println("Opção inválida!");
                 }
@@ -141,6 +144,28 @@ public class TreinoExercicioController {
         System.out.println("🗑️ " + removidos + " item(ns) removido(s) do treino " + idTreino + ".");
     }
 
+    private void verFicha() {
+        long idTreino = lerLong("ID do treino: ");
+        FichaTreino f = service.buscarFicha(idTreino);
+        System.out.println("\n===== FICHA: " + f.titulo() + (f.ativo() ? "" : " (inativo)") + " =====");
+        System.out.println("Aluno:     " + (f.aluno() != null ? f.aluno() : "-"));
+        System.out.println("Instrutor: " + (f.instrutor() != null ? f.instrutor() : "-"));
+        System.out.println("Criado em: " + (f.criadoEm() != null ? f.criadoEm() : "-"));
+        if (f.itens().isEmpty()) {
+            System.out.println("Nenhum exercício nesta ficha.");
+            return;
+        }
+        for (FichaTreino.Item i : f.itens()) {
+            System.out.printf("%2d. %-28s %dx%d | Carga: %s | Descanso: %ds%n",
+                    i.ordem(),
+                    i.exercicio() != null ? i.exercicio() : "Exercício #" + i.idExercicio(),
+                    i.series(),
+                    i.reps(),
+                    i.cargaKg() != null ? i.cargaKg() + "kg" : "-",
+                    i.descansoSeg());
+        }
+    }
+
     // ===== Helpers =====
 
     private long lerLong(String label) {
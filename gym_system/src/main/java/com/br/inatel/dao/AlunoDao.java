@@ -1,23 +1,37 @@
 package com.br.inatel.dao;
 
+import com.br.inatel.cache.LeituraCacheada;
 import com.br.inatel.model.Aluno;
+import com.br.inatel.model.Pagina;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class AlunoDao {
 
-    private final Connection conn;
+    private final DataSource ds;
+    private final LeituraCacheada<Aluno> cache;
 
-    public AlunoDao(Connection conn) {
-        this.conn = conn;
+    public AlunoDao(DataSource ds) {
+        this(ds, LeituraCacheada.desligada());
+    }
+
+    /** {@code cache} atende buscarPorId/buscarPorIds; os services o invalidam com {@link #invalidarCache}. */
+    public AlunoDao(DataSource ds, LeituraCacheada<Aluno> cache) {
+        this.ds = ds;
+        this.cache = cache;
     }
 
     // ===== CREATE =====
     public void insert(Aluno aluno) throws SQLException {
         String sql = "INSERT INTO Aluno (nome, nascimento, ativo, telefone) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, aluno.getNome());
             if (aluno.getDataNascimento() != null) {
                 ps.setDate(2, Date.valueOf(aluno.getDataNascimento()));
@@ -39,7 +53,8 @@ public class AlunoDao {
     // ===== UPDATE =====
     public boolean atualizar(Aluno aluno) throws SQLException {
         String sql = "UPDATE Aluno SET nome = ?, nascimento = ?, telefone = ? WHERE idAluno = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, aluno.getNome());
             if (aluno.getDataNascimento() != null) {
                 ps.setDate(2, Date.valueOf(aluno.getDataNascimento()));
@@ -54,41 +69,57 @@ public class AlunoDao {
 
     // ===== READ (by ID) =====
     public Aluno buscarPorId(long id) throws SQLException {
+        return cache.obter(id, () -> buscarNoBanco(id));
+    }
+
+    private Aluno buscarNoBanco(long id) throws SQLException {
         String sql = "SELECT idAluno, nome, nascimento, ativo, telefone FROM Aluno WHERE idAluno = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return map(rs);
-                }
-                return null;
+                return MAPA.lerUma(sql, rs);
             }
         }
     }
 
+    // ===== READ (vários IDs) =====
+    public Map<Long, Aluno> buscarPorIds(Collection<Long> ids) throws SQLException {
+        return cache.obterVarios(ids, faltando ->
+                LoteJdbc.buscarPorIds(ds, "SELECT idAluno, nome, nascimento, ativo, telefone FROM Aluno", "idAluno", faltando, MAPA, Aluno::getId));
+    }
+
     // ===== READ (all) =====
     public List<Aluno> listarTodos() throws SQLException {
         String sql = "SELECT idAluno, nome, nascimento, ativo, telefone FROM Aluno ORDER BY nome";
         List<Aluno> alunos = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                alunos.add(map(rs));
-            }
+            MAPA.lerTodas(sql, rs, alunos::add);
         }
         return alunos;
     }
 
+    // ===== READ (paginado: nome, idAluno) =====
+    private static final CursorPagina.Ordenacao<Aluno> ORDEM_NOME = new CursorPagina.Ordenacao<>("aluno",
+            new CursorPagina.Coluna<>("nome", CursorPagina.Tipo.TEXTO, false, Aluno::getNome),
+            new CursorPagina.Coluna<>("idAluno", CursorPagina.Tipo.LONGO, false, Aluno::getId));
+
+    public Pagina<Aluno> listarTodos(int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, "SELECT idAluno, nome, nascimento, ativo, telefone FROM Aluno", "1 = 1",
+                ps -> 0, ORDEM_NOME, MAPA, tamanho, cursor);
+    }
+
     // ===== SEARCH (by name) =====
     public List<Aluno> buscarPorNome(String termo) throws SQLException {
         String sql = "SELECT idAluno, nome, nascimento, ativo, telefone FROM Aluno WHERE nome LIKE CONCAT('%', ?, '%') ORDER BY nome";
         List<Aluno> alunos = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, termo);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    alunos.add(map(rs));
-                }
+                MAPA.lerTodas(sql, rs, alunos::add);
             }
         }
         return alunos;
@@ -97,7 +128,8 @@ public class AlunoDao {
     // ===== PATCH (activate/deactivate) =====
     public boolean alterarAtivo(long id, boolean ativo) throws SQLException {
         String sql = "UPDATE Aluno SET ativo = ? WHERE idAluno = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setBoolean(1, ativo);
             ps.setLong(2, id);
             return ps.executeUpdate() > 0;
@@ -106,8 +138,13 @@ public class AlunoDao {
 
     // ===== EXISTS =====
     public boolean existePorId(long id) throws SQLException {
+        return cache.existe(id, () -> existeNoBanco(id));
+    }
+
+    private boolean existeNoBanco(long id) throws SQLException {
         String sql = "SELECT 1 FROM Aluno WHERE idAluno = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 return rs.next();
@@ -115,17 +152,47 @@ public class AlunoDao {
         }
     }
 
-    // ===== Helper =====
-    private Aluno map(ResultSet rs) throws SQLException {
-        Aluno a = new Aluno();
-        a.setId(rs.getLong("idAluno"));
-        a.setNome(rs.getString("nome"));
+    /** Quais dos ids informados existem (uma consulta IN por bloco, em vez de um existePorId por id). */
+    public Set<Long> filtrarExistentes(Collection<Long> ids) throws SQLException {
+        return LoteJdbc.filtrarExistentes(ds, "Aluno", "idAluno", ids);
+    }
 
-        Date data = rs.getDate("nascimento");
-        a.setDataNascimento(data != null ? data.toLocalDate() : null);
+    // ===== LOCK (dentro de transação) =====
+    public boolean bloquearPorId(long id) throws SQLException {
+        String sql = "SELECT 1 FROM Aluno WHERE idAluno = ? FOR UPDATE";
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
 
-        a.setAtivo(rs.getBoolean("ativo"));
-        a.setTelefone(rs.getString("telefone"));
-        return a;
+    // ===== CACHE =====
+    public void invalidarCache(long id) {
+        cache.invalidar(id);
+    }
+
+    /** Cópia usada pelo cache: quem lê pode alterar o objeto sem afetar a versão guardada. */
+    public static Aluno copiar(Aluno a) {
+        Aluno c = new Aluno();
+        c.setId(a.getId());
+        c.setNome(a.getNome());
+        c.setDataNascimento(a.getDataNascimento());
+        c.setAtivo(a.isAtivo());
+        c.setTelefone(a.getTelefone());
+        return c;
     }
+
+    // ===== Helper =====
+    private static final MapeadorLinha<Aluno> MAPA = new MapeadorLinha<>(l -> {
+        Aluno a = new Aluno();
+        a.setId(l.longo(0));
+        a.setNome(l.texto(1));
+        a.setDataNascimento(l.data(2));
+        a.setAtivo(l.booleano(3));
+        a.setTelefone(l.texto(4));
+        return a;
+    }, "idAluno", "nome", "nascimento", "ativo", "telefone");
 }
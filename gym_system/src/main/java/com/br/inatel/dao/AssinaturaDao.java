@@ -1,20 +1,37 @@
 package com.br.inatel.dao;
 
+import com.br.inatel.cache.LeituraCacheada;
 import com.br.inatel.model.Aluno;
 import com.br.inatel.model.Assinatura;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.model.Plano;
 import com.br.inatel.model.enums.AssinaturaStatus;
 
+import javax.sql.DataSource;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 public class AssinaturaDao {
 
-    private final Connection conn;
+    private final DataSource ds;
+    private final LeituraCacheada<Assinatura> cache;
 
-    public AssinaturaDao(Connection conn) {
-        this.conn = conn;
+    public AssinaturaDao(DataSource ds) {
+        this(ds, LeituraCacheada.desligada());
+    }
+
+    /** {@code cache} atende buscarPorId/buscarPorIds; os services o invalidam com {@link #invalidarCache}. */
+    public AssinaturaDao(DataSource ds, LeituraCacheada<Assinatura> cache) {
+        this.ds = ds;
+        this.cache = cache;
     }
 
     // ===== CREATE =====
@@ -23,7 +40,8 @@ public class AssinaturaDao {
             INSERT INTO Assinatura (data_inicio, data_fim, status, Aluno_idAluno, Plano_idPlano)
             VALUES (?, ?, ?, ?, ?)
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setDate(1, Date.valueOf(a.getDataInicio()));
             ps.setDate(2, Date.valueOf(a.getDataFim()));
             ps.setString(3, a.getStatus().name());
@@ -44,7 +62,8 @@ public class AssinaturaDao {
                SET data_inicio = ?, data_fim = ?, status = ?
              WHERE idAssinatura = ?
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setDate(1, Date.valueOf(a.getDataInicio()));
             ps.setDate(2, Date.valueOf(a.getDataFim()));
             ps.setString(3, a.getStatus().name());
@@ -55,6 +74,10 @@ public class AssinaturaDao {
 
     // ===== READ (buscar por ID) =====
     public Assinatura buscarPorId(long id) throws SQLException {
+        return cache.obter(id, () -> buscarNoBanco(id));
+    }
+
+    private Assinatura buscarNoBanco(long id) throws SQLException {
         String sql = """
             SELECT a.idAssinatura, a.data_inicio, a.data_fim, a.status,
                    al.idAluno, al.nome AS aluno_nome,
@@ -64,15 +87,21 @@ public class AssinaturaDao {
               JOIN Plano p  ON p.idPlano  = a.Plano_idPlano
              WHERE a.idAssinatura = ?
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return map(rs);
-                return null;
+                return MAPA.lerUma(sql, rs);
             }
         }
     }
 
+    // ===== READ (vários IDs) =====
+    public Map<Long, Assinatura> buscarPorIds(Collection<Long> ids) throws SQLException {
+        return cache.obterVarios(ids, faltando ->
+                LoteJdbc.buscarPorIds(ds, SELECT_COMPLETO, "a.idAssinatura", faltando, MAPA, Assinatura::getId));
+    }
+
     // ===== READ (todas) =====
     public List<Assinatura> listarTodas() throws SQLException {
         String sql = """
@@ -85,13 +114,35 @@ public class AssinaturaDao {
              ORDER BY a.data_inicio DESC, a.idAssinatura DESC
         """;
         List<Assinatura> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) lista.add(map(rs));
+            MAPA.lerTodas(sql, rs, lista::add);
         }
         return lista;
     }
 
+    // ===== READ (todas, streaming) =====
+    /** Como {@link #listarTodas()}, mas sem montar a lista: cada assinatura vai direto ao consumidor. */
+    public long percorrerTodas(Consumer<Assinatura> consumidor) throws SQLException {
+        String sql = """
+            SELECT a.idAssinatura, a.data_inicio, a.data_fim, a.status,
+                   al.idAluno, al.nome AS aluno_nome,
+                   p.idPlano, p.nome AS plano_nome
+              FROM Assinatura a
+              JOIN Aluno al ON al.idAluno = a.Aluno_idAluno
+              JOIN Plano p  ON p.idPlano  = a.Plano_idPlano
+             ORDER BY a.data_inicio DESC, a.idAssinatura DESC
+        """;
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE); // Connector/J: não bufferiza o resultado inteiro
+            try (ResultSet rs = ps.executeQuery()) {
+                return MAPA.lerTodas(sql, rs, consumidor);
+            }
+        }
+    }
+
     // ===== READ (por aluno) =====
     public List<Assinatura> listarPorAluno(long idAluno) throws SQLException {
         String sql = """
@@ -103,23 +154,11 @@ public class AssinaturaDao {
              ORDER BY a.data_inicio DESC, a.idAssinatura DESC
         """;
         List<Assinatura> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idAluno);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Assinatura a = new Assinatura();
-                    a.setId(rs.getLong("idAssinatura"));
-                    a.setDataInicio(rs.getDate("data_inicio").toLocalDate());
-                    a.setDataFim(rs.getDate("data_fim").toLocalDate());
-                    a.setStatus(AssinaturaStatus.valueOf(rs.getString("status")));
-
-                    Plano p = new Plano();
-                    p.setId(rs.getLong("idPlano"));
-                    p.setNome(rs.getString("plano_nome"));
-                    a.setPlano(p);
-
-                    lista.add(a);
-                }
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
@@ -136,28 +175,49 @@ public class AssinaturaDao {
              ORDER BY a.data_inicio DESC, a.idAssinatura DESC
         """;
         List<Assinatura> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idPlano);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Assinatura a = new Assinatura();
-                    a.setId(rs.getLong("idAssinatura"));
-                    a.setDataInicio(rs.getDate("data_inicio").toLocalDate());
-                    a.setDataFim(rs.getDate("data_fim").toLocalDate());
-                    a.setStatus(AssinaturaStatus.valueOf(rs.getString("status")));
-
-                    Aluno al = new Aluno();
-                    al.setId(rs.getLong("idAluno"));
-                    al.setNome(rs.getString("aluno_nome"));
-                    a.setAluno(al);
-
-                    lista.add(a);
-                }
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
     }
 
+    // ===== READ (paginado) =====
+    private static final String SELECT_COMPLETO = """
+            SELECT a.idAssinatura, a.data_inicio, a.data_fim, a.status,
+                   al.idAluno, al.nome AS aluno_nome,
+                   p.idPlano, p.nome AS plano_nome
+              FROM Assinatura a
+              JOIN Aluno al ON al.idAluno = a.Aluno_idAluno
+              JOIN Plano p  ON p.idPlano  = a.Plano_idPlano
+            """;
+
+    private static final CursorPagina.Ordenacao<Assinatura> ORDEM_INICIO = new CursorPagina.Ordenacao<>("assinatura",
+            new CursorPagina.Coluna<>("a.data_inicio", CursorPagina.Tipo.DATA, true, Assinatura::getDataInicio),
+            new CursorPagina.Coluna<>("a.idAssinatura", CursorPagina.Tipo.LONGO, true, Assinatura::getId));
+
+    public Pagina<Assinatura> listarTodas(int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_COMPLETO, "1 = 1", ps -> 0,
+                ORDEM_INICIO, MAPA, tamanho, cursor);
+    }
+
+    public Pagina<Assinatura> listarPorAluno(long idAluno, int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_COMPLETO, "a.Aluno_idAluno = ?", ps -> {
+            ps.setLong(1, idAluno);
+            return 1;
+        }, ORDEM_INICIO, MAPA, tamanho, cursor);
+    }
+
+    public Pagina<Assinatura> listarPorPlano(long idPlano, int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_COMPLETO, "a.Plano_idPlano = ?", ps -> {
+            ps.setLong(1, idPlano);
+            return 1;
+        }, ORDEM_INICIO, MAPA, tamanho, cursor);
+    }
+
     // ===== READ (ativas por aluno) =====
     public List<Assinatura> listarAtivasPorAluno(long idAluno) throws SQLException {
         String sql = """
@@ -166,26 +226,85 @@ public class AssinaturaDao {
              WHERE Aluno_idAluno = ? AND status = 'ATIVA'
         """;
         List<Assinatura> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, idAluno);
+            try (ResultSet rs = ps.executeQuery()) {
+                MAPA.lerTodas(sql, rs, lista::add);
+            }
+        }
+        return lista;
+    }
+
+    // ===== ACESSO (aluno ativo com assinatura ATIVA) =====
+    public boolean alunoComAcessoLiberado(long idAluno) throws SQLException {
+        String sql = """
+            SELECT 1
+              FROM Assinatura a
+              JOIN Aluno al ON al.idAluno = a.Aluno_idAluno
+             WHERE a.Aluno_idAluno = ? AND a.status = 'ATIVA' AND al.ativo = TRUE
+             LIMIT 1
+        """;
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idAluno);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /** Entrega o id de cada aluno ativo com assinatura ATIVA, sem montar lista; devolve quantos foram lidos. */
+    public long percorrerAlunosComAcessoLiberado(LongConsumer consumidor) throws SQLException {
+        String sql = """
+            SELECT DISTINCT a.Aluno_idAluno
+              FROM Assinatura a
+              JOIN Aluno al ON al.idAluno = a.Aluno_idAluno
+             WHERE a.status = 'ATIVA' AND al.ativo = TRUE
+        """;
+        long lidos = 0;
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    Assinatura a = new Assinatura();
-                    a.setId(rs.getLong("idAssinatura"));
-                    a.setDataInicio(rs.getDate("data_inicio").toLocalDate());
-                    a.setDataFim(rs.getDate("data_fim").toLocalDate());
-                    a.setStatus(AssinaturaStatus.valueOf(rs.getString("status")));
-                    lista.add(a);
+                    consumidor.accept(rs.getLong(1));
+                    lidos++;
                 }
             }
         }
-        return lista;
+        return lidos;
+    }
+
+    /** Data da primeira assinatura de cada aluno (a adesão à academia), por id do aluno. */
+    public Map<Long, LocalDate> inicioPorAluno() throws SQLException {
+        String sql = "SELECT Aluno_idAluno, MIN(data_inicio) FROM Assinatura GROUP BY Aluno_idAluno";
+        Map<Long, LocalDate> inicios = new HashMap<>();
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) inicios.put(rs.getLong(1), rs.getDate(2).toLocalDate());
+        }
+        return inicios;
+    }
+
+    /** Data de fim da assinatura ATIVA que termina por último, por id do aluno. */
+    public Map<Long, LocalDate> fimDaAssinaturaAtivaPorAluno() throws SQLException {
+        String sql = "SELECT Aluno_idAluno, MAX(data_fim) FROM Assinatura WHERE status = 'ATIVA' GROUP BY Aluno_idAluno";
+        Map<Long, LocalDate> fins = new HashMap<>();
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) fins.put(rs.getLong(1), rs.getDate(2).toLocalDate());
+        }
+        return fins;
     }
 
     // ===== PATCH (alterar status) =====
     public boolean alterarStatus(long id, AssinaturaStatus status) throws SQLException {
         String sql = "UPDATE Assinatura SET status = ? WHERE idAssinatura = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, status.name());
             ps.setLong(2, id);
             return ps.executeUpdate() > 0;
@@ -200,7 +319,8 @@ public class AssinaturaDao {
                    data_fim = GREATEST(data_fim, CURRENT_DATE)
              WHERE idAssinatura = ? AND status = 'ATIVA'
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             return ps.executeUpdate();
         }
@@ -208,8 +328,13 @@ public class AssinaturaDao {
 
     // ===== EXISTS =====
     public boolean existePorId(long id) throws SQLException {
+        return cache.existe(id, () -> existeNoBanco(id));
+    }
+
+    private boolean existeNoBanco(long id) throws SQLException {
         String sql = "SELECT 1 FROM Assinatura WHERE idAssinatura = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 return rs.next();
@@ -217,24 +342,63 @@ public class AssinaturaDao {
         }
     }
 
+    /** Quais dos ids informados existem (uma consulta IN por bloco, em vez de um existePorId por id). */
+    public Set<Long> filtrarExistentes(Collection<Long> ids) throws SQLException {
+        return LoteJdbc.filtrarExistentes(ds, "Assinatura", "idAssinatura", ids);
+    }
+
+    // ===== CACHE =====
+    public void invalidarCache(long id) {
+        cache.invalidar(id);
+    }
+
+    /** Cópia usada pelo cache: quem lê pode alterar o objeto sem afetar a versão guardada. */
+    public static Assinatura copiar(Assinatura a) {
+        Assinatura c = new Assinatura();
+        c.setId(a.getId());
+        c.setDataInicio(a.getDataInicio());
+        c.setDataFim(a.getDataFim());
+        c.setStatus(a.getStatus());
+        if (a.getAluno() != null) {
+            Aluno al = new Aluno();
+            al.setId(a.getAluno().getId());
+            al.setNome(a.getAluno().getNome());
+            c.setAluno(al);
+        }
+        if (a.getPlano() != null) {
+            Plano p = new Plano();
+            p.setId(a.getPlano().getId());
+            p.setNome(a.getPlano().getNome());
+            c.setPlano(p);
+        }
+        return c;
+    }
+
     // ===== Helper para mapear resultado =====
-    private Assinatura map(ResultSet rs) throws SQLException {
+    private static final MapeadorLinha.TabelaEnum<AssinaturaStatus> STATUS = MapeadorLinha.TabelaEnum.de(AssinaturaStatus.class);
+
+    // aluno e plano são opcionais: as listagens por aluno/por plano não trazem o lado já conhecido
+    private static final MapeadorLinha<Assinatura> MAPA = new MapeadorLinha<>(l -> {
         Assinatura a = new Assinatura();
-        a.setId(rs.getLong("idAssinatura"));
-        a.setDataInicio(rs.getDate("data_inicio").toLocalDate());
-        a.setDataFim(rs.getDate("data_fim").toLocalDate());
-        a.setStatus(AssinaturaStatus.valueOf(rs.getString("status")));
+        a.setId(l.longo(0));
+        a.setDataInicio(l.data(1));
+        a.setDataFim(l.data(2));
+        a.setStatus(l.enumeracao(3, STATUS));
 
-        Aluno al = new Aluno();
-        al.setId(rs.getLong("idAluno"));
-        al.setNome(rs.getString("aluno_nome"));
-        a.setAluno(al);
+        if (l.tem(4)) {
+            Aluno al = new Aluno();
+            al.setId(l.longo(4));
+            al.setNome(l.texto(5));
+            a.setAluno(al);
+        }
 
-        Plano p = new Plano();
-        p.setId(rs.getLong("idPlano"));
-        p.setNome(rs.getString("plano_nome"));
-        a.setPlano(p);
+        if (l.tem(6)) {
+            Plano p = new Plano();
+            p.setId(l.longo(6));
+            p.setNome(l.texto(7));
+            a.setPlano(p);
+        }
 
         return a;
-    }
+    }, "idAssinatura", "data_inicio", "data_fim", "status", "idAluno", "aluno_nome", "idPlano", "plano_nome");
 }
@@ -0,0 +1,188 @@
+package com.br.inatel.dao;
+
+import com.br.inatel.model.Pagina;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Paginação por keyset: o cursor guarda os valores das colunas do ORDER BY da última linha entregue e
+ * a próxima página começa com {@code WHERE col < ? OR (col = ? AND id < ?)}, usando o índice em vez de
+ * pular linhas com OFFSET. Para quem chama, o cursor é só um texto Base64; o prefixo de tipo impede que
+ * o cursor de uma listagem seja usado em outra.
+ */
+public final class CursorPagina {
+
+    private static final char SEPARADOR = '\u001F';
+    private static final String INVALIDO = "Cursor de paginação inválido.";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /** Preenche os parâmetros do filtro da listagem e devolve quantos foram usados. */
+    @FunctionalInterface
+    interface Parametros {
+        int aplicar(PreparedStatement ps) throws SQLException;
+    }
+
+    enum Tipo { DATA, LONGO, TEXTO }
+
+    /** Uma coluna do ORDER BY; a última precisa ser única (normalmente a PK). */
+    record Coluna<T>(String expressao, Tipo tipo, boolean desc, Function<T, Object> valor) {
+    }
+
+    /** ORDER BY de uma listagem: gera a cláusula de continuação, liga os parâmetros e monta o cursor. */
+    static final class Ordenacao<T> {
+        private final String tipoCursor;
+        private final List<Coluna<T>> colunas;
+        private final String orderBy;
+        private final String condicaoApos;
+
+        @SafeVarargs
+        Ordenacao(String tipoCursor, Coluna<T>... colunas) {
+            this.tipoCursor = tipoCursor;
+            List<Coluna<T>> lista = new ArrayList<>(colunas.length);
+            for (Coluna<T> c : colunas) lista.add(c);
+            this.colunas = List.copyOf(lista);
+
+            StringBuilder ob = new StringBuilder();
+            for (Coluna<T> c : this.colunas) {
+                if (ob.length() > 0) ob.append(", ");
+                ob.append(c.expressao()).append(c.desc() ? " DESC" : " ASC");
+            }
+            this.orderBy = ob.toString();
+            this.condicaoApos = condicao(0);
+        }
+
+        // a < ? OR (a = ? AND (b < ? OR (b = ? AND id < ?)))
+        private String condicao(int k) {
+            Coluna<T> c = colunas.get(k);
+            String comparacao = c.expressao() + (c.desc() ? " < ?" : " > ?");
+            if (k == colunas.size() - 1) return comparacao;
+            return comparacao + " OR (" + c.expressao() + " = ? AND (" + condicao(k + 1) + "))";
+        }
+
+        private int ligar(PreparedStatement ps, int i, Leitor apos) throws SQLException {
+            for (int k = 0; k < colunas.size(); k++) {
+                int repeticoes = k == colunas.size() - 1 ? 1 : 2;
+                for (int r = 0; r < repeticoes; r++) {
+                    switch (colunas.get(k).tipo()) {
+                        case DATA -> ps.setDate(++i, Date.valueOf(apos.data(k)));
+                        case LONGO -> ps.setLong(++i, apos.longo(k));
+                        case TEXTO -> ps.setString(++i, apos.texto(k));
+                    }
+                }
+            }
+            return i;
+        }
+
+        private String cursorDe(T item) {
+            Object[] valores = new Object[colunas.size()];
+            for (int k = 0; k < valores.length; k++) valores[k] = colunas.get(k).valor().apply(item);
+            return codificar(tipoCursor, valores);
+        }
+    }
+
+    private CursorPagina() {
+    }
+
+    /**
+     * Executa {@code select WHERE filtro [AND continuação] ORDER BY ... LIMIT tamanho+1}; a linha extra
+     * só indica que existe próxima página.
+     */
+    static <T> Pagina<T> consultar(DataSource ds, String select, String filtro, Parametros parametros,
+                                   Ordenacao<T> ordenacao, MapeadorLinha<T> mapeador,
+                                   int tamanho, String cursor) throws SQLException {
+        if (tamanho <= 0) throw new IllegalArgumentException("tamanho deve ser positivo");
+        Leitor apos = ler(ordenacao.tipoCursor, cursor, ordenacao.colunas.size());
+
+        String sql = select + " WHERE (" + filtro + ")"
+                + (apos == null ? "" : " AND (" + ordenacao.condicaoApos + ")")
+                + " ORDER BY " + ordenacao.orderBy + " LIMIT ?";
+
+        List<T> linhas = new ArrayList<>(tamanho + 1);
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = parametros.aplicar(ps);
+            if (apos != null) i = ordenacao.ligar(ps, i, apos);
+            ps.setInt(++i, tamanho + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                mapeador.lerTodas(sql, rs, linhas::add);
+            }
+        }
+
+        if (linhas.size() <= tamanho) return new Pagina<>(linhas, null);
+        List<T> itens = linhas.subList(0, tamanho);
+        return new Pagina<>(itens, ordenacao.cursorDe(itens.get(tamanho - 1)));
+    }
+
+    static String codificar(String tipo, Object... valores) {
+        StringBuilder sb = new StringBuilder(tipo);
+        for (Object v : valores) {
+            sb.append(SEPARADOR).append(v == null ? "-" : "+" + v);
+        }
+        return ENCODER.encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null quando não há cursor (primeira página)
+     * @throws IllegalArgumentException se o cursor não for desta listagem ou estiver corrompido
+     */
+    static Leitor ler(String tipo, String cursor, int campos) {
+        if (cursor == null || cursor.isBlank()) return null;
+        String texto;
+        try {
+            texto = new String(DECODER.decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALIDO);
+        }
+        String[] partes = texto.split(String.valueOf(SEPARADOR), -1);
+        if (partes.length != campos + 1 || !partes[0].equals(tipo)) {
+            throw new IllegalArgumentException(INVALIDO);
+        }
+        return new Leitor(partes);
+    }
+
+    static final class Leitor {
+        private final String[] partes;
+
+        private Leitor(String[] partes) {
+            this.partes = partes;
+        }
+
+        String texto(int i) {
+            return bruto(i);
+        }
+
+        long longo(int i) {
+            try {
+                return Long.parseLong(bruto(i));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(INVALIDO);
+            }
+        }
+
+        LocalDate data(int i) {
+            try {
+                return LocalDate.parse(bruto(i));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(INVALIDO);
+            }
+        }
+
+        private String bruto(int i) {
+            String p = partes[i + 1];
+            if (p.isEmpty() || p.charAt(0) != '+') throw new IllegalArgumentException(INVALIDO);
+            return p.substring(1);
+        }
+    }
+}
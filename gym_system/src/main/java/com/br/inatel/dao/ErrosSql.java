@@ -0,0 +1,34 @@
+package com.br.inatel.dao;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Identifica violações de constraint do MySQL, para que os services possam deixar o banco validar
+ * unicidade e referências no próprio INSERT/UPDATE em vez de consultar antes.
+ */
+public final class ErrosSql {
+
+    /** ER_DUP_ENTRY */
+    public static final int CHAVE_DUPLICADA = 1062;
+    /** ER_NO_REFERENCED_ROW_2: a linha referenciada pela FK não existe */
+    public static final int CHAVE_ESTRANGEIRA = 1452;
+
+    private ErrosSql() {
+    }
+
+    /**
+     * true se {@code e} (ou alguma exceção encadeada) tem o código informado e cita a constraint.
+     * A mensagem do MySQL traz o nome da chave ("for key 'Tabela.uk_x'" / "CONSTRAINT `fk_x`").
+     */
+    public static boolean violou(SQLException e, int codigo, String constraint) {
+        String alvo = constraint.toLowerCase(Locale.ROOT);
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getErrorCode() == codigo
+                    && sql.getMessage() != null && sql.getMessage().toLowerCase(Locale.ROOT).contains(alvo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
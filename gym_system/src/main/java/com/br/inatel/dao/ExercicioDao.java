@@ -1,23 +1,36 @@
 package com.br.inatel.dao;
 
+import com.br.inatel.cache.LeituraCacheada;
 import com.br.inatel.model.Exercicio;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class ExercicioDao {
 
-    private final Connection conn;
+    private final DataSource ds;
+    private final LeituraCacheada<Exercicio> cache;
 
-    public ExercicioDao(Connection conn) {
-        this.conn = conn;
+    public ExercicioDao(DataSource ds) {
+        this(ds, LeituraCacheada.desligada());
+    }
+
+    /** {@code cache} atende buscarPorId/buscarPorIds; os services o invalidam com {@link #invalidarCache}. */
+    public ExercicioDao(DataSource ds, LeituraCacheada<Exercicio> cache) {
+        this.ds = ds;
+        this.cache = cache;
     }
 
     // ===== CREATE =====
     public void insert(Exercicio e) throws SQLException {
         String sql = "INSERT INTO Exercicio (nome, grupo_muscular) VALUES (?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, e.getNome());
             ps.setString(2, e.getGrupoMuscular());
             ps.executeUpdate();
@@ -31,7 +44,8 @@ public class ExercicioDao {
     // ===== UPDATE =====
     public boolean atualizar(Exercicio e) throws SQLException {
         String sql = "UPDATE Exercicio SET nome = ?, grupo_muscular = ? WHERE idExercicio = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, e.getNome());
             ps.setString(2, e.getGrupoMuscular());
             ps.setLong(3, e.getId());
@@ -41,23 +55,34 @@ public class ExercicioDao {
 
     // ===== READ (by ID) =====
     public Exercicio buscarPorId(long id) throws SQLException {
+        return cache.obter(id, () -> buscarNoBanco(id));
+    }
+
+    private Exercicio buscarNoBanco(long id) throws SQLException {
         String sql = "SELECT idExercicio, nome, grupo_muscular FROM Exercicio WHERE idExercicio = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return map(rs);
-                return null;
+                return MAPA.lerUma(sql, rs);
             }
         }
     }
 
+    // ===== READ (vários IDs) =====
+    public Map<Long, Exercicio> buscarPorIds(Collection<Long> ids) throws SQLException {
+        return cache.obterVarios(ids, faltando ->
+                LoteJdbc.buscarPorIds(ds, "SELECT idExercicio, nome, grupo_muscular FROM Exercicio", "idExercicio", faltando, MAPA, Exercicio::getId));
+    }
+
     // ===== READ (all) =====
     public List<Exercicio> listarTodos() throws SQLException {
         String sql = "SELECT idExercicio, nome, grupo_muscular FROM Exercicio ORDER BY nome";
         List<Exercicio> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) lista.add(map(rs));
+            MAPA.lerTodas(sql, rs, lista::add);
         }
         return lista;
     }
@@ -66,10 +91,11 @@ public class ExercicioDao {
     public List<Exercicio> buscarPorNome(String termo) throws SQLException {
         String sql = "SELECT idExercicio, nome, grupo_muscular FROM Exercicio WHERE nome LIKE CONCAT('%', ?, '%') ORDER BY nome";
         List<Exercicio> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, termo);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) lista.add(map(rs));
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
@@ -79,10 +105,11 @@ public class ExercicioDao {
     public List<Exercicio> buscarPorGrupoMuscular(String grupo) throws SQLException {
         String sql = "SELECT idExercicio, nome, grupo_muscular FROM Exercicio WHERE grupo_muscular LIKE CONCAT('%', ?, '%') ORDER BY nome";
         List<Exercicio> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, grupo);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) lista.add(map(rs));
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
@@ -91,7 +118,8 @@ public class ExercicioDao {
     // ===== DELETE =====
     public boolean deletarPorId(long id) throws SQLException {
         String sql = "DELETE FROM Exercicio WHERE idExercicio = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             return ps.executeUpdate() > 0;
         }
@@ -99,8 +127,13 @@ public class ExercicioDao {
 
     // ===== EXISTS =====
     public boolean existePorId(long id) throws SQLException {
+        return cache.existe(id, () -> existeNoBanco(id));
+    }
+
+    private boolean existeNoBanco(long id) throws SQLException {
         String sql = "SELECT 1 FROM Exercicio WHERE idExercicio = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 return rs.next();
@@ -108,10 +141,16 @@ public class ExercicioDao {
         }
     }
 
+    /** Quais dos ids informados existem (uma consulta IN por bloco, em vez de um existePorId por id). */
+    public Set<Long> filtrarExistentes(Collection<Long> ids) throws SQLException {
+        return LoteJdbc.filtrarExistentes(ds, "Exercicio", "idExercicio", ids);
+    }
+
     // ===== CHECK vinculos =====
     public boolean possuiVinculos(long idExercicio) throws SQLException {
         String sql = "SELECT COUNT(*) AS qtd FROM TreinoExercicio WHERE Exercicio_idExercicio = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idExercicio);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -122,12 +161,26 @@ public class ExercicioDao {
         }
     }
 
+    // ===== CACHE =====
+    public void invalidarCache(long id) {
+        cache.invalidar(id);
+    }
+
+    /** Cópia usada pelo cache: quem lê pode alterar o objeto sem afetar a versão guardada. */
+    public static Exercicio copiar(Exercicio e) {
+        Exercicio c = new Exercicio();
+        c.setId(e.getId());
+        c.setNome(e.getNome());
+        c.setGrupoMuscular(e.getGrupoMuscular());
+        return c;
+    }
+
     // ===== MAP helper =====
-    private Exercicio map(ResultSet rs) throws SQLException {
+    private static final MapeadorLinha<Exercicio> MAPA = new MapeadorLinha<>(l -> {
         Exercicio e = new Exercicio();
-        e.setId(rs.getLong("idExercicio"));
-        e.setNome(rs.getString("nome"));
-        e.setGrupoMuscular(rs.getString("grupo_muscular"));
+        e.setId(l.longo(0));
+        e.setNome(l.texto(1));
+        e.setGrupoMuscular(l.texto(2));
         return e;
-    }
+    }, "idExercicio", "nome", "grupo_muscular");
 }
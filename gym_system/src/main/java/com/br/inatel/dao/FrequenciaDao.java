@@ -2,26 +2,38 @@ package com.br.inatel.dao;
 
 import com.br.inatel.model.Aluno;
 import com.br.inatel.model.Frequencia;
+import com.br.inatel.model.Pagina;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class FrequenciaDao {
 
-    private final Connection conn;
+    private final DataSource ds;
 
-    public FrequenciaDao(Connection conn) {
-        this.conn = conn;
+    public FrequenciaDao(DataSource ds) {
+        this.ds = ds;
     }
 
     // ===== CREATE =====
     public void insert(Frequencia f) throws SQLException {
-        String sql = "INSERT INTO Frequencia (Aluno_idAluno, data_checkin) VALUES (?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        String sql = "INSERT INTO Frequencia (Aluno_idAluno, data_checkin, entrada, saida) VALUES (?, ?, ?, ?)";
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setLong(1, f.getAluno().getId());
             ps.setDate(2, Date.valueOf(f.getDataCheckin()));
+            definirDataHora(ps, 3, f.getEntrada());
+            definirDataHora(ps, 4, f.getSaida());
             ps.executeUpdate();
 
             try (ResultSet rs = ps.getGeneratedKeys()) {
@@ -30,13 +42,54 @@ public class FrequenciaDao {
         }
     }
 
+    // ===== CREATE (lote) =====
+    public int insertBatch(List<Frequencia> lista) throws SQLException {
+        return insertBatch(lista, LoteJdbc.TAMANHO_PADRAO);
+    }
+
+    public int insertBatch(List<Frequencia> lista, int tamanhoLote) throws SQLException {
+        if (lista.isEmpty()) return 0;
+        String sql = "INSERT INTO Frequencia (Aluno_idAluno, data_checkin, entrada, saida) VALUES (?, ?, ?, ?)";
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            return LoteJdbc.executar(ps, lista, tamanhoLote, (st, f) -> {
+                st.setLong(1, f.getAluno().getId());
+                st.setDate(2, Date.valueOf(f.getDataCheckin()));
+                definirDataHora(st, 3, f.getEntrada());
+                definirDataHora(st, 4, f.getSaida());
+            }, Frequencia::setId);
+        }
+    }
+
     // ===== UPDATE =====
     public boolean atualizar(Frequencia f) throws SQLException {
-        String sql = "UPDATE Frequencia SET Aluno_idAluno = ?, data_checkin = ? WHERE idFrequencia = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        String sql = "UPDATE Frequencia SET Aluno_idAluno = ?, data_checkin = ?, entrada = ?, saida = ? WHERE idFrequencia = ?";
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, f.getAluno().getId());
             ps.setDate(2, Date.valueOf(f.getDataCheckin()));
-            ps.setLong(3, f.getId());
+            definirDataHora(ps, 3, f.getEntrada());
+            definirDataHora(ps, 4, f.getSaida());
+            ps.setLong(5, f.getId());
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Grava a saída no check-in do dia que tem entrada e ainda não tem saída (localizado pela
+     * uk_freq_aluno_dia); false se não houver um.
+     */
+    public boolean registrarSaida(long idAluno, LocalDate dia, LocalDateTime saida) throws SQLException {
+        String sql = """
+            UPDATE Frequencia SET saida = ?
+             WHERE Aluno_idAluno = ? AND data_checkin = ? AND entrada IS NOT NULL AND entrada <= ? AND saida IS NULL
+        """;
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(saida));
+            ps.setLong(2, idAluno);
+            ps.setDate(3, Date.valueOf(dia));
+            ps.setTimestamp(4, Timestamp.valueOf(saida));
             return ps.executeUpdate() > 0;
         }
     }
@@ -44,42 +97,167 @@ public class FrequenciaDao {
     // ===== READ  =====
     public Frequencia buscarPorId(long id) throws SQLException {
         String sql = """
-            SELECT f.idFrequencia, f.data_checkin,
+            SELECT f.idFrequencia, f.data_checkin, f.entrada, f.saida,
                    a.idAluno, a.nome AS aluno_nome
               FROM Frequencia f
               JOIN Aluno a ON a.idAluno = f.Aluno_idAluno
              WHERE f.idFrequencia = ?
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return mapBasico(rs);
-                return null;
+                return MAPA.lerUma(sql, rs);
             }
         }
     }
 
     public List<Frequencia> listarTodas() throws SQLException {
         String sql = """
-            SELECT f.idFrequencia, f.data_checkin,
+            SELECT f.idFrequencia, f.data_checkin, f.entrada, f.saida,
                    a.idAluno, a.nome AS aluno_nome
               FROM Frequencia f
               JOIN Aluno a ON a.idAluno = f.Aluno_idAluno
              ORDER BY f.data_checkin DESC, f.idFrequencia DESC
         """;
         List<Frequencia> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql);
-            ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                lista.add(mapBasico(rs));
-            }
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            MAPA.lerTodas(sql, rs, lista::add);
         }
         return lista;
     }
 
+    /**
+     * Mesma consulta de {@link #listarTodas()}, lida linha a linha (streaming do MySQL) e entregue ao
+     * consumidor sem montar a lista em memória. Enquanto o consumidor roda, a conexão está ocupada com
+     * o ResultSet: ele não deve chamar outros DAOs na mesma transação.
+     *
+     * @return quantidade de registros entregues
+     */
+    public long percorrerTodas(Consumer<Frequencia> consumidor) throws SQLException {
+        String sql = """
+            SELECT f.idFrequencia, f.data_checkin, f.entrada, f.saida,
+                   a.idAluno, a.nome AS aluno_nome
+              FROM Frequencia f
+              JOIN Aluno a ON a.idAluno = f.Aluno_idAluno
+             ORDER BY f.data_checkin DESC, f.idFrequencia DESC
+        """;
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE); // Connector/J: não bufferiza o resultado inteiro
+            try (ResultSet rs = ps.executeQuery()) {
+                return MAPA.lerTodas(sql, rs, consumidor);
+            }
+        }
+    }
+
+    /** Recebe cada check-in de {@link #percorrerDiasPorAluno} (aluno e dia). */
+    @FunctionalInterface
+    public interface ReceptorDia {
+        void receber(long idAluno, LocalDate dia);
+    }
+
+    /**
+     * Todos os check-ins em ordem de (aluno, dia), lidos em streaming. A ordem é a de uk_freq_aluno_dia,
+     * então o MySQL lê só o índice, sem ordenar. Mesmas restrições de {@link #percorrerTodas}.
+     *
+     * @return quantidade de check-ins entregues
+     */
+    public long percorrerDiasPorAluno(ReceptorDia receptor) throws SQLException {
+        String sql = "SELECT Aluno_idAluno, data_checkin FROM Frequencia ORDER BY Aluno_idAluno, data_checkin";
+        long lidos = 0;
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    receptor.receber(rs.getLong(1), rs.getDate(2).toLocalDate());
+                    lidos++;
+                }
+            }
+        }
+        return lidos;
+    }
+
+    /** Recebe entrada e saída (esta pode ser null) de {@link #percorrerHorariosDoDia}. */
+    @FunctionalInterface
+    public interface ReceptorHorario {
+        void receber(LocalDateTime entrada, LocalDateTime saida);
+    }
+
+    /** Horários dos check-ins do dia que têm entrada registrada; devolve quantos foram entregues. */
+    public long percorrerHorariosDoDia(LocalDate dia, ReceptorHorario receptor) throws SQLException {
+        String sql = "SELECT entrada, saida FROM Frequencia WHERE data_checkin = ? AND entrada IS NOT NULL";
+        long lidos = 0;
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(dia));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    receptor.receber(rs.getObject(1, LocalDateTime.class), rs.getObject(2, LocalDateTime.class));
+                    lidos++;
+                }
+            }
+        }
+        return lidos;
+    }
+
+    /**
+     * Último check-in de cada aluno, em streaming. O GROUP BY segue uk_freq_aluno_dia, então o MySQL pega
+     * só o maior dia de cada aluno no índice, sem ler o histórico inteiro.
+     *
+     * @return quantidade de alunos entregues
+     */
+    public long percorrerUltimoCheckinPorAluno(ReceptorDia receptor) throws SQLException {
+        String sql = "SELECT Aluno_idAluno, MAX(data_checkin) FROM Frequencia GROUP BY Aluno_idAluno";
+        long lidos = 0;
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    receptor.receber(rs.getLong(1), rs.getDate(2).toLocalDate());
+                    lidos++;
+                }
+            }
+        }
+        return lidos;
+    }
+
+    /** Quantidade de check-ins por aluno em [inicio, fim]; alunos sem check-in no período não aparecem. */
+    public Map<Long, Integer> contarPorAluno(LocalDate inicio, LocalDate fim) throws SQLException {
+        String sql = "SELECT Aluno_idAluno, COUNT(*) FROM Frequencia WHERE data_checkin BETWEEN ? AND ? GROUP BY Aluno_idAluno";
+        Map<Long, Integer> totais = new HashMap<>();
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(inicio));
+            ps.setDate(2, Date.valueOf(fim));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) totais.put(rs.getLong(1), rs.getInt(2));
+            }
+        }
+        return totais;
+    }
+
+    /** Dias com check-in do aluno, do mais antigo ao mais recente. */
+    public List<LocalDate> diasDoAluno(long idAluno) throws SQLException {
+        String sql = "SELECT data_checkin FROM Frequencia WHERE Aluno_idAluno = ? ORDER BY data_checkin";
+        List<LocalDate> dias = new ArrayList<>();
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, idAluno);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) dias.add(rs.getDate(1).toLocalDate());
+            }
+        }
+        return dias;
+    }
+
     public List<Frequencia> listarPorAluno(long idAluno) throws SQLException {
         String sql = """
-            SELECT f.idFrequencia, f.data_checkin,
+            SELECT f.idFrequencia, f.data_checkin, f.entrada, f.saida,
                    a.idAluno, a.nome AS aluno_nome
               FROM Frequencia f
               JOIN Aluno a ON a.idAluno = f.Aluno_idAluno
@@ -87,12 +265,11 @@ public class FrequenciaDao {
              ORDER BY f.data_checkin DESC, f.idFrequencia DESC
         """;
         List<Frequencia> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1,idAluno);
             try (ResultSet rs = ps.executeQuery()) {
-                while(rs.next()) {
-                    lista.add(mapBasico(rs));
-                }
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return  lista;
@@ -100,7 +277,7 @@ public class FrequenciaDao {
 
     public List<Frequencia> listarPorPeriodo(LocalDate inicio, LocalDate fim) throws SQLException {
         String sql = """
-            SELECT f.idFrequencia, f.data_checkin,
+            SELECT f.idFrequencia, f.data_checkin, f.entrada, f.saida,
                    a.idAluno, a.nome AS aluno_nome
               FROM Frequencia f
               JOIN Aluno a ON a.idAluno = f.Aluno_idAluno
@@ -108,19 +285,53 @@ public class FrequenciaDao {
              ORDER BY f.data_checkin DESC, f.idFrequencia DESC
         """;
         List<Frequencia> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setDate(1, Date.valueOf(inicio));
             ps.setDate(2, Date.valueOf(fim));
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) lista.add(mapBasico(rs));
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
     }
 
+    // ===== READ (paginado) =====
+    private static final CursorPagina.Ordenacao<Frequencia> ORDEM_CHECKIN = new CursorPagina.Ordenacao<>("frequencia",
+            new CursorPagina.Coluna<>("f.data_checkin", CursorPagina.Tipo.DATA, true, Frequencia::getDataCheckin),
+            new CursorPagina.Coluna<>("f.idFrequencia", CursorPagina.Tipo.LONGO, true, Frequencia::getId));
+
+    private static final String SELECT_BASICO = """
+            SELECT f.idFrequencia, f.data_checkin, f.entrada, f.saida,
+                   a.idAluno, a.nome AS aluno_nome
+              FROM Frequencia f
+              JOIN Aluno a ON a.idAluno = f.Aluno_idAluno
+            """;
+
+    public Pagina<Frequencia> listarTodas(int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_BASICO, "1 = 1", ps -> 0,
+                ORDEM_CHECKIN, MAPA, tamanho, cursor);
+    }
+
+    public Pagina<Frequencia> listarPorAluno(long idAluno, int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_BASICO, "f.Aluno_idAluno = ?", ps -> {
+            ps.setLong(1, idAluno);
+            return 1;
+        }, ORDEM_CHECKIN, MAPA, tamanho, cursor);
+    }
+
+    public Pagina<Frequencia> listarPorPeriodo(LocalDate inicio, LocalDate fim, int tamanho, String cursor)
+            throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_BASICO, "f.data_checkin BETWEEN ? AND ?", ps -> {
+            ps.setDate(1, Date.valueOf(inicio));
+            ps.setDate(2, Date.valueOf(fim));
+            return 2;
+        }, ORDEM_CHECKIN, MAPA, tamanho, cursor);
+    }
+
     public Frequencia buscarUltimoCheckinPorAluno(long idAluno) throws SQLException {
         String sql = """
-            SELECT f.idFrequencia, f.data_checkin,
+            SELECT f.idFrequencia, f.data_checkin, f.entrada, f.saida,
                    a.idAluno, a.nome AS aluno_nome
               FROM Frequencia f
               JOIN Aluno a ON a.idAluno = f.Aluno_idAluno
@@ -128,11 +339,11 @@ public class FrequenciaDao {
              ORDER BY f.data_checkin DESC, f.idFrequencia DESC
              LIMIT 1
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1,idAluno);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return mapBasico(rs);
-                return null;
+                return MAPA.lerUma(sql, rs);
             }
         }
     }
@@ -145,7 +356,8 @@ public class FrequenciaDao {
              WHERE Aluno_idAluno = ? AND data_checkin = ?
              LIMIT 1
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idAluno);
             ps.setDate(2, Date.valueOf(dia));
             try (ResultSet rs = ps.executeQuery()) {
@@ -154,19 +366,47 @@ public class FrequenciaDao {
         }
     }
 
+    /** Dias com check-in já gravado no período, por aluno (só para os alunos informados). */
+    public Map<Long, Set<LocalDate>> diasComCheckin(Collection<Long> idsAluno, LocalDate inicio, LocalDate fim)
+            throws SQLException {
+        Map<Long, Set<LocalDate>> dias = new HashMap<>();
+        for (List<Long> bloco : LoteJdbc.blocosDeIds(idsAluno, LoteJdbc.TAMANHO_PADRAO)) {
+            int tamanho = LoteJdbc.tamanhoPreenchido(bloco.size());
+            String sql = "SELECT Aluno_idAluno, data_checkin FROM Frequencia"
+                    + " WHERE data_checkin BETWEEN ? AND ? AND Aluno_idAluno IN (" + LoteJdbc.marcadores(tamanho) + ")";
+            try (Connection conn = ds.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setDate(1, Date.valueOf(inicio));
+                ps.setDate(2, Date.valueOf(fim));
+                LoteJdbc.ligarIds(ps, 3, bloco, tamanho);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        dias.computeIfAbsent(rs.getLong(1), k -> new HashSet<>()).add(rs.getDate(2).toLocalDate());
+                    }
+                }
+            }
+        }
+        return dias;
+    }
+
     // ===== Map helper =====
-    private Frequencia mapBasico(ResultSet rs) throws SQLException {
+    private static final MapeadorLinha<Frequencia> MAPA = new MapeadorLinha<>(l -> {
         Frequencia f = new Frequencia();
-        f.setId(rs.getLong("idFrequencia"));
-
-        Date d = rs.getDate("data_checkin");
-        f.setDataCheckin(d != null ? d.toLocalDate() : null);
+        f.setId(l.longo(0));
+        f.setDataCheckin(l.data(1));
+        if (l.tem(2)) f.setEntrada(l.dataHora(2));
+        if (l.tem(3)) f.setSaida(l.dataHora(3));
 
         Aluno a = new Aluno();
-        a.setId(rs.getLong("idAluno"));
-        a.setNome(rs.getString("aluno_nome"));
+        a.setId(l.longo(4));
+        a.setNome(l.texto(5));
         f.setAluno(a);
 
         return f;
+    }, "idFrequencia", "data_checkin", "entrada", "saida", "idAluno", "aluno_nome");
+
+    private static void definirDataHora(PreparedStatement ps, int indice, LocalDateTime valor) throws SQLException {
+        if (valor != null) ps.setTimestamp(indice, Timestamp.valueOf(valor));
+        else ps.setNull(indice, Types.TIMESTAMP);
     }
 }
@@ -1,23 +1,35 @@
 package com.br.inatel.dao;
 
+import com.br.inatel.cache.LeituraCacheada;
 import com.br.inatel.model.Instrutor;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public class InstrutorDao {
 
-    private final Connection conn;
+    private final DataSource ds;
+    private final LeituraCacheada<Instrutor> cache;
 
-    public InstrutorDao(Connection conn) {
-        this.conn = conn;
+    public InstrutorDao(DataSource ds) {
+        this(ds, LeituraCacheada.desligada());
+    }
+
+    /** {@code cache} atende buscarPorId/buscarPorIds; os services o invalidam com {@link #invalidarCache}. */
+    public InstrutorDao(DataSource ds, LeituraCacheada<Instrutor> cache) {
+        this.ds = ds;
+        this.cache = cache;
     }
 
     // ===== CREATE =====
     public void insert(Instrutor i) throws SQLException {
         String sql = "INSERT INTO Instrutor (nome, cref) VALUES (?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, i.getNome());
             ps.setString(2, i.getCref());
             ps.executeUpdate();
@@ -31,7 +43,8 @@ public class InstrutorDao {
     // ===== UPDATE =====
     public boolean atualizar(Instrutor i) throws SQLException {
         String sql = "UPDATE Instrutor SET nome = ?, cref = ? WHERE idInstrutor = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, i.getNome());
             ps.setString(2, i.getCref());
             ps.setLong(3, i.getId());
@@ -41,23 +54,34 @@ public class InstrutorDao {
 
     // ===== READ (by ID) =====
     public Instrutor buscarPorId(long id) throws SQLException {
+        return cache.obter(id, () -> buscarNoBanco(id));
+    }
+
+    private Instrutor buscarNoBanco(long id) throws SQLException {
         String sql = "SELECT idInstrutor, nome, cref FROM Instrutor WHERE idInstrutor = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return map(rs);
-                return null;
+                return MAPA.lerUma(sql, rs);
             }
         }
     }
 
+    // ===== READ (vários IDs) =====
+    public Map<Long, Instrutor> buscarPorIds(Collection<Long> ids) throws SQLException {
+        return cache.obterVarios(ids, faltando ->
+                LoteJdbc.buscarPorIds(ds, "SELECT idInstrutor, nome, cref FROM Instrutor", "idInstrutor", faltando, MAPA, Instrutor::getId));
+    }
+
     // ===== READ (all) =====
     public List<Instrutor> listarTodos() throws SQLException {
         String sql = "SELECT idInstrutor, nome, cref FROM Instrutor ORDER BY nome";
         List<Instrutor> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) lista.add(map(rs));
+            MAPA.lerTodas(sql, rs, lista::add);
         }
         return lista;
     }
@@ -66,10 +90,11 @@ public class InstrutorDao {
     public List<Instrutor> buscarPorNome(String termo) throws SQLException {
         String sql = "SELECT idInstrutor, nome, cref FROM Instrutor WHERE nome LIKE CONCAT('%', ?, '%') ORDER BY nome";
         List<Instrutor> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, termo);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) lista.add(map(rs));
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
@@ -82,7 +107,8 @@ public class InstrutorDao {
             return false; // há treinos vinculados → não exclui
         }
         String sql = "DELETE FROM Instrutor WHERE idInstrutor = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             return ps.executeUpdate() > 0;
         }
@@ -90,8 +116,13 @@ public class InstrutorDao {
 
     // ===== EXISTS =====
     public boolean existePorId(long id) throws SQLException {
+        return cache.existe(id, () -> existeNoBanco(id));
+    }
+
+    private boolean existeNoBanco(long id) throws SQLException {
         String sql = "SELECT 1 FROM Instrutor WHERE idInstrutor = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 return rs.next();
@@ -101,7 +132,8 @@ public class InstrutorDao {
 
     public boolean possuiVinculos(long idInstrutor) throws SQLException {
         String sql = "SELECT COUNT(*) AS qtd FROM Treino WHERE Instrutor_idInstrutor = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idInstrutor);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return rs.getInt("qtd") > 0;
@@ -110,12 +142,26 @@ public class InstrutorDao {
         }
     }
 
+    // ===== CACHE =====
+    public void invalidarCache(long id) {
+        cache.invalidar(id);
+    }
+
+    /** Cópia usada pelo cache: quem lê pode alterar o objeto sem afetar a versão guardada. */
+    public static Instrutor copiar(Instrutor i) {
+        Instrutor c = new Instrutor();
+        c.setId(i.getId());
+        c.setNome(i.getNome());
+        c.setCref(i.getCref());
+        return c;
+    }
+
     // ===== MAP helper =====
-    private Instrutor map(ResultSet rs) throws SQLException {
+    private static final MapeadorLinha<Instrutor> MAPA = new MapeadorLinha<>(l -> {
         Instrutor i = new Instrutor();
-        i.setId(rs.getLong("idInstrutor"));
-        i.setNome(rs.getString("nome"));
-        i.setCref(rs.getString("cref"));
+        i.setId(l.longo(0));
+        i.setNome(l.texto(1));
+        i.setCref(l.texto(2));
         return i;
-    }
+    }, "idInstrutor", "nome", "cref");
 }
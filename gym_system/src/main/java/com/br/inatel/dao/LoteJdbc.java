@@ -0,0 +1,162 @@
+package com.br.inatel.dao;
+
+import com.br.inatel.config.Configuracao;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Apoio dos DAOs para operações em lote: envio em blocos com {@code addBatch/executeBatch}
+ * (o driver reescreve em INSERT multi-linha com {@code rewriteBatchedStatements=true}) e
+ * montagem de listas {@code IN (?, ?, ...)}.
+ */
+final class LoteJdbc {
+
+    static final int TAMANHO_PADRAO = Math.max(1, Configuracao.inteiro("gym.lote.tamanho", 500));
+
+    @FunctionalInterface
+    interface Preenchedor<T> {
+        void preencher(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface ReceptorChave<T> {
+        void receber(T item, long chave);
+    }
+
+    private LoteJdbc() {
+    }
+
+    /**
+     * Envia {@code itens} em blocos de {@code tamanhoLote}. Se {@code receptor} não for null, o statement
+     * precisa ter sido preparado com {@code RETURN_GENERATED_KEYS}; as chaves voltam na ordem dos itens.
+     *
+     * @return total de linhas afetadas
+     */
+    static <T> int executar(PreparedStatement ps, List<T> itens, int tamanhoLote,
+                            Preenchedor<T> preenchedor, ReceptorChave<T> receptor) throws SQLException {
+        if (tamanhoLote <= 0) throw new IllegalArgumentException("tamanhoLote deve ser positivo");
+
+        int afetadas = 0;
+        for (int inicio = 0; inicio < itens.size(); inicio += tamanhoLote) {
+            List<T> bloco = itens.subList(inicio, Math.min(itens.size(), inicio + tamanhoLote));
+            for (T item : bloco) {
+                preenchedor.preencher(ps, item);
+                ps.addBatch();
+            }
+            for (int n : ps.executeBatch()) {
+                if (n > 0) afetadas += n;
+                else if (n == Statement.SUCCESS_NO_INFO) afetadas++;
+            }
+
+            if (receptor != null) {
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (i < bloco.size() && rs.next()) {
+                        receptor.receber(bloco.get(i++), rs.getLong(1));
+                    }
+                    if (i != bloco.size()) {
+                        throw new SQLException("Driver devolveu " + i + " chaves geradas para " + bloco.size() + " linhas.");
+                    }
+                }
+            }
+        }
+        return afetadas;
+    }
+
+    /** "?, ?, ?" com {@code n} marcadores. */
+    static String marcadores(int n) {
+        StringBuilder sb = new StringBuilder(n * 3);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+
+    /** Ids distintos (na ordem de chegada) quebrados em blocos de no máximo {@code tamanho}. */
+    static List<List<Long>> blocosDeIds(Collection<Long> ids, int tamanho) {
+        List<Long> distintos = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<Long>> blocos = new ArrayList<>();
+        for (int i = 0; i < distintos.size(); i += tamanho) {
+            blocos.add(distintos.subList(i, Math.min(distintos.size(), i + tamanho)));
+        }
+        return blocos;
+    }
+
+    /**
+     * Quantidade de marcadores usada para um bloco de {@code n} ids: a próxima potência de 2, limitada
+     * ao bloco padrão. Assim as consultas IN geram poucas variações de SQL e reaproveitam o cache de
+     * statements da conexão.
+     */
+    static int tamanhoPreenchido(int n) {
+        if (n <= 1) return 1;
+        int potencia = Integer.highestOneBit(n - 1) << 1;
+        return Math.max(n, Math.min(potencia, TAMANHO_PADRAO));
+    }
+
+    /** Liga o bloco a partir de {@code primeiro}, repetindo o último id até completar {@code tamanho}. */
+    static void ligarIds(PreparedStatement ps, int primeiro, List<Long> bloco, int tamanho) throws SQLException {
+        for (int i = 0; i < tamanho; i++) {
+            ps.setLong(primeiro + i, bloco.get(Math.min(i, bloco.size() - 1)));
+        }
+    }
+
+    /**
+     * Quais dos ids informados existem em {@code tabela} (uma consulta IN por bloco, em vez de uma
+     * consulta por id).
+     */
+    static Set<Long> filtrarExistentes(DataSource ds, String tabela, String colunaId, Collection<Long> ids)
+            throws SQLException {
+        Set<Long> existentes = new HashSet<>();
+        for (List<Long> bloco : blocosDeIds(ids, TAMANHO_PADRAO)) {
+            int tamanho = tamanhoPreenchido(bloco.size());
+            String sql = "SELECT " + colunaId + " FROM " + tabela + " WHERE " + colunaId + " IN (" + marcadores(tamanho) + ")";
+            try (Connection conn = ds.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                ligarIds(ps, 1, bloco, tamanho);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) existentes.add(rs.getLong(1));
+                }
+            }
+        }
+        return existentes;
+    }
+
+    /**
+     * Busca várias entidades por id com uma consulta {@code IN} por bloco. Ids inexistentes simplesmente
+     * não aparecem no mapa.
+     *
+     * @param select  SELECT ... FROM ... sem WHERE
+     * @param coluna  coluna do id usada no filtro IN
+     */
+    static <T> Map<Long, T> buscarPorIds(DataSource ds, String select, String coluna, Collection<Long> ids,
+                                         MapeadorLinha<T> mapeador, Function<T, Long> id) throws SQLException {
+        Map<Long, T> encontrados = new HashMap<>();
+        for (List<Long> bloco : blocosDeIds(ids, TAMANHO_PADRAO)) {
+            int tamanho = tamanhoPreenchido(bloco.size());
+            String sql = select + " WHERE " + coluna + " IN (" + marcadores(tamanho) + ")";
+            try (Connection conn = ds.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                ligarIds(ps, 1, bloco, tamanho);
+                try (ResultSet rs = ps.executeQuery()) {
+                    mapeador.lerTodas(sql, rs, t -> encontrados.put(id.apply(t), t));
+                }
+            }
+        }
+        return encontrados;
+    }
+}
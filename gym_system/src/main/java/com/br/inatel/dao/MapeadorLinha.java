@@ -0,0 +1,146 @@
+package com.br.inatel.dao;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Mapeia linhas de ResultSet por posição. As colunas são declaradas por rótulo uma vez; a posição de
+ * cada uma é resolvida na primeira execução de cada SQL e reaproveitada nas seguintes, então o laço
+ * por linha só faz {@code getXxx(int)}. Um rótulo ausente no SELECT fica com posição 0 e pode ser
+ * testado com {@link Linha#tem(int)}, o que permite usar o mesmo mapeador em consultas mais enxutas.
+ */
+final class MapeadorLinha<T> {
+
+    // SQLs montados dinamicamente (listas IN, paginação) geram poucas variações; acima disso não guarda
+    private static final int LIMITE_FORMATOS = 256;
+
+    @FunctionalInterface
+    interface Leitor<T> {
+        T ler(Linha linha) throws SQLException;
+    }
+
+    private final String[] rotulos;
+    private final Leitor<T> leitor;
+    private final Map<String, int[]> posicoesPorSql = new ConcurrentHashMap<>();
+
+    MapeadorLinha(Leitor<T> leitor, String... rotulos) {
+        this.leitor = leitor;
+        this.rotulos = rotulos.clone();
+    }
+
+    /** Lê a linha atual, se houver; null quando o ResultSet está vazio. */
+    T lerUma(String sql, ResultSet rs) throws SQLException {
+        if (!rs.next()) return null;
+        return leitor.ler(new Linha(rs, posicoes(sql, rs)));
+    }
+
+    /** Lê todas as linhas restantes, entregando cada objeto ao destino. */
+    long lerTodas(String sql, ResultSet rs, Consumer<? super T> destino) throws SQLException {
+        if (!rs.next()) return 0;
+        Linha linha = new Linha(rs, posicoes(sql, rs));
+        long total = 0;
+        do {
+            destino.accept(leitor.ler(linha));
+            total++;
+        } while (rs.next());
+        return total;
+    }
+
+    private int[] posicoes(String sql, ResultSet rs) throws SQLException {
+        int[] pos = posicoesPorSql.get(sql);
+        if (pos != null) return pos;
+
+        pos = new int[rotulos.length];
+        for (int i = 0; i < rotulos.length; i++) {
+            try {
+                pos[i] = rs.findColumn(rotulos[i]);
+            } catch (SQLException ausente) {
+                pos[i] = 0;
+            }
+        }
+        if (posicoesPorSql.size() < LIMITE_FORMATOS) posicoesPorSql.put(sql, pos);
+        return pos;
+    }
+
+    /** Decodificação de enum por tabela montada uma vez, sem {@code valueOf} por linha. */
+    static final class TabelaEnum<E extends Enum<E>> {
+        private final E[] valores;
+        private final String[] nomes;
+
+        private TabelaEnum(Class<E> tipo) {
+            this.valores = tipo.getEnumConstants();
+            this.nomes = new String[valores.length];
+            for (int i = 0; i < valores.length; i++) nomes[i] = valores[i].name();
+        }
+
+        static <E extends Enum<E>> TabelaEnum<E> de(Class<E> tipo) {
+            return new TabelaEnum<>(tipo);
+        }
+
+        E decodificar(String texto) throws SQLException {
+            if (texto == null) return null;
+            for (int i = 0; i < nomes.length; i++) {
+                if (nomes[i].equals(texto)) return valores[i];
+            }
+            throw new SQLException("Valor desconhecido para " + valores.getClass().getComponentType().getSimpleName() + ": " + texto);
+        }
+    }
+
+    /** Acesso à linha atual pelo índice do rótulo declarado no mapeador. */
+    static final class Linha {
+        private final ResultSet rs;
+        private final int[] pos;
+
+        private Linha(ResultSet rs, int[] pos) {
+            this.rs = rs;
+            this.pos = pos;
+        }
+
+        boolean tem(int coluna) {
+            return pos[coluna] > 0;
+        }
+
+        long longo(int coluna) throws SQLException {
+            return rs.getLong(pos[coluna]);
+        }
+
+        int inteiro(int coluna) throws SQLException {
+            return rs.getInt(pos[coluna]);
+        }
+
+        Integer inteiroOuNull(int coluna) throws SQLException {
+            int v = rs.getInt(pos[coluna]);
+            return rs.wasNull() ? null : v;
+        }
+
+        boolean booleano(int coluna) throws SQLException {
+            return rs.getBoolean(pos[coluna]);
+        }
+
+        String texto(int coluna) throws SQLException {
+            return rs.getString(pos[coluna]);
+        }
+
+        BigDecimal decimal(int coluna) throws SQLException {
+            return rs.getBigDecimal(pos[coluna]);
+        }
+
+        LocalDate data(int coluna) throws SQLException {
+            return rs.getObject(pos[coluna], LocalDate.class);
+        }
+
+        LocalDateTime dataHora(int coluna) throws SQLException {
+            return rs.getObject(pos[coluna], LocalDateTime.class);
+        }
+
+        <E extends Enum<E>> E enumeracao(int coluna, TabelaEnum<E> tabela) throws SQLException {
+            return tabela.decodificar(rs.getString(pos[coluna]));
+        }
+    }
+}
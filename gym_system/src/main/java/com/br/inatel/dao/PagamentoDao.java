@@ -2,19 +2,24 @@ package com.br.inatel.dao;
 
 import com.br.inatel.model.Assinatura;
 import com.br.inatel.model.Pagamento;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.model.enums.PagamentoStatus;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class PagamentoDao {
 
-    private final Connection conn;
+    private final DataSource ds;
 
-    public PagamentoDao(Connection conn) {
-        this.conn = conn;
+    public PagamentoDao(DataSource ds) {
+        this.ds = ds;
     }
 
     // ===== CREATE =====
@@ -23,7 +28,8 @@ public class PagamentoDao {
             INSERT INTO Pagamento (competencia, valor, data_vencimento, status, data_pagamento, Assinatura_idAssinatura)
             VALUES (?, ?, ?, ?, ?, ?)
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setDate(1, toSqlDate(p.getCompetencia()));
             ps.setBigDecimal(2, p.getValor());
             ps.setDate(3, toSqlDate(p.getDataVencimento()));
@@ -38,6 +44,30 @@ public class PagamentoDao {
         }
     }
 
+    // ===== CREATE (lote) =====
+    public int insertBatch(List<Pagamento> lista) throws SQLException {
+        return insertBatch(lista, LoteJdbc.TAMANHO_PADRAO);
+    }
+
+    public int insertBatch(List<Pagamento> lista, int tamanhoLote) throws SQLException {
+        if (lista.isEmpty()) return 0;
+        String sql = """
+            INSERT INTO Pagamento (competencia, valor, data_vencimento, status, data_pagamento, Assinatura_idAssinatura)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """;
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            return LoteJdbc.executar(ps, lista, tamanhoLote, (st, p) -> {
+                st.setDate(1, toSqlDate(p.getCompetencia()));
+                st.setBigDecimal(2, p.getValor());
+                st.setDate(3, toSqlDate(p.getDataVencimento()));
+                st.setString(4, p.getStatus().name());
+                st.setDate(5, toSqlDate(p.getDataPagamento()));
+                st.setLong(6, p.getAssinatura().getId());
+            }, Pagamento::setId);
+        }
+    }
+
     // ===== UPDATE =====
     public boolean atualizar(Pagamento p) throws SQLException {
         String sql = """
@@ -45,7 +75,8 @@ public class PagamentoDao {
                SET competencia = ?, valor = ?, data_vencimento = ?, status = ?, data_pagamento = ?, Assinatura_idAssinatura = ?
              WHERE idPagamento = ?
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setDate(1, toSqlDate(p.getCompetencia()));
             ps.setBigDecimal(2, p.getValor());
             ps.setDate(3, toSqlDate(p.getDataVencimento()));
@@ -64,11 +95,11 @@ public class PagamentoDao {
               FROM Pagamento
              WHERE idPagamento = ?
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return map(rs);
-                return null;
+                return MAPA.lerUma(sql, rs);
             }
         }
     }
@@ -81,17 +112,36 @@ public class PagamentoDao {
              ORDER BY competencia DESC, data_vencimento DESC, idPagamento DESC
         """;
         List<Pagamento> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) lista.add(map(rs));
+            MAPA.lerTodas(sql, rs, lista::add);
         }
         return lista;
     }
 
+    // ===== READ (todos, streaming) =====
+    /** Versão de {@link #listarTodos()} que entrega linha a linha, para exportações. */
+    public long percorrerTodos(Consumer<Pagamento> consumidor) throws SQLException {
+        String sql = """
+            SELECT idPagamento, Assinatura_idAssinatura, competencia, valor, data_vencimento, status, data_pagamento
+              FROM Pagamento
+             ORDER BY competencia DESC, data_vencimento DESC, idPagamento DESC
+        """;
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE); // Connector/J: não bufferiza o resultado inteiro
+            try (ResultSet rs = ps.executeQuery()) {
+                return MAPA.lerTodas(sql, rs, consumidor);
+            }
+        }
+    }
+
     // ===== DELETE =====
     public boolean deletarPorId(long id) throws SQLException {
         String sql = "DELETE FROM Pagamento WHERE idPagamento = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             return ps.executeUpdate() > 0;
         }
@@ -100,28 +150,17 @@ public class PagamentoDao {
     // ===== READ (por assinatura) =====
     public List<Pagamento> listarPorAssinatura(long idAssinatura) throws SQLException {
         String sql = """
-            SELECT idPagamento, competencia, valor, data_vencimento, status, data_pagamento
+            SELECT idPagamento, Assinatura_idAssinatura, competencia, valor, data_vencimento, status, data_pagamento
               FROM Pagamento
              WHERE Assinatura_idAssinatura = ?
              ORDER BY competencia DESC, idPagamento DESC
         """;
         List<Pagamento> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idAssinatura);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Pagamento p = new Pagamento();
-                    p.setId(rs.getLong("idPagamento"));
-                    p.setCompetencia(toLocalDate(rs.getDate("competencia")));
-                    p.setValor(rs.getBigDecimal("valor"));
-                    p.setDataVencimento(toLocalDate(rs.getDate("data_vencimento")));
-                    p.setStatus(PagamentoStatus.valueOf(rs.getString("status")));
-                    p.setDataPagamento(toLocalDate(rs.getDate("data_pagamento")));
-                    Assinatura a = new Assinatura();
-                    a.setId(idAssinatura);
-                    p.setAssinatura(a);
-                    lista.add(p);
-                }
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
@@ -136,10 +175,11 @@ public class PagamentoDao {
              ORDER BY data_vencimento DESC, idPagamento DESC
         """;
         List<Pagamento> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, status.name());
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) lista.add(map(rs));
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
@@ -155,17 +195,86 @@ public class PagamentoDao {
              ORDER BY data_vencimento ASC, idPagamento DESC
         """;
         List<Pagamento> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) lista.add(map(rs));
+            MAPA.lerTodas(sql, rs, lista::add);
         }
         return lista;
     }
 
+    // ===== READ (agregado por aluno) =====
+    /** Pagamentos ATRASADO por aluno (somando todas as assinaturas dele); quem não tem nenhum não aparece. */
+    public Map<Long, Integer> contarAtrasadosPorAluno() throws SQLException {
+        String sql = """
+            SELECT a.Aluno_idAluno, COUNT(*)
+              FROM Pagamento p
+              JOIN Assinatura a ON a.idAssinatura = p.Assinatura_idAssinatura
+             WHERE p.status = 'ATRASADO'
+             GROUP BY a.Aluno_idAluno
+        """;
+        Map<Long, Integer> totais = new HashMap<>();
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) totais.put(rs.getLong(1), rs.getInt(2));
+        }
+        return totais;
+    }
+
+    // ===== READ (paginado) =====
+    private static final String SELECT_PAGAMENTO = """
+            SELECT idPagamento, Assinatura_idAssinatura, competencia, valor, data_vencimento, status, data_pagamento
+              FROM Pagamento
+            """;
+
+    private static final CursorPagina.Ordenacao<Pagamento> ORDEM_GERAL = new CursorPagina.Ordenacao<>("pagamento",
+            new CursorPagina.Coluna<>("competencia", CursorPagina.Tipo.DATA, true, Pagamento::getCompetencia),
+            new CursorPagina.Coluna<>("data_vencimento", CursorPagina.Tipo.DATA, true, Pagamento::getDataVencimento),
+            new CursorPagina.Coluna<>("idPagamento", CursorPagina.Tipo.LONGO, true, Pagamento::getId));
+
+    private static final CursorPagina.Ordenacao<Pagamento> ORDEM_COMPETENCIA = new CursorPagina.Ordenacao<>("pagamento-comp",
+            new CursorPagina.Coluna<>("competencia", CursorPagina.Tipo.DATA, true, Pagamento::getCompetencia),
+            new CursorPagina.Coluna<>("idPagamento", CursorPagina.Tipo.LONGO, true, Pagamento::getId));
+
+    private static final CursorPagina.Ordenacao<Pagamento> ORDEM_VENCIMENTO = new CursorPagina.Ordenacao<>("pagamento-venc",
+            new CursorPagina.Coluna<>("data_vencimento", CursorPagina.Tipo.DATA, true, Pagamento::getDataVencimento),
+            new CursorPagina.Coluna<>("idPagamento", CursorPagina.Tipo.LONGO, true, Pagamento::getId));
+
+    // vencidos: mais antigo primeiro
+    private static final CursorPagina.Ordenacao<Pagamento> ORDEM_VENCIDOS = new CursorPagina.Ordenacao<>("pagamento-vencidos",
+            new CursorPagina.Coluna<>("data_vencimento", CursorPagina.Tipo.DATA, false, Pagamento::getDataVencimento),
+            new CursorPagina.Coluna<>("idPagamento", CursorPagina.Tipo.LONGO, true, Pagamento::getId));
+
+    public Pagina<Pagamento> listarTodos(int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_PAGAMENTO, "1 = 1", ps -> 0,
+                ORDEM_GERAL, MAPA, tamanho, cursor);
+    }
+
+    public Pagina<Pagamento> listarPorAssinatura(long idAssinatura, int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_PAGAMENTO, "Assinatura_idAssinatura = ?", ps -> {
+            ps.setLong(1, idAssinatura);
+            return 1;
+        }, ORDEM_COMPETENCIA, MAPA, tamanho, cursor);
+    }
+
+    public Pagina<Pagamento> listarPorStatus(PagamentoStatus status, int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_PAGAMENTO, "status = ?", ps -> {
+            ps.setString(1, status.name());
+            return 1;
+        }, ORDEM_VENCIMENTO, MAPA, tamanho, cursor);
+    }
+
+    public Pagina<Pagamento> listarVencidos(int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_PAGAMENTO, "status = 'PENDENTE' AND data_vencimento < CURRENT_DATE",
+                ps -> 0, ORDEM_VENCIDOS, MAPA, tamanho, cursor);
+    }
+
     // ===== PATCH (alterar status) =====
     public boolean alterarStatus(long id, PagamentoStatus status) throws SQLException {
         String sql = "UPDATE Pagamento SET status = ? WHERE idPagamento = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, status.name());
             ps.setLong(2, id);
             return ps.executeUpdate() > 0;
@@ -175,7 +284,8 @@ public class PagamentoDao {
     // ===== PATCH (registrar pagamento) =====
     public boolean registrarPagamento(long id, LocalDate dataPagamento) throws SQLException {
         String sql = "UPDATE Pagamento SET status = 'PAGO', data_pagamento = ? WHERE idPagamento = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setDate(1, toSqlDate(dataPagamento)); // se vier null do service, ele define LocalDate.now() lá
             ps.setLong(2, id);
             return ps.executeUpdate() > 0;
@@ -183,25 +293,23 @@ public class PagamentoDao {
     }
 
     // ===== Helpers =====
-    private Pagamento map(ResultSet rs) throws SQLException {
+    private static final MapeadorLinha.TabelaEnum<PagamentoStatus> STATUS = MapeadorLinha.TabelaEnum.de(PagamentoStatus.class);
+
+    private static final MapeadorLinha<Pagamento> MAPA = new MapeadorLinha<>(l -> {
         Pagamento p = new Pagamento();
-        p.setId(rs.getLong("idPagamento"));
+        p.setId(l.longo(0));
 
         Assinatura a = new Assinatura();
-        a.setId(rs.getLong("Assinatura_idAssinatura"));
+        a.setId(l.longo(1));
         p.setAssinatura(a);
 
-        p.setCompetencia(toLocalDate(rs.getDate("competencia")));
-        p.setValor(rs.getBigDecimal("valor"));
-        p.setDataVencimento(toLocalDate(rs.getDate("data_vencimento")));
-        p.setStatus(PagamentoStatus.valueOf(rs.getString("status")));
-        p.setDataPagamento(toLocalDate(rs.getDate("data_pagamento")));
+        p.setCompetencia(l.data(2));
+        p.setValor(l.decimal(3));
+        p.setDataVencimento(l.data(4));
+        p.setStatus(l.enumeracao(5, STATUS));
+        p.setDataPagamento(l.data(6));
         return p;
-    }
-
-    private static LocalDate toLocalDate(Date d) {
-        return d != null ? d.toLocalDate() : null;
-    }
+    }, "idPagamento", "Assinatura_idAssinatura", "competencia", "valor", "data_vencimento", "status", "data_pagamento");
 
     private static Date toSqlDate(LocalDate d) {
         return d != null ? Date.valueOf(d) : null;
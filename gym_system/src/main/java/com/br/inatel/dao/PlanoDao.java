@@ -3,22 +3,26 @@ package com.br.inatel.dao;
 import com.br.inatel.model.Plano;
 
 import java.math.BigDecimal;
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public class PlanoDao {
 
-    private final Connection conn;
+    private final DataSource ds;
 
-    public PlanoDao(Connection conn) {
-        this.conn = conn;
+    public PlanoDao(DataSource ds) {
+        this.ds = ds;
     }
 
     // ===== CREATE =====
     public void insert(Plano p) throws SQLException {
         String sql = "INSERT INTO Plano (nome, valor, duracao) VALUES (?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, p.getNome());
             ps.setBigDecimal(2, p.getPreco());
             ps.setInt(3, p.getDuracaoMeses());
@@ -33,7 +37,8 @@ public class PlanoDao {
     // ===== UPDATE =====
     public boolean atualizar(Plano p) throws SQLException {
         String sql = "UPDATE Plano SET nome = ?, valor = ?, duracao = ? WHERE idPlano = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, p.getNome());
             ps.setBigDecimal(2, p.getPreco());
             ps.setInt(3, p.getDuracaoMeses());
@@ -45,22 +50,28 @@ public class PlanoDao {
     // ===== READ (by ID) =====
     public Plano buscarPorId(long id) throws SQLException {
         String sql = "SELECT idPlano, nome, valor, duracao FROM Plano WHERE idPlano = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return map(rs);
-                return null;
+                return MAPA.lerUma(sql, rs);
             }
         }
     }
 
+    // ===== READ (vários IDs) =====
+    public Map<Long, Plano> buscarPorIds(Collection<Long> ids) throws SQLException {
+        return LoteJdbc.buscarPorIds(ds, "SELECT idPlano, nome, valor, duracao FROM Plano", "idPlano", ids, MAPA, Plano::getId);
+    }
+
     // ===== READ (all) =====
     public List<Plano> listarTodos() throws SQLException {
         String sql = "SELECT idPlano, nome, valor, duracao FROM Plano ORDER BY nome";
         List<Plano> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) lista.add(map(rs));
+            MAPA.lerTodas(sql, rs, lista::add);
         }
         return lista;
     }
@@ -72,7 +83,8 @@ public class PlanoDao {
             return false;
         }
         String sql = "DELETE FROM Plano WHERE idPlano = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             return ps.executeUpdate() > 0;
         }
@@ -81,7 +93,8 @@ public class PlanoDao {
     // ===== EXISTS =====
     public boolean existePorId(long id) throws SQLException {
         String sql = "SELECT 1 FROM Plano WHERE idPlano = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 return rs.next();
@@ -93,10 +106,11 @@ public class PlanoDao {
     public List<Plano> buscarPorNome(String termo) throws SQLException {
         String sql = "SELECT idPlano, nome, valor, duracao FROM Plano WHERE nome LIKE CONCAT('%', ?, '%') ORDER BY nome";
         List<Plano> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, termo);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) lista.add(map(rs));
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
@@ -111,11 +125,12 @@ public class PlanoDao {
              ORDER BY valor, nome
         """;
         List<Plano> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setBigDecimal(1, minimo);
             ps.setBigDecimal(2, maximo);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) lista.add(map(rs));
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
@@ -124,7 +139,8 @@ public class PlanoDao {
     // ===== FK check: há assinaturas para este plano? =====
     public boolean possuiVinculos(long idPlano) throws SQLException {
         String sql = "SELECT COUNT(*) AS qtd FROM Assinatura WHERE Plano_idPlano = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idPlano);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return rs.getInt("qtd") > 0;
@@ -134,12 +150,12 @@ public class PlanoDao {
     }
 
     // ===== MAP helper =====
-    private Plano map(ResultSet rs) throws SQLException {
+    private static final MapeadorLinha<Plano> MAPA = new MapeadorLinha<>(l -> {
         Plano p = new Plano();
-        p.setId(rs.getLong("idPlano"));
-        p.setNome(rs.getString("nome"));
-        p.setPreco(rs.getBigDecimal("valor"));
-        p.setDuracaoMeses(rs.getInt("duracao"));
+        p.setId(l.longo(0));
+        p.setNome(l.texto(1));
+        p.setPreco(l.decimal(2));
+        p.setDuracaoMeses(l.inteiro(3));
         return p;
-    }
+    }, "idPlano", "nome", "valor", "duracao");
 }
@@ -0,0 +1,188 @@
+package com.br.inatel.dao;
+
+import com.br.inatel.model.Frequencia;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resumos de frequência, para relatórios que não releem a tabela Frequencia:
+ * FrequenciaMensalAluno (check-ins por aluno e mês) e FrequenciaDiaria (check-ins da academia por dia).
+ * {@link #somar} roda na mesma transação que grava ou move os check-ins; {@link #reconstruirMes} refaz
+ * um mês inteiro a partir de Frequencia.
+ */
+public class ResumoFrequenciaDao {
+
+    private record ChaveMes(long idAluno, LocalDate mes) {
+    }
+
+    private static final Comparator<ChaveMes> ORDEM_MES =
+            Comparator.comparingLong(ChaveMes::idAluno).thenComparing(ChaveMes::mes);
+
+    private final DataSource ds;
+
+    public ResumoFrequenciaDao(DataSource ds) {
+        this.ds = ds;
+    }
+
+    // ===== MANUTENÇÃO (dentro da transação do check-in) =====
+    /**
+     * Soma {@code sinal} (1 ao gravar, -1 ao mover) por check-in nos dois resumos. As linhas são atualizadas
+     * em ordem de chave, então transações concorrentes as travam na mesma sequência.
+     */
+    public void somar(Collection<Frequencia> checkins, int sinal) throws SQLException {
+        if (checkins.isEmpty()) return;
+        Map<ChaveMes, Integer> porMes = new TreeMap<>(ORDEM_MES);
+        Map<LocalDate, Integer> porDia = new TreeMap<>();
+        for (Frequencia f : checkins) {
+            LocalDate dia = f.getDataCheckin();
+            porMes.merge(new ChaveMes(f.getAluno().getId(), dia.withDayOfMonth(1)), sinal, Integer::sum);
+            porDia.merge(dia, sinal, Integer::sum);
+        }
+
+        String sqlMes = """
+            INSERT INTO FrequenciaMensalAluno (Aluno_idAluno, mes, total) VALUES (?, ?, ?) AS novo
+            ON DUPLICATE KEY UPDATE total = total + novo.total
+        """;
+        String sqlDia = """
+            INSERT INTO FrequenciaDiaria (dia, total) VALUES (?, ?) AS novo
+            ON DUPLICATE KEY UPDATE total = total + novo.total
+        """;
+        try (Connection conn = ds.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(sqlMes)) {
+                LoteJdbc.executar(ps, new ArrayList<>(porMes.entrySet()), LoteJdbc.TAMANHO_PADRAO, (st, e) -> {
+                    st.setLong(1, e.getKey().idAluno());
+                    st.setDate(2, Date.valueOf(e.getKey().mes()));
+                    st.setInt(3, e.getValue());
+                }, null);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(sqlDia)) {
+                LoteJdbc.executar(ps, new ArrayList<>(porDia.entrySet()), LoteJdbc.TAMANHO_PADRAO, (st, e) -> {
+                    st.setDate(1, Date.valueOf(e.getKey()));
+                    st.setInt(2, e.getValue());
+                }, null);
+            }
+        }
+    }
+
+    // ===== CONSULTAS =====
+    /** Check-ins do aluno por mês em [inicio, fim], em ordem; meses sem check-in não aparecem. */
+    public Map<YearMonth, Integer> totaisMensaisDoAluno(long idAluno, YearMonth inicio, YearMonth fim)
+            throws SQLException {
+        String sql = """
+            SELECT mes, total
+              FROM FrequenciaMensalAluno
+             WHERE Aluno_idAluno = ? AND mes BETWEEN ? AND ? AND total > 0
+             ORDER BY mes
+        """;
+        Map<YearMonth, Integer> totais = new LinkedHashMap<>();
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, idAluno);
+            ps.setDate(2, Date.valueOf(inicio.atDay(1)));
+            ps.setDate(3, Date.valueOf(fim.atDay(1)));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) totais.put(YearMonth.from(rs.getDate(1).toLocalDate()), rs.getInt(2));
+            }
+        }
+        return totais;
+    }
+
+    /** Check-ins da academia por dia em [inicio, fim], em ordem; dias sem check-in não aparecem. */
+    public Map<LocalDate, Integer> totaisDiarios(LocalDate inicio, LocalDate fim) throws SQLException {
+        String sql = "SELECT dia, total FROM FrequenciaDiaria WHERE dia BETWEEN ? AND ? AND total > 0 ORDER BY dia";
+        Map<LocalDate, Integer> totais = new LinkedHashMap<>();
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(inicio));
+            ps.setDate(2, Date.valueOf(fim));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) totais.put(rs.getDate(1).toLocalDate(), rs.getInt(2));
+            }
+        }
+        return totais;
+    }
+
+    // ===== RECONSTRUÇÃO =====
+    /**
+     * Meses que têm check-ins ou linhas de resumo, do mais antigo ao mais recente (só MIN/MAX pelos
+     * índices, sem varrer as tabelas).
+     */
+    public List<YearMonth> mesesComDados() throws SQLException {
+        String sql = """
+            SELECT MIN(d), MAX(d) FROM (
+                SELECT MIN(data_checkin) AS d FROM Frequencia
+                UNION ALL SELECT MAX(data_checkin) FROM Frequencia
+                UNION ALL SELECT MIN(mes) FROM FrequenciaMensalAluno
+                UNION ALL SELECT MAX(mes) FROM FrequenciaMensalAluno
+                UNION ALL SELECT MIN(dia) FROM FrequenciaDiaria
+                UNION ALL SELECT MAX(dia) FROM FrequenciaDiaria
+            ) limites
+        """;
+        List<YearMonth> meses = new ArrayList<>();
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next() && rs.getDate(1) != null) {
+                YearMonth fim = YearMonth.from(rs.getDate(2).toLocalDate());
+                for (YearMonth m = YearMonth.from(rs.getDate(1).toLocalDate()); !m.isAfter(fim); m = m.plusMonths(1)) {
+                    meses.add(m);
+                }
+            }
+        }
+        return meses;
+    }
+
+    /**
+     * Apaga e recalcula os resumos de um mês a partir de Frequencia. Chamar dentro de uma transação em
+     * REPEATABLE READ: em READ COMMITTED o DELETE não trava o intervalo e um check-in concorrente pode
+     * inserir a linha do mês antes do INSERT ... SELECT, que então falha com chave duplicada.
+     */
+    public void reconstruirMes(YearMonth mes) throws SQLException {
+        Date inicio = Date.valueOf(mes.atDay(1));
+        Date fim = Date.valueOf(mes.plusMonths(1).atDay(1));
+        try (Connection conn = ds.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM FrequenciaMensalAluno WHERE mes = ?")) {
+                ps.setDate(1, inicio);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("""
+                    INSERT INTO FrequenciaMensalAluno (Aluno_idAluno, mes, total)
+                    SELECT Aluno_idAluno, ?, COUNT(*)
+                      FROM Frequencia
+                     WHERE data_checkin >= ? AND data_checkin < ?
+                     GROUP BY Aluno_idAluno
+                    """)) {
+                ps.setDate(1, inicio);
+                ps.setDate(2, inicio);
+                ps.setDate(3, fim);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM FrequenciaDiaria WHERE dia >= ? AND dia < ?")) {
+                ps.setDate(1, inicio);
+                ps.setDate(2, fim);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("""
+                    INSERT INTO FrequenciaDiaria (dia, total)
+                    SELECT data_checkin, COUNT(*)
+                      FROM Frequencia
+                     WHERE data_checkin >= ? AND data_checkin < ?
+                     GROUP BY data_checkin
+                    """)) {
+                ps.setDate(1, inicio);
+                ps.setDate(2, fim);
+                ps.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.br.inatel.dao;
+
+import com.br.inatel.model.RiscoEvasao;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tabela RiscoEvasao: uma linha por aluno com a última pontuação calculada. O job grava tudo com o mesmo
+ * {@code calculado_em} e depois apaga as linhas de execuções anteriores (alunos que deixaram de estar ativos).
+ */
+public class RiscoEvasaoDao {
+
+    private final DataSource ds;
+
+    public RiscoEvasaoDao(DataSource ds) {
+        this.ds = ds;
+    }
+
+    // ===== CREATE/UPDATE (lote) =====
+    /** Grava as pontuações pelo SELECT em Aluno: quem foi excluído depois da carga fica de fora sem erro. */
+    public int gravar(List<RiscoEvasao> riscos, LocalDateTime calculadoEm) throws SQLException {
+        if (riscos.isEmpty()) return 0;
+        String sql = """
+            INSERT INTO RiscoEvasao (Aluno_idAluno, pontuacao, dias_sem_checkin, visitas_recentes, visitas_anteriores,
+                                     pagamentos_atrasados, dias_para_fim, calculado_em)
+            SELECT * FROM (
+                SELECT a.idAluno AS Aluno_idAluno, ? AS pontuacao, ? AS dias_sem_checkin, ? AS visitas_recentes,
+                       ? AS visitas_anteriores, ? AS pagamentos_atrasados, ? AS dias_para_fim, ? AS calculado_em
+                  FROM Aluno a
+                 WHERE a.idAluno = ?
+            ) AS novo
+            ON DUPLICATE KEY UPDATE pontuacao = novo.pontuacao, dias_sem_checkin = novo.dias_sem_checkin,
+                                    visitas_recentes = novo.visitas_recentes, visitas_anteriores = novo.visitas_anteriores,
+                                    pagamentos_atrasados = novo.pagamentos_atrasados, dias_para_fim = novo.dias_para_fim,
+                                    calculado_em = novo.calculado_em
+        """;
+        Timestamp em = Timestamp.valueOf(calculadoEm);
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            return LoteJdbc.executar(ps, riscos, LoteJdbc.TAMANHO_PADRAO, (st, r) -> {
+                st.setInt(1, r.pontuacao());
+                if (r.diasSemCheckin() != null) st.setInt(2, r.diasSemCheckin()); else st.setNull(2, Types.INTEGER);
+                st.setInt(3, r.visitasRecentes());
+                st.setInt(4, r.visitasAnteriores());
+                st.setInt(5, r.pagamentosAtrasados());
+                if (r.diasParaFim() != null) st.setInt(6, r.diasParaFim()); else st.setNull(6, Types.INTEGER);
+                st.setTimestamp(7, em);
+                st.setLong(8, r.idAluno());
+            }, null);
+        }
+    }
+
+    // ===== DELETE =====
+    /** Apaga as linhas calculadas antes de {@code calculadoEm}; devolve quantas. */
+    public int removerAnteriores(LocalDateTime calculadoEm) throws SQLException {
+        String sql = "DELETE FROM RiscoEvasao WHERE calculado_em < ?";
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(calculadoEm));
+            return ps.executeUpdate();
+        }
+    }
+
+    // ===== READ =====
+    /** Maiores pontuações primeiro (pelo idx_risco_pontuacao). */
+    public List<RiscoEvasao> listarMaiores(int limite) throws SQLException {
+        String sql = SELECT_BASICO + " ORDER BY r.pontuacao DESC, r.Aluno_idAluno LIMIT ?";
+        List<RiscoEvasao> lista = new ArrayList<>();
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, limite);
+            try (ResultSet rs = ps.executeQuery()) {
+                MAPA.lerTodas(sql, rs, lista::add);
+            }
+        }
+        return lista;
+    }
+
+    public RiscoEvasao buscarPorAluno(long idAluno) throws SQLException {
+        String sql = SELECT_BASICO + " WHERE r.Aluno_idAluno = ?";
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, idAluno);
+            try (ResultSet rs = ps.executeQuery()) {
+                return MAPA.lerUma(sql, rs);
+            }
+        }
+    }
+
+    // ===== Map helper =====
+    private static final String SELECT_BASICO = """
+            SELECT r.Aluno_idAluno, a.nome AS aluno_nome, r.pontuacao, r.dias_sem_checkin, r.visitas_recentes, r.visitas_anteriores,
+                   r.pagamentos_atrasados, r.dias_para_fim, r.calculado_em
+              FROM RiscoEvasao r
+              JOIN Aluno a ON a.idAluno = r.Aluno_idAluno
+            """;
+
+    private static final MapeadorLinha<RiscoEvasao> MAPA = new MapeadorLinha<>(l -> new RiscoEvasao(
+            l.longo(0), l.texto(1), l.inteiro(2), l.inteiroOuNull(3), l.inteiro(4), l.inteiro(5), l.inteiro(6),
+            l.inteiroOuNull(7), l.dataHora(8)),
+            "Aluno_idAluno", "aluno_nome", "pontuacao", "dias_sem_checkin", "visitas_recentes", "visitas_anteriores",
+            "pagamentos_atrasados", "dias_para_fim", "calculado_em");
+}
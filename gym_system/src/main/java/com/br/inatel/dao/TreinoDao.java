@@ -1,26 +1,39 @@
 package com.br.inatel.dao;
 
+import com.br.inatel.cache.LeituraCacheada;
 import com.br.inatel.model.Aluno;
 import com.br.inatel.model.Instrutor;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.model.Treino;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public class TreinoDao {
 
-    private final Connection conn;
+    private final DataSource ds;
+    private final LeituraCacheada<Treino> cache;
 
-    public TreinoDao(Connection conn) {
-        this.conn = conn;
+    public TreinoDao(DataSource ds) {
+        this(ds, LeituraCacheada.desligada());
+    }
+
+    /** {@code cache} atende buscarPorId/buscarPorIds; os services o invalidam com {@link #invalidarCache}. */
+    public TreinoDao(DataSource ds, LeituraCacheada<Treino> cache) {
+        this.ds = ds;
+        this.cache = cache;
     }
 
     // ===== CREATE =====
     public void insert(Treino t) throws SQLException {
         String sql = "INSERT INTO Treino (titulo, data_criacao, ativo, Instrutor_idInstrutor, Aluno_idAluno) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, t.getTitulo());
             ps.setDate(2, toSqlDate(t.getCreatedAt()));
             ps.setBoolean(3, t.isAtivo());
@@ -37,7 +50,8 @@ public class TreinoDao {
     // ===== UPDATE =====
     public int atualizar(Treino t) throws SQLException {
         String sql = "UPDATE Treino SET titulo = ?, data_criacao = ?, ativo = ?, Instrutor_idInstrutor = ?, Aluno_idAluno = ? WHERE idTreino = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, t.getTitulo());
             ps.setDate(2, toSqlDate(t.getCreatedAt()));
             ps.setBoolean(3, t.isAtivo());
@@ -50,21 +64,31 @@ public class TreinoDao {
 
     // ===== READ (by ID) =====
     public Treino buscarPorId(long id) throws SQLException {
+        return cache.obter(id, () -> buscarNoBanco(id));
+    }
+
+    private Treino buscarNoBanco(long id) throws SQLException {
         String sql = """
             SELECT t.idTreino, t.titulo, t.data_criacao, t.ativo,
                    t.Instrutor_idInstrutor, t.Aluno_idAluno
               FROM Treino t
              WHERE t.idTreino = ?
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return map(rs);
-                return null;
+                return MAPA.lerUma(sql, rs);
             }
         }
     }
 
+    // ===== READ (vários IDs) =====
+    public Map<Long, Treino> buscarPorIds(Collection<Long> ids) throws SQLException {
+        return cache.obterVarios(ids, faltando ->
+                LoteJdbc.buscarPorIds(ds, SELECT_TREINO, "t.idTreino", faltando, MAPA, Treino::getId));
+    }
+
     // ===== READ (all) =====
     public List<Treino> listarTodos() throws SQLException {
         String sql = """
@@ -74,9 +98,10 @@ public class TreinoDao {
              ORDER BY t.data_criacao DESC, t.idTreino DESC
         """;
         List<Treino> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) lista.add(map(rs));
+            MAPA.lerTodas(sql, rs, lista::add);
         }
         return lista;
     }
@@ -91,10 +116,11 @@ public class TreinoDao {
              ORDER BY t.data_criacao DESC, t.idTreino DESC
         """;
         List<Treino> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idAluno);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) lista.add(map(rs));
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
@@ -109,19 +135,51 @@ public class TreinoDao {
              ORDER BY t.data_criacao DESC, t.idTreino DESC
         """;
         List<Treino> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idInstrutor);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) lista.add(map(rs));
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
     }
 
+    // ===== READ (paginado) =====
+    private static final String SELECT_TREINO = """
+            SELECT t.idTreino, t.titulo, t.data_criacao, t.ativo,
+                   t.Instrutor_idInstrutor, t.Aluno_idAluno
+              FROM Treino t
+            """;
+
+    private static final CursorPagina.Ordenacao<Treino> ORDEM_CRIACAO = new CursorPagina.Ordenacao<>("treino",
+            new CursorPagina.Coluna<>("t.data_criacao", CursorPagina.Tipo.DATA, true, Treino::getCreatedAt),
+            new CursorPagina.Coluna<>("t.idTreino", CursorPagina.Tipo.LONGO, true, Treino::getId));
+
+    public Pagina<Treino> listarTodos(int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_TREINO, "1 = 1", ps -> 0,
+                ORDEM_CRIACAO, MAPA, tamanho, cursor);
+    }
+
+    public Pagina<Treino> listarPorAluno(long idAluno, int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_TREINO, "t.Aluno_idAluno = ?", ps -> {
+            ps.setLong(1, idAluno);
+            return 1;
+        }, ORDEM_CRIACAO, MAPA, tamanho, cursor);
+    }
+
+    public Pagina<Treino> listarPorInstrutor(long idInstrutor, int tamanho, String cursor) throws SQLException {
+        return CursorPagina.consultar(ds, SELECT_TREINO, "t.Instrutor_idInstrutor = ?", ps -> {
+            ps.setLong(1, idInstrutor);
+            return 1;
+        }, ORDEM_CRIACAO, MAPA, tamanho, cursor);
+    }
+
     // ===== PATCH: ativo =====
     public int alterarAtivo(long id, boolean ativo) throws SQLException {
         String sql = "UPDATE Treino SET ativo = ? WHERE idTreino = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setBoolean(1,ativo);
             ps.setLong(2, id);
             return ps.executeUpdate();
@@ -131,7 +189,8 @@ public class TreinoDao {
     // ===== DELETE =====
     public int deletarPorId(long id) throws SQLException {
         String sql = "DELETE FROM Treino WHERE idTreino = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             return ps.executeUpdate();
         }
@@ -140,8 +199,13 @@ public class TreinoDao {
 
     // ===== EXISTS =====
     public boolean existePorId(long id) throws SQLException {
+        return cache.existe(id, () -> existeNoBanco(id));
+    }
+
+    private boolean existeNoBanco(long id) throws SQLException {
         String sql = "SELECT 1 FROM Treino WHERE idTreino = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 return rs.next();
@@ -149,27 +213,49 @@ public class TreinoDao {
         }
     }
 
-    // ===== MAP helper =====
-    private Treino map(ResultSet rs) throws SQLException {
-        Treino t = new Treino();
-        t.setId(rs.getLong("idTreino"));
-        t.setTitulo(rs.getString("titulo"));
+    // ===== CACHE =====
+    public void invalidarCache(long id) {
+        cache.invalidar(id);
+    }
 
-        Date d = rs.getDate("data_criacao");
-        t.setCreatedAt(d != null ? d.toLocalDate() : null);
+    /** Cópia usada pelo cache: quem lê pode alterar o objeto sem afetar a versão guardada. */
+    public static Treino copiar(Treino t) {
+        Treino c = new Treino();
+        c.setId(t.getId());
+        c.setTitulo(t.getTitulo());
+        c.setCreatedAt(t.getCreatedAt());
+        c.setAtivo(t.isAtivo());
+        if (t.getInstrutor() != null) {
+            Instrutor i = new Instrutor();
+            i.setId(t.getInstrutor().getId());
+            c.setInstrutor(i);
+        }
+        if (t.getAluno() != null) {
+            Aluno a = new Aluno();
+            a.setId(t.getAluno().getId());
+            c.setAluno(a);
+        }
+        return c;
+    }
 
-        t.setAtivo(rs.getBoolean("ativo"));
+    // ===== MAP helper =====
+    private static final MapeadorLinha<Treino> MAPA = new MapeadorLinha<>(l -> {
+        Treino t = new Treino();
+        t.setId(l.longo(0));
+        t.setTitulo(l.texto(1));
+        t.setCreatedAt(l.data(2));
+        t.setAtivo(l.booleano(3));
 
         Instrutor i = new Instrutor();
-        i.setId(rs.getLong("Instrutor_idInstrutor"));
+        i.setId(l.longo(4));
         t.setInstrutor(i);
 
         Aluno a = new Aluno();
-        a.setId(rs.getLong("Aluno_idAluno"));
+        a.setId(l.longo(5));
         t.setAluno(a);
 
         return t;
-    }
+    }, "idTreino", "titulo", "data_criacao", "ativo", "Instrutor_idInstrutor", "Aluno_idAluno");
 
     private static Date toSqlDate(LocalDate d) {
         return d != null ? Date.valueOf(d) : null;
@@ -4,16 +4,17 @@ import com.br.inatel.model.Exercicio;
 import com.br.inatel.model.Treino;
 import com.br.inatel.model.TreinoExercicio;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class TreinoExercicioDao {
 
-    private final Connection conn;
+    private final DataSource ds;
 
-    public TreinoExercicioDao(Connection conn) {
-        this.conn = conn;
+    public TreinoExercicioDao(DataSource ds) {
+        this.ds = ds;
     }
 
     // ===== CREATE =====
@@ -23,7 +24,8 @@ public class TreinoExercicioDao {
                 (Treino_idTreino, Exercicio_idExercicio, ordem, series, repeticoes, carga_kg, descanso_seg)
             VALUES (?, ?, ?, ?, ?, ?, ?)
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, te.getTreino().getId());
             ps.setLong(2, te.getExercicio().getId());
             ps.setInt(3, te.getOrdem());
@@ -35,6 +37,33 @@ public class TreinoExercicioDao {
         }
     }
 
+    // ===== CREATE (lote) =====
+    public int insertBatch(List<TreinoExercicio> lista) throws SQLException {
+        return insertBatch(lista, LoteJdbc.TAMANHO_PADRAO);
+    }
+
+    public int insertBatch(List<TreinoExercicio> lista, int tamanhoLote) throws SQLException {
+        if (lista.isEmpty()) return 0;
+        String sql = """
+            INSERT INTO TreinoExercicio
+                (Treino_idTreino, Exercicio_idExercicio, ordem, series, repeticoes, carga_kg, descanso_seg)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            // chave composta (treino, exercício): não há chave gerada para devolver
+            return LoteJdbc.executar(ps, lista, tamanhoLote, (st, te) -> {
+                st.setLong(1, te.getTreino().getId());
+                st.setLong(2, te.getExercicio().getId());
+                st.setInt(3, te.getOrdem());
+                st.setInt(4, te.getSeries());
+                st.setInt(5, te.getReps());
+                if (te.getCargaKg() != null) st.setInt(6, te.getCargaKg()); else st.setNull(6, Types.INTEGER);
+                st.setInt(7, te.getDescansoSeg());
+            }, null);
+        }
+    }
+
     // ===== UPDATE (mesma ordem) =====
     public boolean atualizar(TreinoExercicio te) throws SQLException {
         String sql = """
@@ -46,7 +75,8 @@ public class TreinoExercicioDao {
                    descanso_seg = ?
              WHERE Treino_idTreino = ? AND ordem = ?
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, te.getExercicio().getId());
             ps.setInt(2, te.getSeries());
             ps.setInt(3, te.getReps());
@@ -61,7 +91,8 @@ public class TreinoExercicioDao {
     // ===== ALTERAR ORDEM (1 item) =====
     public boolean alterarOrdem(long idTreino, int ordemAntiga, int novaOrdem) throws SQLException {
         String sql = "UPDATE TreinoExercicio SET ordem = ? WHERE Treino_idTreino = ? AND ordem = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, novaOrdem);
             ps.setLong(2, idTreino);
             ps.setInt(3, ordemAntiga);
@@ -72,7 +103,8 @@ public class TreinoExercicioDao {
 
     public boolean existeOrdem(long idTreino, int ordem) throws SQLException {
         String sql = "SELECT 1 FROM TreinoExercicio WHERE Treino_idTreino = ? AND ordem = ? LIMIT 1";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idTreino);
             ps.setInt(2, ordem);
             try (ResultSet rs = ps.executeQuery()) {
@@ -91,7 +123,8 @@ public class TreinoExercicioDao {
                END
              WHERE Treino_idTreino = ? AND ordem IN (?, ?)
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, ordemA);
             ps.setInt(2, ordemB);
             ps.setInt(3, ordemB);
@@ -113,12 +146,12 @@ public class TreinoExercicioDao {
               JOIN Exercicio e ON e.idExercicio = tx.Exercicio_idExercicio
              WHERE tx.Treino_idTreino = ? AND tx.ordem = ?
         """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idTreino);
             ps.setInt(2, ordem);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return map(rs);
-                return null;
+                return MAPA.lerUma(sql, rs);
             }
         }
     }
@@ -135,10 +168,11 @@ public class TreinoExercicioDao {
              ORDER BY tx.ordem ASC
         """;
         List<TreinoExercicio> lista = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idTreino);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) lista.add(map(rs));
+                MAPA.lerTodas(sql, rs, lista::add);
             }
         }
         return lista;
@@ -147,7 +181,8 @@ public class TreinoExercicioDao {
     // ===== DELETE (1 item) =====
     public boolean deletarPorChave(long idTreino, int ordem) throws SQLException {
         String sql = "DELETE FROM TreinoExercicio WHERE Treino_idTreino = ? AND ordem = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idTreino);
             ps.setInt(2, ordem);
             return ps.executeUpdate() > 0;
@@ -157,35 +192,34 @@ public class TreinoExercicioDao {
     // ===== DELETE (todos do treino) =====
     public int deletarTodosDoTreino(long idTreino) throws SQLException {
         String sql = "DELETE FROM TreinoExercicio WHERE Treino_idTreino = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, idTreino);
             return ps.executeUpdate();
         }
     }
 
     // ===== MAP helper =====
-    private TreinoExercicio map(ResultSet rs) throws SQLException {
+    private static final MapeadorLinha<TreinoExercicio> MAPA = new MapeadorLinha<>(l -> {
         TreinoExercicio te = new TreinoExercicio();
 
         Treino t = new Treino();
-        t.setId(rs.getLong("Treino_idTreino"));
+        t.setId(l.longo(0));
         te.setTreino(t);
 
-        te.setOrdem((short) rs.getInt("ordem"));
+        te.setOrdem((short) l.inteiro(1));
 
         Exercicio e = new Exercicio();
-        e.setId(rs.getLong("Exercicio_idExercicio"));
-        e.setNome(rs.getString("exercicio_nome"));
+        e.setId(l.longo(2));
+        e.setNome(l.texto(3));
         te.setExercicio(e);
 
-        te.setSeries((short) rs.getInt("series"));
-        te.setReps((short) rs.getInt("repeticoes"));
-
-        int carga = rs.getInt("carga_kg");
-        te.setCargaKg(rs.wasNull() ? null : carga);
-
-        te.setDescansoSeg((short) rs.getInt("descanso_seg"));
+        te.setSeries((short) l.inteiro(4));
+        te.setReps((short) l.inteiro(5));
+        te.setCargaKg(l.inteiroOuNull(6));
+        te.setDescansoSeg((short) l.inteiro(7));
 
         return te;
-    }
+    }, "Treino_idTreino", "ordem", "Exercicio_idExercicio", "exercicio_nome",
+            "series", "repeticoes", "carga_kg", "descanso_seg");
 }
@@ -0,0 +1,52 @@
+package com.br.inatel.dao;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tabela VersaoCache: um contador por tabela cacheada, incrementado a cada escrita. As instâncias
+ * comparam as versões para saber quais caches ficaram velhos.
+ */
+public class VersaoCacheDao {
+
+    private final DataSource ds;
+
+    public VersaoCacheDao(DataSource ds) {
+        this.ds = ds;
+    }
+
+    /**
+     * Incrementa a versão da tabela (cria a linha na primeira vez) e devolve o valor novo. O
+     * LAST_INSERT_ID(expr) guarda o valor na sessão, então a releitura não disputa com outras escritas.
+     */
+    public long incrementar(String tabela) throws SQLException {
+        String sql = """
+            INSERT INTO VersaoCache (tabela, versao) VALUES (?, LAST_INSERT_ID(1))
+            ON DUPLICATE KEY UPDATE versao = LAST_INSERT_ID(versao + 1)
+        """;
+        try (Connection conn = ds.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, tabela);
+                ps.executeUpdate();
+            }
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT LAST_INSERT_ID()")) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // ===== READ =====
+    public Map<String, Long> listar() throws SQLException {
+        String sql = "SELECT tabela, versao FROM VersaoCache";
+        Map<String, Long> versoes = new HashMap<>();
+        try (Connection conn = ds.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) versoes.put(rs.getString("tabela"), rs.getLong("versao"));
+        }
+        return versoes;
+    }
+}
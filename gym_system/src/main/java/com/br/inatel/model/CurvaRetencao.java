@@ -0,0 +1,16 @@
+package com.br.inatel.model;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Retenção de uma coorte (alunos que aderiram no mesmo mês): {@code retencao.get(k)} é a fração da coorte
+ * com ao menos um check-in no k-ésimo mês depois da adesão (k = 0 é o próprio mês). Só traz os meses
+ * que já começaram.
+ */
+public record CurvaRetencao(YearMonth coorte, int alunos, List<Double> retencao) {
+
+    public CurvaRetencao {
+        retencao = List.copyOf(retencao);
+    }
+}
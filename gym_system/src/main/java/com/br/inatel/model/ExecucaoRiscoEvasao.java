@@ -0,0 +1,14 @@
+package com.br.inatel.model;
+
+/** Resultado de um cálculo de risco de evasão, com o tempo de cada fase para comparar com a meta. */
+public record ExecucaoRiscoEvasao(int alunos, int removidos, long cargaMs, long calculoMs, long gravacaoMs,
+                                  int paralelismo, long metaMs) {
+
+    public long totalMs() {
+        return cargaMs + calculoMs + gravacaoMs;
+    }
+
+    public boolean dentroDaMeta() {
+        return totalMs() <= metaMs;
+    }
+}
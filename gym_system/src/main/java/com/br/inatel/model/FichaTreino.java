@@ -0,0 +1,35 @@
+package com.br.inatel.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ficha de treino pronta para exibir: treino, nomes do aluno e do instrutor e os exercícios em ordem.
+ * É imutável, então a mesma instância pode ser entregue a vários leitores direto do cache.
+ */
+public record FichaTreino(long idTreino, String titulo, LocalDate criadoEm, boolean ativo,
+                          String aluno, String instrutor, List<Item> itens) {
+
+    public record Item(short ordem, long idExercicio, String exercicio, short series, short reps,
+                       Integer cargaKg, short descansoSeg) {
+    }
+
+    public FichaTreino {
+        itens = List.copyOf(itens);
+    }
+
+    /** Monta a ficha de um treino já hidratado (aluno/instrutor com nome) e dos seus itens. */
+    public static FichaTreino de(Treino t, List<TreinoExercicio> exercicios) {
+        List<Item> itens = new ArrayList<>(exercicios.size());
+        for (TreinoExercicio te : exercicios) {
+            Exercicio e = te.getExercicio();
+            itens.add(new Item(te.getOrdem(), e != null ? e.getId() : 0, e != null ? e.getNome() : null,
+                    te.getSeries(), te.getReps(), te.getCargaKg(), te.getDescansoSeg()));
+        }
+        return new FichaTreino(t.getId(), t.getTitulo(), t.getCreatedAt(), t.isAtivo(),
+                t.getAluno() != null ? t.getAluno().getNome() : null,
+                t.getInstrutor() != null ? t.getInstrutor().getNome() : null,
+                itens);
+    }
+}
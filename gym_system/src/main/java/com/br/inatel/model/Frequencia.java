@@ -1,11 +1,14 @@
 package com.br.inatel.model;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 public class Frequencia {
     private Long id;
     private Aluno aluno;
     private LocalDate dataCheckin;
+    private LocalDateTime entrada;   // null em lançamentos sem horário
+    private LocalDateTime saida;     // null enquanto o aluno não passa na saída
 
     public Long getId() {
         return id;
@@ -30,4 +33,20 @@ public class Frequencia {
     public void setDataCheckin(LocalDate dataCheckin) {
         this.dataCheckin = dataCheckin;
     }
+
+    public LocalDateTime getEntrada() {
+        return entrada;
+    }
+
+    public void setEntrada(LocalDateTime entrada) {
+        this.entrada = entrada;
+    }
+
+    public LocalDateTime getSaida() {
+        return saida;
+    }
+
+    public void setSaida(LocalDateTime saida) {
+        this.saida = saida;
+    }
 }
@@ -0,0 +1,12 @@
+package com.br.inatel.model;
+
+import java.time.LocalDate;
+
+/**
+ * Indicadores de frequência de um aluno numa data de referência. Sequências contam dias seguidos com
+ * check-in; a atual é zero se o aluno não veio nem hoje nem ontem. Datas são null se não há check-in.
+ */
+public record IndicadoresAluno(long idAluno, int sequenciaAtual, int maiorSequencia,
+                               int visitas7, int visitas30, int visitas90,
+                               LocalDate primeiroCheckin, LocalDate ultimoCheckin) {
+}
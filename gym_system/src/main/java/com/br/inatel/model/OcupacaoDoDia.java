@@ -0,0 +1,26 @@
+package com.br.inatel.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Movimento da academia num dia: quantos alunos estão dentro agora e, por faixa de 15 minutos, entradas,
+ * saídas e a ocupação ao fim da faixa. Check-ins lançados sem horário não entram.
+ */
+public record OcupacaoDoDia(LocalDate dia, int presentes, int entradas, int saidas, List<Faixa> faixas) {
+
+    public record Faixa(LocalTime inicio, int entradas, int saidas, int ocupacao) {
+    }
+
+    public OcupacaoDoDia {
+        faixas = List.copyOf(faixas);
+    }
+
+    /** Faixa com a maior ocupação (a primeira, em caso de empate); null se o dia não teve entradas. */
+    public Faixa pico() {
+        Faixa pico = null;
+        for (Faixa f : faixas) if (f.ocupacao() > 0 && (pico == null || f.ocupacao() > pico.ocupacao())) pico = f;
+        return pico;
+    }
+}
@@ -0,0 +1,18 @@
+package com.br.inatel.model;
+
+import java.util.List;
+
+/**
+ * Uma página de resultados. {@code proximoCursor} é opaco: basta devolvê-lo na próxima chamada
+ * para continuar de onde esta página parou; é null na última página.
+ */
+public record Pagina<T>(List<T> itens, String proximoCursor) {
+
+    public Pagina {
+        itens = List.copyOf(itens);
+    }
+
+    public boolean temProxima() {
+        return proximoCursor != null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.br.inatel.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pontuação de risco de evasão de um aluno (0 a 100) e os fatores que a compõem. {@code diasSemCheckin}
+ * é null para quem nunca fez check-in; {@code diasParaFim} é null sem assinatura ativa e negativo se ela já
+ * venceu. {@code aluno} (nome) só vem preenchido nas consultas.
+ */
+public record RiscoEvasao(long idAluno, String aluno, int pontuacao, Integer diasSemCheckin,
+                          int visitasRecentes, int visitasAnteriores, int pagamentosAtrasados,
+                          Integer diasParaFim, LocalDateTime calculadoEm) {
+}
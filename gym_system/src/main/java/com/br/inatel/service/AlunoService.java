@@ -2,6 +2,7 @@ package com.br.inatel.service;
 
 
 import com.br.inatel.model.Aluno;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.service.exception.BusinessException;
 import com.br.inatel.service.exception.NotFoundException;
 
@@ -14,6 +15,11 @@ public interface AlunoService {
     void desativar(long id) throws NotFoundException;
     Aluno buscarPorId(long id) throws NotFoundException;
     List<Aluno> listarTodos();
+    Pagina<Aluno> listarTodos(int tamanho, String cursor);
 
+    /** Busca por nome (sem acento, tolera erro de digitação) ou, se o termo for numérico, por telefone. */
     List<Aluno> buscarPorNome(String termo);;
+
+    /** Relê a tabela Aluno para o índice de busca em segundo plano; false se já houver uma releitura rodando. */
+    boolean reconstruirIndiceBusca();
 }
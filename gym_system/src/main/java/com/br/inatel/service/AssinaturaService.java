@@ -1,12 +1,14 @@
 package com.br.inatel.service;
 
 import com.br.inatel.model.Assinatura;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.model.enums.AssinaturaStatus;
 import com.br.inatel.service.exception.BusinessException;
 import com.br.inatel.service.exception.NotFoundException;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface AssinaturaService {
     Assinatura criar(long idAluno, long idPlano, LocalDate dataInicio, LocalDate dataFim) throws BusinessException;
@@ -15,6 +17,8 @@ public interface AssinaturaService {
             throws NotFoundException, BusinessException;
 
     List<Assinatura> listarTodas();
+    Pagina<Assinatura> listarTodas(int tamanho, String cursor);
+    long percorrerTodas(Consumer<Assinatura> consumidor); // streaming, memória constante
     void excluir(long id) throws NotFoundException, BusinessException;
 
     void alterarStatus(long id, AssinaturaStatus novoStatus) throws NotFoundException, BusinessException;
@@ -22,7 +26,9 @@ public interface AssinaturaService {
 
 
     List<Assinatura> listarPorAluno(long idAluno);
+    Pagina<Assinatura> listarPorAluno(long idAluno, int tamanho, String cursor);
     List<Assinatura> listarPorPlano(long idPlano);
+    Pagina<Assinatura> listarPorPlano(long idPlano, int tamanho, String cursor);
 
 
 }
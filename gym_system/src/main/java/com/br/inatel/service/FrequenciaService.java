@@ -1,18 +1,49 @@
 package com.br.inatel.service;
 
+import com.br.inatel.model.CurvaRetencao;
 import com.br.inatel.model.Frequencia;
+import com.br.inatel.model.IndicadoresAluno;
+import com.br.inatel.model.OcupacaoDoDia;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.service.exception.BusinessException;
 import com.br.inatel.service.exception.NotFoundException;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface FrequenciaService {
     Frequencia registrarCheckin(long idAluno, LocalDate data) throws BusinessException; // garantir 1 por dia
+    CompletableFuture<Frequencia> registrarCheckinAssincrono(long idAluno, LocalDate data); // catraca: gravação em grupo
+    List<Frequencia> registrarCheckinsEmLote(List<Frequencia> checkins) throws BusinessException; // tudo ou nada
+    void registrarSaida(long idAluno) throws BusinessException; // catraca de saída: fecha a última entrada em aberto
     Frequencia atualizar(long id, long idAluno, LocalDate data) throws NotFoundException, BusinessException;
     List<Frequencia> listarTodas();
+    Pagina<Frequencia> listarTodas(int tamanho, String cursor);
+    long percorrerTodas(Consumer<Frequencia> consumidor); // streaming, memória constante
 
     List<Frequencia> listarPorAluno(long idAluno);
+    Pagina<Frequencia> listarPorAluno(long idAluno, int tamanho, String cursor);
     List<Frequencia> listarPorPeriodo(LocalDate inicio, LocalDate fim);
+    Pagina<Frequencia> listarPorPeriodo(LocalDate inicio, LocalDate fim, int tamanho, String cursor);
     Frequencia buscarUltimoCheckinPorAluno(long idAluno);
+
+    // agregados lidos das tabelas de resumo
+    Map<YearMonth, Integer> frequenciaMensal(long idAluno, YearMonth inicio, YearMonth fim);
+    Map<LocalDate, Integer> movimentoDiario(LocalDate inicio, LocalDate fim);
+    int reconstruirResumos(); // backfill a partir de Frequencia; devolve meses refeitos
+
+    // análise em memória (sequências, visitas recentes, retenção)
+    IndicadoresAluno indicadoresDoAluno(long idAluno) throws NotFoundException;
+    List<CurvaRetencao> retencaoPorCoorte(int meses); // coorte = mês de adesão
+
+    // ocupação em tempo real, sem ir ao banco
+    int presentesAgora();
+    OcupacaoDoDia ocupacaoDoDia();
+
+    boolean acessoLiberado(long idAluno); // catraca: aluno ativo com assinatura ATIVA, sem ir ao banco
+    long contarMembrosAtivos();
 }
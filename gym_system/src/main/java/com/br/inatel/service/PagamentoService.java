@@ -1,6 +1,7 @@
 package com.br.inatel.service;
 
 import com.br.inatel.model.Pagamento;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.model.enums.PagamentoStatus;
 import com.br.inatel.service.exception.BusinessException;
 import com.br.inatel.service.exception.NotFoundException;
@@ -8,21 +9,29 @@ import com.br.inatel.service.exception.NotFoundException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface PagamentoService {
     Pagamento criar(long idAssinatura, LocalDate competencia, BigDecimal valor, LocalDate dataVencimento, PagamentoStatus status)
             throws BusinessException;
 
+    List<Pagamento> criarEmLote(List<Pagamento> pagamentos) throws BusinessException; // tudo ou nada
+
     Pagamento atualizar(long id, long idAssinatura, LocalDate competencia, BigDecimal valor, LocalDate dataVencimento, PagamentoStatus status, LocalDate dataPagamento)
             throws NotFoundException, BusinessException;
 
     Pagamento buscarPorId(long id) throws NotFoundException;
     List<Pagamento> listarTodos();
+    Pagina<Pagamento> listarTodos(int tamanho, String cursor);
+    long percorrerTodos(Consumer<Pagamento> consumidor); // streaming, memória constante
     void excluir(long id) throws NotFoundException, BusinessException;
 
     List<Pagamento> listarPorAssinatura(long idAssinatura);
+    Pagina<Pagamento> listarPorAssinatura(long idAssinatura, int tamanho, String cursor);
     List<Pagamento> listarPorStatus(PagamentoStatus status);
+    Pagina<Pagamento> listarPorStatus(PagamentoStatus status, int tamanho, String cursor);
     List<Pagamento> listarVencidos(); // não pagos e vencidos
+    Pagina<Pagamento> listarVencidos(int tamanho, String cursor);
 
 
     void alterarStatus(long id, PagamentoStatus status) throws NotFoundException, BusinessException;
@@ -16,4 +16,7 @@ public interface PlanoService {
 
     List<Plano> buscarPorNome(String termo);
     List<Plano> buscarPorFaixaPreco(BigDecimal minimo, BigDecimal maximo);
+
+    /** Relê a tabela Plano para o catálogo em memória (ex.: após alteração feita fora da aplicação). */
+    void recarregarCatalogo();
 }
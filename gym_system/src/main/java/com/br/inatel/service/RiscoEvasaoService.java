@@ -0,0 +1,15 @@
+package com.br.inatel.service;
+
+import com.br.inatel.model.ExecucaoRiscoEvasao;
+import com.br.inatel.model.RiscoEvasao;
+import com.br.inatel.service.exception.BusinessException;
+import com.br.inatel.service.exception.NotFoundException;
+
+import java.util.List;
+
+public interface RiscoEvasaoService {
+    ExecucaoRiscoEvasao calcular() throws BusinessException; // recalcula todos os alunos com acesso liberado
+
+    List<RiscoEvasao> maioresRiscos(int limite);
+    RiscoEvasao buscarPorAluno(long idAluno) throws NotFoundException; // último cálculo
+}
@@ -1,5 +1,6 @@
 package com.br.inatel.service;
 
+import com.br.inatel.model.FichaTreino;
 import com.br.inatel.model.TreinoExercicio;
 import com.br.inatel.service.exception.BusinessException;
 import com.br.inatel.service.exception.NotFoundException;
@@ -9,6 +10,8 @@ import java.util.List;
 public interface TreinoExercicioService {
     TreinoExercicio adicionar(long idTreino, short ordem, long idExercicio, short series, short reps, Integer cargaKg, short descansoSeg) throws BusinessException;
 
+    List<TreinoExercicio> adicionarEmLote(long idTreino, List<TreinoExercicio> itens) throws NotFoundException, BusinessException;
+
     TreinoExercicio atualizar(long idTreino, short ordem, long idExercicio, short series, short reps, Integer cargaKg, short descansoSeg) throws NotFoundException, BusinessException;
 
     void alterarOrdem(long idTreino, short ordemAntiga, short novaOrdem) throws NotFoundException, BusinessException;
@@ -16,6 +19,7 @@ public interface TreinoExercicioService {
 
     TreinoExercicio buscarPorChave(long idTreino, short ordem) throws NotFoundException, BusinessException;
     List<TreinoExercicio> listarPorTreino(long idTreino) throws NotFoundException,BusinessException;
+    FichaTreino buscarFicha(long idTreino) throws NotFoundException, BusinessException; // em cache até o treino mudar
 
     void removerPorChave(long idTreino, short ordem) throws NotFoundException, BusinessException;
     int removerTodosDoTreino(long idTreino) throws NotFoundException, BusinessException;
@@ -1,5 +1,6 @@
 package com.br.inatel.service;
 
+import com.br.inatel.model.Pagina;
 import com.br.inatel.model.Treino;
 import com.br.inatel.service.exception.BusinessException;
 import com.br.inatel.service.exception.NotFoundException;
@@ -14,9 +15,12 @@ public interface TreinoService {
 
     Treino buscarPorId(long id) throws NotFoundException;
     List<Treino> listarTodos();
+    Pagina<Treino> listarTodos(int tamanho, String cursor);
     void excluir(long id) throws NotFoundException, BusinessException;
 
     void alterarAtivo(long id, boolean ativo) throws NotFoundException;
     List<Treino> listarPorAluno(long idAluno);
+    Pagina<Treino> listarPorAluno(long idAluno, int tamanho, String cursor);
     List<Treino> listarPorInstrutor(long idInstrutor);
+    Pagina<Treino> listarPorInstrutor(long idInstrutor, int tamanho, String cursor);
 }
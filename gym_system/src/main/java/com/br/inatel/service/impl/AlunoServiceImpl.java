@@ -1,23 +1,40 @@
 package com.br.inatel.service.impl;
 
+import com.br.inatel.busca.BuscaAlunos;
+import com.br.inatel.cache.CoerenciaCaches;
+import com.br.inatel.cache.MembrosAtivos;
+import com.br.inatel.config.GerenciadorTransacao;
 import com.br.inatel.dao.AlunoDao;
 import com.br.inatel.model.Aluno;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.service.AlunoService;
 import com.br.inatel.service.exception.BusinessException;
 import com.br.inatel.service.exception.NotFoundException;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 public class AlunoServiceImpl implements AlunoService {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+
     private final AlunoDao dao;
+    private final BuscaAlunos busca;
+    private final MembrosAtivos membrosAtivos;
+    private final CoerenciaCaches coerencia;
+    private final GerenciadorTransacao tx;
 
-    public AlunoServiceImpl(AlunoDao dao) {
+    public AlunoServiceImpl(AlunoDao dao, BuscaAlunos busca, MembrosAtivos membrosAtivos, CoerenciaCaches coerencia, GerenciadorTransacao tx) {
         this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+        this.busca = Objects.requireNonNull(busca, "busca não pode ser null");
+        this.membrosAtivos = Objects.requireNonNull(membrosAtivos, "membrosAtivos não pode ser null");
+        this.coerencia = Objects.requireNonNull(coerencia, "coerencia não pode ser null");
+        this.tx = Objects.requireNonNull(tx, "tx não pode ser null");
     }
 
     // ====== CREATE ======
@@ -34,6 +51,9 @@ public class AlunoServiceImpl implements AlunoService {
 
         try {
             dao.insert(aluno);
+            dao.invalidarCache(aluno.getId()); // o id pode estar no cache de inexistentes
+            coerencia.publicar(CoerenciaCaches.ALUNO);
+            busca.registrar(aluno);
             return aluno;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao criar aluno: " + e.getMessage());
@@ -49,23 +69,30 @@ public class AlunoServiceImpl implements AlunoService {
         validarNascimento(nascimento);
 
         try {
-            Aluno existente = dao.buscarPorId(id);
-            if (existente == null) {
-                throw new NotFoundException("Aluno não encontrado: " + id);
-            }
-
-            existente.setNome(nome.trim());
-            existente.setDataNascimento(nascimento);
-            existente.setTelefone(telefone != null ? telefone.trim() : null);
-
-            boolean ok = dao.atualizar(existente);
-            if (!ok) {
-                // Em teoria não deve acontecer, pois já validamos a existência
-                throw new BusinessException("Atualização não aplicada (id=" + id + ").");
-            }
-            return existente;
+            Aluno atualizado = tx.executar(() -> {
+                Aluno existente = dao.buscarPorId(id);
+                if (existente == null) {
+                    throw new NotFoundException("Aluno não encontrado: " + id);
+                }
+
+                existente.setNome(nome.trim());
+                existente.setDataNascimento(nascimento);
+                existente.setTelefone(telefone != null ? telefone.trim() : null);
+
+                boolean ok = dao.atualizar(existente);
+                if (!ok) {
+                    // Em teoria não deve acontecer, pois já validamos a existência
+                    throw new BusinessException("Atualização não aplicada (id=" + id + ").");
+                }
+                return existente;
+            });
+            coerencia.publicar(CoerenciaCaches.ALUNO);
+            busca.registrar(atualizado);
+            return atualizado;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao atualizar aluno: " + e.getMessage());
+        } finally {
+            dao.invalidarCache(id);
         }
     }
 
@@ -83,15 +110,21 @@ public class AlunoServiceImpl implements AlunoService {
     private void alterarAtivo(long id, boolean ativo) throws NotFoundException {
         validarIdPositivo(id);
         try {
-            if (!dao.existePorId(id)) {
-                throw new NotFoundException("Aluno não encontrado: " + id);
-            }
-            boolean ok = dao.alterarAtivo(id, ativo);
-            if (!ok) {
-                throw new BusinessException("Não foi possível " + (ativo ? "ativar" : "desativar") + " o aluno (id=" + id + ").");
-            }
+            tx.executarSemRetorno(() -> {
+                if (!dao.existePorId(id)) {
+                    throw new NotFoundException("Aluno não encontrado: " + id);
+                }
+                boolean ok = dao.alterarAtivo(id, ativo);
+                if (!ok) {
+                    throw new BusinessException("Não foi possível " + (ativo ? "ativar" : "desativar") + " o aluno (id=" + id + ").");
+                }
+            });
+            coerencia.publicar(CoerenciaCaches.ALUNO);
+            membrosAtivos.atualizarAluno(id);
         } catch (SQLException e) {
             throw new BusinessException("Falha ao alterar status do aluno: " + e.getMessage());
+        } finally {
+            dao.invalidarCache(id);
         }
     }
 
@@ -100,11 +133,13 @@ public class AlunoServiceImpl implements AlunoService {
     public Aluno buscarPorId(long id) throws NotFoundException {
         validarIdPositivo(id);
         try {
-            Aluno a = dao.buscarPorId(id);
-            if (a == null) {
-                throw new NotFoundException("Aluno não encontrado: " + id);
-            }
-            return a;
+            return tx.executarLeitura(() -> {
+                Aluno a = dao.buscarPorId(id);
+                if (a == null) {
+                    throw new NotFoundException("Aluno não encontrado: " + id);
+                }
+                return a;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao buscar aluno: " + e.getMessage());
         }
@@ -113,9 +148,21 @@ public class AlunoServiceImpl implements AlunoService {
     @Override
     public List<Aluno> listarTodos() {
         try {
-            return dao.listarTodos();
+            return tx.executarLeitura(() -> dao.listarTodos());
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar alunos: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Pagina<Aluno> listarTodos(int tamanho, String cursor) {
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> dao.listarTodos(tamanho, cursor));
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar alunos: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
         }
     }
 
@@ -127,13 +174,36 @@ public class AlunoServiceImpl implements AlunoService {
             return Collections.emptyList();
         }
         try {
-            return dao.buscarPorNome(termo.trim());
+            return tx.executarLeitura(() -> {
+                // Enquanto o índice não termina de carregar, a busca continua no banco
+                if (!busca.pronto()) return dao.buscarPorNome(termo.trim());
+
+                List<Long> ids = busca.buscarIds(termo);
+                Map<Long, Aluno> porId = dao.buscarPorIds(ids);
+                List<Aluno> ordenados = new ArrayList<>(ids.size());
+                for (Long id : ids) {
+                    Aluno a = porId.get(id);
+                    if (a != null) ordenados.add(a);
+                }
+                return ordenados;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao buscar alunos por nome: " + e.getMessage());
         }
     }
 
+    @Override
+    public boolean reconstruirIndiceBusca() {
+        return busca.reconstruirEmSegundoPlano();
+    }
+
     // ====== validações ======
+    private void validarTamanhoPagina(int tamanho) {
+        if (tamanho <= 0 || tamanho > TAMANHO_MAXIMO_PAGINA) {
+            throw new BusinessException("Tamanho de página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA + ".");
+        }
+    }
+
     private void validarIdPositivo(long id) {
         if (id <= 0) throw new BusinessException("Id deve ser positivo.");
     }
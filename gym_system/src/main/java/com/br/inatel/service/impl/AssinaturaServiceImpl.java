@@ -1,10 +1,15 @@
 package com.br.inatel.service.impl;
 
+import com.br.inatel.cache.CatalogoPlanos;
+import com.br.inatel.cache.CoerenciaCaches;
+import com.br.inatel.cache.MembrosAtivos;
+import com.br.inatel.config.GerenciadorTransacao;
 import com.br.inatel.dao.AlunoDao;
 import com.br.inatel.dao.AssinaturaDao;
 import com.br.inatel.dao.PlanoDao;
 import com.br.inatel.model.Aluno;
 import com.br.inatel.model.Assinatura;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.model.Plano;
 import com.br.inatel.model.enums.AssinaturaStatus;
 import com.br.inatel.service.AssinaturaService;
@@ -15,17 +20,29 @@ import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 public class AssinaturaServiceImpl implements AssinaturaService {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+
     private final AssinaturaDao assinaturaDao;
     private final AlunoDao alunoDao;
     private final PlanoDao planoDao;
+    private final CatalogoPlanos catalogoPlanos;
+    private final MembrosAtivos membrosAtivos;
+    private final CoerenciaCaches coerencia;
+    private final GerenciadorTransacao tx;
 
-    public AssinaturaServiceImpl(AssinaturaDao assinaturaDao, AlunoDao alunoDao, PlanoDao planoDao) {
+    public AssinaturaServiceImpl(AssinaturaDao assinaturaDao, AlunoDao alunoDao, PlanoDao planoDao,
+                                 CatalogoPlanos catalogoPlanos, MembrosAtivos membrosAtivos, CoerenciaCaches coerencia, GerenciadorTransacao tx) {
         this.assinaturaDao = Objects.requireNonNull(assinaturaDao, "assinaturaDao não pode ser null");
         this.alunoDao = Objects.requireNonNull(alunoDao, "alunoDao não pode ser null");
         this.planoDao = Objects.requireNonNull(planoDao, "planoDao não pode ser null");
+        this.catalogoPlanos = Objects.requireNonNull(catalogoPlanos, "catalogoPlanos não pode ser null");
+        this.membrosAtivos = Objects.requireNonNull(membrosAtivos, "membrosAtivos não pode ser null");
+        this.coerencia = Objects.requireNonNull(coerencia, "coerencia não pode ser null");
+        this.tx = Objects.requireNonNull(tx, "tx não pode ser null");
     }
 
     // ========= CREATE =========
@@ -39,27 +56,34 @@ public class AssinaturaServiceImpl implements AssinaturaService {
         AssinaturaStatus status = AssinaturaStatus.ATIVA;
 
         try {
-            if (!alunoExiste(idAluno)) {
-                throw new NotFoundException("Aluno não encontrado: " + idAluno);
-            }
-            if (!planoExiste(idPlano)) {
-                throw new NotFoundException("Plano não encontrado: " + idPlano);
-            }
-
-            //  Evita mais de uma assinatura ATIVA por aluno:
-             if (!assinaturaDao.listarAtivasPorAluno(idAluno).isEmpty()) {
-                 throw new BusinessException("Já existe uma assinatura ATIVA para o aluno " + idAluno + ".");
-             }
-
-            Assinatura a = new Assinatura();
-            a.setAluno(refAluno(idAluno));
-            a.setPlano(refPlano(idPlano));
-            a.setDataInicio(dataInicio);
-            a.setDataFim(dataFim);
-            a.setStatus(status);
-
-            assinaturaDao.insert(a);
-            return a;
+            Assinatura criada = tx.executar(() -> {
+                // Bloqueia a linha do aluno: duas assinaturas simultâneas para ele passam a ser serializadas
+                if (!alunoDao.bloquearPorId(idAluno)) {
+                    throw new NotFoundException("Aluno não encontrado: " + idAluno);
+                }
+                if (!planoExiste(idPlano)) {
+                    throw new NotFoundException("Plano não encontrado: " + idPlano);
+                }
+
+                //  Evita mais de uma assinatura ATIVA por aluno:
+                if (!assinaturaDao.listarAtivasPorAluno(idAluno).isEmpty()) {
+                    throw new BusinessException("Já existe uma assinatura ATIVA para o aluno " + idAluno + ".");
+                }
+
+                Assinatura a = new Assinatura();
+                a.setAluno(refAluno(idAluno));
+                a.setPlano(refPlano(idPlano));
+                a.setDataInicio(dataInicio);
+                a.setDataFim(dataFim);
+                a.setStatus(status);
+
+                assinaturaDao.insert(a);
+                return a;
+            });
+            assinaturaDao.invalidarCache(criada.getId());
+            coerencia.publicar(CoerenciaCaches.ASSINATURA);
+            membrosAtivos.atualizarAluno(idAluno);
+            return criada;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao criar assinatura: " + e.getMessage());
         }
@@ -76,23 +100,30 @@ public class AssinaturaServiceImpl implements AssinaturaService {
         }
 
         try {
-            Assinatura existente = assinaturaDao.buscarPorId(id);
-            if (existente == null) {
-                throw new NotFoundException("Assinatura não encontrada: " + id);
-            }
-
-            existente.setDataInicio(dataInicio);
-            existente.setDataFim(dataFim);
-            existente.setStatus(status);
-
-            boolean ok = assinaturaDao.atualizar(existente);
-            if (!ok) {
-                throw new BusinessException("Atualização não aplicada (id=" + id + ").");
-            }
-
-            return existente;
+            Assinatura atualizada = tx.executar(() -> {
+                Assinatura existente = assinaturaDao.buscarPorId(id);
+                if (existente == null) {
+                    throw new NotFoundException("Assinatura não encontrada: " + id);
+                }
+
+                existente.setDataInicio(dataInicio);
+                existente.setDataFim(dataFim);
+                existente.setStatus(status);
+
+                boolean ok = assinaturaDao.atualizar(existente);
+                if (!ok) {
+                    throw new BusinessException("Atualização não aplicada (id=" + id + ").");
+                }
+
+                return existente;
+            });
+            coerencia.publicar(CoerenciaCaches.ASSINATURA);
+            membrosAtivos.atualizarAluno(atualizada.getAluno().getId());
+            return atualizada;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao atualizar assinatura: " + e.getMessage());
+        } finally {
+            assinaturaDao.invalidarCache(id);
         }
     }
 
@@ -100,39 +131,67 @@ public class AssinaturaServiceImpl implements AssinaturaService {
     @Override
     public List<Assinatura> listarTodas() {
         try {
-            return assinaturaDao.listarTodas();
+            return tx.executarLeitura(() -> assinaturaDao.listarTodas());
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar assinaturas: " + e.getMessage());
         }
     }
 
+    @Override
+    public Pagina<Assinatura> listarTodas(int tamanho, String cursor) {
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> assinaturaDao.listarTodas(tamanho, cursor));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar assinaturas: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
+    @Override
+    public long percorrerTodas(Consumer<Assinatura> consumidor) {
+        Objects.requireNonNull(consumidor, "consumidor não pode ser null");
+        try {
+            return tx.executarLeitura(() -> assinaturaDao.percorrerTodas(consumidor));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao percorrer assinaturas: " + e.getMessage());
+        }
+    }
+
     // ========= SOFT delete =========
     @Override
     public void excluir(long id) throws NotFoundException, BusinessException {
         validarIdPositivo(id, "id");
         try {
-            var atual = assinaturaDao.buscarPorId(id);
-            if (atual == null) {
-                throw new NotFoundException("Assinatura não encontrada: " + id);
-            }
-
-            AssinaturaStatus st = atual.getStatus();
-            if (st != AssinaturaStatus.ATIVA) {
-                String msg = switch (st) {
-                    case INATIVA   -> "Você não pode cancelar uma assinatura inativa.";
-                    case ATRASADA  -> "Você não pode cancelar uma assinatura atrasada.";
-                    case CANCELADA -> "Assinatura já está cancelada.";
-                    default        -> "Status inválido para cancelamento: " + st;
-                };
-                throw new BusinessException(msg);
-            }
-            int rows = assinaturaDao.softDelete(id);
-            if (rows == 0) {
-                throw new BusinessException("Não foi possível cancelar: a assinatura não está mais ativa.");
-            }
-
+            long idAluno = tx.executar(() -> {
+                var atual = assinaturaDao.buscarPorId(id);
+                if (atual == null) {
+                    throw new NotFoundException("Assinatura não encontrada: " + id);
+                }
+
+                AssinaturaStatus st = atual.getStatus();
+                if (st != AssinaturaStatus.ATIVA) {
+                    String msg = switch (st) {
+                        case INATIVA   -> "Você não pode cancelar uma assinatura inativa.";
+                        case ATRASADA  -> "Você não pode cancelar uma assinatura atrasada.";
+                        case CANCELADA -> "Assinatura já está cancelada.";
+                        default        -> "Status inválido para cancelamento: " + st;
+                    };
+                    throw new BusinessException(msg);
+                }
+                int rows = assinaturaDao.softDelete(id);
+                if (rows == 0) {
+                    throw new BusinessException("Não foi possível cancelar: a assinatura não está mais ativa.");
+                }
+                return atual.getAluno().getId();
+            });
+            coerencia.publicar(CoerenciaCaches.ASSINATURA);
+            membrosAtivos.atualizarAluno(idAluno);
         } catch (SQLException e) {
             throw new BusinessException("Falha ao cancelar assinatura: " + e.getMessage());
+        } finally {
+            assinaturaDao.invalidarCache(id);
         }
     }
 
@@ -143,15 +202,23 @@ public class AssinaturaServiceImpl implements AssinaturaService {
         if (novoStatus == null) throw new BusinessException("Status é obrigatório.");
 
         try {
-            if (!assinaturaDao.existePorId(id)) {
-                throw new NotFoundException("Assinatura não encontrada: " + id);
-            }
-            boolean ok = assinaturaDao.alterarStatus(id, novoStatus);
-            if (!ok) {
-                throw new BusinessException("Não foi possível alterar o status (id=" + id + ").");
-            }
+            long idAluno = tx.executar(() -> {
+                Assinatura atual = assinaturaDao.buscarPorId(id);
+                if (atual == null) {
+                    throw new NotFoundException("Assinatura não encontrada: " + id);
+                }
+                boolean ok = assinaturaDao.alterarStatus(id, novoStatus);
+                if (!ok) {
+                    throw new BusinessException("Não foi possível alterar o status (id=" + id + ").");
+                }
+                return atual.getAluno().getId();
+            });
+            coerencia.publicar(CoerenciaCaches.ASSINATURA);
+            membrosAtivos.atualizarAluno(idAluno);
         } catch (SQLException e) {
             throw new BusinessException("Falha ao alterar status: " + e.getMessage());
+        } finally {
+            assinaturaDao.invalidarCache(id);
         }
     }
 
@@ -161,30 +228,53 @@ public class AssinaturaServiceImpl implements AssinaturaService {
     public List<Assinatura> listarPorAluno(long idAluno) {
         validarIdPositivo(idAluno, "idAluno");
         try {
-            return assinaturaDao.listarPorAluno(idAluno);
+            return tx.executarLeitura(() -> assinaturaDao.listarPorAluno(idAluno));
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar assinaturas do aluno: " + e.getMessage());
         }
     }
 
+    @Override
+    public Pagina<Assinatura> listarPorAluno(long idAluno, int tamanho, String cursor) {
+        validarIdPositivo(idAluno, "idAluno");
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> assinaturaDao.listarPorAluno(idAluno, tamanho, cursor));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar assinaturas do aluno: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
 
     @Override
     public List<Assinatura> listarPorPlano(long idPlano) {
         validarIdPositivo(idPlano, "idPlano");
         try {
-            return assinaturaDao.listarPorPlano(idPlano);
+            return tx.executarLeitura(() -> assinaturaDao.listarPorPlano(idPlano));
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar assinaturas do plano: " + e.getMessage());
         }
     }
 
-    // ========= Helpers =========
-    private boolean alunoExiste(long idAluno) throws SQLException {
-        return alunoDao.existePorId(idAluno);
+    @Override
+    public Pagina<Assinatura> listarPorPlano(long idPlano, int tamanho, String cursor) {
+        validarIdPositivo(idPlano, "idPlano");
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> assinaturaDao.listarPorPlano(idPlano, tamanho, cursor));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar assinaturas do plano: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
     }
 
+    // ========= Helpers =========
+    // O catálogo responde sem ir ao banco; só um id desconhecido (plano recém-criado em outra instância) consulta a tabela
     private boolean planoExiste(long idPlano) throws SQLException {
-        return planoDao.existePorId(idPlano);
+        return catalogoPlanos.contem(idPlano) || planoDao.existePorId(idPlano);
     }
 
     private Aluno refAluno(long idAluno) {
@@ -199,6 +289,12 @@ public class AssinaturaServiceImpl implements AssinaturaService {
         return p;
     }
 
+    private void validarTamanhoPagina(int tamanho) {
+        if (tamanho <= 0 || tamanho > TAMANHO_MAXIMO_PAGINA) {
+            throw new BusinessException("Tamanho de página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA + ".");
+        }
+    }
+
     private void validarIdPositivo(long id, String campo) {
         if (id <= 0) throw new BusinessException(campo + " deve ser positivo.");
     }
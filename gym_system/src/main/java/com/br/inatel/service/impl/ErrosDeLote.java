@@ -0,0 +1,27 @@
+package com.br.inatel.service.impl;
+
+import com.br.inatel.service.exception.BusinessException;
+
+import java.util.List;
+
+/** Rejeição de operações em lote: junta os problemas de cada item numa única BusinessException. */
+final class ErrosDeLote {
+
+    private static final int MAXIMO_LISTADO = 10;
+
+    private ErrosDeLote() {
+    }
+
+    static void lancarSeHouver(List<String> erros) {
+        lancarSeHouver(erros, "Lote rejeitado");
+    }
+
+    /** Lança com os primeiros {@value #MAXIMO_LISTADO} erros e a contagem do restante; não faz nada se a lista estiver vazia. */
+    static void lancarSeHouver(List<String> erros, String titulo) {
+        if (erros.isEmpty()) return;
+        int max = Math.min(erros.size(), MAXIMO_LISTADO);
+        String resumo = String.join("; ", erros.subList(0, max));
+        if (erros.size() > max) resumo += "; ... (+" + (erros.size() - max) + ")";
+        throw new BusinessException(titulo + " (" + erros.size() + " problema(s)): " + resumo);
+    }
+}
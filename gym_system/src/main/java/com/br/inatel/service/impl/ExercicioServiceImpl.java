@@ -1,5 +1,8 @@
 package com.br.inatel.service.impl;
 
+import com.br.inatel.busca.BuscaExercicios;
+import com.br.inatel.cache.CoerenciaCaches;
+import com.br.inatel.config.GerenciadorTransacao;
 import com.br.inatel.dao.ExercicioDao;
 import com.br.inatel.model.Exercicio;
 import com.br.inatel.service.ExercicioService;
@@ -14,9 +17,15 @@ import java.util.Objects;
 public class ExercicioServiceImpl implements ExercicioService {
 
     private final ExercicioDao dao;
+    private final BuscaExercicios busca;
+    private final CoerenciaCaches coerencia;
+    private final GerenciadorTransacao tx;
 
-    public ExercicioServiceImpl(ExercicioDao dao) {
+    public ExercicioServiceImpl(ExercicioDao dao, BuscaExercicios busca, CoerenciaCaches coerencia, GerenciadorTransacao tx) {
         this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+        this.busca = Objects.requireNonNull(busca, "busca não pode ser null");
+        this.coerencia = Objects.requireNonNull(coerencia, "coerencia não pode ser null");
+        this.tx = Objects.requireNonNull(tx, "tx não pode ser null");
     }
 
     // CREATE
@@ -31,6 +40,9 @@ public class ExercicioServiceImpl implements ExercicioService {
 
         try {
             dao.insert(e);
+            dao.invalidarCache(e.getId());
+            coerencia.publicar(CoerenciaCaches.EXERCICIO);
+            busca.registrar(e);
             return e;
         } catch (SQLException ex) {
             throw new BusinessException("Falha ao criar exercício: " + ex.getMessage());
@@ -42,25 +54,32 @@ public class ExercicioServiceImpl implements ExercicioService {
     public Exercicio atualizar(long id, String nome, String grupoMuscular)
             throws NotFoundException, BusinessException {
         validarIdPositivo(id);
-        nome = validarNome(nome);
-        grupoMuscular = validarGrupo(grupoMuscular);
+        String nomeValidado = validarNome(nome);
+        String grupoValidado = validarGrupo(grupoMuscular);
 
         try {
-            Exercicio existente = dao.buscarPorId(id);
-            if (existente == null) {
-                throw new NotFoundException("Exercício não encontrado: " + id);
-            }
-
-            existente.setNome(nome);
-            existente.setGrupoMuscular(grupoMuscular);
-
-            boolean ok = dao.atualizar(existente);
-            if (!ok) {
-                throw new BusinessException("Atualização não aplicada (id=" + id + ").");
-            }
-            return existente;
+            Exercicio atualizado = tx.executar(() -> {
+                Exercicio existente = dao.buscarPorId(id);
+                if (existente == null) {
+                    throw new NotFoundException("Exercício não encontrado: " + id);
+                }
+
+                existente.setNome(nomeValidado);
+                existente.setGrupoMuscular(grupoValidado);
+
+                boolean ok = dao.atualizar(existente);
+                if (!ok) {
+                    throw new BusinessException("Atualização não aplicada (id=" + id + ").");
+                }
+                return existente;
+            });
+            coerencia.publicar(CoerenciaCaches.EXERCICIO);
+            busca.registrar(atualizado);
+            return atualizado;
         } catch (SQLException ex) {
             throw new BusinessException("Falha ao atualizar exercício: " + ex.getMessage());
+        } finally {
+            dao.invalidarCache(id);
         }
     }
 
@@ -69,9 +88,11 @@ public class ExercicioServiceImpl implements ExercicioService {
     public Exercicio buscarPorId(long id) throws NotFoundException {
         validarIdPositivo(id);
         try {
-            Exercicio e = dao.buscarPorId(id);
-            if (e == null) throw new NotFoundException("Exercício não encontrado: " + id);
-            return e;
+            return tx.executarLeitura(() -> {
+                Exercicio e = dao.buscarPorId(id);
+                if (e == null) throw new NotFoundException("Exercício não encontrado: " + id);
+                return e;
+            });
         } catch (SQLException ex) {
             throw new BusinessException("Falha ao buscar exercício: " + ex.getMessage());
         }
@@ -80,7 +101,7 @@ public class ExercicioServiceImpl implements ExercicioService {
     @Override
     public List<Exercicio> listarTodos() {
         try {
-            return dao.listarTodos();
+            return tx.executarLeitura(() -> dao.listarTodos());
         } catch (SQLException ex) {
             throw new BusinessException("Falha ao listar exercícios: " + ex.getMessage());
         }
@@ -91,13 +112,19 @@ public class ExercicioServiceImpl implements ExercicioService {
     public void excluir(long id) throws NotFoundException, BusinessException {
         validarIdPositivo(id);
         try {
-            if (!dao.existePorId(id)) {
-                throw new NotFoundException("Exercício não encontrado: " + id);
-            }
-            boolean ok = dao.deletarPorId(id);
-            if (!ok) throw new BusinessException("Exclusão não aplicada (id=" + id + ").");
+            tx.executarSemRetorno(() -> {
+                if (!dao.existePorId(id)) {
+                    throw new NotFoundException("Exercício não encontrado: " + id);
+                }
+                boolean ok = dao.deletarPorId(id);
+                if (!ok) throw new BusinessException("Exclusão não aplicada (id=" + id + ").");
+            });
+            coerencia.publicar(CoerenciaCaches.EXERCICIO);
+            busca.remover(id);
         } catch (SQLException ex) {
             throw new BusinessException("Falha ao excluir exercício: " + ex.getMessage());
+        } finally {
+            dao.invalidarCache(id);
         }
     }
 
@@ -117,7 +144,7 @@ public class ExercicioServiceImpl implements ExercicioService {
     public List<Exercicio> buscarPorNome(String termo) {
         if (termo == null || termo.isBlank()) return Collections.emptyList();
         try {
-            return dao.buscarPorNome(termo.trim());
+            return tx.executarLeitura(() -> busca.buscarPorNome(termo));
         } catch (SQLException ex) {
             throw new BusinessException("Falha ao buscar por nome: " + ex.getMessage());
         }
@@ -127,7 +154,7 @@ public class ExercicioServiceImpl implements ExercicioService {
     public List<Exercicio> buscarPorGrupoMuscular(String grupo) {
         if (grupo == null || grupo.isBlank()) return Collections.emptyList();
         try {
-            return dao.buscarPorGrupoMuscular(grupo.trim());
+            return tx.executarLeitura(() -> busca.buscarPorGrupoMuscular(grupo));
         } catch (SQLException ex) {
             throw new BusinessException("Falha ao buscar por grupo muscular: " + ex.getMessage());
         }
@@ -1,53 +1,165 @@
 package com.br.inatel.service.impl;
 
+import com.br.inatel.analise.AnaliseFrequencia;
+import com.br.inatel.cache.CheckinsDoDia;
+import com.br.inatel.cache.MembrosAtivos;
+import com.br.inatel.cache.OcupacaoAcademia;
+import com.br.inatel.config.Configuracao;
+import com.br.inatel.config.GerenciadorTransacao;
 import com.br.inatel.dao.AlunoDao;
 import com.br.inatel.dao.FrequenciaDao;
+import com.br.inatel.dao.ResumoFrequenciaDao;
 import com.br.inatel.model.Aluno;
+import com.br.inatel.model.CurvaRetencao;
 import com.br.inatel.model.Frequencia;
+import com.br.inatel.model.IndicadoresAluno;
+import com.br.inatel.model.OcupacaoDoDia;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.service.FrequenciaService;
 import com.br.inatel.service.exception.BusinessException;
 import com.br.inatel.service.exception.NotFoundException;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 public class FrequenciaServiceImpl implements FrequenciaService {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+
     private final FrequenciaDao dao;
+    private final ResumoFrequenciaDao resumoDao;
     private final AlunoDao alunoDao;
+    private final MembrosAtivos membrosAtivos;
+    private final CheckinsDoDia checkinsDoDia;
+    private final IngestaoCheckins ingestao;
+    private final AnaliseFrequencia analise;
+    private final OcupacaoAcademia ocupacao;
+    private final GerenciadorTransacao tx;
 
-    public FrequenciaServiceImpl(FrequenciaDao dao, AlunoDao alunoDao) {
+    public FrequenciaServiceImpl(FrequenciaDao dao, ResumoFrequenciaDao resumoDao, AlunoDao alunoDao, MembrosAtivos membrosAtivos,
+                                 CheckinsDoDia checkinsDoDia, IngestaoCheckins ingestao, AnaliseFrequencia analise,
+                                 OcupacaoAcademia ocupacao, GerenciadorTransacao tx) {
         this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+        this.resumoDao = Objects.requireNonNull(resumoDao, "resumoDao não pode ser null");
         this.alunoDao = Objects.requireNonNull(alunoDao, "alunoDao não pode ser null");
+        this.membrosAtivos = Objects.requireNonNull(membrosAtivos, "membrosAtivos não pode ser null");
+        this.checkinsDoDia = Objects.requireNonNull(checkinsDoDia, "checkinsDoDia não pode ser null");
+        this.ingestao = Objects.requireNonNull(ingestao, "ingestao não pode ser null");
+        this.analise = Objects.requireNonNull(analise, "analise não pode ser null");
+        this.ocupacao = Objects.requireNonNull(ocupacao, "ocupacao não pode ser null");
+        this.tx = Objects.requireNonNull(tx, "tx não pode ser null");
     }
 
     // ===== CREATE =====
     @Override
     public Frequencia registrarCheckin(long idAluno, LocalDate data) throws BusinessException {
-        validarIdPositivo(idAluno);
-        LocalDate dia = validarData(data);
+        LocalDate dia = validarCheckin(idAluno, data);
+        return ingestao.registrar(idAluno, dia);
+    }
 
+    @Override
+    public CompletableFuture<Frequencia> registrarCheckinAssincrono(long idAluno, LocalDate data) {
+        LocalDate dia;
         try {
-            // Um check-in por dia por aluno
-            if (dao.existeCheckinNoDia(idAluno, dia)) {
-                throw new BusinessException("Já existe check-in para o aluno " + idAluno + " em " + dia + ".");
-            }
-            if (!alunoDao.existePorId(idAluno)) {
-                throw new NotFoundException("Aluno não encontrado: " + idAluno);
+            dia = validarCheckin(idAluno, data);
+        } catch (BusinessException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return ingestao.enfileirar(idAluno, dia);
+    }
+
+    @Override
+    public List<Frequencia> registrarCheckinsEmLote(List<Frequencia> checkins) throws BusinessException {
+        if (checkins == null || checkins.isEmpty()) throw new BusinessException("Lote de check-ins vazio.");
+
+        // Valida o lote inteiro antes de tocar no banco
+        List<String> erros = new ArrayList<>();
+        Set<String> vistos = new HashSet<>();
+        Set<Long> idsAluno = new HashSet<>();
+        LocalDate inicio = null, fim = null;
+        for (int i = 0; i < checkins.size(); i++) {
+            Frequencia f = checkins.get(i);
+            try {
+                if (f == null || f.getAluno() == null) throw new BusinessException("Aluno é obrigatório.");
+                validarIdPositivo(f.getAluno().getId());
+                LocalDate dia = validarData(f.getDataCheckin());
+                validarHorarios(f, dia);
+                if (!vistos.add(f.getAluno().getId() + "@" + dia)) {
+                    throw new BusinessException("Check-in repetido no lote para o aluno " + f.getAluno().getId() + " em " + dia + ".");
+                }
+                idsAluno.add(f.getAluno().getId());
+                if (inicio == null || dia.isBefore(inicio)) inicio = dia;
+                if (fim == null || dia.isAfter(fim)) fim = dia;
+            } catch (BusinessException e) {
+                erros.add("item " + (i + 1) + ": " + e.getMessage());
             }
+        }
+        ErrosDeLote.lancarSeHouver(erros);
+
+        LocalDate primeiroDia = inicio, ultimoDia = fim;
+        try {
+            List<Frequencia> gravados = tx.executar(() -> {
+                Set<Long> existentes = alunoDao.filtrarExistentes(idsAluno);
+                Map<Long, Set<LocalDate>> jaRegistrados = dao.diasComCheckin(idsAluno, primeiroDia, ultimoDia);
+
+                List<String> conflitos = new ArrayList<>();
+                for (int i = 0; i < checkins.size(); i++) {
+                    long idAluno = checkins.get(i).getAluno().getId();
+                    LocalDate dia = checkins.get(i).getDataCheckin();
+                    if (!existentes.contains(idAluno)) {
+                        conflitos.add("item " + (i + 1) + ": Aluno não encontrado: " + idAluno);
+                    } else if (jaRegistrados.getOrDefault(idAluno, Set.of()).contains(dia)) {
+                        conflitos.add("item " + (i + 1) + ": Já existe check-in para o aluno " + idAluno + " em " + dia + ".");
+                    }
+                }
+                ErrosDeLote.lancarSeHouver(conflitos);
 
-            Frequencia f = new Frequencia();
-            Aluno a = new Aluno();
-            a.setId(idAluno);
-            f.setAluno(a);
-            f.setDataCheckin(dia);
+                dao.insertBatch(checkins);
+                resumoDao.somar(checkins, 1);
+                return checkins;
+            });
+            for (Frequencia f : gravados) {
+                checkinsDoDia.marcar(f.getAluno().getId(), f.getDataCheckin());
+                analise.registrar(f.getAluno().getId(), f.getDataCheckin());
+                if (f.getEntrada() != null) ocupacao.entrada(f.getEntrada());
+                if (f.getSaida() != null) ocupacao.saida(f.getEntrada(), f.getSaida());
+            }
+            return gravados;
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao registrar check-ins em lote: " + e.getMessage());
+        }
+    }
 
-            dao.insert(f);
-            return f;
+    @Override
+    public void registrarSaida(long idAluno) throws BusinessException {
+        validarIdPositivo(idAluno);
+        LocalDateTime agora = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        try {
+            Frequencia checkin = tx.executar(() -> {
+                // Entrada de hoje ou de ontem (saída depois da meia-noite); mais antiga que isso ficou esquecida
+                Frequencia f = dao.buscarUltimoCheckinPorAluno(idAluno);
+                if (f == null || f.getEntrada() == null || f.getDataCheckin().isBefore(agora.toLocalDate().minusDays(1))) return null;
+                return dao.registrarSaida(idAluno, f.getDataCheckin(), agora) ? f : null;
+            });
+            if (checkin == null) throw new BusinessException("Nenhuma entrada em aberto para o aluno " + idAluno + ".");
+            ocupacao.saida(checkin.getEntrada(), agora);
         } catch (SQLException e) {
-            throw new BusinessException("Falha ao registrar check-in: " + e.getMessage());
+            throw new BusinessException("Falha ao registrar saída: " + e.getMessage());
         }
     }
 
@@ -59,31 +171,58 @@ public class FrequenciaServiceImpl implements FrequenciaService {
         validarIdPositivo(idAluno);
         LocalDate dia = validarData(data);
 
+        long[] alunoAnterior = {0};
+        LocalDateTime[] horarioApagado = new LocalDateTime[2]; // entrada e saída do dia antigo
         try {
-            Frequencia existente = dao.buscarPorId(id);
-            if (existente == null) {
-                throw new NotFoundException("Frequência não encontrada: " + id);
-            }
+            Frequencia atualizada = tx.executar(() -> {
+                Frequencia existente = dao.buscarPorId(id);
+                if (existente == null) {
+                    throw new NotFoundException("Frequência não encontrada: " + id);
+                }
+                alunoAnterior[0] = existente.getAluno() != null ? existente.getAluno().getId() : 0;
 
-            boolean dataMudou = existente.getDataCheckin() == null || !existente.getDataCheckin().equals(dia);
-            boolean alunoMudou = existente.getAluno() == null || existente.getAluno().getId() != idAluno;
+                boolean dataMudou = existente.getDataCheckin() == null || !existente.getDataCheckin().equals(dia);
+                boolean alunoMudou = existente.getAluno() == null || existente.getAluno().getId() != idAluno;
+                List<Frequencia> anterior = existente.getAluno() != null && existente.getDataCheckin() != null
+                        ? List.of(copiar(existente)) : List.of();
 
-            if (dataMudou || alunoMudou) {
-                if (dao.existeCheckinNoDia(idAluno, dia)) {
-                    throw new BusinessException("Já existe check-in para o aluno " + idAluno + " em " + dia + ".");
+                if (dataMudou || alunoMudou) {
+                    if (checkinsDoDia.jaRegistrado(idAluno, dia) || dao.existeCheckinNoDia(idAluno, dia)) {
+                        throw new BusinessException("Já existe check-in para o aluno " + idAluno + " em " + dia + ".");
+                    }
+                    // Desmarcar antes do commit é seguro: no pior caso o próximo check-in vai até a uk do banco
+                    if (existente.getAluno() != null && existente.getDataCheckin() != null) {
+                        checkinsDoDia.desmarcar(existente.getAluno().getId(), existente.getDataCheckin());
+                    }
                 }
-            }
 
-            Aluno a = new Aluno();
-            a.setId(idAluno);
-            existente.setAluno(a);
-            existente.setDataCheckin(dia);
+                Aluno a = new Aluno();
+                a.setId(idAluno);
+                existente.setAluno(a);
+                existente.setDataCheckin(dia);
+                if (dataMudou) {
+                    // Os horários eram do dia antigo
+                    horarioApagado[0] = existente.getEntrada();
+                    horarioApagado[1] = existente.getSaida();
+                    existente.setEntrada(null);
+                    existente.setSaida(null);
+                }
 
-            boolean ok = dao.atualizar(existente);
-            if (!ok) {
-                throw new BusinessException("Atualização não aplicada (id=" + id + ").");
-            }
-            return existente;
+                boolean ok = dao.atualizar(existente);
+                if (!ok) {
+                    throw new BusinessException("Atualização não aplicada (id=" + id + ").");
+                }
+                if (dataMudou || alunoMudou) {
+                    resumoDao.somar(anterior, -1);
+                    resumoDao.somar(List.of(existente), 1);
+                }
+                return existente;
+            });
+            checkinsDoDia.marcar(idAluno, dia);
+            if (horarioApagado[0] != null) ocupacao.cancelarEntrada(horarioApagado[0], horarioApagado[1]);
+            analise.recalcular(idAluno);
+            if (alunoAnterior[0] > 0 && alunoAnterior[0] != idAluno) analise.recalcular(alunoAnterior[0]);
+            return atualizada;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao atualizar frequência: " + e.getMessage());
         }
@@ -93,24 +232,59 @@ public class FrequenciaServiceImpl implements FrequenciaService {
     @Override
     public List<Frequencia> listarTodas() {
         try {
-            return dao.listarTodas();
+            return tx.executarLeitura(() -> dao.listarTodas());
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar frequências: " + e.getMessage());
         }
     }
 
+    @Override
+    public Pagina<Frequencia> listarTodas(int tamanho, String cursor) {
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> dao.listarTodas(tamanho, cursor));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar frequências: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
+    @Override
+    public long percorrerTodas(Consumer<Frequencia> consumidor) {
+        Objects.requireNonNull(consumidor, "consumidor não pode ser null");
+        try {
+            return tx.executarLeitura(() -> dao.percorrerTodas(consumidor));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao percorrer frequências: " + e.getMessage());
+        }
+    }
+
 
     // ===== CONSULTAS =====
     @Override
     public List<Frequencia> listarPorAluno(long idAluno) {
         validarIdPositivo(idAluno);
         try {
-            return dao.listarPorAluno(idAluno);
+            return tx.executarLeitura(() -> dao.listarPorAluno(idAluno));
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar frequências do aluno: " + e.getMessage());
         }
     }
 
+    @Override
+    public Pagina<Frequencia> listarPorAluno(long idAluno, int tamanho, String cursor) {
+        validarIdPositivo(idAluno);
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> dao.listarPorAluno(idAluno, tamanho, cursor));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar frequências do aluno: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
     @Override
     public List<Frequencia> listarPorPeriodo(LocalDate inicio, LocalDate fim) {
         if (inicio == null || fim == null) {
@@ -120,9 +294,27 @@ public class FrequenciaServiceImpl implements FrequenciaService {
             throw new BusinessException("Data final não pode ser anterior à data inicial.");
         }
         try {
-            return dao.listarPorPeriodo(inicio, fim);
+            return tx.executarLeitura(() -> dao.listarPorPeriodo(inicio, fim));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar por período: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Pagina<Frequencia> listarPorPeriodo(LocalDate inicio, LocalDate fim, int tamanho, String cursor) {
+        if (inicio == null || fim == null) {
+            throw new BusinessException("Datas de início e fim são obrigatórias.");
+        }
+        if (fim.isBefore(inicio)) {
+            throw new BusinessException("Data final não pode ser anterior à data inicial.");
+        }
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> dao.listarPorPeriodo(inicio, fim, tamanho, cursor));
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar por período: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
         }
     }
 
@@ -130,17 +322,162 @@ public class FrequenciaServiceImpl implements FrequenciaService {
     public Frequencia buscarUltimoCheckinPorAluno(long idAluno) {
         validarIdPositivo(idAluno);
         try {
-            return dao.buscarUltimoCheckinPorAluno(idAluno);
+            return tx.executarLeitura(() -> dao.buscarUltimoCheckinPorAluno(idAluno));
         } catch (SQLException e) {
             throw new BusinessException("Falha ao buscar último check-in: " + e.getMessage());
         }
     }
 
+    // ===== RESUMOS =====
+    @Override
+    public Map<YearMonth, Integer> frequenciaMensal(long idAluno, YearMonth inicio, YearMonth fim) {
+        validarIdPositivo(idAluno);
+        if (inicio == null || fim == null) throw new BusinessException("Meses de início e fim são obrigatórios.");
+        if (fim.isBefore(inicio)) throw new BusinessException("Mês final não pode ser anterior ao inicial.");
+        try {
+            return tx.executarLeitura(() -> resumoDao.totaisMensaisDoAluno(idAluno, inicio, fim));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao consultar frequência mensal: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<LocalDate, Integer> movimentoDiario(LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null) throw new BusinessException("Datas de início e fim são obrigatórias.");
+        if (fim.isBefore(inicio)) throw new BusinessException("Data final não pode ser anterior à data inicial.");
+        try {
+            return tx.executarLeitura(() -> resumoDao.totaisDiarios(inicio, fim));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao consultar movimento diário: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Refaz os resumos de todo o histórico, um mês por transação, com até {@code gym.resumo.paralelismo}
+     * meses (padrão 4) em paralelo. Cada mês roda em REPEATABLE READ: os DELETEs deixam travas de intervalo
+     * sobre as linhas do mês, então o primeiro check-in de um aluno nesse mês espera o fim da transação em vez
+     * de inserir a linha que o INSERT ... SELECT da reconstrução também vai gravar.
+     */
+    @Override
+    public int reconstruirResumos() {
+        List<YearMonth> meses;
+        try {
+            meses = resumoDao.mesesComDados();
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar meses para reconstrução: " + e.getMessage());
+        }
+
+        int paralelismo = Math.max(1, Configuracao.inteiro("gym.resumo.paralelismo", 4));
+        List<String> falhas = Collections.synchronizedList(new ArrayList<>());
+        try (ExecutorService executor = Executors.newFixedThreadPool(paralelismo,
+                Thread.ofVirtual().name("resumo-frequencia-", 0).factory())) {
+            for (YearMonth mes : meses) {
+                executor.execute(() -> {
+                    try {
+                        tx.executarSemRetorno(Connection.TRANSACTION_REPEATABLE_READ, () -> resumoDao.reconstruirMes(mes));
+                    } catch (SQLException | RuntimeException e) {
+                        falhas.add(mes + ": " + e.getMessage());
+                    }
+                });
+            }
+        }
+        ErrosDeLote.lancarSeHouver(falhas, "Reconstrução incompleta");
+        return meses.size();
+    }
+
+    // ===== ANÁLISE =====
+    @Override
+    public IndicadoresAluno indicadoresDoAluno(long idAluno) throws NotFoundException {
+        validarIdPositivo(idAluno);
+        try {
+            if (alunoDao.buscarPorId(idAluno) == null) throw new NotFoundException("Aluno não encontrado: " + idAluno);
+            return analise.indicadores(idAluno, LocalDate.now());
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao calcular indicadores do aluno: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<CurvaRetencao> retencaoPorCoorte(int meses) {
+        if (meses <= 0 || meses > AnaliseFrequencia.MESES_RASTREADOS) {
+            throw new BusinessException("Meses deve estar entre 1 e " + AnaliseFrequencia.MESES_RASTREADOS + ".");
+        }
+        try {
+            return analise.retencaoPorCoorte(meses, YearMonth.now());
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao calcular retenção por coorte: " + e.getMessage());
+        }
+    }
+
+    // ===== OCUPAÇÃO =====
+    @Override
+    public int presentesAgora() {
+        return ocupacao.presentes();
+    }
+
+    @Override
+    public OcupacaoDoDia ocupacaoDoDia() {
+        return ocupacao.doDia();
+    }
+
+    // ===== ACESSO =====
+    @Override
+    public boolean acessoLiberado(long idAluno) {
+        validarIdPositivo(idAluno);
+        try {
+            return membrosAtivos.liberado(idAluno);
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao verificar acesso: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long contarMembrosAtivos() {
+        try {
+            return membrosAtivos.contar();
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao contar membros ativos: " + e.getMessage());
+        }
+    }
+
     // ===== validações =====
+    private void validarTamanhoPagina(int tamanho) {
+        if (tamanho <= 0 || tamanho > TAMANHO_MAXIMO_PAGINA) {
+            throw new BusinessException("Tamanho de página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA + ".");
+        }
+    }
+
+    private LocalDate validarCheckin(long idAluno, LocalDate data) {
+        validarIdPositivo(idAluno);
+        LocalDate dia = validarData(data);
+        // Passada repetida do cartão: recusada sem ir ao banco
+        if (checkinsDoDia.jaRegistrado(idAluno, dia)) throw IngestaoCheckins.repetido(idAluno, dia);
+        return dia;
+    }
+
+    private void validarHorarios(Frequencia f, LocalDate dia) {
+        if (f.getEntrada() != null && !f.getEntrada().toLocalDate().equals(dia)) {
+            throw new BusinessException("Entrada deve ser no dia do check-in.");
+        }
+        if (f.getSaida() != null && (f.getEntrada() == null || f.getSaida().isBefore(f.getEntrada()))) {
+            throw new BusinessException("Saída exige entrada e não pode ser anterior a ela.");
+        }
+    }
+
     private void validarIdPositivo(long id) {
         if (id <= 0) throw new BusinessException("Id deve ser positivo.");
     }
 
+    private static Frequencia copiar(Frequencia f) {
+        Frequencia c = new Frequencia();
+        c.setId(f.getId());
+        Aluno a = new Aluno();
+        a.setId(f.getAluno().getId());
+        c.setAluno(a);
+        c.setDataCheckin(f.getDataCheckin());
+        return c;
+    }
+
     private LocalDate validarData(LocalDate data) {
         if (data == null) throw new BusinessException("Data é obrigatória.");
         if (data.isAfter(LocalDate.now())) throw new BusinessException("Data de check-in não pode ser no futuro.");
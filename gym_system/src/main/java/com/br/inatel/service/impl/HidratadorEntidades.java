@@ -0,0 +1,74 @@
+package com.br.inatel.service.impl;
+
+import com.br.inatel.dao.AlunoDao;
+import com.br.inatel.dao.AssinaturaDao;
+import com.br.inatel.dao.InstrutorDao;
+import com.br.inatel.model.Aluno;
+import com.br.inatel.model.Assinatura;
+import com.br.inatel.model.Instrutor;
+import com.br.inatel.model.Pagamento;
+import com.br.inatel.model.Treino;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Completa as referências "só com id" que os DAOs devolvem (Treino → Aluno/Instrutor,
+ * Pagamento → Assinatura) com uma consulta por tipo de entidade para a lista inteira,
+ * em vez de um buscarPorId por linha.
+ */
+public class HidratadorEntidades {
+
+    @FunctionalInterface
+    interface BuscaPorIds<E> {
+        Map<Long, E> buscar(Collection<Long> ids) throws SQLException;
+    }
+
+    private final AlunoDao alunoDao;
+    private final InstrutorDao instrutorDao;
+    private final AssinaturaDao assinaturaDao;
+
+    public HidratadorEntidades(AlunoDao alunoDao, InstrutorDao instrutorDao, AssinaturaDao assinaturaDao) {
+        this.alunoDao = Objects.requireNonNull(alunoDao, "alunoDao não pode ser null");
+        this.instrutorDao = Objects.requireNonNull(instrutorDao, "instrutorDao não pode ser null");
+        this.assinaturaDao = Objects.requireNonNull(assinaturaDao, "assinaturaDao não pode ser null");
+    }
+
+    public void hidratarTreinos(Collection<Treino> treinos) throws SQLException {
+        preencher(treinos, Treino::getAluno, Aluno::getId, alunoDao::buscarPorIds, Treino::setAluno);
+        preencher(treinos, Treino::getInstrutor, Instrutor::getId, instrutorDao::buscarPorIds, Treino::setInstrutor);
+    }
+
+    /** A assinatura carregada já traz nome do aluno e do plano. */
+    public void hidratarPagamentos(Collection<Pagamento> pagamentos) throws SQLException {
+        preencher(pagamentos, Pagamento::getAssinatura, Assinatura::getId, assinaturaDao::buscarPorIds,
+                Pagamento::setAssinatura);
+    }
+
+    // Ids que não existirem mais ficam com o stub original
+    private static <T, E> void preencher(Collection<T> itens, Function<T, E> referencia, Function<E, Long> id,
+                                         BuscaPorIds<E> busca, BiConsumer<T, E> atribuir) throws SQLException {
+        if (itens == null || itens.isEmpty()) return;
+
+        Set<Long> ids = new HashSet<>();
+        for (T item : itens) {
+            E ref = referencia.apply(item);
+            if (ref != null) ids.add(id.apply(ref));
+        }
+        if (ids.isEmpty()) return;
+
+        Map<Long, E> carregados = busca.buscar(ids);
+        for (T item : itens) {
+            E ref = referencia.apply(item);
+            if (ref == null) continue;
+            E completo = carregados.get(id.apply(ref));
+            if (completo != null) atribuir.accept(item, completo);
+        }
+    }
+}
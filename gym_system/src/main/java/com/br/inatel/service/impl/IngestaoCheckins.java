@@ -0,0 +1,315 @@
+package com.br.inatel.service.impl;
+
+import com.br.inatel.analise.AnaliseFrequencia;
+import com.br.inatel.cache.CheckinsDoDia;
+import com.br.inatel.cache.OcupacaoAcademia;
+import com.br.inatel.config.Configuracao;
+import com.br.inatel.config.GerenciadorTransacao;
+import com.br.inatel.dao.AlunoDao;
+import com.br.inatel.dao.ErrosSql;
+import com.br.inatel.dao.FrequenciaDao;
+import com.br.inatel.dao.ResumoFrequenciaDao;
+import com.br.inatel.model.Aluno;
+import com.br.inatel.model.Frequencia;
+import com.br.inatel.service.exception.BusinessException;
+import com.br.inatel.service.exception.NotFoundException;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gravação de check-ins da catraca. {@link #registrar} grava um check-in na hora (uma transação por
+ * check-in); {@link #enfileirar} coloca o pedido numa fila limitada e uma thread gravadora junta os
+ * pedidos em lotes, com uma transação e um INSERT em lote por lote. Os resumos de frequência
+ * ({@link ResumoFrequenciaDao}) são atualizados na mesma transação do INSERT. Check-ins de hoje gravam a
+ * hora da passada (a do pedido, não a do INSERT) como entrada.
+ *
+ * <ul>
+ *     <li>Um lote fecha com {@code gym.ingestao.loteMaximo} pedidos (padrão 100) ou quando o primeiro
+ *     pedido espera {@code gym.ingestao.esperaLoteMs} (padrão 5).</li>
+ *     <li>A fila guarda {@code gym.ingestao.capacidade} pedidos (padrão 1000). Cheia, quem enfileira espera
+ *     até {@code gym.ingestao.esperaFilaMs} (padrão 2000) e depois recebe erro: a catraca segura a rajada
+ *     em vez de acumular memória.</li>
+ *     <li>Cada pedido tem o próprio future, com o mesmo resultado de {@link #registrar}: o check-in gravado,
+ *     {@link NotFoundException} para aluno inexistente ou {@link BusinessException} para check-in repetido.</li>
+ *     <li>Se o lote falhar no banco (por exemplo, um check-in gravado por outra instância entre a conferência
+ *     e o INSERT), os pedidos dele são gravados um a um, cada um com o seu resultado.</li>
+ * </ul>
+ */
+public class IngestaoCheckins {
+
+    private record Pedido(long idAluno, LocalDate dia, LocalDateTime entrada, long enfileiradoEm,
+                          CompletableFuture<Frequencia> resultado) {
+    }
+
+    /** Contadores desde o início (lotes gravados, check-ins gravados, pedidos recusados). */
+    public record Estatisticas(long lotes, long gravados, long recusados, int naFila) {
+        public double mediaPorLote() {
+            return lotes == 0 ? 0 : (double) gravados / lotes;
+        }
+    }
+
+    private final FrequenciaDao dao;
+    private final ResumoFrequenciaDao resumoDao;
+    private final AlunoDao alunoDao;
+    private final CheckinsDoDia checkinsDoDia;
+    private final AnaliseFrequencia analise;
+    private final OcupacaoAcademia ocupacao;
+    private final GerenciadorTransacao tx;
+
+    private final BlockingQueue<Pedido> fila;
+    private final int loteMaximo;
+    private final long esperaLoteNanos;
+    private final long esperaFilaMs;
+    private Thread gravador;
+    private volatile boolean encerrada;
+
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong gravados = new AtomicLong();
+    private final AtomicLong recusados = new AtomicLong();
+
+    public IngestaoCheckins(FrequenciaDao dao, ResumoFrequenciaDao resumoDao, AlunoDao alunoDao,
+                            CheckinsDoDia checkinsDoDia, AnaliseFrequencia analise, OcupacaoAcademia ocupacao,
+                            GerenciadorTransacao tx) {
+        this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+        this.resumoDao = Objects.requireNonNull(resumoDao, "resumoDao não pode ser null");
+        this.alunoDao = Objects.requireNonNull(alunoDao, "alunoDao não pode ser null");
+        this.checkinsDoDia = Objects.requireNonNull(checkinsDoDia, "checkinsDoDia não pode ser null");
+        this.analise = Objects.requireNonNull(analise, "analise não pode ser null");
+        this.ocupacao = Objects.requireNonNull(ocupacao, "ocupacao não pode ser null");
+        this.tx = Objects.requireNonNull(tx, "tx não pode ser null");
+
+        this.fila = new ArrayBlockingQueue<>(Math.max(1, Configuracao.inteiro("gym.ingestao.capacidade", 1000)));
+        this.loteMaximo = Math.max(1, Configuracao.inteiro("gym.ingestao.loteMaximo", 100));
+        this.esperaLoteNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, Configuracao.longo("gym.ingestao.esperaLoteMs", 5)));
+        this.esperaFilaMs = Math.max(0, Configuracao.longo("gym.ingestao.esperaFilaMs", 2000));
+    }
+
+    public synchronized void iniciar() {
+        if (gravador != null) return;
+        gravador = new Thread(this::gravarContinuamente, "ingestao-checkins");
+        gravador.setDaemon(true);
+        gravador.start();
+    }
+
+    /** Para de aceitar pedidos, grava o que já estava na fila e espera a thread gravadora terminar. */
+    public void encerrar() {
+        encerrada = true;
+        Thread g;
+        synchronized (this) {
+            g = gravador;
+        }
+        if (g != null) {
+            try {
+                g.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Pedido que entrou na fila depois que a gravadora saiu
+        Pedido p;
+        while ((p = fila.poll()) != null) {
+            p.resultado().completeExceptionally(new BusinessException("Ingestão de check-ins encerrada."));
+        }
+    }
+
+    public Estatisticas estatisticas() {
+        return new Estatisticas(lotes.get(), gravados.get(), recusados.get(), fila.size());
+    }
+
+    // ===== GRAVAÇÃO IMEDIATA =====
+    /**
+     * INSERT sem consulta prévia: uk_freq_aluno_dia garante um check-in por dia e fk_freq_aluno a existência
+     * do aluno. Quem chama já validou id e data.
+     */
+    public Frequencia registrar(long idAluno, LocalDate dia) {
+        return registrar(idAluno, dia, horaDaPassada(dia));
+    }
+
+    private Frequencia registrar(long idAluno, LocalDate dia, LocalDateTime entrada) {
+        Frequencia f = novaFrequencia(idAluno, dia, entrada);
+        try {
+            tx.executarSemRetorno(() -> {
+                dao.insert(f);
+                resumoDao.somar(List.of(f), 1);
+            });
+            checkinsDoDia.marcar(idAluno, dia);
+            analise.registrar(idAluno, dia);
+            if (entrada != null) ocupacao.entrada(entrada);
+            return f;
+        } catch (SQLException e) {
+            if (ErrosSql.violou(e, ErrosSql.CHAVE_DUPLICADA, "uk_freq_aluno_dia")) {
+                checkinsDoDia.marcar(idAluno, dia); // gravado por outra instância
+                throw repetido(idAluno, dia);
+            }
+            if (ErrosSql.violou(e, ErrosSql.CHAVE_ESTRANGEIRA, "fk_freq_aluno")) {
+                throw new NotFoundException("Aluno não encontrado: " + idAluno);
+            }
+            throw new BusinessException("Falha ao registrar check-in: " + e.getMessage());
+        }
+    }
+
+    // ===== GRAVAÇÃO EM GRUPO =====
+    /** Coloca o check-in na fila; espera por vaga se ela estiver cheia. Quem chama já validou id e data. */
+    public CompletableFuture<Frequencia> enfileirar(long idAluno, LocalDate dia) {
+        if (encerrada) return CompletableFuture.failedFuture(new BusinessException("Ingestão de check-ins encerrada."));
+        Pedido p = new Pedido(idAluno, dia, horaDaPassada(dia), System.nanoTime(), new CompletableFuture<>());
+        try {
+            if (!fila.offer(p, esperaFilaMs, TimeUnit.MILLISECONDS)) {
+                recusados.incrementAndGet();
+                return CompletableFuture.failedFuture(new BusinessException("Fila de check-ins cheia; tente novamente."));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new BusinessException("Interrompido aguardando vaga na fila de check-ins."));
+        }
+        return p.resultado();
+    }
+
+    private void gravarContinuamente() {
+        List<Pedido> lote = new ArrayList<>(loteMaximo);
+        while (!encerrada || !fila.isEmpty()) {
+            try {
+                Pedido primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeiro == null) continue;
+                lote.add(primeiro);
+                long limite = primeiro.enfileiradoEm() + esperaLoteNanos;
+                while (lote.size() < loteMaximo) {
+                    if (fila.drainTo(lote, loteMaximo - lote.size()) > 0) continue;
+                    long resta = limite - System.nanoTime();
+                    if (resta <= 0) break;
+                    Pedido p = fila.poll(resta, TimeUnit.NANOSECONDS);
+                    if (p == null) break;
+                    lote.add(p);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                encerrada = true;
+            }
+            if (lote.isEmpty()) continue;
+            try {
+                gravar(lote);
+            } catch (RuntimeException e) {
+                for (Pedido p : lote) p.resultado().completeExceptionally(e); // sem efeito nos já completados
+            }
+            lote.clear();
+        }
+    }
+
+    private void gravar(List<Pedido> lote) {
+        // Repetidos conhecidos e repetidos dentro do próprio lote (o primeiro vale)
+        List<Pedido> candidatos = new ArrayList<>(lote.size());
+        Set<String> vistos = new HashSet<>();
+        for (Pedido p : lote) {
+            if (checkinsDoDia.jaRegistrado(p.idAluno(), p.dia()) || !vistos.add(p.idAluno() + "@" + p.dia())) {
+                recusar(p, repetido(p.idAluno(), p.dia()));
+            } else {
+                candidatos.add(p);
+            }
+        }
+        if (candidatos.isEmpty()) return;
+
+        Set<Long> idsAluno = new HashSet<>();
+        LocalDate inicio = candidatos.get(0).dia(), fim = inicio;
+        for (Pedido p : candidatos) {
+            idsAluno.add(p.idAluno());
+            if (p.dia().isBefore(inicio)) inicio = p.dia();
+            if (p.dia().isAfter(fim)) fim = p.dia();
+        }
+
+        LocalDate primeiroDia = inicio, ultimoDia = fim;
+        Map<Pedido, RuntimeException> recusas = new HashMap<>();
+        Map<Pedido, Frequencia> aceitos = new HashMap<>();
+        try {
+            tx.executarSemRetorno(() -> {
+                recusas.clear();
+                aceitos.clear();
+                Set<Long> existentes = alunoDao.filtrarExistentes(idsAluno);
+                Map<Long, Set<LocalDate>> jaRegistrados = dao.diasComCheckin(idsAluno, primeiroDia, ultimoDia);
+
+                List<Frequencia> novas = new ArrayList<>(candidatos.size());
+                for (Pedido p : candidatos) {
+                    if (!existentes.contains(p.idAluno())) {
+                        recusas.put(p, new NotFoundException("Aluno não encontrado: " + p.idAluno()));
+                    } else if (jaRegistrados.getOrDefault(p.idAluno(), Set.of()).contains(p.dia())) {
+                        checkinsDoDia.marcar(p.idAluno(), p.dia()); // gravado por outra instância
+                        recusas.put(p, repetido(p.idAluno(), p.dia()));
+                    } else {
+                        Frequencia f = novaFrequencia(p.idAluno(), p.dia(), p.entrada());
+                        novas.add(f);
+                        aceitos.put(p, f);
+                    }
+                }
+                dao.insertBatch(novas);
+                resumoDao.somar(novas, 1);
+            });
+        } catch (SQLException e) {
+            // Um a um: cada pedido recebe o erro exato do próprio INSERT
+            for (Pedido p : candidatos) {
+                try {
+                    concluir(p, registrar(p.idAluno(), p.dia(), p.entrada()));
+                } catch (RuntimeException ex) {
+                    recusar(p, ex);
+                }
+            }
+            return;
+        }
+
+        lotes.incrementAndGet();
+        for (Pedido p : candidatos) {
+            Frequencia f = aceitos.get(p);
+            if (f != null) {
+                checkinsDoDia.marcar(p.idAluno(), p.dia());
+                analise.registrar(p.idAluno(), p.dia());
+                if (p.entrada() != null) ocupacao.entrada(p.entrada());
+                concluir(p, f);
+            } else {
+                recusar(p, recusas.get(p));
+            }
+        }
+    }
+
+    private void concluir(Pedido p, Frequencia f) {
+        gravados.incrementAndGet();
+        p.resultado().complete(f);
+    }
+
+    private void recusar(Pedido p, RuntimeException erro) {
+        recusados.incrementAndGet();
+        p.resultado().completeExceptionally(erro);
+    }
+
+    private static Frequencia novaFrequencia(long idAluno, LocalDate dia, LocalDateTime entrada) {
+        Frequencia f = new Frequencia();
+        Aluno a = new Aluno();
+        a.setId(idAluno);
+        f.setAluno(a);
+        f.setDataCheckin(dia);
+        f.setEntrada(entrada);
+        return f;
+    }
+
+    // Hora atual se o check-in é de hoje; lançamento de outro dia fica sem horário
+    private static LocalDateTime horaDaPassada(LocalDate dia) {
+        LocalDateTime agora = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        return agora.toLocalDate().equals(dia) ? agora : null;
+    }
+
+    static BusinessException repetido(long idAluno, LocalDate dia) {
+        return new BusinessException("Já existe check-in para o aluno " + idAluno + " em " + dia + ".");
+    }
+}
@@ -1,5 +1,7 @@
 package com.br.inatel.service.impl;
 
+import com.br.inatel.cache.CoerenciaCaches;
+import com.br.inatel.config.GerenciadorTransacao;
 import com.br.inatel.dao.InstrutorDao;
 import com.br.inatel.model.Instrutor;
 import com.br.inatel.service.InstrutorService;
@@ -14,9 +16,13 @@ import java.util.Objects;
 public class InstrutorServiceImpl implements InstrutorService {
 
     private final InstrutorDao dao;
+    private final CoerenciaCaches coerencia;
+    private final GerenciadorTransacao tx;
 
-    public InstrutorServiceImpl(InstrutorDao dao) {
+    public InstrutorServiceImpl(InstrutorDao dao, CoerenciaCaches coerencia, GerenciadorTransacao tx) {
         this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+        this.coerencia = Objects.requireNonNull(coerencia, "coerencia não pode ser null");
+        this.tx = Objects.requireNonNull(tx, "tx não pode ser null");
     }
 
     // ===== CREATE =====
@@ -31,6 +37,8 @@ public class InstrutorServiceImpl implements InstrutorService {
 
         try {
             dao.insert(i);
+            dao.invalidarCache(i.getId());
+            coerencia.publicar(CoerenciaCaches.INSTRUTOR);
             return i;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao criar instrutor: " + e.getMessage());
@@ -42,25 +50,31 @@ public class InstrutorServiceImpl implements InstrutorService {
     public Instrutor atualizar(long id, String nome, String cref)
             throws NotFoundException, BusinessException {
         validarIdPositivo(id);
-        nome = validarNome(nome);
-        cref = validarCref(cref);
+        String nomeValidado = validarNome(nome);
+        String crefValidado = validarCref(cref);
 
         try {
-            Instrutor existente = dao.buscarPorId(id);
-            if (existente == null) {
-                throw new NotFoundException("Instrutor não encontrado: " + id);
-            }
-
-            existente.setNome(nome);
-            existente.setCref(cref);
-
-            boolean ok = dao.atualizar(existente);
-            if (!ok) {
-                throw new BusinessException("Atualização não aplicada (id=" + id + ").");
-            }
-            return existente;
+            Instrutor atualizado = tx.executar(() -> {
+                Instrutor existente = dao.buscarPorId(id);
+                if (existente == null) {
+                    throw new NotFoundException("Instrutor não encontrado: " + id);
+                }
+
+                existente.setNome(nomeValidado);
+                existente.setCref(crefValidado);
+
+                boolean ok = dao.atualizar(existente);
+                if (!ok) {
+                    throw new BusinessException("Atualização não aplicada (id=" + id + ").");
+                }
+                return existente;
+            });
+            coerencia.publicar(CoerenciaCaches.INSTRUTOR);
+            return atualizado;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao atualizar instrutor: " + e.getMessage());
+        } finally {
+            dao.invalidarCache(id);
         }
     }
 
@@ -68,7 +82,7 @@ public class InstrutorServiceImpl implements InstrutorService {
     @Override
     public List<Instrutor> listarTodos() {
         try {
-            return dao.listarTodos();
+            return tx.executarLeitura(() -> dao.listarTodos());
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar instrutores: " + e.getMessage());
         }
@@ -79,13 +93,18 @@ public class InstrutorServiceImpl implements InstrutorService {
     public void excluir(long id) throws NotFoundException, BusinessException {
         validarIdPositivo(id);
         try {
-            if (!dao.existePorId(id)) {
-                throw new NotFoundException("Instrutor não encontrado: " + id);
-            }
-            boolean ok = dao.deletarPorId(id);
-            if (!ok) throw new BusinessException("Exclusão não aplicada (id=" + id + ").");
+            tx.executarSemRetorno(() -> {
+                if (!dao.existePorId(id)) {
+                    throw new NotFoundException("Instrutor não encontrado: " + id);
+                }
+                boolean ok = dao.deletarPorId(id);
+                if (!ok) throw new BusinessException("Exclusão não aplicada (id=" + id + ").");
+            });
+            coerencia.publicar(CoerenciaCaches.INSTRUTOR);
         } catch (SQLException e) {
             throw new BusinessException("Falha ao excluir instrutor: " + e.getMessage());
+        } finally {
+            dao.invalidarCache(id);
         }
     }
 
@@ -94,7 +113,7 @@ public class InstrutorServiceImpl implements InstrutorService {
     public List<Instrutor> buscarPorNome(String termo) {
         if (termo == null || termo.isBlank()) return Collections.emptyList();
         try {
-            return dao.buscarPorNome(termo.trim());
+            return tx.executarLeitura(() -> dao.buscarPorNome(termo.trim()));
         } catch (SQLException e) {
             throw new BusinessException("Falha ao buscar instrutor por nome: " + e.getMessage());
         }
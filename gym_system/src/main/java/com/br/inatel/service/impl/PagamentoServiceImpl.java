@@ -1,9 +1,11 @@
 package com.br.inatel.service.impl;
 
+import com.br.inatel.config.GerenciadorTransacao;
 import com.br.inatel.dao.AssinaturaDao;
 import com.br.inatel.dao.PagamentoDao;
 import com.br.inatel.model.Assinatura;
 import com.br.inatel.model.Pagamento;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.model.enums.PagamentoStatus;
 import com.br.inatel.service.PagamentoService;
 import com.br.inatel.service.exception.BusinessException;
@@ -12,17 +14,28 @@ import com.br.inatel.service.exception.NotFoundException;
 import java.math.BigDecimal;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class PagamentoServiceImpl implements PagamentoService {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+
     private final PagamentoDao pagamentoDao;
     private final AssinaturaDao assinaturaDao;
+    private final HidratadorEntidades hidratador;
+    private final GerenciadorTransacao tx;
 
-    public PagamentoServiceImpl(PagamentoDao pagamentoDao, AssinaturaDao assinaturaDao) {
+    public PagamentoServiceImpl(PagamentoDao pagamentoDao, AssinaturaDao assinaturaDao,
+                                HidratadorEntidades hidratador, GerenciadorTransacao tx) {
         this.pagamentoDao = Objects.requireNonNull(pagamentoDao, "pagamentoDao não pode ser null");
         this.assinaturaDao = Objects.requireNonNull(assinaturaDao, "assinaturaDao não pode ser null");
+        this.hidratador = Objects.requireNonNull(hidratador, "hidratador não pode ser null");
+        this.tx = Objects.requireNonNull(tx, "tx não pode ser null");
     }
 
     // ========= CREATE =========
@@ -34,28 +47,82 @@ public class PagamentoServiceImpl implements PagamentoService {
         validarValor(valor);
         validarVencimento(competencia, dataVencimento);
 
-        if (status == null) status = PagamentoStatus.PENDENTE;
+        PagamentoStatus statusInicial = status != null ? status : PagamentoStatus.PENDENTE;
 
         try {
-            if (!assinaturaDao.existePorId(idAssinatura)) {
-                throw new NotFoundException("Assinatura não encontrada: " + idAssinatura);
+            return tx.executar(() -> {
+                if (!assinaturaDao.existePorId(idAssinatura)) {
+                    throw new NotFoundException("Assinatura não encontrada: " + idAssinatura);
+                }
+
+                Pagamento p = new Pagamento();
+                p.setCompetencia(competencia);
+                p.setValor(valor);
+                p.setDataVencimento(dataVencimento);
+                p.setStatus(statusInicial);
+                p.setDataPagamento(null);
+
+                Assinatura a = new Assinatura();
+                a.setId(idAssinatura);
+                p.setAssinatura(a);
+
+                pagamentoDao.insert(p);
+                return p;
+            });
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao criar pagamento: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Pagamento> criarEmLote(List<Pagamento> pagamentos) throws BusinessException {
+        if (pagamentos == null || pagamentos.isEmpty()) throw new BusinessException("Lote de pagamentos vazio.");
+
+        // Valida o lote inteiro antes de tocar no banco
+        List<String> erros = new ArrayList<>();
+        Set<String> competencias = new HashSet<>();
+        Set<Long> idsAssinatura = new HashSet<>();
+        for (int i = 0; i < pagamentos.size(); i++) {
+            Pagamento p = pagamentos.get(i);
+            try {
+                if (p == null || p.getAssinatura() == null) throw new BusinessException("Assinatura é obrigatória.");
+                long idAssinatura = p.getAssinatura().getId();
+                validarIdPositivo(idAssinatura, "idAssinatura");
+                validarCompetencia(p.getCompetencia());
+                validarValor(p.getValor());
+                validarVencimento(p.getCompetencia(), p.getDataVencimento());
+                if (!competencias.add(idAssinatura + "@" + p.getCompetencia())) {
+                    throw new BusinessException("Competência " + p.getCompetencia() + " repetida no lote para a assinatura " + idAssinatura + ".");
+                }
+                idsAssinatura.add(idAssinatura);
+            } catch (BusinessException e) {
+                erros.add("item " + (i + 1) + ": " + e.getMessage());
             }
+        }
+        ErrosDeLote.lancarSeHouver(erros);
 
-            Pagamento p = new Pagamento();
-            p.setCompetencia(competencia);
-            p.setValor(valor);
-            p.setDataVencimento(dataVencimento);
-            p.setStatus(status);
+        for (Pagamento p : pagamentos) {
+            if (p.getStatus() == null) p.setStatus(PagamentoStatus.PENDENTE);
             p.setDataPagamento(null);
+        }
 
-            Assinatura a = new Assinatura();
-            a.setId(idAssinatura);
-            p.setAssinatura(a);
+        try {
+            return tx.executar(() -> {
+                Set<Long> existentes = assinaturaDao.filtrarExistentes(idsAssinatura);
+                List<String> faltando = new ArrayList<>();
+                for (int i = 0; i < pagamentos.size(); i++) {
+                    long idAssinatura = pagamentos.get(i).getAssinatura().getId();
+                    if (!existentes.contains(idAssinatura)) {
+                        faltando.add("item " + (i + 1) + ": Assinatura não encontrada: " + idAssinatura);
+                    }
+                }
+                ErrosDeLote.lancarSeHouver(faltando);
 
-            pagamentoDao.insert(p);
-            return p;
+                pagamentoDao.insertBatch(pagamentos);
+                return pagamentos;
+            });
         } catch (SQLException e) {
-            throw new BusinessException("Falha ao criar pagamento: " + e.getMessage());
+            throw new BusinessException("Falha ao criar pagamentos em lote: " + e.getMessage());
         }
     }
 
@@ -72,35 +139,38 @@ public class PagamentoServiceImpl implements PagamentoService {
         if (status == null) throw new BusinessException("Status é obrigatório.");
 
         try {
-            Pagamento existente = pagamentoDao.buscarPorId(id);
-            if (existente == null) throw new NotFoundException("Pagamento não encontrado: " + id);
+            return tx.executar(() -> {
+                Pagamento existente = pagamentoDao.buscarPorId(id);
+                if (existente == null) throw new NotFoundException("Pagamento não encontrado: " + id);
 
-            if (!assinaturaDao.existePorId(idAssinatura)) {
-                throw new NotFoundException("Assinatura não encontrada: " + idAssinatura);
-            }
-
-            if (existente.getStatus() == PagamentoStatus.PAGO) {
-                if (status != PagamentoStatus.PAGO) {
-                    throw new BusinessException("Pagamento já está PAGO — não é permitido alterar para outro status.");
+                if (!assinaturaDao.existePorId(idAssinatura)) {
+                    throw new NotFoundException("Assinatura não encontrada: " + idAssinatura);
                 }
-                if (dataPagamento == null) {
-                    dataPagamento = existente.getDataPagamento() != null ? existente.getDataPagamento() : LocalDate.now();
+
+                LocalDate pagoEm = dataPagamento;
+                if (existente.getStatus() == PagamentoStatus.PAGO) {
+                    if (status != PagamentoStatus.PAGO) {
+                        throw new BusinessException("Pagamento já está PAGO — não é permitido alterar para outro status.");
+                    }
+                    if (pagoEm == null) {
+                        pagoEm = existente.getDataPagamento() != null ? existente.getDataPagamento() : LocalDate.now();
+                    }
                 }
-            }
 
-            existente.setCompetencia(competencia);
-            existente.setValor(valor);
-            existente.setDataVencimento(dataVencimento);
-            existente.setStatus(status);
-            existente.setDataPagamento(dataPagamento);
+                existente.setCompetencia(competencia);
+                existente.setValor(valor);
+                existente.setDataVencimento(dataVencimento);
+                existente.setStatus(status);
+                existente.setDataPagamento(pagoEm);
 
-            Assinatura a = new Assinatura();
-            a.setId(idAssinatura);
-            existente.setAssinatura(a);
+                Assinatura a = new Assinatura();
+                a.setId(idAssinatura);
+                existente.setAssinatura(a);
 
-            boolean ok = pagamentoDao.atualizar(existente);
-            if (!ok) throw new BusinessException("Atualização não aplicada (id=" + id + ").");
-            return existente;
+                boolean ok = pagamentoDao.atualizar(existente);
+                if (!ok) throw new BusinessException("Atualização não aplicada (id=" + id + ").");
+                return existente;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao atualizar pagamento: " + e.getMessage());
         }
@@ -111,9 +181,12 @@ public class PagamentoServiceImpl implements PagamentoService {
     public Pagamento buscarPorId(long id) throws NotFoundException {
         validarIdPositivo(id, "id");
         try {
-            Pagamento p = pagamentoDao.buscarPorId(id);
-            if (p == null) throw new NotFoundException("Pagamento não encontrado: " + id);
-            return p;
+            return tx.executarLeitura(() -> {
+                Pagamento p = pagamentoDao.buscarPorId(id);
+                if (p == null) throw new NotFoundException("Pagamento não encontrado: " + id);
+                hidratador.hidratarPagamentos(List.of(p));
+                return p;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao buscar pagamento: " + e.getMessage());
         }
@@ -122,27 +195,59 @@ public class PagamentoServiceImpl implements PagamentoService {
     @Override
     public List<Pagamento> listarTodos() {
         try {
-            return pagamentoDao.listarTodos();
+            return tx.executarLeitura(() -> {
+                List<Pagamento> lista = pagamentoDao.listarTodos();
+                hidratador.hidratarPagamentos(lista);
+                return lista;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar pagamentos: " + e.getMessage());
         }
     }
 
+    @Override
+    public Pagina<Pagamento> listarTodos(int tamanho, String cursor) {
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> {
+                Pagina<Pagamento> pagina = pagamentoDao.listarTodos(tamanho, cursor);
+                hidratador.hidratarPagamentos(pagina.itens());
+                return pagina;
+            });
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar pagamentos: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
+    @Override
+    public long percorrerTodos(Consumer<Pagamento> consumidor) {
+        Objects.requireNonNull(consumidor, "consumidor não pode ser null");
+        try {
+            return tx.executarLeitura(() -> pagamentoDao.percorrerTodos(consumidor));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao percorrer pagamentos: " + e.getMessage());
+        }
+    }
+
     // ========= DELETE =========
     @Override
     public void excluir(long id) throws NotFoundException, BusinessException {
         validarIdPositivo(id, "id");
         try {
-            Pagamento p = pagamentoDao.buscarPorId(id);
-            if (p == null) throw new NotFoundException("Pagamento não encontrado: " + id);
+            tx.executarSemRetorno(() -> {
+                Pagamento p = pagamentoDao.buscarPorId(id);
+                if (p == null) throw new NotFoundException("Pagamento não encontrado: " + id);
 
-            // Não excluir pagamento ja PAGO
-            if (p.getStatus() == PagamentoStatus.PAGO) {
-                throw new BusinessException("Não é permitido excluir um pagamento já pago (id=" + id + ").");
-            }
+                // Não excluir pagamento ja PAGO
+                if (p.getStatus() == PagamentoStatus.PAGO) {
+                    throw new BusinessException("Não é permitido excluir um pagamento já pago (id=" + id + ").");
+                }
 
-            boolean ok = pagamentoDao.deletarPorId(id);
-            if (!ok) throw new BusinessException("Exclusão não aplicada (id=" + id + ").");
+                boolean ok = pagamentoDao.deletarPorId(id);
+                if (!ok) throw new BusinessException("Exclusão não aplicada (id=" + id + ").");
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao excluir pagamento: " + e.getMessage());
         }
@@ -153,28 +258,90 @@ public class PagamentoServiceImpl implements PagamentoService {
     public List<Pagamento> listarPorAssinatura(long idAssinatura) {
         validarIdPositivo(idAssinatura, "idAssinatura");
         try {
-            return pagamentoDao.listarPorAssinatura(idAssinatura);
+            return tx.executarLeitura(() -> {
+                List<Pagamento> lista = pagamentoDao.listarPorAssinatura(idAssinatura);
+                hidratador.hidratarPagamentos(lista);
+                return lista;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar pagamentos da assinatura: " + e.getMessage());
         }
     }
 
+    @Override
+    public Pagina<Pagamento> listarPorAssinatura(long idAssinatura, int tamanho, String cursor) {
+        validarIdPositivo(idAssinatura, "idAssinatura");
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> {
+                Pagina<Pagamento> pagina = pagamentoDao.listarPorAssinatura(idAssinatura, tamanho, cursor);
+                hidratador.hidratarPagamentos(pagina.itens());
+                return pagina;
+            });
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar pagamentos da assinatura: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
     @Override
     public List<Pagamento> listarPorStatus(PagamentoStatus status) {
         if (status == null) throw new BusinessException("Status é obrigatório.");
         try {
-            return pagamentoDao.listarPorStatus(status);
+            return tx.executarLeitura(() -> {
+                List<Pagamento> lista = pagamentoDao.listarPorStatus(status);
+                hidratador.hidratarPagamentos(lista);
+                return lista;
+            });
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar por status: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Pagina<Pagamento> listarPorStatus(PagamentoStatus status, int tamanho, String cursor) {
+        if (status == null) throw new BusinessException("Status é obrigatório.");
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> {
+                Pagina<Pagamento> pagina = pagamentoDao.listarPorStatus(status, tamanho, cursor);
+                hidratador.hidratarPagamentos(pagina.itens());
+                return pagina;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar por status: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
         }
     }
 
     @Override
     public List<Pagamento> listarVencidos() {
         try {
-            return pagamentoDao.listarVencidos();
+            return tx.executarLeitura(() -> {
+                List<Pagamento> lista = pagamentoDao.listarVencidos();
+                hidratador.hidratarPagamentos(lista);
+                return lista;
+            });
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar vencidos: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Pagina<Pagamento> listarVencidos(int tamanho, String cursor) {
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> {
+                Pagina<Pagamento> pagina = pagamentoDao.listarVencidos(tamanho, cursor);
+                hidratador.hidratarPagamentos(pagina.itens());
+                return pagina;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar vencidos: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
         }
     }
 
@@ -185,16 +352,18 @@ public class PagamentoServiceImpl implements PagamentoService {
         if (status == null) throw new BusinessException("Status é obrigatório.");
 
         try {
-            Pagamento atual = pagamentoDao.buscarPorId(id);
-            if (atual == null) throw new NotFoundException("Pagamento não encontrado: " + id);
+            tx.executarSemRetorno(() -> {
+                Pagamento atual = pagamentoDao.buscarPorId(id);
+                if (atual == null) throw new NotFoundException("Pagamento não encontrado: " + id);
 
-            // Se já está PAGO, não deixa mudar para outro
-            if (atual.getStatus() == PagamentoStatus.PAGO && status != PagamentoStatus.PAGO) {
-                throw new BusinessException("Pagamento já está PAGO — não é permitido alterar para outro status.");
-            }
+                // Se já está PAGO, não deixa mudar para outro
+                if (atual.getStatus() == PagamentoStatus.PAGO && status != PagamentoStatus.PAGO) {
+                    throw new BusinessException("Pagamento já está PAGO — não é permitido alterar para outro status.");
+                }
 
-            boolean ok = pagamentoDao.alterarStatus(id, status);
-            if (!ok) throw new BusinessException("Não foi possível alterar o status (id=" + id + ").");
+                boolean ok = pagamentoDao.alterarStatus(id, status);
+                if (!ok) throw new BusinessException("Não foi possível alterar o status (id=" + id + ").");
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao alterar status: " + e.getMessage());
         }
@@ -203,24 +372,32 @@ public class PagamentoServiceImpl implements PagamentoService {
     @Override
     public void registrarPagamento(long id, LocalDate dataPagamento) throws NotFoundException, BusinessException {
         validarIdPositivo(id, "id");
-        if (dataPagamento == null) dataPagamento = LocalDate.now();
+        LocalDate pagoEm = dataPagamento != null ? dataPagamento : LocalDate.now();
 
         try {
-            Pagamento atual = pagamentoDao.buscarPorId(id);
-            if (atual == null) throw new NotFoundException("Pagamento não encontrado: " + id);
+            tx.executarSemRetorno(() -> {
+                Pagamento atual = pagamentoDao.buscarPorId(id);
+                if (atual == null) throw new NotFoundException("Pagamento não encontrado: " + id);
 
-            if (atual.getStatus() == PagamentoStatus.PAGO) {
-                throw new BusinessException("Pagamento já está PAGO.");
-            }
+                if (atual.getStatus() == PagamentoStatus.PAGO) {
+                    throw new BusinessException("Pagamento já está PAGO.");
+                }
 
-            boolean ok = pagamentoDao.registrarPagamento(id, dataPagamento);
-            if (!ok) throw new BusinessException("Não foi possível registrar o pagamento (id=" + id + ").");
+                boolean ok = pagamentoDao.registrarPagamento(id, pagoEm);
+                if (!ok) throw new BusinessException("Não foi possível registrar o pagamento (id=" + id + ").");
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao registrar pagamento: " + e.getMessage());
         }
     }
 
     // ========= validações =========
+    private void validarTamanhoPagina(int tamanho) {
+        if (tamanho <= 0 || tamanho > TAMANHO_MAXIMO_PAGINA) {
+            throw new BusinessException("Tamanho de página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA + ".");
+        }
+    }
+
     private void validarIdPositivo(long id, String campo) {
         if (id <= 0) throw new BusinessException(campo + " deve ser positivo.");
     }
@@ -1,5 +1,8 @@
 package com.br.inatel.service.impl;
 
+import com.br.inatel.cache.CatalogoPlanos;
+import com.br.inatel.cache.CoerenciaCaches;
+import com.br.inatel.config.GerenciadorTransacao;
 import com.br.inatel.dao.PlanoDao;
 import com.br.inatel.model.Plano;
 import com.br.inatel.service.PlanoService;
@@ -14,32 +17,44 @@ import java.util.Objects;
 public class PlanoServiceImpl implements PlanoService {
 
     private final PlanoDao dao;
+    private final CatalogoPlanos catalogo;
+    private final CoerenciaCaches coerencia;
+    private final GerenciadorTransacao tx;
 
-    public PlanoServiceImpl(PlanoDao dao) {
+    public PlanoServiceImpl(PlanoDao dao, CatalogoPlanos catalogo, CoerenciaCaches coerencia, GerenciadorTransacao tx) {
         this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+        this.catalogo = Objects.requireNonNull(catalogo, "catalogo não pode ser null");
+        this.coerencia = Objects.requireNonNull(coerencia, "coerencia não pode ser null");
+        this.tx = Objects.requireNonNull(tx, "tx não pode ser null");
     }
 
     // ===== CREATE =====
     @Override
     public Plano criar(String nome, BigDecimal preco, int duracaoMeses) throws BusinessException {
-        nome = validarNome(nome);
+        String nomeValidado = validarNome(nome);
         validarPreco(preco);
         validarDuracao(duracaoMeses);
 
         try {
-            if (existePlanoComMesmoNome(nome)) {
-                throw new BusinessException("Já existe um plano com o nome '" + nome + "'.");
-            }
-
-            Plano p = new Plano();
-            p.setNome(nome);
-            p.setPreco(preco);
-            p.setDuracaoMeses(duracaoMeses);
-
-            dao.insert(p);
-            return p;
+            Plano criado = tx.executar(() -> {
+                if (existePlanoComMesmoNome(nomeValidado)) {
+                    throw new BusinessException("Já existe um plano com o nome '" + nomeValidado + "'.");
+                }
+
+                Plano p = new Plano();
+                p.setNome(nomeValidado);
+                p.setPreco(preco);
+                p.setDuracaoMeses(duracaoMeses);
+
+                dao.insert(p);
+                return p;
+            });
+            coerencia.publicar(CoerenciaCaches.PLANO);
+            return criado;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao criar plano: " + e.getMessage());
+        } finally {
+            catalogo.invalidar();
         }
     }
 
@@ -48,27 +63,33 @@ public class PlanoServiceImpl implements PlanoService {
     public Plano atualizar(long id, String nome, BigDecimal preco, int duracaoMeses)
             throws NotFoundException, BusinessException {
         validarIdPositivo(id);
-        nome = validarNome(nome);
+        String nomeValidado = validarNome(nome);
         validarPreco(preco);
         validarDuracao(duracaoMeses);
 
         try {
-            Plano existente = dao.buscarPorId(id);
-            if (existente == null) throw new NotFoundException("Plano não encontrado: " + id);
-
-            if (existePlanoComMesmoNomeParaOutroId(nome, id)) {
-                throw new BusinessException("Já existe outro plano com o nome '" + nome + "'.");
-            }
-
-            existente.setNome(nome);
-            existente.setPreco(preco);
-            existente.setDuracaoMeses(duracaoMeses);
-
-            boolean ok = dao.atualizar(existente);
-            if (!ok) throw new BusinessException("Atualização não aplicada (id=" + id + ").");
-            return existente;
+            Plano atualizado = tx.executar(() -> {
+                Plano existente = dao.buscarPorId(id);
+                if (existente == null) throw new NotFoundException("Plano não encontrado: " + id);
+
+                if (existePlanoComMesmoNomeParaOutroId(nomeValidado, id)) {
+                    throw new BusinessException("Já existe outro plano com o nome '" + nomeValidado + "'.");
+                }
+
+                existente.setNome(nomeValidado);
+                existente.setPreco(preco);
+                existente.setDuracaoMeses(duracaoMeses);
+
+                boolean ok = dao.atualizar(existente);
+                if (!ok) throw new BusinessException("Atualização não aplicada (id=" + id + ").");
+                return existente;
+            });
+            coerencia.publicar(CoerenciaCaches.PLANO);
+            return atualizado;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao atualizar plano: " + e.getMessage());
+        } finally {
+            catalogo.invalidar();
         }
     }
 
@@ -77,7 +98,7 @@ public class PlanoServiceImpl implements PlanoService {
     public Plano buscarPorId(long id) throws NotFoundException {
         validarIdPositivo(id);
         try {
-            Plano p = dao.buscarPorId(id);
+            Plano p = catalogo.buscarPorId(id);
             if (p == null) throw new NotFoundException("Plano não encontrado: " + id);
             return p;
         } catch (SQLException e) {
@@ -88,7 +109,7 @@ public class PlanoServiceImpl implements PlanoService {
     @Override
     public List<Plano> listarTodos() {
         try {
-            return dao.listarTodos();
+            return catalogo.listarTodos();
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar planos: " + e.getMessage());
         }
@@ -99,12 +120,17 @@ public class PlanoServiceImpl implements PlanoService {
     public void excluir(long id) throws NotFoundException, BusinessException {
         validarIdPositivo(id);
         try {
-            if (!dao.existePorId(id)) throw new NotFoundException("Plano não encontrado: " + id);
+            tx.executarSemRetorno(() -> {
+                if (!dao.existePorId(id)) throw new NotFoundException("Plano não encontrado: " + id);
 
-            boolean ok = dao.deletarPorId(id);
-            if (!ok) throw new BusinessException("Exclusão não aplicada (id=" + id + ").");
+                boolean ok = dao.deletarPorId(id);
+                if (!ok) throw new BusinessException("Exclusão não aplicada (id=" + id + ").");
+            });
+            coerencia.publicar(CoerenciaCaches.PLANO);
         } catch (SQLException e) {
             throw new BusinessException("Falha ao excluir plano: " + e.getMessage());
+        } finally {
+            catalogo.invalidar();
         }
     }
 
@@ -113,7 +139,7 @@ public class PlanoServiceImpl implements PlanoService {
     public List<Plano> buscarPorNome(String termo) {
         if (termo == null || termo.isBlank()) return List.of();
         try {
-            return dao.buscarPorNome(termo.trim());
+            return catalogo.buscarPorNome(termo);
         } catch (SQLException e) {
             throw new BusinessException("Falha ao buscar plano por nome: " + e.getMessage());
         }
@@ -126,12 +152,22 @@ public class PlanoServiceImpl implements PlanoService {
             throw new BusinessException("Faixa de preço inválida.");
         }
         try {
-            return dao.buscarPorFaixaPreco(minimo, maximo);
+            return catalogo.buscarPorFaixaPreco(minimo, maximo);
         } catch (SQLException e) {
             throw new BusinessException("Falha ao buscar por faixa de preço: " + e.getMessage());
         }
     }
 
+    // ===== CATÁLOGO =====
+    @Override
+    public void recarregarCatalogo() {
+        try {
+            catalogo.recarregar();
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao recarregar catálogo de planos: " + e.getMessage());
+        }
+    }
+
     // ===== Helpers =====
     private void validarIdPositivo(long id) {
         if (id <= 0) throw new BusinessException("Id deve ser positivo.");
@@ -158,12 +194,11 @@ public class PlanoServiceImpl implements PlanoService {
     }
 
     private boolean existePlanoComMesmoNome(String nome) throws SQLException {
-        return dao.buscarPorNome(nome).stream()
-                .anyMatch(p -> p.getNome() != null && p.getNome().equalsIgnoreCase(nome));
+        return catalogo.buscarPorNomeExato(nome) != null;
     }
 
     private boolean existePlanoComMesmoNomeParaOutroId(String nome, long idAtual) throws SQLException {
-        return dao.buscarPorNome(nome).stream()
-                .anyMatch(p -> p.getNome() != null && p.getNome().equalsIgnoreCase(nome) && p.getId() != idAtual);
+        Plano mesmoNome = catalogo.buscarPorNomeExato(nome);
+        return mesmoNome != null && mesmoNome.getId() != idAtual;
     }
 }
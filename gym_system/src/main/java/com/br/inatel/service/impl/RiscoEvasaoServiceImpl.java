@@ -0,0 +1,296 @@
+package com.br.inatel.service.impl;
+
+import com.br.inatel.config.Configuracao;
+import com.br.inatel.config.GerenciadorTransacao;
+import com.br.inatel.dao.AssinaturaDao;
+import com.br.inatel.dao.ErrosSql;
+import com.br.inatel.dao.FrequenciaDao;
+import com.br.inatel.dao.PagamentoDao;
+import com.br.inatel.dao.RiscoEvasaoDao;
+import com.br.inatel.model.ExecucaoRiscoEvasao;
+import com.br.inatel.model.RiscoEvasao;
+import com.br.inatel.service.RiscoEvasaoService;
+import com.br.inatel.service.exception.BusinessException;
+import com.br.inatel.service.exception.NotFoundException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.LongStream;
+
+/**
+ * Pontua o risco de evasão de todos os alunos com acesso liberado, sem consultas por aluno.
+ *
+ * <ul>
+ *     <li>Carga: cada entrada (alunos ativos, último check-in, visitas nas duas janelas de
+ *     {@value #JANELA_DIAS} dias, pagamentos ATRASADO, fim da assinatura ativa) é lida uma única vez, com as
+ *     consultas em paralelo em virtual threads, pela réplica quando houver.</li>
+ *     <li>Cálculo: os alunos são divididos em partes e pontuados num ForkJoinPool de
+ *     {@code gym.evasao.paralelismo} threads (padrão: número de processadores).</li>
+ *     <li>Gravação: upsert em lotes, uma transação a cada {@code gym.evasao.loteGravacao} alunos (padrão 1000);
+ *     no fim, as linhas de execuções anteriores (alunos que deixaram de estar ativos) são apagadas.</li>
+ * </ul>
+ * O tempo de cada fase vai em {@link ExecucaoRiscoEvasao} e é comparado com {@code gym.evasao.metaMs}
+ * (padrão 60000).
+ */
+public class RiscoEvasaoServiceImpl implements RiscoEvasaoService {
+
+    private static final int TAMANHO_MAXIMO_LISTA = 100;
+    private static final int JANELA_DIAS = 30;
+    private static final int ATRASOS_MAXIMOS = 3;       // a partir daqui o fator de atraso está cheio
+    private static final int TAMANHO_MINIMO_PARTE = 256;
+
+    // Pesos dos fatores (somam 100)
+    private static final int PESO_AUSENCIA = 40;
+    private static final int PESO_QUEDA = 25;
+    private static final int PESO_ATRASO = 20;
+    private static final int PESO_FIM = 15;
+
+    /** Tudo o que a pontuação lê, carregado antes do cálculo. */
+    private record Entradas(LocalDate hoje, long[] ativos, Map<Long, LocalDate> ultimoCheckin,
+                            Map<Long, Integer> visitasRecentes, Map<Long, Integer> visitasAnteriores,
+                            Map<Long, Integer> atrasados, Map<Long, LocalDate> fimAssinatura) {
+    }
+
+    private final RiscoEvasaoDao dao;
+    private final AssinaturaDao assinaturaDao;
+    private final FrequenciaDao frequenciaDao;
+    private final PagamentoDao pagamentoDao;
+    private final GerenciadorTransacao tx;
+
+    private final int paralelismo;
+    private final int loteGravacao;
+    private final long metaMs;
+    private final ReentrantLock execucao = new ReentrantLock();
+
+    public RiscoEvasaoServiceImpl(RiscoEvasaoDao dao, AssinaturaDao assinaturaDao, FrequenciaDao frequenciaDao,
+                                  PagamentoDao pagamentoDao, GerenciadorTransacao tx) {
+        this.dao = Objects.requireNonNull(dao, "dao não pode ser null");
+        this.assinaturaDao = Objects.requireNonNull(assinaturaDao, "assinaturaDao não pode ser null");
+        this.frequenciaDao = Objects.requireNonNull(frequenciaDao, "frequenciaDao não pode ser null");
+        this.pagamentoDao = Objects.requireNonNull(pagamentoDao, "pagamentoDao não pode ser null");
+        this.tx = Objects.requireNonNull(tx, "tx não pode ser null");
+
+        this.paralelismo = Math.max(1, Configuracao.inteiro("gym.evasao.paralelismo", Runtime.getRuntime().availableProcessors()));
+        this.loteGravacao = Math.max(1, Configuracao.inteiro("gym.evasao.loteGravacao", 1000));
+        this.metaMs = Math.max(1, Configuracao.longo("gym.evasao.metaMs", 60_000));
+    }
+
+    // ===== CÁLCULO =====
+    @Override
+    public ExecucaoRiscoEvasao calcular() throws BusinessException {
+        if (!execucao.tryLock()) throw new BusinessException("Cálculo de risco de evasão já em andamento.");
+        try {
+            LocalDateTime agora = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+            long t0 = System.nanoTime();
+            Entradas entradas = carregar(agora.toLocalDate());
+            long t1 = System.nanoTime();
+            List<RiscoEvasao> riscos = pontuarTodos(entradas);
+            long t2 = System.nanoTime();
+            int removidos = gravar(riscos, agora);
+            long t3 = System.nanoTime();
+            return new ExecucaoRiscoEvasao(riscos.size(), removidos, ms(t0, t1), ms(t1, t2), ms(t2, t3), paralelismo, metaMs);
+        } finally {
+            execucao.unlock();
+        }
+    }
+
+    /**
+     * Agenda {@link #calcular} todo dia às {@code gym.evasao.horario} (padrão 03:00) numa thread daemon.
+     * Com várias instâncias, deixe {@code gym.evasao.agendado} ligado em uma só.
+     */
+    public void agendarExecucaoNoturna() {
+        if (!Configuracao.booleano("gym.evasao.agendado", true)) return;
+        LocalTime horario = LocalTime.parse(Configuracao.texto("gym.evasao.horario", "03:00"));
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "risco-evasao");
+            t.setDaemon(true);
+            return t;
+        });
+        agendarProxima(agendador, horario);
+    }
+
+    // ===== CONSULTAS =====
+    @Override
+    public List<RiscoEvasao> maioresRiscos(int limite) {
+        if (limite <= 0 || limite > TAMANHO_MAXIMO_LISTA) {
+            throw new BusinessException("Limite deve estar entre 1 e " + TAMANHO_MAXIMO_LISTA + ".");
+        }
+        try {
+            return tx.executarLeitura(() -> dao.listarMaiores(limite));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar riscos de evasão: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public RiscoEvasao buscarPorAluno(long idAluno) throws NotFoundException {
+        if (idAluno <= 0) throw new BusinessException("Id deve ser positivo.");
+        RiscoEvasao r;
+        try {
+            r = tx.executarLeitura(() -> dao.buscarPorAluno(idAluno));
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao buscar risco de evasão: " + e.getMessage());
+        }
+        if (r == null) throw new NotFoundException("Sem risco de evasão calculado para o aluno: " + idAluno);
+        return r;
+    }
+
+    // ===== fases =====
+    private Entradas carregar(LocalDate hoje) {
+        try (ExecutorService carga = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<long[]> ativos = carga.submit(() -> tx.executarLeitura(() -> {
+                LongStream.Builder ids = LongStream.builder();
+                assinaturaDao.percorrerAlunosComAcessoLiberado(ids::add);
+                return ids.build().toArray();
+            }));
+            Future<Map<Long, LocalDate>> ultimos = carga.submit(() -> tx.executarLeitura(() -> {
+                Map<Long, LocalDate> dias = new HashMap<>();
+                frequenciaDao.percorrerUltimoCheckinPorAluno(dias::put);
+                return dias;
+            }));
+            Future<Map<Long, Integer>> recentes = carga.submit(() -> tx.executarLeitura(
+                    () -> frequenciaDao.contarPorAluno(hoje.minusDays(JANELA_DIAS - 1), hoje)));
+            Future<Map<Long, Integer>> anteriores = carga.submit(() -> tx.executarLeitura(
+                    () -> frequenciaDao.contarPorAluno(hoje.minusDays(2L * JANELA_DIAS - 1), hoje.minusDays(JANELA_DIAS))));
+            Future<Map<Long, Integer>> atrasados = carga.submit(() -> tx.executarLeitura(pagamentoDao::contarAtrasadosPorAluno));
+            Future<Map<Long, LocalDate>> fins = carga.submit(() -> tx.executarLeitura(assinaturaDao::fimDaAssinaturaAtivaPorAluno));
+
+            return new Entradas(hoje, ativos.get(), ultimos.get(), recentes.get(), anteriores.get(),
+                    atrasados.get(), fins.get());
+        } catch (ExecutionException e) {
+            throw new BusinessException("Falha ao carregar dados do risco de evasão: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Cálculo de risco de evasão interrompido.");
+        }
+    }
+
+    private List<RiscoEvasao> pontuarTodos(Entradas entradas) {
+        long[] ids = entradas.ativos();
+        RiscoEvasao[] riscos = new RiscoEvasao[ids.length];
+        int tamanhoParte = Math.max(TAMANHO_MINIMO_PARTE, (ids.length + paralelismo * 4 - 1) / (paralelismo * 4));
+
+        List<Callable<Void>> partes = new ArrayList<>();
+        for (int inicio = 0; inicio < ids.length; inicio += tamanhoParte) {
+            int de = inicio, ate = Math.min(ids.length, inicio + tamanhoParte);
+            partes.add(() -> {
+                for (int i = de; i < ate; i++) riscos[i] = pontuar(ids[i], entradas);
+                return null;
+            });
+        }
+        try (ForkJoinPool pool = new ForkJoinPool(paralelismo)) {
+            for (Future<Void> parte : pool.invokeAll(partes)) parte.get();
+        } catch (ExecutionException e) {
+            throw new BusinessException("Falha ao calcular risco de evasão: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Cálculo de risco de evasão interrompido.");
+        }
+        return Arrays.asList(riscos);
+    }
+
+    // Cada lote na sua transação: durante a gravação, consultas podem ver parte dos alunos já recalculada.
+    // Um lote com falha não interrompe os outros, e a limpeza das linhas antigas roda sempre no fim.
+    private int gravar(List<RiscoEvasao> riscos, LocalDateTime calculadoEm) {
+        List<String> falhas = new ArrayList<>();
+        for (int inicio = 0; inicio < riscos.size(); inicio += loteGravacao) {
+            List<RiscoEvasao> lote = riscos.subList(inicio, Math.min(riscos.size(), inicio + loteGravacao));
+            try {
+                gravarLote(lote, calculadoEm);
+            } catch (SQLException e) {
+                falhas.add("alunos " + lote.get(0).idAluno() + " a " + lote.get(lote.size() - 1).idAluno() + ": " + e.getMessage());
+            }
+        }
+        int removidos = 0;
+        try {
+            removidos = tx.executar(() -> dao.removerAnteriores(calculadoEm));
+        } catch (SQLException e) {
+            falhas.add("remoção dos registros antigos: " + e.getMessage());
+        }
+        ErrosDeLote.lancarSeHouver(falhas, "Falha ao gravar risco de evasão");
+        return removidos;
+    }
+
+    // Aluno excluído entre o SELECT em Aluno e a checagem da FK: na nova tentativa o SELECT já não o encontra
+    private void gravarLote(List<RiscoEvasao> lote, LocalDateTime calculadoEm) throws SQLException {
+        try {
+            tx.executarSemRetorno(() -> dao.gravar(lote, calculadoEm));
+        } catch (SQLException e) {
+            if (!ErrosSql.violou(e, ErrosSql.CHAVE_ESTRANGEIRA, "fk_risco_aluno")) throw e;
+            tx.executarSemRetorno(() -> dao.gravar(lote, calculadoEm));
+        }
+    }
+
+    private void agendarProxima(ScheduledExecutorService agendador, LocalTime horario) {
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime proxima = agora.toLocalDate().atTime(horario);
+        if (!proxima.isAfter(agora)) proxima = proxima.plusDays(1);
+        agendador.schedule(() -> {
+            try {
+                ExecucaoRiscoEvasao r = calcular();
+                System.out.printf("📉 Risco de evasão: %d aluno(s) em %d ms (carga %d, cálculo %d, gravação %d).%n",
+                        r.alunos(), r.totalMs(), r.cargaMs(), r.calculoMs(), r.gravacaoMs());
+                if (!r.dentroDaMeta()) {
+                    System.err.println("⚠️ Cálculo de risco de evasão acima da meta de " + r.metaMs() + " ms.");
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Falha no cálculo noturno de risco de evasão: " + e.getMessage());
+            } finally {
+                agendarProxima(agendador, horario);
+            }
+        }, Duration.between(agora, proxima).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // ===== pontuação =====
+    private static RiscoEvasao pontuar(long idAluno, Entradas e) {
+        LocalDate ultimo = e.ultimoCheckin().get(idAluno);
+        Integer diasSemCheckin = ultimo != null ? (int) Math.max(0, ChronoUnit.DAYS.between(ultimo, e.hoje())) : null;
+        int recentes = e.visitasRecentes().getOrDefault(idAluno, 0);
+        int anteriores = e.visitasAnteriores().getOrDefault(idAluno, 0);
+        int atrasados = e.atrasados().getOrDefault(idAluno, 0);
+        LocalDate fim = e.fimAssinatura().get(idAluno);
+        Integer diasParaFim = fim != null ? (int) ChronoUnit.DAYS.between(e.hoje(), fim) : null;
+
+        return new RiscoEvasao(idAluno, null, pontuacao(diasSemCheckin, recentes, anteriores, atrasados, diasParaFim),
+                diasSemCheckin, recentes, anteriores, atrasados, diasParaFim, null);
+    }
+
+    /**
+     * Soma ponderada de quatro fatores entre 0 e 1: dias sem check-in (cheio a partir de {@value #JANELA_DIAS}
+     * ou se nunca veio), queda das visitas em relação à janela anterior (cheio se não veio em nenhuma das
+     * duas), pagamentos atrasados (cheio a partir de {@value #ATRASOS_MAXIMOS}) e proximidade do fim da
+     * assinatura (cheio se já venceu).
+     */
+    static int pontuacao(Integer diasSemCheckin, int recentes, int anteriores, int atrasados, Integer diasParaFim) {
+        double ausencia = diasSemCheckin == null ? 1 : Math.min(diasSemCheckin, JANELA_DIAS) / (double) JANELA_DIAS;
+        double queda = anteriores > 0 ? Math.max(0, 1 - (double) recentes / anteriores) : (recentes == 0 ? 1 : 0);
+        double atraso = Math.min(atrasados, ATRASOS_MAXIMOS) / (double) ATRASOS_MAXIMOS;
+        double fim = diasParaFim == null ? 0
+                : diasParaFim <= 0 ? 1
+                : Math.max(0, JANELA_DIAS - diasParaFim) / (double) JANELA_DIAS;
+        return (int) Math.round(PESO_AUSENCIA * ausencia + PESO_QUEDA * queda + PESO_ATRASO * atraso + PESO_FIM * fim);
+    }
+
+    private static long ms(long inicioNanos, long fimNanos) {
+        return (fimNanos - inicioNanos) / 1_000_000;
+    }
+}
@@ -1,9 +1,13 @@
 package com.br.inatel.service.impl;
 
+import com.br.inatel.cache.CoerenciaCaches;
+import com.br.inatel.cache.LeituraCacheada;
+import com.br.inatel.config.GerenciadorTransacao;
 import com.br.inatel.dao.ExercicioDao;
 import com.br.inatel.dao.TreinoDao;
 import com.br.inatel.dao.TreinoExercicioDao;
 import com.br.inatel.model.Exercicio;
+import com.br.inatel.model.FichaTreino;
 import com.br.inatel.model.Treino;
 import com.br.inatel.model.TreinoExercicio;
 import com.br.inatel.service.TreinoExercicioService;
@@ -11,19 +15,32 @@ import com.br.inatel.service.exception.BusinessException;
 import com.br.inatel.service.exception.NotFoundException;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 public class TreinoExercicioServiceImpl implements TreinoExercicioService {
 
     private final TreinoExercicioDao teDao;
     private final TreinoDao treinoDao;
     private final ExercicioDao exercicioDao;
-
-    public TreinoExercicioServiceImpl(TreinoExercicioDao teDao, TreinoDao treinoDao, ExercicioDao exercicioDao) {
+    private final HidratadorEntidades hidratador;
+    private final LeituraCacheada<FichaTreino> fichas;
+    private final CoerenciaCaches coerencia;
+    private final GerenciadorTransacao tx;
+
+    public TreinoExercicioServiceImpl(TreinoExercicioDao teDao, TreinoDao treinoDao, ExercicioDao exercicioDao,
+                                      HidratadorEntidades hidratador, LeituraCacheada<FichaTreino> fichas,
+                                      CoerenciaCaches coerencia, GerenciadorTransacao tx) {
         this.teDao = Objects.requireNonNull(teDao, "teDao não pode ser null");
         this.treinoDao = Objects.requireNonNull(treinoDao, "treinoDao não pode ser null");
         this.exercicioDao = Objects.requireNonNull(exercicioDao, "exercicioDao não pode ser null");
+        this.hidratador = Objects.requireNonNull(hidratador, "hidratador não pode ser null");
+        this.fichas = Objects.requireNonNull(fichas, "fichas não pode ser null");
+        this.coerencia = Objects.requireNonNull(coerencia, "coerencia não pode ser null");
+        this.tx = Objects.requireNonNull(tx, "tx não pode ser null");
     }
 
     // ========= helper para garantir que o treino existe =========
@@ -48,27 +65,101 @@ public class TreinoExercicioServiceImpl implements TreinoExercicioService {
         validarCargaSeriesReps(series, reps, cargaKg, descansoSeg);
 
         try {
-            garantirTreinoExiste(idTreino);
-            if (!exercicioDao.existePorId(idExercicio)) throw new NotFoundException("Exercício não encontrado: " + idExercicio);
+            TreinoExercicio adicionado = tx.executar(() -> {
+                garantirTreinoExiste(idTreino);
+                if (!exercicioDao.existePorId(idExercicio)) throw new NotFoundException("Exercício não encontrado: " + idExercicio);
+
+                if (teDao.existeOrdem(idTreino, ordem)) {
+                    throw new BusinessException("Já existe item na ordem " + ordem + " para o treino " + idTreino + ".");
+                }
+
+                TreinoExercicio te = new TreinoExercicio();
+                Treino t = new Treino(); t.setId(idTreino); te.setTreino(t);
+                Exercicio e = new Exercicio(); e.setId(idExercicio); te.setExercicio(e);
+
+                te.setOrdem(ordem);
+                te.setSeries(series);
+                te.setReps(reps);
+                te.setCargaKg(cargaKg);
+                te.setDescansoSeg(descansoSeg);
+
+                teDao.insert(te);
+                return te;
+            });
+            coerencia.publicar(CoerenciaCaches.TREINO_EXERCICIO);
+            return adicionado;
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao adicionar exercício ao treino: " + e.getMessage());
+        } finally {
+            fichas.invalidar(idTreino);
+        }
+    }
 
-            if (teDao.existeOrdem(idTreino, ordem)) {
-                throw new BusinessException("Já existe item na ordem " + ordem + " para o treino " + idTreino + ".");
+    @Override
+    public List<TreinoExercicio> adicionarEmLote(long idTreino, List<TreinoExercicio> itens)
+            throws NotFoundException, BusinessException {
+        validarIdPositivo(idTreino, "idTreino");
+        if (itens == null || itens.isEmpty()) throw new BusinessException("Lote de itens vazio.");
+
+        // Valida o lote inteiro antes de tocar no banco
+        List<String> erros = new ArrayList<>();
+        Set<Short> ordens = new HashSet<>();
+        Set<Long> idsExercicio = new HashSet<>();
+        for (int i = 0; i < itens.size(); i++) {
+            TreinoExercicio te = itens.get(i);
+            try {
+                if (te == null || te.getExercicio() == null) throw new BusinessException("Exercício é obrigatório.");
+                validarIdPositivo(te.getExercicio().getId(), "idExercicio");
+                validarOrdem(te.getOrdem());
+                validarCargaSeriesReps(te.getSeries(), te.getReps(), te.getCargaKg(), te.getDescansoSeg());
+                if (!ordens.add(te.getOrdem())) throw new BusinessException("ordem " + te.getOrdem() + " repetida no lote.");
+                if (!idsExercicio.add(te.getExercicio().getId())) {
+                    throw new BusinessException("Exercício " + te.getExercicio().getId() + " repetido no lote.");
+                }
+            } catch (BusinessException e) {
+                erros.add("item " + (i + 1) + ": " + e.getMessage());
             }
+        }
+        ErrosDeLote.lancarSeHouver(erros);
 
-            TreinoExercicio te = new TreinoExercicio();
-            Treino t = new Treino(); t.setId(idTreino); te.setTreino(t);
-            Exercicio e = new Exercicio(); e.setId(idExercicio); te.setExercicio(e);
-
-            te.setOrdem(ordem);
-            te.setSeries(series);
-            te.setReps(reps);
-            te.setCargaKg(cargaKg);
-            te.setDescansoSeg(descansoSeg);
-
-            teDao.insert(te);
-            return te;
+        try {
+            List<TreinoExercicio> adicionados = tx.executar(() -> {
+                garantirTreinoExiste(idTreino);
+
+                Set<Long> existentes = exercicioDao.filtrarExistentes(idsExercicio);
+                Set<Short> ordensOcupadas = new HashSet<>();
+                Set<Long> exerciciosNoTreino = new HashSet<>();
+                for (TreinoExercicio atual : teDao.listarPorTreino(idTreino)) {
+                    ordensOcupadas.add(atual.getOrdem());
+                    exerciciosNoTreino.add(atual.getExercicio().getId());
+                }
+
+                List<String> conflitos = new ArrayList<>();
+                for (int i = 0; i < itens.size(); i++) {
+                    TreinoExercicio te = itens.get(i);
+                    long idExercicio = te.getExercicio().getId();
+                    if (!existentes.contains(idExercicio)) {
+                        conflitos.add("item " + (i + 1) + ": Exercício não encontrado: " + idExercicio);
+                    } else if (ordensOcupadas.contains(te.getOrdem())) {
+                        conflitos.add("item " + (i + 1) + ": Já existe item na ordem " + te.getOrdem() + " para o treino " + idTreino + ".");
+                    } else if (exerciciosNoTreino.contains(idExercicio)) {
+                        conflitos.add("item " + (i + 1) + ": Exercício " + idExercicio + " já está no treino " + idTreino + ".");
+                    }
+                }
+                ErrosDeLote.lancarSeHouver(conflitos);
+
+                Treino t = new Treino(); t.setId(idTreino);
+                for (TreinoExercicio te : itens) te.setTreino(t);
+
+                teDao.insertBatch(itens);
+                return itens;
+            });
+            coerencia.publicar(CoerenciaCaches.TREINO_EXERCICIO);
+            return adicionados;
         } catch (SQLException e) {
-            throw new BusinessException("Falha ao adicionar exercício ao treino: " + e.getMessage());
+            throw new BusinessException("Falha ao adicionar itens ao treino: " + e.getMessage());
+        } finally {
+            fichas.invalidar(idTreino);
         }
     }
 
@@ -83,28 +174,34 @@ public class TreinoExercicioServiceImpl implements TreinoExercicioService {
         validarCargaSeriesReps(series, reps, cargaKg, descansoSeg);
 
         try {
-            garantirTreinoExiste(idTreino);
-
-            TreinoExercicio atual = teDao.buscarPorChave(idTreino, ordem);
-            if (atual == null) throw new NotFoundException(
-                    "Item do treino não encontrado (treino=" + idTreino + ", ordem=" + ordem + ").");
-
-            if (!exercicioDao.existePorId(idExercicio)) {
-                throw new NotFoundException("Exercício não encontrado: " + idExercicio);
-            }
-
-            Exercicio e = new Exercicio(); e.setId(idExercicio);
-            atual.setExercicio(e);
-            atual.setSeries(series);
-            atual.setReps(reps);
-            atual.setCargaKg(cargaKg);
-            atual.setDescansoSeg(descansoSeg);
-
-            boolean ok = teDao.atualizar(atual);
-            if (!ok) throw new BusinessException("Atualização não aplicada (treino=" + idTreino + ", ordem=" + ordem + ").");
-            return atual;
+            TreinoExercicio atualizado = tx.executar(() -> {
+                garantirTreinoExiste(idTreino);
+
+                TreinoExercicio atual = teDao.buscarPorChave(idTreino, ordem);
+                if (atual == null) throw new NotFoundException(
+                        "Item do treino não encontrado (treino=" + idTreino + ", ordem=" + ordem + ").");
+
+                if (!exercicioDao.existePorId(idExercicio)) {
+                    throw new NotFoundException("Exercício não encontrado: " + idExercicio);
+                }
+
+                Exercicio e = new Exercicio(); e.setId(idExercicio);
+                atual.setExercicio(e);
+                atual.setSeries(series);
+                atual.setReps(reps);
+                atual.setCargaKg(cargaKg);
+                atual.setDescansoSeg(descansoSeg);
+
+                boolean ok = teDao.atualizar(atual);
+                if (!ok) throw new BusinessException("Atualização não aplicada (treino=" + idTreino + ", ordem=" + ordem + ").");
+                return atual;
+            });
+            coerencia.publicar(CoerenciaCaches.TREINO_EXERCICIO);
+            return atualizado;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao atualizar item do treino: " + e.getMessage());
+        } finally {
+            fichas.invalidar(idTreino);
         }
     }
 
@@ -117,16 +214,21 @@ public class TreinoExercicioServiceImpl implements TreinoExercicioService {
         validarOrdem(novaOrdem);
 
         try {
-            garantirTreinoExiste(idTreino);
+            tx.executarSemRetorno(() -> {
+                garantirTreinoExiste(idTreino);
 
-            TreinoExercicio atual = teDao.buscarPorChave(idTreino, ordemAntiga);
-            if (atual == null) throw new NotFoundException(
-                    "Item não encontrado para mover (treino=" + idTreino + ", ordem=" + ordemAntiga + ").");
+                TreinoExercicio atual = teDao.buscarPorChave(idTreino, ordemAntiga);
+                if (atual == null) throw new NotFoundException(
+                        "Item não encontrado para mover (treino=" + idTreino + ", ordem=" + ordemAntiga + ").");
 
-            boolean ok = teDao.alterarOrdem(idTreino, ordemAntiga, novaOrdem);
-            if (!ok) throw new BusinessException("Não foi possível alterar a ordem.");
+                boolean ok = teDao.alterarOrdem(idTreino, ordemAntiga, novaOrdem);
+                if (!ok) throw new BusinessException("Não foi possível alterar a ordem.");
+            });
+            coerencia.publicar(CoerenciaCaches.TREINO_EXERCICIO);
         } catch (SQLException e) {
             throw new BusinessException("Falha ao alterar ordem: " + e.getMessage());
+        } finally {
+            fichas.invalidar(idTreino);
         }
     }
 
@@ -138,17 +240,22 @@ public class TreinoExercicioServiceImpl implements TreinoExercicioService {
         validarOrdem(ordemB);
 
         try {
-            garantirTreinoExiste(idTreino);
-
-            if (teDao.buscarPorChave(idTreino, ordemA) == null)
-                throw new NotFoundException("Item (ordem " + ordemA + ") não encontrado no treino " + idTreino + ".");
-            if (teDao.buscarPorChave(idTreino, ordemB) == null)
-                throw new NotFoundException("Item (ordem " + ordemB + ") não encontrado no treino " + idTreino + ".");
-
-            boolean ok = teDao.trocarOrdem(idTreino, ordemA, ordemB);
-            if (!ok) throw new BusinessException("Não foi possível trocar as ordens.");
+            tx.executarSemRetorno(() -> {
+                garantirTreinoExiste(idTreino);
+
+                if (teDao.buscarPorChave(idTreino, ordemA) == null)
+                    throw new NotFoundException("Item (ordem " + ordemA + ") não encontrado no treino " + idTreino + ".");
+                if (teDao.buscarPorChave(idTreino, ordemB) == null)
+                    throw new NotFoundException("Item (ordem " + ordemB + ") não encontrado no treino " + idTreino + ".");
+
+                boolean ok = teDao.trocarOrdem(idTreino, ordemA, ordemB);
+                if (!ok) throw new BusinessException("Não foi possível trocar as ordens.");
+            });
+            coerencia.publicar(CoerenciaCaches.TREINO_EXERCICIO);
         } catch (SQLException e) {
             throw new BusinessException("Falha ao trocar ordens: " + e.getMessage());
+        } finally {
+            fichas.invalidar(idTreino);
         }
     }
 
@@ -158,12 +265,14 @@ public class TreinoExercicioServiceImpl implements TreinoExercicioService {
         validarIdPositivo(idTreino, "idTreino");
         validarOrdem(ordem);
         try {
-            garantirTreinoExiste(idTreino);
-
-            TreinoExercicio te = teDao.buscarPorChave(idTreino, ordem);
-            if (te == null) throw new NotFoundException(
-                    "Item do treino não encontrado (treino=" + idTreino + ", ordem=" + ordem + ").");
-            return te;
+            return tx.executarLeitura(() -> {
+                garantirTreinoExiste(idTreino);
+
+                TreinoExercicio te = teDao.buscarPorChave(idTreino, ordem);
+                if (te == null) throw new NotFoundException(
+                        "Item do treino não encontrado (treino=" + idTreino + ", ordem=" + ordem + ").");
+                return te;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao buscar item do treino: " + e.getMessage());
         }
@@ -173,28 +282,54 @@ public class TreinoExercicioServiceImpl implements TreinoExercicioService {
     public List<TreinoExercicio> listarPorTreino(long idTreino) throws NotFoundException {
         validarIdPositivo(idTreino, "idTreino");
         try {
-            garantirTreinoExiste(idTreino);
-            return teDao.listarPorTreino(idTreino);
+            return tx.executarLeitura(() -> {
+                garantirTreinoExiste(idTreino);
+                return teDao.listarPorTreino(idTreino);
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar itens do treino: " + e.getMessage());
         }
     }
 
+    @Override
+    public FichaTreino buscarFicha(long idTreino) throws NotFoundException {
+        validarIdPositivo(idTreino, "idTreino");
+        try {
+            FichaTreino ficha = fichas.obter(idTreino, () -> tx.executarLeitura(() -> montarFicha(idTreino)));
+            if (ficha == null) throw new NotFoundException("Treino não encontrado: " + idTreino);
+            return ficha;
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao montar ficha do treino: " + e.getMessage());
+        }
+    }
+
+    private FichaTreino montarFicha(long idTreino) throws SQLException {
+        Treino t = treinoDao.buscarPorId(idTreino);
+        if (t == null) return null;
+        hidratador.hidratarTreinos(List.of(t));
+        return FichaTreino.de(t, teDao.listarPorTreino(idTreino));
+    }
+
     // ========== DELETE ==========
     @Override
     public void removerPorChave(long idTreino, short ordem) throws NotFoundException {
         validarIdPositivo(idTreino, "idTreino");
         validarOrdem(ordem);
         try {
-            garantirTreinoExiste(idTreino);
-
-            if (teDao.buscarPorChave(idTreino, ordem) == null) {
-                throw new NotFoundException("Item não encontrado para remoção (treino=" + idTreino + ", ordem=" + ordem + ").");
-            }
-            boolean ok = teDao.deletarPorChave(idTreino, ordem);
-            if (!ok) throw new BusinessException("Exclusão não aplicada (treino=" + idTreino + ", ordem=" + ordem + ").");
+            tx.executarSemRetorno(() -> {
+                garantirTreinoExiste(idTreino);
+
+                if (teDao.buscarPorChave(idTreino, ordem) == null) {
+                    throw new NotFoundException("Item não encontrado para remoção (treino=" + idTreino + ", ordem=" + ordem + ").");
+                }
+                boolean ok = teDao.deletarPorChave(idTreino, ordem);
+                if (!ok) throw new BusinessException("Exclusão não aplicada (treino=" + idTreino + ", ordem=" + ordem + ").");
+            });
+            coerencia.publicar(CoerenciaCaches.TREINO_EXERCICIO);
         } catch (SQLException e) {
             throw new BusinessException("Falha ao excluir item do treino: " + e.getMessage());
+        } finally {
+            fichas.invalidar(idTreino);
         }
     }
 
@@ -203,9 +338,13 @@ public class TreinoExercicioServiceImpl implements TreinoExercicioService {
         validarIdPositivo(idTreino, "idTreino");
         try {
             garantirTreinoExiste(idTreino);
-            return teDao.deletarTodosDoTreino(idTreino);
+            int removidos = teDao.deletarTodosDoTreino(idTreino);
+            if (removidos > 0) coerencia.publicar(CoerenciaCaches.TREINO_EXERCICIO);
+            return removidos;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao excluir itens do treino: " + e.getMessage());
+        } finally {
+            fichas.invalidar(idTreino);
         }
     }
 
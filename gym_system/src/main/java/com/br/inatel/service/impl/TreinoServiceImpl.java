@@ -1,10 +1,15 @@
 package com.br.inatel.service.impl;
 
+import com.br.inatel.cache.CoerenciaCaches;
+import com.br.inatel.cache.LeituraCacheada;
+import com.br.inatel.config.GerenciadorTransacao;
 import com.br.inatel.dao.AlunoDao;
 import com.br.inatel.dao.InstrutorDao;
 import com.br.inatel.dao.TreinoDao;
 import com.br.inatel.model.Aluno;
+import com.br.inatel.model.FichaTreino;
 import com.br.inatel.model.Instrutor;
+import com.br.inatel.model.Pagina;
 import com.br.inatel.model.Treino;
 import com.br.inatel.service.TreinoService;
 import com.br.inatel.service.exception.BusinessException;
@@ -17,43 +22,61 @@ import java.util.Objects;
 
 public class TreinoServiceImpl implements TreinoService {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+
     private final TreinoDao treinoDao;
     private final InstrutorDao instrutorDao;
     private final AlunoDao alunoDao;
+    private final HidratadorEntidades hidratador;
+    private final LeituraCacheada<FichaTreino> fichas;
+    private final CoerenciaCaches coerencia;
+    private final GerenciadorTransacao tx;
 
-    public TreinoServiceImpl(TreinoDao treinoDao, InstrutorDao instrutorDao, AlunoDao alunoDao) {
+    public TreinoServiceImpl(TreinoDao treinoDao, InstrutorDao instrutorDao, AlunoDao alunoDao,
+                             HidratadorEntidades hidratador, LeituraCacheada<FichaTreino> fichas,
+                             CoerenciaCaches coerencia, GerenciadorTransacao tx) {
         this.treinoDao = Objects.requireNonNull(treinoDao, "treinoDao não pode ser null");
         this.instrutorDao = Objects.requireNonNull(instrutorDao, "instrutorDao não pode ser null");
         this.alunoDao = Objects.requireNonNull(alunoDao, "alunoDao não pode ser null");
+        this.hidratador = Objects.requireNonNull(hidratador, "hidratador não pode ser null");
+        this.fichas = Objects.requireNonNull(fichas, "fichas não pode ser null");
+        this.coerencia = Objects.requireNonNull(coerencia, "coerencia não pode ser null");
+        this.tx = Objects.requireNonNull(tx, "tx não pode ser null");
     }
 
     // ===== CREATE =====
     @Override
     public Treino criar(String titulo, LocalDate createdAt, boolean ativo, long idInstrutor, long idAluno)
             throws BusinessException {
-        titulo = validarTitulo(titulo);
+        String tituloValidado = validarTitulo(titulo);
         validarIdPositivo(idInstrutor, "idInstrutor");
         validarIdPositivo(idAluno, "idAluno");
-        createdAt = normalizarCreatedAt(createdAt);
+        LocalDate data = normalizarCreatedAt(createdAt);
 
         try {
-            if (!instrutorDao.existePorId(idInstrutor)) {
-                throw new NotFoundException("Instrutor não encontrado: " + idInstrutor);
-            }
-            if (!alunoDao.existePorId(idAluno)) {
-                throw new NotFoundException("Aluno não encontrado: " + idAluno);
-            }
-
-            Treino t = new Treino();
-            t.setTitulo(titulo);
-            t.setCreatedAt(createdAt);
-            t.setAtivo(ativo);
-
-            Instrutor i = new Instrutor(); i.setId(idInstrutor); t.setInstrutor(i);
-            Aluno a = new Aluno(); a.setId(idAluno); t.setAluno(a);
-
-            treinoDao.insert(t);
-            return t;
+            Treino criado = tx.executar(() -> {
+                if (!instrutorDao.existePorId(idInstrutor)) {
+                    throw new NotFoundException("Instrutor não encontrado: " + idInstrutor);
+                }
+                if (!alunoDao.existePorId(idAluno)) {
+                    throw new NotFoundException("Aluno não encontrado: " + idAluno);
+                }
+
+                Treino t = new Treino();
+                t.setTitulo(tituloValidado);
+                t.setCreatedAt(data);
+                t.setAtivo(ativo);
+
+                Instrutor i = new Instrutor(); i.setId(idInstrutor); t.setInstrutor(i);
+                Aluno a = new Aluno(); a.setId(idAluno); t.setAluno(a);
+
+                treinoDao.insert(t);
+                return t;
+            });
+            treinoDao.invalidarCache(criado.getId());
+            fichas.invalidar(criado.getId());
+            coerencia.publicar(CoerenciaCaches.TREINO);
+            return criado;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao criar treino: ", e);
         }
@@ -64,34 +87,41 @@ public class TreinoServiceImpl implements TreinoService {
     public Treino atualizar(long id, String titulo, LocalDate createdAt, boolean ativo, long idInstrutor, long idAluno)
             throws NotFoundException, BusinessException {
         validarIdPositivo(id, "id");
-        titulo = validarTitulo(titulo);
+        String tituloValidado = validarTitulo(titulo);
         validarIdPositivo(idInstrutor, "idInstrutor");
         validarIdPositivo(idAluno, "idAluno");
-        createdAt = normalizarCreatedAt(createdAt);
+        LocalDate data = normalizarCreatedAt(createdAt);
 
         try {
-            Treino existente = treinoDao.buscarPorId(id);
-            if (existente == null) throw new NotFoundException("Treino não encontrado: " + id);
-
-            if (!instrutorDao.existePorId(idInstrutor)) {
-                throw new NotFoundException("Instrutor não encontrado: " + idInstrutor);
-            }
-            if (!alunoDao.existePorId(idAluno)) {
-                throw new NotFoundException("Aluno não encontrado: " + idAluno);
-            }
-
-            existente.setTitulo(titulo);;
-            existente.setCreatedAt(createdAt);
-            existente.setAtivo(ativo);
-
-            Instrutor i = new Instrutor(); i.setId(idInstrutor); existente.setInstrutor(i);
-            Aluno a = new Aluno(); a.setId(idAluno); existente.setAluno(a);
-
-            int rows = treinoDao.atualizar(existente);
-            if (rows == 0) throw new BusinessException("Atualização não aplicada (id=" + id + ").");
-            return existente;
+            Treino atualizado = tx.executar(() -> {
+                Treino existente = treinoDao.buscarPorId(id);
+                if (existente == null) throw new NotFoundException("Treino não encontrado: " + id);
+
+                if (!instrutorDao.existePorId(idInstrutor)) {
+                    throw new NotFoundException("Instrutor não encontrado: " + idInstrutor);
+                }
+                if (!alunoDao.existePorId(idAluno)) {
+                    throw new NotFoundException("Aluno não encontrado: " + idAluno);
+                }
+
+                existente.setTitulo(tituloValidado);
+                existente.setCreatedAt(data);
+                existente.setAtivo(ativo);
+
+                Instrutor i = new Instrutor(); i.setId(idInstrutor); existente.setInstrutor(i);
+                Aluno a = new Aluno(); a.setId(idAluno); existente.setAluno(a);
+
+                int rows = treinoDao.atualizar(existente);
+                if (rows == 0) throw new BusinessException("Atualização não aplicada (id=" + id + ").");
+                return existente;
+            });
+            coerencia.publicar(CoerenciaCaches.TREINO);
+            return atualizado;
         } catch (SQLException e) {
             throw new BusinessException("Falha ao atualizar treino: " + e.getMessage());
+        } finally {
+            treinoDao.invalidarCache(id);
+            fichas.invalidar(id);
         }
     }
 
@@ -100,9 +130,12 @@ public class TreinoServiceImpl implements TreinoService {
     public Treino buscarPorId(long id) throws NotFoundException {
         validarIdPositivo(id, "id");
         try {
-            Treino t = treinoDao.buscarPorId(id);
-            if (t == null) throw new NotFoundException("Treino não encontrado: " + id);
-            return t;
+            return tx.executarLeitura(() -> {
+                Treino t = treinoDao.buscarPorId(id);
+                if (t == null) throw new NotFoundException("Treino não encontrado: " + id);
+                hidratador.hidratarTreinos(List.of(t));
+                return t;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao buscar treino: " + e);
         }
@@ -111,12 +144,32 @@ public class TreinoServiceImpl implements TreinoService {
     @Override
     public List<Treino> listarTodos() {
         try {
-            return treinoDao.listarTodos();
+            return tx.executarLeitura(() -> {
+                List<Treino> lista = treinoDao.listarTodos();
+                hidratador.hidratarTreinos(lista);
+                return lista;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar treinos: " + e.getMessage());
         }
     }
 
+    @Override
+    public Pagina<Treino> listarTodos(int tamanho, String cursor) {
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> {
+                Pagina<Treino> pagina = treinoDao.listarTodos(tamanho, cursor);
+                hidratador.hidratarTreinos(pagina.itens());
+                return pagina;
+            });
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar treinos: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
     // ===== DELETE =====
     @Override
     public void excluir(long id) throws NotFoundException, BusinessException {
@@ -124,8 +177,12 @@ public class TreinoServiceImpl implements TreinoService {
       try {
           int rows = treinoDao.deletarPorId(id);
           if (rows == 0) throw new NotFoundException("Treino não encontrado: " + id);
+          coerencia.publicar(CoerenciaCaches.TREINO);
       } catch (SQLException e){
           throw new BusinessException("Falha ao excluir treino.", e);
+      } finally {
+          treinoDao.invalidarCache(id);
+          fichas.invalidar(id);
       }
     }
 
@@ -136,8 +193,12 @@ public class TreinoServiceImpl implements TreinoService {
         try {
             int rows = treinoDao.alterarAtivo(id, ativo);
             if (rows == 0) throw new BusinessException("Treino não encontrado: " + id);
+            coerencia.publicar(CoerenciaCaches.TREINO);
         } catch (SQLException e) {
             throw new BusinessException("Falha ao alterar status do treino: ", e);
+        } finally {
+            treinoDao.invalidarCache(id);
+            fichas.invalidar(id);
         }
     }
 
@@ -146,9 +207,30 @@ public class TreinoServiceImpl implements TreinoService {
     public List<Treino> listarPorAluno(long idAluno) {
         validarIdPositivo(idAluno, "idAluno");
         try {
-            return treinoDao.listarPorAluno(idAluno);
+            return tx.executarLeitura(() -> {
+                List<Treino> lista = treinoDao.listarPorAluno(idAluno);
+                hidratador.hidratarTreinos(lista);
+                return lista;
+            });
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar treinos do aluno: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Pagina<Treino> listarPorAluno(long idAluno, int tamanho, String cursor) {
+        validarIdPositivo(idAluno, "idAluno");
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> {
+                Pagina<Treino> pagina = treinoDao.listarPorAluno(idAluno, tamanho, cursor);
+                hidratador.hidratarTreinos(pagina.itens());
+                return pagina;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar treinos do aluno: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
         }
     }
 
@@ -156,13 +238,40 @@ public class TreinoServiceImpl implements TreinoService {
     public List<Treino> listarPorInstrutor(long idInstrutor) {
         validarIdPositivo(idInstrutor, "idInstrutor");
         try {
-            return treinoDao.listarPorInstrutor(idInstrutor);
+            return tx.executarLeitura(() -> {
+                List<Treino> lista = treinoDao.listarPorInstrutor(idInstrutor);
+                hidratador.hidratarTreinos(lista);
+                return lista;
+            });
         } catch (SQLException e) {
             throw new BusinessException("Falha ao listar treinos do instrutor: " + e.getMessage());
         }
     }
 
+    @Override
+    public Pagina<Treino> listarPorInstrutor(long idInstrutor, int tamanho, String cursor) {
+        validarIdPositivo(idInstrutor, "idInstrutor");
+        validarTamanhoPagina(tamanho);
+        try {
+            return tx.executarLeitura(() -> {
+                Pagina<Treino> pagina = treinoDao.listarPorInstrutor(idInstrutor, tamanho, cursor);
+                hidratador.hidratarTreinos(pagina.itens());
+                return pagina;
+            });
+        } catch (SQLException e) {
+            throw new BusinessException("Falha ao listar treinos do instrutor: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
     // ===== validações/helpers =====
+    private void validarTamanhoPagina(int tamanho) {
+        if (tamanho <= 0 || tamanho > TAMANHO_MAXIMO_PAGINA) {
+            throw new BusinessException("Tamanho de página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA + ".");
+        }
+    }
+
     private void validarIdPositivo(long id, String campo) {
         if (id <= 0) throw new BusinessException(campo + " deve ser positivo.");
     }